@@ -0,0 +1,116 @@
+package me.datafox.noterganizer.api;
+
+import me.datafox.noterganizer.api.dto.NoteEditDto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Utility methods for computing, applying and verifying the edits sent with
+ * {@link me.datafox.noterganizer.api.dto.NotePatchDto}. Offsets of edits refer to
+ * the base content, and edits must be ordered and must not overlap.
+ *
+ * @author datafox
+ */
+public class NotePatcher {
+    /**
+     * @param content content of a note
+     * @return hex encoded SHA-256 hash of the UTF-8 encoded content
+     */
+    public static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes a single edit that replaces the part between the common prefix and
+     * suffix of the base and target contents. Never splits a surrogate pair.
+     *
+     * @param base content the edits are applied to
+     * @param target content after the edits
+     * @return edits that turn the base content into the target content, or an empty list
+     *         if they are equal
+     */
+    public static List<NoteEditDto> diff(String base, String target) {
+        int max = Math.min(base.length(), target.length());
+
+        int prefix = 0;
+
+        while(prefix < max && base.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+
+        if(prefix == base.length() && prefix == target.length()) {
+            return List.of();
+        }
+
+        if(prefix > 0 && Character.isHighSurrogate(base.charAt(prefix - 1))) {
+            prefix--;
+        }
+
+        int suffix = 0;
+
+        while(suffix < max - prefix &&
+                base.charAt(base.length() - suffix - 1) == target.charAt(target.length() - suffix - 1)) {
+            suffix++;
+        }
+
+        if(suffix > 0 && Character.isLowSurrogate(base.charAt(base.length() - suffix))) {
+            suffix--;
+        }
+
+        return List.of(NoteEditDto
+                .builder()
+                .offset(prefix)
+                .length(base.length() - prefix - suffix)
+                .text(target.substring(prefix, target.length() - suffix))
+                .build());
+    }
+
+    /**
+     * @param base content the edits are applied to, null is treated as empty
+     * @param edits ordered and non-overlapping edits
+     * @return content with the edits applied
+     * @throws IllegalArgumentException if the edits or any edit are null, or an edit is
+     *                                  out of bounds, overlaps a previous edit or has no
+     *                                  text
+     */
+    public static String apply(String base, List<NoteEditDto> edits) {
+        if(edits == null) {
+            throw new IllegalArgumentException("No edits");
+        }
+
+        if(base == null) {
+            base = "";
+        }
+
+        StringBuilder builder = new StringBuilder(base.length());
+
+        int position = 0;
+
+        for(NoteEditDto edit : edits) {
+            if(edit == null) {
+                throw new IllegalArgumentException("Null edit at position " + position);
+            }
+
+            if(edit.getOffset() < position || edit.getOffset() > base.length() || edit.getLength() < 0 ||
+                    edit.getLength() > base.length() - edit.getOffset() || edit.getText() == null) {
+                throw new IllegalArgumentException("Invalid edit " + edit + " at position " + position);
+            }
+
+            builder.append(base, position, edit.getOffset()).append(edit.getText());
+
+            position = edit.getOffset() + edit.getLength();
+        }
+
+        return builder.append(base, position, base.length()).toString();
+    }
+}
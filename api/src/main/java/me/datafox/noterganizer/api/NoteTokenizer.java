@@ -0,0 +1,117 @@
+package me.datafox.noterganizer.api;
+
+import java.util.*;
+
+/**
+ * Utility methods for splitting note titles and contents into search terms. A term is a
+ * lowercase run of letters and digits at least {@link #MIN_LENGTH} characters long, and
+ * terms longer than {@link #MAX_LENGTH} characters are truncated. Markdown syntax and
+ * other punctuation never becomes part of a term.
+ *
+ * @author datafox
+ */
+public class NoteTokenizer {
+    public static final int MIN_LENGTH = 2;
+
+    public static final int MAX_LENGTH = 64;
+
+    /**
+     * @param texts texts to be tokenized, {@code null} values are ignored
+     * @return distinct terms of all texts in the order they first appear
+     */
+    public static Set<String> terms(String... texts) {
+        Set<String> terms = new LinkedHashSet<>();
+
+        for(String text : texts) {
+            if(text != null) {
+                forEachTerm(text, (term, start, end) -> {
+                    terms.add(term);
+
+                    return true;
+                });
+            }
+        }
+
+        return terms;
+    }
+
+    /**
+     * @param text text to be tokenized
+     * @return all terms of the text in the order they appear, including duplicates
+     */
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+
+        forEachTerm(text, (term, start, end) -> {
+            tokens.add(term);
+
+            return true;
+        });
+
+        return tokens;
+    }
+
+    /**
+     * @param text text to be searched
+     * @param terms terms to search for
+     * @return index of the first character of the first term in the text that is one of
+     *         the given terms, or -1 if none of the terms are found
+     */
+    public static int indexOf(String text, Collection<String> terms) {
+        int[] index = { -1 };
+
+        forEachTerm(text, (term, start, end) -> {
+            if(terms.contains(term)) {
+                index[0] = start;
+
+                return false;
+            }
+
+            return true;
+        });
+
+        return index[0];
+    }
+
+    private static void forEachTerm(String text, TermConsumer consumer) {
+        int i = 0;
+
+        while(i < text.length()) {
+            int codePoint = text.codePointAt(i);
+
+            if(!Character.isLetterOrDigit(codePoint)) {
+                i += Character.charCount(codePoint);
+
+                continue;
+            }
+
+            int start = i;
+
+            while(i < text.length() && Character.isLetterOrDigit(codePoint = text.codePointAt(i))) {
+                i += Character.charCount(codePoint);
+            }
+
+            if(text.codePointCount(start, i) < MIN_LENGTH) {
+                continue;
+            }
+
+            String term = text.substring(start, i).toLowerCase(Locale.ROOT);
+
+            if(term.length() > MAX_LENGTH) {
+                term = term.substring(0, Character.isHighSurrogate(term.charAt(MAX_LENGTH - 1)) ? MAX_LENGTH - 1 : MAX_LENGTH);
+            }
+
+            if(!consumer.accept(term, start, i)) {
+                return;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface TermConsumer {
+        /**
+         * @return {@code false} to stop tokenizing
+         */
+        boolean accept(String term, int start, int end);
+    }
+}
@@ -0,0 +1,22 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Dto object for applying multiple note operations with a single request. The operations
+ * are validated together and applied in order, and if any of them is invalid, none of
+ * them are applied.
+ * Sent from client to server.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteBatchDto {
+    @Singular
+    private List<NoteOperationDto> operations;
+}
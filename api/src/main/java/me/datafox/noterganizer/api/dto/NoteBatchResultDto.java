@@ -0,0 +1,22 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Dto object for the results of a {@link NoteBatchDto}. Contains the UUID of the note of
+ * every operation in the same order as the operations, so the UUIDs of created notes are
+ * in place of their temporary identifiers.
+ * Sent from server to client.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteBatchResultDto {
+    @Singular
+    private List<String> uuids;
+}
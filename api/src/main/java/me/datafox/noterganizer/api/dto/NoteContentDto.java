@@ -0,0 +1,24 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dto object for sending the content of a single note.
+ * Sent from server to client.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteContentDto {
+    private String uuid;
+
+    private String title;
+
+    private String content;
+}
@@ -0,0 +1,25 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dto object for a single edit of a note's content. Replaces a range of
+ * characters of the base content with new text. Should only be present
+ * within {@link NotePatchDto}.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteEditDto {
+    private int offset;
+
+    private int length;
+
+    private String text;
+}
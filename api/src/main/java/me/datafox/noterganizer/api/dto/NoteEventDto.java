@@ -0,0 +1,58 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dto object for a single change to a note within a {@link SpaceEventDto}. Creations
+ * contain a parent and a title, changes contain a title and the hash of the new content
+ * as computed by {@link me.datafox.noterganizer.api.NotePatcher#hash(String)}, moves
+ * contain a parent and removals contain whether the children of the note were removed
+ * too. Contents are not sent, so clients fetch the content of a changed note if they
+ * need it.
+ * Sent from server to client.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteEventDto {
+    private Type type;
+
+    private String uuid;
+
+    private String parent;
+
+    private String title;
+
+    private String hash;
+
+    private boolean removeChildren;
+
+    public static NoteEventDto created(String uuid, String parent, String title) {
+        return builder().type(Type.CREATED).uuid(uuid).parent(parent).title(title).build();
+    }
+
+    public static NoteEventDto changed(String uuid, String title, String hash) {
+        return builder().type(Type.CHANGED).uuid(uuid).title(title).hash(hash).build();
+    }
+
+    public static NoteEventDto moved(String uuid, String parent) {
+        return builder().type(Type.MOVED).uuid(uuid).parent(parent).build();
+    }
+
+    public static NoteEventDto removed(String uuid, boolean removeChildren) {
+        return builder().type(Type.REMOVED).uuid(uuid).removeChildren(removeChildren).build();
+    }
+
+    public enum Type {
+        CREATED,
+        CHANGED,
+        MOVED,
+        REMOVED
+    }
+}
@@ -0,0 +1,57 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dto object for a single operation of a {@link NoteBatchDto}. Creations take a parent
+ * and a title, changes take a title and content, moves take a parent and removals take
+ * whether the children of the note should be removed too. The UUID of a creation is a
+ * temporary identifier chosen by the client, which later operations of the same batch
+ * may use in place of the UUID of the created note.
+ * Sent from client to server.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteOperationDto {
+    private Type type;
+
+    private String uuid;
+
+    private String parent;
+
+    private String title;
+
+    private String content;
+
+    private boolean removeChildren;
+
+    public static NoteOperationDto create(String reference, String parent, String title) {
+        return builder().type(Type.CREATE).uuid(reference).parent(parent).title(title).build();
+    }
+
+    public static NoteOperationDto change(String uuid, String title, String content) {
+        return builder().type(Type.CHANGE).uuid(uuid).title(title).content(content).build();
+    }
+
+    public static NoteOperationDto move(String uuid, String parent) {
+        return builder().type(Type.MOVE).uuid(uuid).parent(parent).build();
+    }
+
+    public static NoteOperationDto remove(String uuid, boolean removeChildren) {
+        return builder().type(Type.REMOVE).uuid(uuid).removeChildren(removeChildren).build();
+    }
+
+    public enum Type {
+        CREATE,
+        CHANGE,
+        MOVE,
+        REMOVE
+    }
+}
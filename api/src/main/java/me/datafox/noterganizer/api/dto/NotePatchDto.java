@@ -0,0 +1,28 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Dto object for changing a note's contents by sending only the edits made
+ * to it. The edits are applied in order to the base content the client last
+ * received or saved, identified by its hash.
+ * Sent from client to server.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotePatchDto {
+    private String uuid;
+
+    private String title;
+
+    private String baseHash;
+
+    @Singular
+    private List<NoteEditDto> edits;
+}
@@ -0,0 +1,25 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Dto object for sending note trees without note contents.
+ * Sent from server to client.
+ * Should only be present within {@link SpaceTreeDto}.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteTreeDto {
+    private String uuid;
+
+    private String title;
+
+    @Singular
+    private List<NoteTreeDto> children;
+}
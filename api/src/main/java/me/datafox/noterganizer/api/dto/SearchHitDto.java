@@ -0,0 +1,27 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dto object for a single note matching a search query. The snippet is a short
+ * excerpt of the content of the note around the first matching term.
+ * Sent from server to client.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchHitDto {
+    private String uuid;
+
+    private String space;
+
+    private String title;
+
+    private String snippet;
+}
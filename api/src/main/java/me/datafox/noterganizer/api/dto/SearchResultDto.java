@@ -0,0 +1,29 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Dto object for a single page of notes matching a search query, ordered by relevance.
+ * Total is the number of matching notes on all pages.
+ * Sent from server to client.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchResultDto {
+    private String query;
+
+    private int page;
+
+    private int size;
+
+    private int total;
+
+    @Singular
+    private List<SearchHitDto> hits;
+}
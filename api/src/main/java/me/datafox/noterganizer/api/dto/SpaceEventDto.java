@@ -0,0 +1,26 @@
+package me.datafox.noterganizer.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Dto object for the changes that incremented the version of a space once. The version
+ * is the version of the space after the changes. The first event sent to a subscriber
+ * contains the current version of the space and no changes.
+ * Sent from server to client.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpaceEventDto {
+    private String space;
+
+    private long version;
+
+    @Singular
+    private List<NoteEventDto> events;
+}
@@ -0,0 +1,115 @@
+package me.datafox.noterganizer.api.test.unit;
+
+import me.datafox.noterganizer.api.NotePatcher;
+import me.datafox.noterganizer.api.dto.NoteEditDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author datafox
+ */
+public class NotePatcherTest {
+    @Test
+    public void hash_valid() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", NotePatcher.hash(""));
+        assertEquals(NotePatcher.hash("content"), NotePatcher.hash("content"));
+        assertNotEquals(NotePatcher.hash("content"), NotePatcher.hash("Content"));
+    }
+
+    @Test
+    public void diff_roundTrip() {
+        String base = "The quick brown fox jumps over the lazy dog";
+        String target = "The quick red fox jumped over the dog";
+
+        List<NoteEditDto> edits = NotePatcher.diff(base, target);
+
+        assertEquals(1, edits.size());
+        assertEquals(target, NotePatcher.apply(base, edits));
+        assertEquals(NotePatcher.hash(target), NotePatcher.hash(NotePatcher.apply(base, edits)));
+    }
+
+    @Test
+    public void diff_insertAndDelete() {
+        assertEquals("abcdef", NotePatcher.apply("abef", NotePatcher.diff("abef", "abcdef")));
+        assertEquals("abef", NotePatcher.apply("abcdef", NotePatcher.diff("abcdef", "abef")));
+        assertEquals("content", NotePatcher.apply("", NotePatcher.diff("", "content")));
+        assertEquals("", NotePatcher.apply("content", NotePatcher.diff("content", "")));
+    }
+
+    @Test
+    public void diff_equal() {
+        assertTrue(NotePatcher.diff("content", "content").isEmpty());
+    }
+
+    @Test
+    public void diff_surrogatePairNotSplit() {
+        String base = "a\uD83D\uDE00b";
+        String target = "a\uD83D\uDE01b";
+
+        NoteEditDto edit = NotePatcher.diff(base, target).get(0);
+
+        assertEquals(1, edit.getOffset());
+        assertEquals(2, edit.getLength());
+        assertEquals("\uD83D\uDE01", edit.getText());
+    }
+
+    @Test
+    public void apply_multipleEdits() {
+        assertEquals("a-b-c", NotePatcher.apply("axbyc", List.of(edit(1, 1, "-"), edit(3, 1, "-"))));
+    }
+
+    @Test
+    public void apply_outOfBoundsFail() {
+        assertThrows(IllegalArgumentException.class, () -> NotePatcher.apply("abc", List.of(edit(4, 0, "x"))));
+        assertThrows(IllegalArgumentException.class, () -> NotePatcher.apply("abc", List.of(edit(2, 2, "x"))));
+        assertThrows(IllegalArgumentException.class, () -> NotePatcher.apply("abc", List.of(edit(1, -1, "x"))));
+    }
+
+    @Test
+    public void apply_overlappingFail() {
+        assertThrows(IllegalArgumentException.class, () -> NotePatcher.apply("abcdef", List.of(edit(1, 3, "x"), edit(2, 1, "y"))));
+    }
+
+    @Test
+    public void apply_unorderedFail() {
+        assertThrows(IllegalArgumentException.class, () -> NotePatcher.apply("abcdef", List.of(edit(4, 1, "x"), edit(1, 1, "y"))));
+    }
+
+    @Test
+    public void apply_noTextFail() {
+        assertThrows(IllegalArgumentException.class, () -> NotePatcher.apply("abc", List.of(edit(1, 1, null))));
+    }
+
+    @Test
+    public void apply_nullEditsFail() {
+        assertThrows(IllegalArgumentException.class, () -> NotePatcher.apply("abc", null));
+    }
+
+    @Test
+    public void apply_nullEditFail() {
+        List<NoteEditDto> edits = new ArrayList<>();
+        edits.add(edit(0, 1, "x"));
+        edits.add(null);
+
+        assertThrows(IllegalArgumentException.class, () -> NotePatcher.apply("abc", edits));
+    }
+
+    @Test
+    public void apply_nullBase() {
+        assertEquals("abc", NotePatcher.apply(null, List.of(edit(0, 0, "abc"))));
+        assertThrows(IllegalArgumentException.class, () -> NotePatcher.apply(null, List.of(edit(0, 1, "x"))));
+    }
+
+    private NoteEditDto edit(int offset, int length, String text) {
+        return NoteEditDto
+                .builder()
+                .offset(offset)
+                .length(length)
+                .text(text)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package me.datafox.noterganizer.api.test.unit;
+
+import me.datafox.noterganizer.api.NoteTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author datafox
+ */
+public class NoteTokenizerTest {
+    @Test
+    public void terms_valid() {
+        assertEquals(List.of("hello", "world", "42"),
+                List.copyOf(NoteTokenizer.terms("Hello, World! 42")));
+    }
+
+    @Test
+    public void terms_distinctAcrossTexts() {
+        assertEquals(List.of("title", "content"),
+                List.copyOf(NoteTokenizer.terms("Title", null, "content TITLE")));
+    }
+
+    @Test
+    public void terms_markdownIgnored() {
+        assertEquals(Set.of("heading", "bold", "link", "https", "example", "com"),
+                NoteTokenizer.terms("# Heading\n**bold** [link](https://example.com)"));
+    }
+
+    @Test
+    public void terms_shortTermsIgnored() {
+        assertEquals(Set.of("ab"), NoteTokenizer.terms("a ab b"));
+    }
+
+    @Test
+    public void terms_longTermsTruncated() {
+        String term = "x".repeat(NoteTokenizer.MAX_LENGTH);
+
+        assertEquals(Set.of(term), NoteTokenizer.terms(term + "yz"));
+    }
+
+    @Test
+    public void terms_surrogatePairNotSplit() {
+        //U+1D400 is a letter outside the basic multilingual plane
+        String letter = new String(Character.toChars(0x1D400));
+        String text = "x".repeat(NoteTokenizer.MAX_LENGTH - 1) + letter;
+
+        String term = NoteTokenizer.terms(text).iterator().next();
+
+        assertEquals(NoteTokenizer.MAX_LENGTH - 1, term.length());
+    }
+
+    @Test
+    public void tokens_duplicatesKept() {
+        assertEquals(List.of("foo", "bar", "foo"), NoteTokenizer.tokens("foo bar foo"));
+    }
+
+    @Test
+    public void indexOf_valid() {
+        assertEquals(6, NoteTokenizer.indexOf("lorem Ipsum dolor", Set.of("ipsum", "dolor")));
+    }
+
+    @Test
+    public void indexOf_wholeTermsOnly() {
+        assertEquals(-1, NoteTokenizer.indexOf("lorem ipsum", Set.of("ips")));
+    }
+}
@@ -7,6 +7,8 @@ import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.RowConstraints;
 
+import java.nio.file.Path;
+
 /**
  * Constant fields for the client.
  *
@@ -23,6 +25,22 @@ public class ClientConstants {
     public static final double POPUP_WIDTH = 300;
     public static final double POPUP_HEIGHT = 180;
 
+    public static final int SEARCH_RESULT_LIMIT = 50;
+
+    public static final int RESPONSE_CACHE_SIZE = 32;
+
+    public static final double AUTOSAVE_DELAY = 1000;
+    public static final double SAVE_RETRY_DELAY = 500;
+    public static final double SAVE_RETRY_MAX_DELAY = 30000;
+    public static final int SAVE_ATTEMPTS = 6;
+
+    public static final double RENDER_DELAY = 150;
+
+    public static final double SUBSCRIBE_RETRY_DELAY = 1000;
+    public static final double SUBSCRIBE_RETRY_MAX_DELAY = 60000;
+
+    public static final Path CACHE_DIRECTORY = Path.of(System.getProperty("user.home"), ".noterganizer", "cache");
+
     static {
         ALWAYS_ROW.setVgrow(Priority.ALWAYS);
         ALWAYS_ROW.setValignment(VPos.TOP);
@@ -1,5 +1,7 @@
 package me.datafox.noterganizer.client;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import javafx.application.Application;
@@ -8,6 +10,8 @@ import me.datafox.noterganizer.client.injection.Injector;
 import me.datafox.noterganizer.client.injection.PerComponentFactory;
 import me.datafox.noterganizer.client.model.Context;
 import me.datafox.noterganizer.client.serialization.HttpCookieAdapter;
+import me.datafox.noterganizer.client.service.CacheService;
+import me.datafox.noterganizer.client.service.SaveService;
 import me.datafox.noterganizer.client.service.UiService;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -28,11 +32,13 @@ import java.util.prefs.Preferences;
  * @author datafox
  */
 public class NoterganizerClient extends Application {
+    private Injector injector;
+
     @Override
     public void start(Stage stage) {
         Configurator.setRootLevel(Level.DEBUG);
 
-        Injector injector = Injector
+        injector = Injector
                 .builder()
                 .beans(instantiateExternalBeans())
                 .factories(instantiateFactories())
@@ -48,6 +54,15 @@ public class NoterganizerClient extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        if(injector == null) return;
+
+        //Send pending saves and wait for the cache to be written before the daemon threads are stopped
+        injector.getBean(SaveService.class).flush();
+        injector.getBean(CacheService.class).flush();
+    }
+
     private Collection<Object> instantiateExternalBeans() {
         HttpClient client = HttpClient
                 .newBuilder()
@@ -60,11 +75,16 @@ public class NoterganizerClient extends Application {
                 .registerTypeAdapter(HttpCookie.class, new HttpCookieAdapter())
                 .create();
 
+        CBORMapper cborMapper = CBORMapper
+                .builder()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+
         Preferences preferences = Preferences
                 .userRoot()
                 .node("noterganizer");
 
-        return List.of(this, client, context, gson, preferences);
+        return List.of(this, client, context, gson, cborMapper, preferences);
     }
 
     private Collection<PerComponentFactory<?>> instantiateFactories() {
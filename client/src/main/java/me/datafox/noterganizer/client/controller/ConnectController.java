@@ -7,13 +7,13 @@ import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.TextField;
+import me.datafox.noterganizer.api.dto.UserDto;
 import me.datafox.noterganizer.client.injection.Inject;
-import me.datafox.noterganizer.client.service.PopupService;
-import me.datafox.noterganizer.client.service.RestService;
-import me.datafox.noterganizer.client.service.SettingsService;
-import me.datafox.noterganizer.client.service.UiService;
+import me.datafox.noterganizer.client.model.Context;
+import me.datafox.noterganizer.client.service.*;
 import org.apache.logging.log4j.Logger;
 
+import java.net.HttpCookie;
 import java.util.Optional;
 
 /**
@@ -22,8 +22,18 @@ import java.util.Optional;
  * @author datafox
  */
 public class ConnectController {
+    private final Context context;
+
     private final Logger logger;
 
+    private final CacheService cacheService;
+
+    private final ConnectionService connectionService;
+
+    private final MappingService mappingService;
+
+    private final NoteService noteService;
+
     private final PopupService popupService;
 
     private final RestService restService;
@@ -48,12 +58,22 @@ public class ConnectController {
     private Button connect;
 
     @Inject
-    public ConnectController(Logger logger,
+    public ConnectController(Context context,
+                             Logger logger,
+                             CacheService cacheService,
+                             ConnectionService connectionService,
+                             MappingService mappingService,
+                             NoteService noteService,
                              PopupService popupService,
                              RestService restService,
                              SettingsService settingsService,
                              UiService uiService) {
+        this.context = context;
         this.logger = logger;
+        this.cacheService = cacheService;
+        this.connectionService = connectionService;
+        this.mappingService = mappingService;
+        this.noteService = noteService;
         this.popupService = popupService;
         this.restService = restService;
         this.settingsService = settingsService;
@@ -84,24 +104,106 @@ public class ConnectController {
             server.requestFocus();
 
             if(settingsService.getAutoConnect() && !server.getText().isBlank()) {
+                if(openCached()) return;
+
                 logger.info("Auto-connect turned on, attempting to connect");
                 connect(null);
             }
         });
     }
 
+    /**
+     * If auto-login is turned on and the user is cached, switch to the main view with the
+     * cached user right away, and connect and log in in the background.
+     *
+     * @return true if the cached user was opened
+     */
+    private boolean openCached() {
+        HttpCookie rememberCookie = settingsService.getCookie();
+
+        if(rememberCookie == null) return false;
+
+        Optional<UserDto> cached = cacheService.getUser();
+
+        if(cached.isEmpty()) return false;
+
+        logger.info("Auto-connect and auto-login turned on, opening cached user and connecting in the background");
+
+        context.setUser(mappingService.mapToUser(cached.get()));
+
+        uiService.setScene("main");
+
+        String address = server.getText();
+
+        restService
+                .reconnectAsync(address)
+                .thenAccept(optional -> reconnected(optional.isPresent(), rememberCookie));
+
+        return true;
+    }
+
+    /**
+     * Log in with the remember me cookie in the background if the connection was
+     * successful, otherwise keep showing cached data.
+     */
+    private void reconnected(boolean connected, HttpCookie rememberCookie) {
+        if(!connected) {
+            logger.info("Could not connect, showing cached data");
+
+            popupService.showInfoPopup("Working offline",
+                    "Could not connect to the server. Showing notes saved on this computer.");
+            return;
+        }
+
+        connectionService.setRememberCookie(rememberCookie);
+
+        restService
+                .fetchUserAsync()
+                .thenAccept(this::loggedIn);
+    }
+
+    /**
+     * Replace the cached user and refresh the current space, or switch to the login view
+     * if logging in with the remember me cookie failed.
+     */
+    private void loggedIn(Optional<UserDto> optional) {
+        if(optional.isEmpty()) {
+            logger.info("Could not log in with the remember me cookie");
+
+            context.setSpace(null);
+
+            uiService.setScene("login");
+            return;
+        }
+
+        cacheService.putUser(optional.get());
+
+        context.setUser(mappingService.mapToUser(optional.get()));
+
+        noteService.refreshSpace();
+    }
+
     /**
      * Send connect request to server and if successful, change auto-connect settings
      * and switch to the login view.
      */
     private void connect(ActionEvent ignored) {
-        Optional<String> optional = restService.connect(server.getText());
+        //Ignore the action while connecting
+        if(connect.isDisabled()) return;
 
-        if(optional.isEmpty()) return;
+        connect.setDisable(true);
 
-        settingsService.setAddress(server.getText());
-        settingsService.setAutoConnect(autoConnect.isSelected());
+        String address = server.getText();
 
-        uiService.setScene("login");
+        restService.connectAsync(address).thenAccept(optional -> {
+            connect.setDisable(false);
+
+            if(optional.isEmpty()) return;
+
+            settingsService.setAddress(address);
+            settingsService.setAutoConnect(autoConnect.isSelected());
+
+            uiService.setScene("login");
+        });
     }
 }
@@ -23,6 +23,8 @@ public class LoginController {
 
     private final Logger logger;
 
+    private final CacheService cacheService;
+
     private final ConnectionService connectionService;
 
     private final MappingService mappingService;
@@ -59,6 +61,7 @@ public class LoginController {
     @Inject
     public LoginController(Context context,
                            Logger logger,
+                           CacheService cacheService,
                            ConnectionService connectionService,
                            MappingService mappingService,
                            PopupService popupService,
@@ -67,6 +70,7 @@ public class LoginController {
                            UiService uiService) {
         this.context = context;
         this.logger = logger;
+        this.cacheService = cacheService;
         this.connectionService = connectionService;
         this.mappingService = mappingService;
         this.popupService = popupService;
@@ -110,24 +114,41 @@ public class LoginController {
      * Send login request to server and if successful, call loginUser.
      */
     private void login(ActionEvent ignored) {
+        //Ignore the action while logging in
+        if(login.isDisabled()) return;
+
+        login.setDisable(true);
+
         //Try to log in
-        Optional<String> optional = restService.login(
+        restService.loginAsync(
                 username.getText(),
                 password.getText(),
-                remember.isSelected());
-
-        //Return if unsuccessful
-        if(optional.isEmpty()) return;
+                remember.isSelected()).thenAccept(optional -> {
+            //Return if unsuccessful
+            if(optional.isEmpty()) {
+                login.setDisable(false);
+                return;
+            }
 
-        loginUser();
+            loginUser();
+        });
     }
 
     /**
-     * Send user details request to server and if successful, save remember me settings,
-     * save user details to context and switch to the main view.
+     * Send user details request to server and call loggedIn with the result.
      */
     private void loginUser() {
-        Optional<UserDto> optional = restService.getUser();
+        login.setDisable(true);
+
+        restService.getUserAsync().thenAccept(this::loggedIn);
+    }
+
+    /**
+     * If successful, save remember me settings, save user details to context and switch
+     * to the main view.
+     */
+    private void loggedIn(Optional<UserDto> optional) {
+        login.setDisable(false);
 
         if(optional.isEmpty()) return;
 
@@ -139,6 +160,8 @@ public class LoginController {
             settingsService.removeCookie();
         }
 
+        cacheService.putUser(optional.get());
+
         context.setUser(mappingService.mapToUser(optional.get()));
 
         uiService.setScene("main");
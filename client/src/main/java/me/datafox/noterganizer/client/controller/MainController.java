@@ -5,11 +5,10 @@ import javafx.beans.value.ObservableValue;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.fxml.FXML;
-import javafx.scene.control.Menu;
-import javafx.scene.control.MenuItem;
-import javafx.scene.control.TreeView;
+import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import me.datafox.noterganizer.api.dto.UserChangeDto;
+import me.datafox.noterganizer.client.ClientConstants;
 import me.datafox.noterganizer.client.factory.NoteTreeCellFactory;
 import me.datafox.noterganizer.client.injection.Inject;
 import me.datafox.noterganizer.client.model.Context;
@@ -32,6 +31,8 @@ public class MainController {
 
     private final Editor editor;
 
+    private final CacheService cacheService;
+
     private final NoteTreeCellFactory noteTreeCellFactory;
 
     private final ConnectionService connectionService;
@@ -42,6 +43,8 @@ public class MainController {
 
     private final RestService restService;
 
+    private final SearchService searchService;
+
     private final SettingsService settingsService;
 
     private final UiService uiService;
@@ -70,9 +73,18 @@ public class MainController {
     @FXML
     private MenuItem about;
 
+    @FXML
+    private TextField search;
+
+    @FXML
+    private ScrollPane notesPane;
+
     @FXML
     private TreeView<Note> notes;
 
+    @FXML
+    private ListView<Note> searchResults;
+
     @FXML
     private GridPane content;
 
@@ -80,20 +92,24 @@ public class MainController {
     public MainController(Context context,
                           Logger logger,
                           Editor editor,
+                          CacheService cacheService,
                           NoteTreeCellFactory noteTreeCellFactory,
                           ConnectionService connectionService, NoteService noteService,
                           PopupService popupService,
                           RestService restService,
+                          SearchService searchService,
                           SettingsService settingsService,
                           UiService uiService) {
         this.context = context;
         this.logger = logger;
         this.editor = editor;
+        this.cacheService = cacheService;
         this.noteTreeCellFactory = noteTreeCellFactory;
         this.connectionService = connectionService;
         this.noteService = noteService;
         this.popupService = popupService;
         this.restService = restService;
+        this.searchService = searchService;
         this.settingsService = settingsService;
         this.uiService = uiService;
     }
@@ -119,6 +135,59 @@ public class MainController {
 
         //Refresh content when selected note has changed
         context.noteProperty().addListener(this::refreshContent);
+
+        //Show search results instead of the note tree while a query is entered
+        searchResults.setCellFactory(view -> new ListCell<>() {
+            @Override
+            protected void updateItem(Note note, boolean empty) {
+                super.updateItem(note, empty);
+                setText(empty || note == null ? null : note.getTitle());
+            }
+        });
+        searchResults.visibleProperty().bind(search.textProperty().isNotEmpty());
+        notesPane.visibleProperty().bind(searchResults.visibleProperty().not());
+        search.textProperty().addListener(this::refreshSearchResults);
+        search.setOnAction(event -> openSearchResult(searchResults.getItems().stream().findFirst().orElse(null)));
+        searchResults.setOnMouseClicked(event -> openSearchResult(searchResults.getSelectionModel().getSelectedItem()));
+
+        //Clear search when the space has changed
+        context.spaceProperty().addListener((observable, oldValue, newValue) -> search.clear());
+
+        //Open the last opened space after initialisation, its cached note tree is shown right away
+        Platform.runLater(this::openLastSpace);
+    }
+
+    /**
+     * Load the last opened space if it still belongs to the user.
+     */
+    private void openLastSpace() {
+        String uuid = settingsService.getLastSpace();
+
+        if(uuid == null || context.getSpace() != null) return;
+
+        if(context.getUser().getSpaces().stream().anyMatch(space -> space.getUuid().equals(uuid))) {
+            noteService.loadSpace(uuid);
+        }
+    }
+
+    /**
+     * Search notes with the entered query and show the results.
+     */
+    private void refreshSearchResults(ObservableValue<? extends String> ignored, String ignored1, String query) {
+        searchResults.getItems().setAll(searchService.search(query, ClientConstants.SEARCH_RESULT_LIMIT));
+    }
+
+    /**
+     * Clear search and select a note in the note tree.
+     *
+     * @param note note to be selected, may be null
+     */
+    private void openSearchResult(Note note) {
+        if(note == null) return;
+
+        search.clear();
+
+        noteService.openNote(note.getUuid());
     }
 
     /**
@@ -154,9 +223,14 @@ public class MainController {
     }
 
     /**
-     * Clear context, disable auto-connect and auto-login, and switch to connect view.
+     * Remove cached data, clear context, disable auto-connect and auto-login, and switch
+     * to connect view.
      */
     private void logout(ActionEvent ignored) {
+        cacheService.removeUser();
+
+        settingsService.setLastSpace(null);
+
         context.clear();
 
         changeSettings(UserSettings
@@ -16,8 +16,6 @@ import me.datafox.noterganizer.client.service.UiService;
 import me.datafox.noterganizer.client.service.ValidationService;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Optional;
-
 /**
  * JavaFx controller for the registration view.
  *
@@ -107,6 +105,9 @@ public class RegisterController {
      * Validate fields and send a user registration request, and if successful switch to the login view.
      */
     private void register(ActionEvent ignored) {
+        //Ignore the action while a registration request is being sent
+        if(register.isDisabled()) return;
+
         //If fields are not valid, show a popup and return
         if(!validationService.validateUsername(username.getText())) {
             logger.info("Username validation failed");
@@ -139,11 +140,15 @@ public class RegisterController {
                 .password(password.getText())
                 .build();
 
-        Optional<String> optional = restService.register(dto);
+        register.setDisable(true);
 
-        if(optional.isEmpty()) return;
+        restService.registerAsync(dto).thenAccept(optional -> {
+            register.setDisable(false);
 
-        uiService.setScene("login");
+            if(optional.isEmpty()) return;
+
+            uiService.setScene("login");
+        });
     }
 
     /**
@@ -1,29 +1,32 @@
 package me.datafox.noterganizer.client.event;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
- * A simple event handler.
+ * A simple event handler. Listeners are called in the order they were added.
+ *
+ * @param <T> type of the events
  *
  * @author datafox
  */
-public class EventSubscription {
-    private final Set<Runnable> listeners;
+public class EventSubscription<T> {
+    private final Set<Consumer<T>> listeners;
 
     public EventSubscription() {
-        listeners = new HashSet<>();
+        listeners = new LinkedHashSet<>();
     }
 
-    public void addListener(Runnable listener) {
+    public void addListener(Consumer<T> listener) {
         listeners.add(listener);
     }
 
-    public void removeListener(Runnable listener) {
+    public void removeListener(Consumer<T> listener) {
         listeners.remove(listener);
     }
 
-    public void call() {
-        listeners.forEach(Runnable::run);
+    public void call(T event) {
+        listeners.forEach(listener -> listener.accept(event));
     }
 }
@@ -0,0 +1,47 @@
+package me.datafox.noterganizer.client.event;
+
+import me.datafox.noterganizer.client.model.Note;
+
+/**
+ * A change to the note tree of the current space. Events are called after the change has
+ * been made to the note, so the parent of a moved note is already its new parent, and the
+ * title of a renamed note is already its new title. When a note is removed without its
+ * children, every child is moved to the parent of the note before the note is removed.
+ * The whole tree is replaced when a space is opened, refreshed or closed.
+ *
+ * @param type type of the change
+ * @param note note that was changed, or the root of the new tree if the tree was
+ *             replaced, which is null if no space is open
+ * @param oldParent previous parent of a moved note, null for other changes
+ *
+ * @author datafox
+ */
+public record NoteTreeEvent(Type type, Note note, Note oldParent) {
+    public static NoteTreeEvent replaced(Note root) {
+        return new NoteTreeEvent(Type.REPLACED, root, null);
+    }
+
+    public static NoteTreeEvent added(Note note) {
+        return new NoteTreeEvent(Type.ADDED, note, null);
+    }
+
+    public static NoteTreeEvent removed(Note note) {
+        return new NoteTreeEvent(Type.REMOVED, note, null);
+    }
+
+    public static NoteTreeEvent moved(Note note, Note oldParent) {
+        return new NoteTreeEvent(Type.MOVED, note, oldParent);
+    }
+
+    public static NoteTreeEvent renamed(Note note) {
+        return new NoteTreeEvent(Type.RENAMED, note, null);
+    }
+
+    public enum Type {
+        REPLACED,
+        ADDED,
+        REMOVED,
+        MOVED,
+        RENAMED
+    }
+}
@@ -4,6 +4,7 @@ import me.datafox.noterganizer.client.model.Response;
 import me.datafox.noterganizer.client.service.impl.ConnectionServiceImpl;
 
 import java.net.http.HttpResponse;
+import java.util.function.Consumer;
 
 /**
  * A factory for creating {@link HttpResponse.BodyHandler} instances to be
@@ -17,4 +18,22 @@ public interface JsonBodyHandlerFactory {
      * @return body handler for the type
      */
     <T> HttpResponse.BodyHandler<Response<T>> buildBodyHandler(Class<T> type);
+
+    /**
+     * @param type type to be deserialized
+     * @return value for the Accept header of requests whose responses are deserialized
+     *         to the type
+     */
+    String getAcceptHeader(Class<?> type);
+
+    /**
+     * The response is read as a stream of Server-Sent Events, and the data of every event
+     * is deserialized and passed to the listener as soon as it arrives.
+     *
+     * @param type type the data of events is deserialized to
+     * @param listener listener for deserialized events, called on a thread of the HTTP client
+     * @return body handler for the event stream, whose body is "success" once the stream
+     *         has ended
+     */
+    <T> HttpResponse.BodyHandler<Response<String>> buildEventHandler(Class<T> type, Consumer<T> listener);
 }
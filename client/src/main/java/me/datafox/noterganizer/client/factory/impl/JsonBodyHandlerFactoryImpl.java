@@ -1,41 +1,66 @@
 package me.datafox.noterganizer.client.factory.impl;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import me.datafox.noterganizer.client.factory.JsonBodyHandlerFactory;
 import me.datafox.noterganizer.client.factory.JsonBodyPublisherFactory;
 import me.datafox.noterganizer.client.injection.Component;
 import me.datafox.noterganizer.client.injection.Inject;
 import me.datafox.noterganizer.client.model.Response;
+import me.datafox.noterganizer.client.service.SettingsService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Implementation of {@link JsonBodyPublisherFactory}. {@link HttpResponse.BodyHandler}s
- * are cached by type. Uses {@link Gson} to deserialize JSON data.
+ * are cached by type. Uses {@link Gson} to deserialize JSON data. If the binary format is
+ * enabled in the settings, DTOs are requested in the CBOR format, which is deserialized
+ * with a {@link CBORMapper}, but JSON is still accepted from servers that do not support
+ * it. The binary format is off by default, since compressed JSON is usually smaller.
+ * Decompresses responses compressed with gzip. Event streams are read line by line and
+ * their events are always deserialized from JSON.
  *
  * @author datafox
  */
 
 @Component
 public class JsonBodyHandlerFactoryImpl implements JsonBodyHandlerFactory {
+    private static final String CBOR = "application/cbor";
+
     private final Gson gson;
 
+    private final CBORMapper cborMapper;
+
     private final Logger logger;
 
     private final Map<Class<?>, Handler<?>> handlerMap;
 
+    private final String dtoAcceptHeader;
+
     @Inject
     public JsonBodyHandlerFactoryImpl(Gson gson,
-                                      Logger logger) {
+                                      CBORMapper cborMapper,
+                                      Logger logger,
+                                      SettingsService settingsService) {
         this.gson = gson;
+        this.cborMapper = cborMapper;
         this.logger = logger;
 
-        handlerMap = new HashMap<>();
+        handlerMap = new ConcurrentHashMap<>();
+
+        dtoAcceptHeader = settingsService.getBinaryFormat() ? CBOR + ", application/json;q=0.9" : "application/json";
     }
 
     /**
@@ -47,16 +72,50 @@ public class JsonBodyHandlerFactoryImpl implements JsonBodyHandlerFactory {
     public <T> HttpResponse.BodyHandler<Response<T>> buildBodyHandler(Class<T> type) {
         logger.info("Requesting body handler for class " + type.getName());
 
-        if(!handlerMap.containsKey(type)) {
+        return (Handler<T>) handlerMap.computeIfAbsent(type, key -> {
             logger.info("No handler found for class " + type.getName() + ", instantiating");
-            handlerMap.put(type, new Handler<>(type));
+
+            return new Handler<>(type);
+        });
+    }
+
+    /**
+     * Plain strings are always requested as text, since the server does not encode
+     * them as JSON or CBOR.
+     */
+    @Override
+    public String getAcceptHeader(Class<?> type) {
+        if(type == String.class) {
+            return "text/plain, */*;q=0.5";
         }
 
-        return (Handler<T>) handlerMap.get(type);
+        return dtoAcceptHeader;
+    }
+
+    @Override
+    public <T> HttpResponse.BodyHandler<Response<String>> buildEventHandler(Class<T> type, Consumer<T> listener) {
+        return responseInfo -> {
+            if(responseInfo.statusCode() != 200) {
+                logger.info("Subscription was not successful, error code " + responseInfo.statusCode());
+
+                return HttpResponse.BodySubscribers.mapping(
+                        HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                        Response::error);
+            }
+
+            logger.info("Subscription was successful");
+
+            return HttpResponse.BodySubscribers.fromLineSubscriber(
+                    new EventSubscriber<>(type, listener),
+                    subscriber -> Response.of("success"),
+                    StandardCharsets.UTF_8,
+                    null);
+        };
     }
 
     /**
-     * Custom {@link HttpResponse.BodyHandler} implementation using {@link Gson}.
+     * Custom {@link HttpResponse.BodyHandler} implementation using {@link Gson} and
+     * {@link CBORMapper}.
      */
     private class Handler<T> implements HttpResponse.BodyHandler<Response<T>> {
         private final Logger logger;
@@ -72,24 +131,124 @@ public class JsonBodyHandlerFactoryImpl implements JsonBodyHandlerFactory {
         public HttpResponse.BodySubscriber<Response<T>> apply(HttpResponse.ResponseInfo responseInfo) {
             logger.info("Response received");
 
-            HttpResponse.BodySubscriber<String> upstream =
-                    HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8);
+            boolean gzip = responseInfo.headers()
+                    .firstValue("Content-Encoding")
+                    .filter("gzip"::equalsIgnoreCase)
+                    .isPresent();
+
+            HttpResponse.BodySubscriber<byte[]> upstream = HttpResponse.BodySubscribers.mapping(
+                    HttpResponse.BodySubscribers.ofByteArray(),
+                    bytes -> decompress(bytes, gzip));
 
             if(responseInfo.statusCode() == 200 || responseInfo.statusCode() == 302) {
                 logger.info("Request was successful");
 
-                return HttpResponse.BodySubscribers.mapping(upstream, this::fromJson);
+                boolean cbor = responseInfo.headers()
+                        .firstValue("Content-Type")
+                        .filter(contentType -> contentType.startsWith(CBOR))
+                        .isPresent();
+
+                return HttpResponse.BodySubscribers.mapping(upstream, cbor ? this::fromCbor : this::fromJson);
             }
 
             logger.info("Request was not successful, error code " + responseInfo.statusCode());
 
-            return HttpResponse.BodySubscribers.mapping(upstream, Response::error);
+            return HttpResponse.BodySubscribers.mapping(upstream, bytes ->
+                    Response.error(new String(bytes, StandardCharsets.UTF_8)));
         }
 
-        private Response<T> fromJson(String string) {
+        private byte[] decompress(byte[] bytes, boolean gzip) {
+            if(!gzip) {
+                return bytes;
+            }
+
+            logger.info("Decompressing response of " + bytes.length + " bytes");
+
+            try(GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                return input.readAllBytes();
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private Response<T> fromJson(byte[] bytes) {
             logger.info("Deserializing response from JSON");
 
-            return Response.of(gson.fromJson(string, type));
+            return Response.of(gson.fromJson(new String(bytes, StandardCharsets.UTF_8), type));
+        }
+
+        private Response<T> fromCbor(byte[] bytes) {
+            logger.info("Deserializing response from CBOR");
+
+            try {
+                return Response.of(cborMapper.readValue(bytes, type));
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Line subscriber for Server-Sent Events. Only the data field is read, and the data
+     * lines of an event are joined and deserialized when the blank line ending the event
+     * arrives.
+     */
+    private class EventSubscriber<T> implements Flow.Subscriber<String> {
+        private final Class<T> type;
+
+        private final Consumer<T> listener;
+
+        private final StringBuilder data;
+
+        public EventSubscriber(Class<T> type, Consumer<T> listener) {
+            this.type = type;
+            this.listener = listener;
+            data = new StringBuilder();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if(line.isEmpty()) {
+                if(!data.isEmpty()) {
+                    T event;
+
+                    try {
+                        event = gson.fromJson(data.toString(), type);
+                    } catch(JsonParseException e) {
+                        //A missed event is noticed from the version of the next one
+                        logger.warn("Ignoring malformed event " + data, e);
+
+                        event = null;
+                    }
+
+                    data.setLength(0);
+
+                    if(event != null) listener.accept(event);
+                }
+
+                return;
+            }
+
+            if(!line.startsWith("data:")) return;
+
+            if(!data.isEmpty()) data.append('\n');
+
+            data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            logger.info("Event stream failed", throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            logger.info("Event stream ended");
         }
     }
 }
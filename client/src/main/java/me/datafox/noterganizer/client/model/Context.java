@@ -10,6 +10,7 @@ import javafx.scene.control.TreeView;
 import lombok.Getter;
 import lombok.Setter;
 import me.datafox.noterganizer.client.event.EventSubscription;
+import me.datafox.noterganizer.client.event.NoteTreeEvent;
 
 /**
  * Contains all non-persisted application data that is accessed by multiple components
@@ -54,10 +55,11 @@ public class Context {
     private final ObjectProperty<TreeView<Note>> treeView;
 
     /**
-     * Simple event system, should be called every time the note tree is changed.
+     * Simple event system, should be called with the change every time the note tree is
+     * changed.
      */
     @Getter
-    private final EventSubscription noteTreeChangeSubscription;
+    private final EventSubscription<NoteTreeEvent> noteTreeChangeSubscription;
 
     public Context() {
         address = "";
@@ -66,7 +68,7 @@ public class Context {
         note = new ReadOnlyObjectWrapper<>();
         notes = FXCollections.observableHashMap();
         treeView = new SimpleObjectProperty<>();
-        noteTreeChangeSubscription = new EventSubscription();
+        noteTreeChangeSubscription = new EventSubscription<>();
 
         //Initialise note listener so that it is the same instance every time
         ChangeListener<TreeItem<Note>> noteListener = this::noteChanged;
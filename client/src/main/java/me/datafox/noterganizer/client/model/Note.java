@@ -12,7 +12,8 @@ import lombok.*;
 import java.util.List;
 
 /**
- * Contains all note data.
+ * Contains all note data. The content of a note is only fetched from the server when
+ * the note is first opened, and notes without a content are not loaded.
  *
  * @author datafox
  */
@@ -48,6 +49,10 @@ public class Note implements Comparable<Note> {
     @Setter
     private transient boolean removed;
 
+    @Getter
+    @Setter
+    private transient boolean loaded;
+
     @Builder
     Note(@NonNull String uuid, String title, String content, Note parent, @Singular List<Note> children) {
         this.uuid = uuid;
@@ -57,6 +62,7 @@ public class Note implements Comparable<Note> {
         this.parent = new SimpleObjectProperty<>(parent);
         this.children = FXCollections.observableArrayList(children);
         removed = false;
+        loaded = content != null;
     }
 
     public String getTitle() {
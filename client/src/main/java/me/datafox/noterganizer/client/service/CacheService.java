@@ -0,0 +1,75 @@
+package me.datafox.noterganizer.client.service;
+
+import me.datafox.noterganizer.api.dto.NoteEventDto;
+import me.datafox.noterganizer.api.dto.SpaceTreeDto;
+import me.datafox.noterganizer.api.dto.UserDto;
+
+import java.util.Optional;
+
+/**
+ * The cache service keeps a copy of the user, the note trees of their spaces and the
+ * contents of the notes they have opened on disk, so that the last space can be shown
+ * right away on startup and read without a connection to the server. Data is kept
+ * separately for every server address and user. Writes are done in the background.
+ *
+ * @author datafox
+ */
+public interface CacheService {
+    /**
+     * @return user that last logged in to the server in the settings, if cached
+     */
+    Optional<UserDto> getUser();
+
+    /**
+     * @param user user that logged in to the server in the settings
+     */
+    void putUser(UserDto user);
+
+    /**
+     * Removes the cached user of the server in the settings and all of their cached spaces.
+     */
+    void removeUser();
+
+    /**
+     * @param uuid UUID of the space
+     * @return note tree of the space of the current user, if cached
+     */
+    Optional<SpaceTreeDto> getSpace(String uuid);
+
+    /**
+     * @param space note tree of a space of the current user
+     */
+    void putSpace(SpaceTreeDto space);
+
+    /**
+     * Records a single change to the note tree of a space, so that the whole tree does not
+     * need to be written for every change. Changes to spaces that are not cached are
+     * ignored.
+     *
+     * @param uuid UUID of a space of the current user
+     * @param event change to the note tree of the space
+     */
+    void putSpaceEvent(String uuid, NoteEventDto event);
+
+    /**
+     * @param uuid UUID of the space to be removed
+     */
+    void removeSpace(String uuid);
+
+    /**
+     * @param uuid UUID of a note of the current user
+     * @return last cached content of the note, if cached
+     */
+    Optional<String> getContent(String uuid);
+
+    /**
+     * @param uuid UUID of a note of the current user
+     * @param content content of the note
+     */
+    void putContent(String uuid, String content);
+
+    /**
+     * Blocks until all pending writes are done.
+     */
+    void flush();
+}
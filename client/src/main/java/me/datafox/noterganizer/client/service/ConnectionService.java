@@ -4,9 +4,14 @@ import me.datafox.noterganizer.client.model.Response;
 
 import java.net.HttpCookie;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
- * The connection service handles the lower level network requests.
+ * The connection service handles the lower level network requests. Every request has a
+ * blocking variant and a variant ending in Async that returns right away. The futures of
+ * the latter are completed on a thread of the HTTP client, and they never complete
+ * exceptionally since failed requests are returned as error responses.
  *
  * @author datafox
  */
@@ -17,6 +22,12 @@ public interface ConnectionService {
      */
     Response<String> connect(String address);
 
+    /**
+     * @param address address to connect to
+     * @return future of a response containing either "success" or an error status
+     */
+    CompletableFuture<Response<String>> connectAsync(String address);
+
     /**
      * @param username username
      * @param password password
@@ -25,6 +36,14 @@ public interface ConnectionService {
      */
     Response<String> login(String username, String password, boolean remember);
 
+    /**
+     * @param username username
+     * @param password password
+     * @param remember if set to true, remember me will be enabled
+     * @return future of a response containing either "success" or an error status
+     */
+    CompletableFuture<Response<String>> loginAsync(String username, String password, boolean remember);
+
     /**
      * @param url URL to send the GET request to
      * @param responseType Class denoting the type to be requested
@@ -32,6 +51,13 @@ public interface ConnectionService {
      */
     <T> Response<T> get(String url, Class<T> responseType);
 
+    /**
+     * @param url URL to send the GET request to
+     * @param responseType Class denoting the type to be requested
+     * @return future of a response containing either the requested data or an error status
+     */
+    <T> CompletableFuture<Response<T>> getAsync(String url, Class<T> responseType);
+
     /**
      * @param data request body
      * @param url URL to send the POST request to
@@ -40,6 +66,14 @@ public interface ConnectionService {
      */
     <T> Response<T> post(Object data, String url, Class<T> responseType);
 
+    /**
+     * @param data request body
+     * @param url URL to send the POST request to
+     * @param responseType Class denoting the type to be returned
+     * @return future of a response containing either the returned data or an error status
+     */
+    <T> CompletableFuture<Response<T>> postAsync(Object data, String url, Class<T> responseType);
+
     /**
      * @param url URL to send the DELETE request to
      * @param responseType Class denoting the type to be returned
@@ -47,6 +81,25 @@ public interface ConnectionService {
      */
     <T> Response<T> delete(String url, Class<T> responseType);
 
+    /**
+     * @param url URL to send the DELETE request to
+     * @param responseType Class denoting the type to be returned
+     * @return future of a response containing either the returned data or an error status
+     */
+    <T> CompletableFuture<Response<T>> deleteAsync(String url, Class<T> responseType);
+
+    /**
+     * Subscribes to a stream of Server-Sent Events. The stream stays open until the server
+     * ends it or the returned future is cancelled.
+     *
+     * @param url URL to send the GET request to
+     * @param eventType Class denoting the type the data of events is deserialized to
+     * @param listener listener for deserialized events, called on a thread of the HTTP client
+     * @return future of a response containing either "success" once the stream has ended
+     *         or an error status
+     */
+    <T> CompletableFuture<Response<String>> subscribeAsync(String url, Class<T> eventType, Consumer<T> listener);
+
     /**
      * @return remember me HTTP cookie, if one is present
      */
@@ -20,9 +20,15 @@ public interface MappingService {
 
     /**
      * @param dto DTO object
-     * @return space for given DTO object
+     * @return space with notes that are not loaded for given DTO object
      */
-    Space mapToSpace(SpaceDto dto);
+    Space mapToSpace(SpaceTreeDto dto);
+
+    /**
+     * @param space space
+     * @return tree DTO object for given space
+     */
+    SpaceTreeDto mapToSpaceTreeDto(Space space);
 
     /**
      * @param note note
@@ -36,6 +42,13 @@ public interface MappingService {
      */
     NoteChangeDto mapToNoteChangeDto(Note note);
 
+    /**
+     * @param note note
+     * @return patch DTO object with the edits made to the note since its content was
+     *         last fetched or saved
+     */
+    NotePatchDto mapToNotePatchDto(Note note);
+
     /**
      * @param note note to be moved
      * @param newParent new parent note
@@ -18,6 +18,12 @@ public interface NoteService {
      */
     void loadSpace(String uuid);
 
+    /**
+     * Fetches the current space from the server in the background and replaces its note
+     * tree if it has changed.
+     */
+    void refreshSpace();
+
     /**
      * @param uuid UUID of the space to be removed
      */
@@ -34,6 +40,16 @@ public interface NoteService {
      */
     void openNote(String uuid);
 
+    /**
+     * Fetches the content of a note from the server in the background if it has not been
+     * fetched yet.
+     *
+     * @param note note to be loaded
+     * @return future of true if the content of the note is available, completed on the
+     *         application thread
+     */
+    CompletableFuture<Boolean> loadNote(Note note);
+
     /**
      * @param note note to be renamed
      * @param title new title for the note
@@ -41,12 +57,21 @@ public interface NoteService {
     void renameNote(Note note, String title);
 
     /**
+     * Saves the note in the background.
+     *
      * @param note note to be saved
      * @param force if true, a save request is sent to the server
      *              even if the note's content has not changed
      */
     void saveNote(Note note, boolean force);
 
+    /**
+     * Saves the note in the background once it has not been edited for a while.
+     *
+     * @param note note that has been edited
+     */
+    void scheduleSave(Note note);
+
     /**
      * @param note note to be moved
      * @param newParent new parent note
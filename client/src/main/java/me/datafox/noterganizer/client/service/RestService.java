@@ -3,39 +3,58 @@ package me.datafox.noterganizer.client.service;
 import me.datafox.noterganizer.api.dto.*;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * The REST service contains higher-level helper methods for accessing the
  * {@link ConnectionService}. It also displays a popup with an error message
- * if any operation was not successful.
+ * if any operation was not successful. Methods ending in Async do not block, and their
+ * futures are completed on the application thread, so independent requests may be sent
+ * at the same time without freezing the window.
  *
  * @author datafox
  */
 public interface RestService {
     /**
      * @param address address to connect to
-     * @return response status if successful or empty otherwise
+     * @return future of the response status if successful or empty otherwise
      */
-    Optional<String> connect(String address);
+    CompletableFuture<Optional<String>> connectAsync(String address);
+
+    /**
+     * Does not show a popup on error.
+     *
+     * @param address address to connect to
+     * @return future of the response status if successful or empty otherwise
+     */
+    CompletableFuture<Optional<String>> reconnectAsync(String address);
 
     /**
      * @param username username
      * @param password password
      * @param remember if true, a remember me HTTP cookie will be obtained
-     * @return response status if successful or empty otherwise
+     * @return future of the response status if successful or empty otherwise
+     */
+    CompletableFuture<Optional<String>> loginAsync(String username, String password, boolean remember);
+
+    /**
+     * @return future of the user DTO object if successful or empty otherwise
      */
-    Optional<String> login(String username, String password, boolean remember);
+    CompletableFuture<Optional<UserDto>> getUserAsync();
 
     /**
-     * @return user DTO object if successful or empty otherwise
+     * Does not show a popup on error.
+     *
+     * @return future of the user DTO object if successful or empty otherwise
      */
-    Optional<UserDto> getUser();
+    CompletableFuture<Optional<UserDto>> fetchUserAsync();
 
     /**
      * @param dto user registration DTO object
-     * @return response status if successful or empty otherwise
+     * @return future of the response status if successful or empty otherwise
      */
-    Optional<String> register(UserRegisterDto dto);
+    CompletableFuture<Optional<String>> registerAsync(UserRegisterDto dto);
 
     /**
      * @param dto user modification DTO object
@@ -45,9 +64,31 @@ public interface RestService {
 
     /**
      * @param uuid UUID of space to be fetched
-     * @return space DTO object if successful or empty otherwise
+     * @return future of the space tree DTO object without note contents if successful or
+     *         empty otherwise
+     */
+    CompletableFuture<Optional<SpaceTreeDto>> getSpaceTreeAsync(String uuid);
+
+    /**
+     * Does not show a popup on error.
+     *
+     * @param uuid UUID of space to be fetched
+     * @return future of the space tree DTO object without note contents if successful or
+     *         empty otherwise
      */
-    Optional<SpaceDto> getSpace(String uuid);
+    CompletableFuture<Optional<SpaceTreeDto>> fetchSpaceTreeAsync(String uuid);
+
+    /**
+     * Subscribes to the changes made in a space. The first event contains the current
+     * version of the space and no changes. Does not show a popup on error. Cancelling the
+     * returned future ends the subscription.
+     *
+     * @param uuid UUID of space to be subscribed to
+     * @param listener listener for the events of the space, called on the application thread
+     * @return future of the response status once the subscription has ended if successful
+     *         or empty otherwise
+     */
+    CompletableFuture<Optional<String>> subscribeToSpaceAsync(String uuid, Consumer<SpaceEventDto> listener);
 
     /**
      * @param dto space creation DTO object
@@ -61,6 +102,12 @@ public interface RestService {
      */
     Optional<String> removeSpace(String uuid);
 
+    /**
+     * @param uuid UUID of note to be fetched
+     * @return future of the note content DTO object if successful or empty otherwise
+     */
+    CompletableFuture<Optional<NoteContentDto>> getNoteAsync(String uuid);
+
     /**
      * @param dto note creation DTO object
      * @return response status if successful or empty otherwise
@@ -68,11 +115,24 @@ public interface RestService {
     Optional<String> createNote(NoteCreateDto dto);
 
     /**
+     * Does not display a popup if the operation was not successful, so it may be called off
+     * the application thread. Failed saves are retried and reported by {@link SaveService}.
+     *
      * @param dto note modification DTO object
      * @return response status if successful or empty otherwise
      */
     Optional<String> changeNote(NoteChangeDto dto);
 
+    /**
+     * Does not display a popup if the operation was not successful, since a failed patch
+     * should be followed by {@link #changeNote(NoteChangeDto)}. May be called off the
+     * application thread.
+     *
+     * @param dto note patch DTO object
+     * @return response status if successful or empty otherwise
+     */
+    Optional<String> patchNote(NotePatchDto dto);
+
     /**
      * @param dto note move DTO object
      * @return response status if successful or empty otherwise
@@ -86,4 +146,14 @@ public interface RestService {
      * @return response status if successful or empty otherwise
      */
     Optional<String> removeNote(String uuid, boolean removeChildren);
+
+    /**
+     * Applies multiple note operations with a single request. The operations are applied
+     * in order, and none of them are applied if any of them is invalid. Operations are
+     * created with the factory methods of {@link NoteOperationDto}.
+     *
+     * @param dto note batch DTO object
+     * @return UUIDs of the notes of the operations in order if successful or empty otherwise
+     */
+    Optional<NoteBatchResultDto> applyBatch(NoteBatchDto dto);
 }
@@ -0,0 +1,32 @@
+package me.datafox.noterganizer.client.service;
+
+import me.datafox.noterganizer.client.model.Note;
+
+/**
+ * The save service sends note saves to the server on a background thread, so that saving
+ * never blocks the user interface. Repeated saves of the same note are coalesced into one
+ * that sends its latest content, and failed saves are retried with an increasing delay.
+ * All methods must be called on the JavaFX application thread.
+ *
+ * @author datafox
+ */
+public interface SaveService {
+    /**
+     * @param note loaded note to be saved as soon as possible
+     * @param force if true, the note is saved even if its content has not changed
+     */
+    void save(Note note, boolean force);
+
+    /**
+     * Saves the note once it has not been edited for a while. Should be called on every
+     * edit.
+     *
+     * @param note loaded note that has been edited
+     */
+    void schedule(Note note);
+
+    /**
+     * Sends all pending and scheduled saves without retrying and blocks until they are done.
+     */
+    void flush();
+}
@@ -0,0 +1,43 @@
+package me.datafox.noterganizer.client.service;
+
+import me.datafox.noterganizer.client.model.Note;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The search service keeps an in-memory inverted index of the titles and loaded contents
+ * of all notes in the current space, so that notes can be searched as the user types.
+ * All methods must be called on the JavaFX application thread.
+ *
+ * @author datafox
+ */
+public interface SearchService {
+    /**
+     * Replaces the index with one for the given notes. The notes are tokenized on a
+     * background thread, and searches return no results until that has finished.
+     *
+     * @param notes all notes of the current space
+     */
+    void indexNotes(Collection<Note> notes);
+
+    /**
+     * @param note note to be added to the index
+     */
+    void addNote(Note note);
+
+    /**
+     * @param note note to be removed from the index
+     */
+    void removeNote(Note note);
+
+    /**
+     * Finds notes that contain all terms of the query. The last term also matches terms
+     * that start with it, so that results can be shown while a word is being typed.
+     *
+     * @param query search query
+     * @param limit maximum number of notes to be returned
+     * @return matching notes, notes with matches in their titles first
+     */
+    List<Note> search(String query, int limit);
+}
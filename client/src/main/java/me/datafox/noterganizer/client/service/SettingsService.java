@@ -31,6 +31,16 @@ public interface SettingsService {
      */
     void setAutoConnect(boolean autoConnect);
 
+    /**
+     * @return true if DTOs should be requested in the binary CBOR format instead of JSON
+     */
+    boolean getBinaryFormat();
+
+    /**
+     * @param binaryFormat binary format state to be persisted
+     */
+    void setBinaryFormat(boolean binaryFormat);
+
     /**
      * @return remember me HTTP cookie, or null if auto-login is off
      */
@@ -46,6 +56,16 @@ public interface SettingsService {
      */
     void removeCookie();
 
+    /**
+     * @return UUID of the last opened space, or null if none is set
+     */
+    String getLastSpace();
+
+    /**
+     * @param uuid UUID of the last opened space to be persisted, may be null
+     */
+    void setLastSpace(String uuid);
+
     /**
      * @return window orientation settings
      */
@@ -0,0 +1,646 @@
+package me.datafox.noterganizer.client.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import me.datafox.noterganizer.api.NotePatcher;
+import me.datafox.noterganizer.api.dto.NoteEventDto;
+import me.datafox.noterganizer.api.dto.NoteTreeDto;
+import me.datafox.noterganizer.api.dto.SpaceTreeDto;
+import me.datafox.noterganizer.api.dto.UserDto;
+import me.datafox.noterganizer.client.ClientConstants;
+import me.datafox.noterganizer.client.injection.Component;
+import me.datafox.noterganizer.client.injection.Inject;
+import me.datafox.noterganizer.client.model.Context;
+import me.datafox.noterganizer.client.service.CacheService;
+import me.datafox.noterganizer.client.service.SettingsService;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Cache service implementation. Users and note trees are stored as CBOR files that are
+ * replaced atomically. Changes to a note tree are appended to an event log next to the
+ * tree, which is applied to the tree and removed when the tree is read or once it has
+ * grown long enough, so that a change never rewrites the whole tree. Note contents are
+ * appended to a log file per user, so that saving a note never rewrites the contents of
+ * the other notes, and the log is compacted once most of it consists of outdated
+ * contents. All files are accessed on a single background thread, and reads wait for
+ * pending writes to be done.
+ *
+ * @author datafox
+ */
+@Component
+public class CacheServiceImpl implements CacheService {
+    private static final String USER_FILE = "user.cbor";
+
+    private static final String CONTENT_FILE = "contents.log";
+
+    private static final String SPACE_EXTENSION = ".cbor";
+
+    private static final String EVENT_EXTENSION = ".log";
+
+    private static final int MAX_SPACE_EVENTS = 1024;
+
+    private static final long MIN_COMPACT_SIZE = 65536;
+
+    private final Context context;
+
+    private final Logger logger;
+
+    private final CBORMapper cborMapper;
+
+    private final SettingsService settingsService;
+
+    private final Path directory;
+
+    private final ExecutorService executor;
+
+    /**
+     * Note trees as they were last read from or written to disk, without the events
+     * logged after that. Only accessed on the cache thread.
+     */
+    private final Map<Path, SpaceTreeDto> spaces;
+
+    /**
+     * Number of events appended to the event log of every space since it was last
+     * applied. Only accessed on the cache thread.
+     */
+    private final Map<Path, Integer> eventCounts;
+
+    /**
+     * Content log of the user whose contents were last accessed. Only accessed on the
+     * cache thread.
+     */
+    private ContentLog contentLog;
+
+    @Inject
+    public CacheServiceImpl(Context context,
+                            Logger logger,
+                            CBORMapper cborMapper,
+                            SettingsService settingsService) {
+        this(context, logger, cborMapper, settingsService, ClientConstants.CACHE_DIRECTORY);
+    }
+
+    public CacheServiceImpl(Context context,
+                            Logger logger,
+                            CBORMapper cborMapper,
+                            SettingsService settingsService,
+                            Path directory) {
+        this.context = context;
+        this.logger = logger;
+        this.cborMapper = cborMapper;
+        this.settingsService = settingsService;
+        this.directory = directory;
+
+        logger.info("Initializing cache service in " + directory);
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        spaces = new HashMap<>();
+        eventCounts = new HashMap<>();
+        contentLog = null;
+    }
+
+    @Override
+    public Optional<UserDto> getUser() {
+        Path file = addressDirectory().resolve(USER_FILE);
+
+        return read(() -> readValue(file, UserDto.class));
+    }
+
+    @Override
+    public void putUser(UserDto user) {
+        Path file = addressDirectory().resolve(USER_FILE);
+
+        write(() -> writeValue(file, user));
+    }
+
+    @Override
+    public void removeUser() {
+        if(context.getUser() == null) return;
+
+        Path file = addressDirectory().resolve(USER_FILE);
+
+        Path userDirectory = userDirectory();
+
+        logger.info("Removing cached data of user " + context.getUser().getUsername());
+
+        write(() -> {
+            Files.deleteIfExists(file);
+
+            if(Files.exists(userDirectory)) {
+                try(Stream<Path> paths = Files.walk(userDirectory)) {
+                    for(Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.delete(path);
+                    }
+                }
+            }
+
+            spaces.clear();
+            eventCounts.clear();
+            contentLog = null;
+        });
+    }
+
+    @Override
+    public Optional<SpaceTreeDto> getSpace(String uuid) {
+        if(context.getUser() == null) return Optional.empty();
+
+        Path file = userDirectory().resolve(uuid + SPACE_EXTENSION);
+
+        Path log = userDirectory().resolve(uuid + EVENT_EXTENSION);
+
+        return read(() -> readSpace(file, log));
+    }
+
+    @Override
+    public void putSpace(SpaceTreeDto space) {
+        if(context.getUser() == null) return;
+
+        Path file = userDirectory().resolve(space.getUuid() + SPACE_EXTENSION);
+
+        Path log = userDirectory().resolve(space.getUuid() + EVENT_EXTENSION);
+
+        write(() -> {
+            if(space.equals(spaces.get(file)) && !Files.exists(log)) return;
+
+            writeValue(file, space);
+
+            Files.deleteIfExists(log);
+
+            spaces.put(file, space);
+            eventCounts.remove(log);
+        });
+    }
+
+    @Override
+    public void putSpaceEvent(String uuid, NoteEventDto event) {
+        if(context.getUser() == null) return;
+
+        Path file = userDirectory().resolve(uuid + SPACE_EXTENSION);
+
+        Path log = userDirectory().resolve(uuid + EVENT_EXTENSION);
+
+        write(() -> {
+            if(!spaces.containsKey(file) && !Files.exists(file)) return;
+
+            try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(log,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                cborMapper.writeValue(out, event);
+            }
+
+            if(eventCounts.merge(log, 1, Integer::sum) >= MAX_SPACE_EVENTS) readSpace(file, log);
+        });
+    }
+
+    @Override
+    public void removeSpace(String uuid) {
+        if(context.getUser() == null) return;
+
+        Path file = userDirectory().resolve(uuid + SPACE_EXTENSION);
+
+        Path log = userDirectory().resolve(uuid + EVENT_EXTENSION);
+
+        write(() -> {
+            Files.deleteIfExists(file);
+
+            Files.deleteIfExists(log);
+
+            spaces.remove(file);
+            eventCounts.remove(log);
+        });
+    }
+
+    @Override
+    public Optional<String> getContent(String uuid) {
+        if(context.getUser() == null) return Optional.empty();
+
+        Path file = userDirectory().resolve(CONTENT_FILE);
+
+        return read(() -> contentLog(file).get(uuid));
+    }
+
+    @Override
+    public void putContent(String uuid, String content) {
+        if(context.getUser() == null) return;
+
+        Path file = userDirectory().resolve(CONTENT_FILE);
+
+        write(() -> contentLog(file).put(uuid, content));
+    }
+
+    @Override
+    public void flush() {
+        read(Optional::empty);
+    }
+
+    private Path addressDirectory() {
+        return directory.resolve(NotePatcher.hash(settingsService.getAddress()));
+    }
+
+    private Path userDirectory() {
+        return addressDirectory().resolve(NotePatcher.hash(context.getUser().getUsername()));
+    }
+
+    private ContentLog contentLog(Path file) throws IOException {
+        if(contentLog == null || !contentLog.file.equals(file)) {
+            contentLog = new ContentLog(file);
+        }
+
+        return contentLog;
+    }
+
+    /**
+     * Reads the note tree of a space and applies its event log, if any. The resulting
+     * tree replaces the one on disk and the log is removed.
+     */
+    private Optional<SpaceTreeDto> readSpace(Path file, Path log) throws IOException {
+        if(!spaces.containsKey(file)) {
+            readValue(file, SpaceTreeDto.class).ifPresent(space -> spaces.put(file, space));
+        }
+
+        SpaceTreeDto space = spaces.get(file);
+
+        if(!Files.exists(log)) return Optional.ofNullable(space);
+
+        eventCounts.remove(log);
+
+        if(space == null) {
+            Files.delete(log);
+
+            return Optional.empty();
+        }
+
+        SpaceIndex index = new SpaceIndex(space);
+
+        List<NoteEventDto> events = readEvents(log);
+
+        events.forEach(index::apply);
+
+        logger.info("Applied " + events.size() + " cached changes to space with uuid " + space.getUuid());
+
+        writeValue(file, index.space);
+
+        Files.delete(log);
+
+        spaces.put(file, index.space);
+
+        return Optional.of(index.space);
+    }
+
+    /**
+     * A partially written event at the end of the log is ignored, since the log is removed
+     * after it has been read.
+     */
+    private List<NoteEventDto> readEvents(Path log) throws IOException {
+        List<NoteEventDto> events = new ArrayList<>();
+
+        try(InputStream in = new BufferedInputStream(Files.newInputStream(log));
+            MappingIterator<NoteEventDto> iterator = cborMapper.readerFor(NoteEventDto.class).readValues(in)) {
+            while(iterator.hasNextValue()) {
+                events.add(iterator.nextValue());
+            }
+        } catch(JsonProcessingException e) {
+            logger.info("Ignoring partially written change at the end of " + log);
+        }
+
+        return events;
+    }
+
+    private <T> Optional<T> readValue(Path file, Class<T> type) throws IOException {
+        if(!Files.exists(file)) return Optional.empty();
+
+        try(InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return Optional.of(cborMapper.readValue(in, type));
+        }
+    }
+
+    /**
+     * Writes to a temporary file first, so that a crash while writing never leaves a
+     * partially written file behind.
+     */
+    private void writeValue(Path file, Object value) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            cborMapper.writeValue(out, value);
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private <T> Optional<T> read(Callable<Optional<T>> task) {
+        try {
+            return executor.submit(task).get();
+        } catch(ExecutionException e) {
+            logger.warn("Could not read from cache", e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return Optional.empty();
+    }
+
+    private void write(CacheTask task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch(IOException e) {
+                logger.warn("Could not write to cache", e);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface CacheTask {
+        void run() throws IOException;
+    }
+
+    /**
+     * Copy of the note tree of a space with its notes indexed by UUID, so that events can
+     * be applied to it without searching the tree. Children are kept sorted by title like
+     * in the note tree of the application.
+     */
+    private static class SpaceIndex {
+        private final SpaceTreeDto space;
+
+        private final Map<String, NoteTreeDto> notes;
+
+        private final Map<String, NoteTreeDto> parents;
+
+        private SpaceIndex(SpaceTreeDto space) {
+            notes = new HashMap<>();
+            parents = new HashMap<>();
+
+            this.space = new SpaceTreeDto(space.getUuid(), copy(space.getRoot(), null));
+        }
+
+        private NoteTreeDto copy(NoteTreeDto note, NoteTreeDto parent) {
+            NoteTreeDto copy = new NoteTreeDto(note.getUuid(), note.getTitle(), new ArrayList<>());
+
+            index(copy, parent);
+
+            note.getChildren().forEach(child -> copy.getChildren().add(copy(child, copy)));
+
+            return copy;
+        }
+
+        private void apply(NoteEventDto event) {
+            NoteTreeDto note = notes.get(event.getUuid());
+
+            NoteTreeDto parent = parents.get(event.getUuid());
+
+            switch(event.getType()) {
+                case CREATED -> {
+                    NoteTreeDto newParent = notes.get(event.getParent());
+
+                    if(note != null || newParent == null) return;
+
+                    note = new NoteTreeDto(event.getUuid(), event.getTitle(), new ArrayList<>());
+
+                    index(note, newParent);
+
+                    addChild(newParent, note);
+                }
+                case CHANGED -> {
+                    if(note == null || event.getTitle() == null) return;
+
+                    note.setTitle(event.getTitle());
+
+                    if(parent != null) sort(parent);
+                }
+                case MOVED -> {
+                    NoteTreeDto newParent = notes.get(event.getParent());
+
+                    if(parent == null || newParent == null) return;
+
+                    parent.getChildren().remove(note);
+
+                    parents.put(note.getUuid(), newParent);
+
+                    addChild(newParent, note);
+                }
+                case REMOVED -> {
+                    if(parent == null) return;
+
+                    parent.getChildren().remove(note);
+
+                    if(!event.isRemoveChildren()) {
+                        note.getChildren().forEach(child -> parents.put(child.getUuid(), parent));
+
+                        parent.getChildren().addAll(note.getChildren());
+
+                        sort(parent);
+
+                        note.getChildren().clear();
+                    }
+
+                    unindex(note);
+                }
+            }
+        }
+
+        private void index(NoteTreeDto note, NoteTreeDto parent) {
+            notes.put(note.getUuid(), note);
+
+            if(parent != null) parents.put(note.getUuid(), parent);
+        }
+
+        private void unindex(NoteTreeDto note) {
+            notes.remove(note.getUuid());
+
+            parents.remove(note.getUuid());
+
+            note.getChildren().forEach(this::unindex);
+        }
+
+        private void addChild(NoteTreeDto parent, NoteTreeDto child) {
+            parent.getChildren().add(child);
+
+            sort(parent);
+        }
+
+        private void sort(NoteTreeDto note) {
+            note.getChildren().sort(Comparator.comparing(NoteTreeDto::getTitle));
+        }
+    }
+
+    /**
+     * Log of note contents of a user. Every record consists of the UUID of a note, the
+     * length of its content and the UTF-8 encoded content, and the last record of every
+     * note is its current content. Only the position of the current record of every note
+     * is kept in memory, and contents are read from the file when they are requested. A
+     * partially written record at the end of the file is truncated when the log is read.
+     */
+    private static class ContentLog {
+        private final Path file;
+
+        private final Map<String, Entry> entries;
+
+        /**
+         * Size of the log file in bytes.
+         */
+        private long size;
+
+        /**
+         * Size of the current records of every note in bytes.
+         */
+        private long liveSize;
+
+        private ContentLog(Path file) throws IOException {
+            this.file = file;
+            entries = new HashMap<>();
+            size = 0;
+            liveSize = 0;
+
+            if(!Files.exists(file)) return;
+
+            long fileSize = Files.size(file);
+
+            //Only the headers are read, contents are skipped
+            try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                while(size < fileSize) {
+                    String uuid = in.readUTF();
+                    int length = in.readInt();
+
+                    long recordSize = recordSize(uuid, length);
+
+                    if(length < 0 || size + recordSize > fileSize) break;
+
+                    in.skipNBytes(length);
+
+                    putEntry(uuid, new Entry(size + recordSize - length, length));
+                    size += recordSize;
+                }
+            } catch(EOFException | UTFDataFormatException e) {
+                //Partially written record, truncated below
+            }
+
+            if(size < fileSize) {
+                try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(size);
+                }
+            }
+        }
+
+        private Optional<String> get(String uuid) throws IOException {
+            Entry entry = entries.get(uuid);
+
+            if(entry == null) return Optional.empty();
+
+            return Optional.of(new String(read(entry), StandardCharsets.UTF_8));
+        }
+
+        private void put(String uuid, String content) throws IOException {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+            Entry old = entries.get(uuid);
+
+            //The current content is only read if it could be the same
+            if(old != null && old.length() == bytes.length && Arrays.equals(bytes, read(old))) return;
+
+            Files.createDirectories(file.getParent());
+
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+                writeRecord(out, uuid, bytes);
+            }
+
+            long recordSize = recordSize(uuid, bytes.length);
+
+            putEntry(uuid, new Entry(size + recordSize - bytes.length, bytes.length));
+            size += recordSize;
+
+            if(size > MIN_COMPACT_SIZE && size > liveSize * 2) compact();
+        }
+
+        /**
+         * Copies the current record of every note to a new file without reading the
+         * contents into memory.
+         */
+        private void compact() throws IOException {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+            Map<String, Entry> compacted = new HashMap<>();
+
+            long position = 0;
+
+            try(FileChannel source = FileChannel.open(file, StandardOpenOption.READ);
+                FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for(Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                    String uuid = mapEntry.getKey();
+                    Entry entry = mapEntry.getValue();
+
+                    long recordSize = recordSize(uuid, entry.length());
+
+                    long start = entry.offset() + entry.length() - recordSize;
+
+                    for(long copied = 0; copied < recordSize; ) {
+                        copied += source.transferTo(start + copied, recordSize - copied, target);
+                    }
+
+                    compacted.put(uuid, new Entry(position + recordSize - entry.length(), entry.length()));
+                    position += recordSize;
+                }
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            entries.putAll(compacted);
+            size = position;
+        }
+
+        private byte[] read(Entry entry) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while(buffer.hasRemaining()) {
+                    if(channel.read(buffer, entry.offset() + buffer.position()) < 0) throw new EOFException();
+                }
+            }
+
+            return buffer.array();
+        }
+
+        private void putEntry(String uuid, Entry entry) {
+            Entry old = entries.put(uuid, entry);
+
+            liveSize += recordSize(uuid, entry.length()) - (old == null ? 0 : recordSize(uuid, old.length()));
+        }
+
+        private static void writeRecord(DataOutputStream out, String uuid, byte[] content) throws IOException {
+            out.writeUTF(uuid);
+            out.writeInt(content.length);
+            out.write(content);
+        }
+
+        private static long recordSize(String uuid, int length) {
+            return 2 + uuid.getBytes(StandardCharsets.UTF_8).length + 4 + length;
+        }
+
+        /**
+         * Position of the content of a record in the file and its length in bytes.
+         */
+        private record Entry(long offset, int length) {}
+    }
+}
@@ -1,6 +1,7 @@
 package me.datafox.noterganizer.client.service.impl;
 
 import me.datafox.noterganizer.api.Constants;
+import me.datafox.noterganizer.client.ClientConstants;
 import me.datafox.noterganizer.client.exception.EmptyAddressException;
 import me.datafox.noterganizer.client.exception.NotConnectedException;
 import me.datafox.noterganizer.client.factory.JsonBodyHandlerFactory;
@@ -19,10 +20,20 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
- * Connection service implementation.
+ * Connection service implementation. Responses to GET requests that carry an ETag are
+ * cached by URI, and later requests to the same URI are made conditional so that an
+ * unchanged resource is answered with 304 Not Modified and the cached value is reused
+ * without transferring or deserializing the body again. All requests are sent with
+ * {@link HttpClient#sendAsync}, and the blocking variants wait for the asynchronous ones.
  *
  * @author datafox
  */
@@ -38,6 +49,8 @@ public class ConnectionServiceImpl implements ConnectionService {
 
     private final JsonBodyPublisherFactory jsonBodyPublisherFactory;
 
+    private final Map<URI,CachedResponse> responseCache;
+
     @Inject
     public ConnectionServiceImpl(HttpClient client,
                                  Context context,
@@ -49,39 +62,58 @@ public class ConnectionServiceImpl implements ConnectionService {
         this.logger = logger;
         this.jsonBodyHandlerFactory = jsonBodyHandlerFactory;
         this.jsonBodyPublisherFactory = jsonBodyPublisherFactory;
+
+        responseCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<URI,CachedResponse> eldest) {
+                return size() > ClientConstants.RESPONSE_CACHE_SIZE;
+            }
+        });
     }
 
     @Override
     public Response<String> connect(String address) {
+        return connectAsync(address).join();
+    }
+
+    @Override
+    public CompletableFuture<Response<String>> connectAsync(String address) {
         logger.info("Parsing address " + address);
         try {
             address = parseAddress(address);
         } catch(EmptyAddressException e) {
             logger.info("Address is empty", e);
-            return Response.error(e);
+            return CompletableFuture.completedFuture(Response.error(e));
         }
+        responseCache.clear();
         HttpRequest request = HttpRequest.newBuilder(URI.create(address + "version")).GET().build();
 
-        Response<String> response = sendRequest(request, this::stringHandler);
-
-        if(response.isError()) {
-            return Response.error(response.status());
-        }
-
-        String version = response.get();
-
-        if(Constants.IDENTIFIER.equals(version)) {
-            logger.info("Connection to " + request.uri() + " established");
-            context.setAddress(address);
-            return Response.of("success");
-        }
-        String error = "API version mismatch! Client: " + Constants.API_VERSION + ", Server: " + version.replaceAll("[^0-9]", "");
-        logger.error(error);
-        return Response.error(error);
+        String parsedAddress = address;
+        return sendRequest(request, this::stringHandler).thenApply(response -> {
+            if(response.isError()) {
+                return Response.error(response.status());
+            }
+
+            String version = response.get();
+
+            if(Constants.IDENTIFIER.equals(version)) {
+                logger.info("Connection to " + request.uri() + " established");
+                context.setAddress(parsedAddress);
+                return Response.of("success");
+            }
+            String error = "API version mismatch! Client: " + Constants.API_VERSION + ", Server: " + version.replaceAll("[^0-9]", "");
+            logger.error(error);
+            return Response.error(error);
+        });
     }
 
     @Override
     public Response<String> login(String username, String password, boolean remember) {
+        return loginAsync(username, password, remember).join();
+    }
+
+    @Override
+    public CompletableFuture<Response<String>> loginAsync(String username, String password, boolean remember) {
         logger.info("Logging in with username " + username);
 
         if(context.getAddress() == null) {
@@ -96,34 +128,110 @@ public class ConnectionServiceImpl implements ConnectionService {
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .build();
 
-        Response<String> response = sendRequest(loginRequest, this::stringHandler);
-        logger.info("Login successful");
-        return response;
+        return sendRequest(loginRequest, this::stringHandler).thenApply(response -> {
+            if(response.isPresent()) logger.info("Login successful");
+            return response;
+        });
     }
 
     @Override
     public <T> Response<T> get(String url, Class<T> responseType) {
+        return getAsync(url, responseType).join();
+    }
+
+    @Override
+    public <T> CompletableFuture<Response<T>> getAsync(String url, Class<T> responseType) {
         if(context.getAddress() == null) throw new NotConnectedException();
-        HttpRequest request = HttpRequest.newBuilder(URI.create(context.getAddress() + url)).GET().build();
-        return sendRequest(request, jsonBodyHandlerFactory.buildBodyHandler(responseType));
+        URI uri = URI.create(context.getAddress() + url);
+        CachedResponse cached = responseCache.get(uri);
+        if(cached != null && !responseType.isInstance(cached.value())) cached = null;
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .GET()
+                .header("Accept", jsonBodyHandlerFactory.getAcceptHeader(responseType))
+                .header("Accept-Encoding", "gzip");
+        if(cached != null) builder.header("If-None-Match", cached.eTag());
+        HttpRequest request = builder.build();
+
+        HttpResponse.BodyHandler<Response<T>> handler = jsonBodyHandlerFactory.buildBodyHandler(responseType);
+        CachedResponse finalCached = cached;
+        return send(request, responseInfo -> {
+            if(responseInfo.statusCode() == 304 && finalCached != null) {
+                return HttpResponse.BodySubscribers.replacing(Response.of(responseType.cast(finalCached.value())));
+            }
+            return handler.apply(responseInfo);
+        }).handle((response, throwable) -> {
+            if(throwable != null) return failed(throwable);
+
+            if(response.statusCode() == 304) {
+                logger.info("Resource " + uri + " not modified, using cached response");
+            } else {
+                Optional<String> eTag = response.headers().firstValue("ETag");
+                if(eTag.isPresent() && response.body().isPresent()) {
+                    responseCache.put(uri, new CachedResponse(eTag.get(), response.body().get()));
+                } else {
+                    responseCache.remove(uri);
+                }
+            }
+
+            return response.body();
+        });
     }
 
     @Override
     public <T> Response<T> post(Object data, String url, Class<T> responseType) {
+        return postAsync(data, url, responseType).join();
+    }
+
+    @Override
+    public <T> CompletableFuture<Response<T>> postAsync(Object data, String url, Class<T> responseType) {
         if(context.getAddress() == null) throw new NotConnectedException();
         HttpRequest request = HttpRequest.newBuilder(URI.create(context.getAddress() + url))
                 .POST(jsonBodyPublisherFactory.buildBodyHandler(data))
                 .header("Content-Type", "application/json")
+                .header("Accept", jsonBodyHandlerFactory.getAcceptHeader(responseType))
+                .header("Accept-Encoding", "gzip")
                 .build();
         return sendRequest(request, jsonBodyHandlerFactory.buildBodyHandler(responseType));
     }
 
+    @Override
     public <T> Response<T> delete(String url, Class<T> responseType) {
+        return deleteAsync(url, responseType).join();
+    }
+
+    @Override
+    public <T> CompletableFuture<Response<T>> deleteAsync(String url, Class<T> responseType) {
         if(context.getAddress() == null) throw new NotConnectedException();
-        HttpRequest request = HttpRequest.newBuilder(URI.create(context.getAddress() + url)).DELETE().build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(context.getAddress() + url))
+                .DELETE()
+                .header("Accept", jsonBodyHandlerFactory.getAcceptHeader(responseType))
+                .header("Accept-Encoding", "gzip")
+                .build();
         return sendRequest(request, jsonBodyHandlerFactory.buildBodyHandler(responseType));
     }
 
+    /**
+     * Cancelling the returned future cancels the request, which closes the stream.
+     */
+    @Override
+    public <T> CompletableFuture<Response<String>> subscribeAsync(String url, Class<T> eventType, Consumer<T> listener) {
+        if(context.getAddress() == null) throw new NotConnectedException();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(context.getAddress() + url))
+                .GET()
+                .header("Accept", "text/event-stream")
+                .build();
+        CompletableFuture<HttpResponse<Response<String>>> future = send(request, jsonBodyHandlerFactory.buildEventHandler(eventType, listener));
+        CompletableFuture<Response<String>> result = future.handle((response, throwable) -> {
+            if(throwable != null) return failed(throwable);
+            return response.body();
+        });
+        result.whenComplete((response, throwable) -> {
+            if(result.isCancelled()) future.cancel(true);
+        });
+        return result;
+    }
+
     @Override
     public Optional<HttpCookie> getRememberCookie() {
         Optional<CookieManager> optional = client.cookieHandler().flatMap(handler -> {
@@ -161,17 +269,25 @@ public class ConnectionServiceImpl implements ConnectionService {
         }
     }
 
-    private <T> Response<T> sendRequest(HttpRequest request, HttpResponse.BodyHandler<Response<T>> handler) {
+    private <T> CompletableFuture<Response<T>> sendRequest(HttpRequest request, HttpResponse.BodyHandler<Response<T>> handler) {
+        return send(request, handler).handle((response, throwable) -> {
+            if(throwable != null) return failed(throwable);
+            return response.body();
+        });
+    }
+
+    private <T> CompletableFuture<HttpResponse<Response<T>>> send(HttpRequest request, HttpResponse.BodyHandler<Response<T>> handler) {
         logger.info("Sending " + request.method() + " request to " + request.uri());
 
-        HttpResponse<Response<T>> response;
-        try {
-            response = client.send(request, handler);
-        } catch(Exception e) {
-            logger.error("Request failed", e);
-            return Response.error(e);
+        return client.sendAsync(request, handler);
+    }
+
+    private <T> Response<T> failed(Throwable throwable) {
+        if(throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
         }
-        return response.body();
+        logger.error("Request failed", throwable);
+        return Response.error(throwable);
     }
 
     private String parseAddress(String address) throws EmptyAddressException {
@@ -196,4 +312,6 @@ public class ConnectionServiceImpl implements ConnectionService {
 
         return HttpResponse.BodySubscribers.mapping(upstream, Response::error);
     }
+
+    private record CachedResponse(String eTag, Object value) {}
 }
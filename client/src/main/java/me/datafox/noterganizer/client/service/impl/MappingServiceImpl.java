@@ -1,5 +1,6 @@
 package me.datafox.noterganizer.client.service.impl;
 
+import me.datafox.noterganizer.api.NotePatcher;
 import me.datafox.noterganizer.api.dto.*;
 import me.datafox.noterganizer.client.injection.Component;
 import me.datafox.noterganizer.client.model.Note;
@@ -27,13 +28,21 @@ public class MappingServiceImpl implements MappingService {
     }
 
     @Override
-    public Space mapToSpace(SpaceDto dto) {
+    public Space mapToSpace(SpaceTreeDto dto) {
         return Space.builder()
                 .uuid(dto.getUuid())
                 .root(mapToNote(dto.getRoot(), null))
                 .build();
     }
 
+    @Override
+    public SpaceTreeDto mapToSpaceTreeDto(Space space) {
+        return SpaceTreeDto.builder()
+                .uuid(space.getUuid())
+                .root(mapToNoteTreeDto(space.getRoot()))
+                .build();
+    }
+
     @Override
     public NoteHeaderDto mapToNoteHeaderDto(Note note) {
         return NoteHeaderDto.builder()
@@ -51,6 +60,16 @@ public class MappingServiceImpl implements MappingService {
                 .build();
     }
 
+    @Override
+    public NotePatchDto mapToNotePatchDto(Note note) {
+        return NotePatchDto.builder()
+                .uuid(note.getUuid())
+                .title(note.getTitle())
+                .baseHash(NotePatcher.hash(note.getLastContent()))
+                .edits(NotePatcher.diff(note.getLastContent(), note.getContent()))
+                .build();
+    }
+
     @Override
     public NoteMoveDto mapToNoteMoveDto(Note note, Note newParent) {
         return NoteMoveDto.builder()
@@ -66,11 +85,18 @@ public class MappingServiceImpl implements MappingService {
                 .build();
     }
 
-    private Note mapToNote(NoteDto dto, Note parent) {
+    private NoteTreeDto mapToNoteTreeDto(Note note) {
+        return NoteTreeDto.builder()
+                .uuid(note.getUuid())
+                .title(note.getTitle())
+                .children(note.getChildren().stream().map(this::mapToNoteTreeDto).toList())
+                .build();
+    }
+
+    private Note mapToNote(NoteTreeDto dto, Note parent) {
         Note note = Note.builder()
                 .uuid(dto.getUuid())
                 .title(dto.getTitle())
-                .content(dto.getContent())
                 .parent(parent)
                 .build();
 
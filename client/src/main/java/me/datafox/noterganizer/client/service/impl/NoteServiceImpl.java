@@ -1,30 +1,38 @@
 package me.datafox.noterganizer.client.service.impl;
 
+import javafx.animation.PauseTransition;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
+import javafx.util.Duration;
+import me.datafox.noterganizer.api.NotePatcher;
 import me.datafox.noterganizer.api.dto.*;
+import me.datafox.noterganizer.client.event.NoteTreeEvent;
 import me.datafox.noterganizer.client.injection.Component;
 import me.datafox.noterganizer.client.injection.Inject;
 import me.datafox.noterganizer.client.model.Context;
 import me.datafox.noterganizer.client.model.Note;
 import me.datafox.noterganizer.client.model.Space;
 import me.datafox.noterganizer.client.model.SpaceHeader;
-import me.datafox.noterganizer.client.service.MappingService;
-import me.datafox.noterganizer.client.service.NoteService;
-import me.datafox.noterganizer.client.service.PopupService;
-import me.datafox.noterganizer.client.service.RestService;
+import me.datafox.noterganizer.client.service.*;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Comparator;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static me.datafox.noterganizer.client.ClientConstants.SUBSCRIBE_RETRY_DELAY;
+import static me.datafox.noterganizer.client.ClientConstants.SUBSCRIBE_RETRY_MAX_DELAY;
+
 /**
- * Note service implementation.
+ * Note service implementation. Spaces are shown from the cache right away if they have
+ * been opened before and then refreshed from the server in the background. Note trees
+ * and note contents are written to the cache whenever they change, and cached contents
+ * are shown when they cannot be fetched from the server. Changes made to the current space
+ * elsewhere are received from the server as they happen and applied to the note tree one
+ * by one. If changes were missed or cannot be applied, the space is refreshed instead.
  *
  * @author datafox
  */
@@ -40,17 +48,65 @@ public class NoteServiceImpl implements NoteService {
 
     private final PopupService popupService;
 
+    private final SearchService searchService;
+
+    private final SaveService saveService;
+
+    private final CacheService cacheService;
+
+    private final SettingsService settingsService;
+
+    /**
+     * UUID of the space that is being fetched to be opened, if any.
+     */
+    private String loadingSpace;
+
+    /**
+     * UUID of the space whose changes are subscribed to, if any.
+     */
+    private String subscribedSpace;
+
+    private CompletableFuture<Optional<String>> subscription;
+
+    /**
+     * Version of the subscribed space the note tree is at, or -1 if not known yet.
+     */
+    private long version;
+
+    /**
+     * True until the first event of the current subscription has been received.
+     */
+    private boolean awaitingVersion;
+
+    private int subscribeFailures;
+
+    /**
+     * Pending fetches of note contents by UUID, so that a note is only fetched once at a
+     * time.
+     */
+    private final Map<String, CompletableFuture<Boolean>> loadingNotes;
+
     @Inject
     public NoteServiceImpl(Context context,
                            Logger logger,
                            MappingService mappingService,
                            RestService restService,
-                           PopupService popupService) {
+                           PopupService popupService,
+                           SearchService searchService,
+                           SaveService saveService,
+                           CacheService cacheService,
+                           SettingsService settingsService) {
         this.context = context;
         this.logger = logger;
         this.mappingService = mappingService;
         this.restService = restService;
         this.popupService = popupService;
+        this.searchService = searchService;
+        this.saveService = saveService;
+        this.cacheService = cacheService;
+        this.settingsService = settingsService;
+
+        loadingNotes = new HashMap<>();
 
         logger.info("Initializing note service");
 
@@ -59,6 +115,7 @@ public class NoteServiceImpl implements NoteService {
             public void changed(ObservableValue<? extends Space> observable, Space oldValue, Space newValue) {
                 context.getNotes().clear();
                 if(newValue != null) context.getNotes().putAll(notesFromSpace(newValue));
+                searchService.indexNotes(context.getNotes().values());
                 TreeView<Note> treeView = context.getTreeView();
                 if(treeView != null) {
                     if(newValue != null) {
@@ -67,7 +124,9 @@ public class NoteServiceImpl implements NoteService {
                         context.getTreeView().setRoot(null);
                     }
                 }
-                context.getNoteTreeChangeSubscription().call();
+                context.getNoteTreeChangeSubscription().call(NoteTreeEvent.replaced(newValue == null ? null : newValue.getRoot()));
+
+                subscribe(newValue);
             }
         });
 
@@ -75,8 +134,11 @@ public class NoteServiceImpl implements NoteService {
             @Override
             public void changed(ObservableValue<? extends Note> observable, Note oldValue, Note newValue) {
                 if(oldValue != null && !oldValue.isRemoved()) saveNote(oldValue, false);
+                if(newValue != null) loadNote(newValue);
             }
         });
+
+        context.getNoteTreeChangeSubscription().addListener(this::cacheTreeChange);
     }
 
     @Override
@@ -97,13 +159,79 @@ public class NoteServiceImpl implements NoteService {
 
     @Override
     public void loadSpace(String uuid) {
+        Optional<SpaceTreeDto> cached = cacheService.getSpace(uuid);
+
+        if(cached.isPresent()) {
+            logger.info("Showing cached space with uuid " + uuid);
+
+            loadingSpace = null;
+
+            context.setSpace(mappingService.mapToSpace(cached.get()));
+
+            settingsService.setLastSpace(uuid);
+
+            refreshSpace();
+
+            return;
+        }
+
         logger.info("Attempting to fetch space with uuid " + uuid);
 
-        Optional<SpaceDto> optional = restService.getSpace(uuid);
+        loadingSpace = uuid;
 
-        if(optional.isEmpty()) return;
+        restService.getSpaceTreeAsync(uuid).thenAccept(optional -> {
+            //Another space may have been opened while this one was being fetched
+            if(optional.isEmpty() || !uuid.equals(loadingSpace)) return;
+
+            loadingSpace = null;
+
+            context.setSpace(mappingService.mapToSpace(optional.get()));
+
+            settingsService.setLastSpace(uuid);
+        });
+    }
+
+    @Override
+    public void refreshSpace() {
+        if(context.getSpace() == null) return;
+
+        String uuid = context.getSpace().getUuid();
+
+        logger.info("Refreshing space with uuid " + uuid + " in the background");
+
+        restService
+                .fetchSpaceTreeAsync(uuid)
+                .thenAccept(optional -> refreshSpace(uuid, optional));
+    }
+
+    /**
+     * Replaces the current space with the one fetched from the server if it is still
+     * selected and has changed, and selects the previously selected note again.
+     */
+    private void refreshSpace(String uuid, Optional<SpaceTreeDto> optional) {
+        if(optional.isEmpty()) {
+            logger.info("Could not refresh space with uuid " + uuid + ", showing cached space");
+            return;
+        }
+
+        Space space = context.getSpace();
+
+        if(space == null || !space.getUuid().equals(uuid)) return;
+
+        if(optional.get().equals(mappingService.mapToSpaceTreeDto(space))) {
+            logger.info("Space with uuid " + uuid + " is up to date");
+            return;
+        }
+
+        logger.info("Space with uuid " + uuid + " has changed, replacing note tree");
+
+        Note selected = context.getNote();
 
         context.setSpace(mappingService.mapToSpace(optional.get()));
+
+        if(selected != null && context.getNotes().containsKey(selected.getUuid())) {
+            context.getTreeView().getSelectionModel().select(context.getNotes().get(selected.getUuid()).getItem());
+        }
     }
 
     @Override
@@ -124,6 +252,10 @@ public class NoteServiceImpl implements NoteService {
                         .toList())
                 .build());
 
+        cacheService.removeSpace(uuid);
+
+        if(uuid.equals(settingsService.getLastSpace())) settingsService.setLastSpace(null);
+
         context.spaceProperty().set(null);
     }
 
@@ -138,27 +270,12 @@ public class NoteServiceImpl implements NoteService {
 
         if(optional.isEmpty()) return;
 
-        Note note = Note.builder()
+        addNote(parent, Note.builder()
                 .uuid(optional.get())
                 .title(title)
+                .content("")
                 .parent(parent)
-                .build();
-
-        parent.getChildren().add(note);
-
-        context.getNotes().put(note.getUuid(), note);
-
-        parent.getChildren().sort(Comparator.naturalOrder());
-
-        TreeItem<Note> item = buildItem(note);
-
-        TreeItem<Note> parentItem = parent.getItem();
-
-        parentItem.getChildren().add(item);
-
-        parentItem.getChildren().sort(Comparator.comparing(TreeItem::getValue));
-
-        context.getNoteTreeChangeSubscription().call();
+                .build());
     }
 
     @Override
@@ -175,32 +292,85 @@ public class NoteServiceImpl implements NoteService {
     }
 
     @Override
-    public void renameNote(Note note, String title) {
-        note.setTitle(title);
+    public CompletableFuture<Boolean> loadNote(Note note) {
+        if(note.isLoaded()) return CompletableFuture.completedFuture(true);
 
-        if(note.getParent() != null) {
-            note.getParent().getChildren().sort(Comparator.naturalOrder());
+        CompletableFuture<Boolean> pending = loadingNotes.get(note.getUuid());
 
-            note.getItem().getParent().getChildren().sort(Comparator.comparing(TreeItem::getValue));
+        if(pending != null) return pending;
+
+        logger.info("Attempting to fetch content of note " + note.getLogName());
+
+        CompletableFuture<Boolean> future = restService
+                .getNoteAsync(note.getUuid())
+                .thenApply(optional -> {
+                    loadingNotes.remove(note.getUuid());
+
+                    return noteLoaded(note, optional);
+                });
+
+        //The future may already be complete if the response was handled before this point
+        if(!future.isDone()) loadingNotes.put(note.getUuid(), future);
+
+        return future;
+    }
+
+    /**
+     * Applies the fetched content of a note on the application thread.
+     */
+    private boolean noteLoaded(Note note, Optional<NoteContentDto> optional) {
+        if(note.isLoaded()) return true;
+
+        if(optional.isEmpty()) {
+            //Show the cached content for reading, but leave the note unloaded so that it is not saved
+            cacheService.getContent(note.getUuid()).ifPresent(content -> {
+                logger.info("Showing cached content of note " + note.getLogName());
+
+                note.setLastContent(content);
+
+                note.setContent(content);
+            });
+
+            return false;
         }
 
+        note.setLastContent(optional.get().getContent());
+
+        note.setContent(optional.get().getContent());
+
+        note.setLoaded(true);
+
+        cacheService.putContent(note.getUuid(), note.getContent());
+
+        return true;
+    }
+
+    @Override
+    public void renameNote(Note note, String title) {
+        setTitle(note, title);
+
         saveNote(note, true);
     }
 
     @Override
     public void saveNote(Note note, boolean force) {
-        if(!force && note.getContent().equals(note.getLastContent())) return;
+        if(note.isLoaded()) {
+            saveService.save(note, force);
+            return;
+        }
 
-        logger.info("Attempting to save note " + note.getLogName());
+        if(!force) return;
 
-        Optional<String> optional = restService.changeNote(mappingService.mapToNoteChangeDto(note));
+        loadNote(note).thenAccept(loaded -> {
+            if(loaded) saveService.save(note, true);
+        });
+    }
 
-        if(optional.isEmpty()) {
-            note.setContent(note.getLastContent());
-            return;
-        }
+    @Override
+    public void scheduleSave(Note note) {
+        if(!note.isLoaded()) return;
 
-        note.setLastContent(note.getContent());
+        saveService.schedule(note);
     }
 
     @Override
@@ -210,7 +380,7 @@ public class NoteServiceImpl implements NoteService {
         logger.debug("Checking cyclic dependencies");
         if(checkCyclicNotes(newParent, note)) {
             popupService.showInfoPopup("Cannot move note", "Cannot move \"" + note.getTitle() +
-                    "\" because \"" + newParent.getTitle() + "\" is its descendant.");
+                    "\" because \"" + newParent.getTitle() + "\" is the note itself or its descendant.");
             return false;
         }
 
@@ -218,7 +388,60 @@ public class NoteServiceImpl implements NoteService {
 
         if(optional.isEmpty()) return false;
 
-        note.getParent().getChildren().remove(note);
+        moveNoteInTree(note, newParent);
+
+        return true;
+    }
+
+    @Override
+    public void removeNote(Note note, boolean removeChildren) {
+        logger.info("Attempting to remove note " + note.getLogName() +
+                (removeChildren ? " and all its children" : " and move its children to its parent"));
+        Optional<String> optional = restService.removeNote(note.getUuid(), removeChildren);
+
+        if(optional.isEmpty()) return;
+
+        removeNoteFromTree(note, removeChildren);
+    }
+
+    private void addNote(Note parent, Note note) {
+        parent.getChildren().add(note);
+
+        context.getNotes().put(note.getUuid(), note);
+
+        searchService.addNote(note);
+
+        parent.getChildren().sort(Comparator.naturalOrder());
+
+        TreeItem<Note> item = buildItem(note);
+
+        TreeItem<Note> parentItem = parent.getItem();
+
+        parentItem.getChildren().add(item);
+
+        parentItem.getChildren().sort(Comparator.comparing(TreeItem::getValue));
+
+        context.getNoteTreeChangeSubscription().call(NoteTreeEvent.added(note));
+    }
+
+    private void setTitle(Note note, String title) {
+        note.setTitle(title);
+
+        if(note.getParent() != null) {
+            note.getParent().getChildren().sort(Comparator.naturalOrder());
+
+            note.getItem().getParent().getChildren().sort(Comparator.comparing(TreeItem::getValue));
+        }
+
+        context.getNoteTreeChangeSubscription().call(NoteTreeEvent.renamed(note));
+    }
+
+    private void moveNoteInTree(Note note, Note newParent) {
+        Note oldParent = note.getParent();
+
+        oldParent.getChildren().remove(note);
+
+        note.setParent(newParent);
 
         newParent.getChildren().add(note);
 
@@ -234,19 +457,10 @@ public class NoteServiceImpl implements NoteService {
 
         newParentItem.getChildren().sort(Comparator.comparing(TreeItem::getValue));
 
-        context.getNoteTreeChangeSubscription().call();
-
-        return true;
+        context.getNoteTreeChangeSubscription().call(NoteTreeEvent.moved(note, oldParent));
     }
 
-    @Override
-    public void removeNote(Note note, boolean removeChildren) {
-        logger.info("Attempting to remove note " + note.getLogName() +
-                (removeChildren ? " and all its children" : " and move its children to its parent"));
-        Optional<String> optional = restService.removeNote(note.getUuid(), removeChildren);
-
-        if(optional.isEmpty()) return;
-
+    private void removeNoteFromTree(Note note, boolean removeChildren) {
         note.setRemoved(true);
 
         TreeItem<Note> noteItem = note.getItem();
@@ -254,9 +468,14 @@ public class NoteServiceImpl implements NoteService {
         if(!removeChildren) {
             logger.debug("Moving children to parent " + note.getParent().getLogName());
 
+            note.getChildren().forEach(child -> child.setParent(note.getParent()));
+
             note.getParent().getChildren().addAll(note.getChildren());
 
             noteItem.getParent().getChildren().addAll(noteItem.getChildren());
+
+            note.getChildren().forEach(child ->
+                    context.getNoteTreeChangeSubscription().call(NoteTreeEvent.moved(child, note)));
         } else {
             logger.debug("Removing children recursively");
 
@@ -265,32 +484,272 @@ public class NoteServiceImpl implements NoteService {
 
         context.getNotes().remove(note.getUuid());
 
+        searchService.removeNote(note);
+
         note.getParent().getChildren().remove(note);
 
         noteItem.getParent().getChildren().remove(noteItem);
 
-        context.getNoteTreeChangeSubscription().call();
+        context.getNoteTreeChangeSubscription().call(NoteTreeEvent.removed(note));
     }
 
     private void removeChildrenRecursive(Note note) {
         note.getChildren().forEach(child -> {
-            logger.debug("Removing child " + note.getLogName());
+            logger.debug("Removing child " + child.getLogName());
+
+            //Pending saves of removed notes are dropped
+            child.setRemoved(true);
 
             context.getNotes().remove(child.getUuid());
 
+            searchService.removeNote(child);
+
             removeChildrenRecursive(child);
         });
     }
 
-    private boolean checkCyclicNotes(Note checked, Note current) {
-        if(current.getChildren().contains(checked)) {
-            logger.info("Cyclic note tree while moving " + checked.getLogName() + " detected at note " + current.getLogName());
-            return true;
+    /**
+     * Subscribes to the changes of a space if they are not subscribed to already, and
+     * ends the subscription of the previously opened space.
+     */
+    private void subscribe(Space space) {
+        String uuid = space == null ? null : space.getUuid();
+
+        if(Objects.equals(uuid, subscribedSpace)) return;
+
+        if(subscription != null) subscription.cancel(true);
+
+        subscribedSpace = uuid;
+        subscription = null;
+        version = -1;
+        subscribeFailures = 0;
+
+        if(uuid != null) subscribe(uuid);
+    }
+
+    /**
+     * Subscribes again when the server ends the subscription, and retries with an
+     * increasing delay if subscribing fails.
+     */
+    private void subscribe(String uuid) {
+        logger.info("Subscribing to changes of space with uuid " + uuid);
+
+        awaitingVersion = true;
+
+        CompletableFuture<Optional<String>> future = restService.subscribeToSpaceAsync(uuid, event -> applyEvent(uuid, event));
+
+        subscription = future;
+
+        future.thenAccept(optional -> {
+            if(subscription != future) return;
+
+            if(optional.isPresent()) {
+                subscribe(uuid);
+                return;
+            }
+
+            double retryDelay = Math.min(SUBSCRIBE_RETRY_DELAY * Math.pow(2, subscribeFailures++), SUBSCRIBE_RETRY_MAX_DELAY);
+
+            logger.info("Could not subscribe to changes of space with uuid " + uuid + ", retrying in " + retryDelay + " ms");
+
+            PauseTransition timer = new PauseTransition(Duration.millis(retryDelay));
+
+            timer.setOnFinished(event -> {
+                if(subscription == future) subscribe(uuid);
+            });
+
+            timer.play();
+        });
+    }
+
+    /**
+     * Applies the changes of an event if the note tree is at the previous version of the
+     * space. Changes made by this client are received too, and are already applied.
+     */
+    private void applyEvent(String uuid, SpaceEventDto event) {
+        Space space = context.getSpace();
+
+        if(!uuid.equals(subscribedSpace) || space == null || !space.getUuid().equals(uuid)) return;
+
+        subscribeFailures = 0;
+
+        if(awaitingVersion) {
+            awaitingVersion = false;
+
+            //Changes may have been made while not subscribed
+            if(event.getVersion() != version) {
+                version = event.getVersion();
+
+                refreshSpace();
+            }
+
+            return;
         }
 
-        logger.debug("Current note is " + current.getLogName());
+        if(event.getVersion() <= version) return;
+
+        boolean missed = event.getVersion() != version + 1;
+
+        version = event.getVersion();
+
+        if(missed) {
+            logger.info("Changes of space with uuid " + uuid + " were missed, refreshing space");
+
+            refreshSpace();
+
+            return;
+        }
+
+        for(NoteEventDto noteEvent : event.getEvents()) {
+            if(!applyNoteEvent(noteEvent)) {
+                logger.info("Change to note with uuid " + noteEvent.getUuid() + " cannot be applied, refreshing space");
+
+                refreshSpace();
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if the change was applied or had already been applied, false if it
+     *         cannot be applied to the note tree
+     */
+    private boolean applyNoteEvent(NoteEventDto event) {
+        Map<String, Note> notes = context.getNotes();
+
+        Note note = notes.get(event.getUuid());
+
+        switch(event.getType()) {
+            case CREATED -> {
+                if(note != null) return true;
+
+                Note parent = notes.get(event.getParent());
+
+                if(parent == null) return false;
+
+                logger.info("Note " + event.getTitle() + " was created elsewhere");
+
+                addNote(parent, Note.builder()
+                        .uuid(event.getUuid())
+                        .title(event.getTitle())
+                        .parent(parent)
+                        .build());
+
+                return true;
+            }
+            case CHANGED -> {
+                if(note == null) return false;
+
+                contentChanged(note, event.getHash());
+
+                if(event.getTitle() == null || event.getTitle().equals(note.getTitle())) return true;
+
+                logger.info("Note " + note.getLogName() + " was renamed elsewhere");
+
+                setTitle(note, event.getTitle());
+
+                return true;
+            }
+            case MOVED -> {
+                if(note == null) return false;
+
+                Note newParent = notes.get(event.getParent());
+
+                if(newParent == null) {
+                    logger.info("Note " + note.getLogName() + " was moved to another space");
+
+                    removeNoteFromTree(note, true);
+
+                    return true;
+                }
+
+                if(newParent.equals(note.getParent())) return true;
+
+                if(note.getParent() == null || checkCyclicNotes(newParent, note)) return false;
+
+                logger.info("Note " + note.getLogName() + " was moved elsewhere");
+
+                moveNoteInTree(note, newParent);
+
+                return true;
+            }
+            case REMOVED -> {
+                if(note == null) return true;
+
+                if(note.getParent() == null) return false;
+
+                logger.info("Note " + note.getLogName() + " was removed elsewhere");
+
+                removeNoteFromTree(note, event.isRemoveChildren());
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Unloads a note whose content was changed elsewhere, so that the new content is
+     * fetched when it is opened, and fetches it right away if it is open. Notes with
+     * unsaved edits are left as they are, and the edits are saved over the change.
+     */
+    private void contentChanged(Note note, String hash) {
+        if(!note.isLoaded() || NotePatcher.hash(note.getLastContent()).equals(hash)) return;
+
+        if(!note.getContent().equals(note.getLastContent())) {
+            logger.info("Note " + note.getLogName() + " was changed elsewhere while it has unsaved edits");
+            return;
+        }
+
+        logger.info("Note " + note.getLogName() + " was changed elsewhere");
+
+        note.setLoaded(false);
+
+        if(note.equals(context.getNote())) loadNote(note);
+    }
+
+    /**
+     * Writes a change to the note tree to the cache. The whole tree is only written when
+     * it is replaced, and other changes are recorded as single events, so that a change
+     * does not map or write the whole space. Children of a note removed without them have
+     * already been moved when the note is removed.
+     */
+    private void cacheTreeChange(NoteTreeEvent event) {
+        Space space = context.getSpace();
+
+        if(space == null) return;
+
+        Note note = event.note();
+
+        NoteEventDto dto = switch(event.type()) {
+            case REPLACED -> null;
+            case ADDED -> NoteEventDto.created(note.getUuid(), note.getParent().getUuid(), note.getTitle());
+            case REMOVED -> NoteEventDto.removed(note.getUuid(), true);
+            case MOVED -> NoteEventDto.moved(note.getUuid(), note.getParent().getUuid());
+            case RENAMED -> NoteEventDto.changed(note.getUuid(), note.getTitle(), null);
+        };
+
+        if(dto == null) {
+            cacheService.putSpace(mappingService.mapToSpaceTreeDto(space));
+            return;
+        }
+
+        cacheService.putSpaceEvent(space.getUuid(), dto);
+    }
+
+    private boolean checkCyclicNotes(Note newParent, Note note) {
+        for(Note current = newParent; current != null; current = current.getParent()) {
+            if(current.equals(note)) {
+                logger.info("Cyclic note tree while moving " + note.getLogName() + " detected at note " + newParent.getLogName());
+                return true;
+            }
+
+            logger.debug("Current note is " + current.getLogName());
+        }
 
-        return current.getChildren().stream().anyMatch(note -> checkCyclicNotes(checked, note));
+        return false;
     }
 
     private Map<String, Note> notesFromSpace(Space space) {
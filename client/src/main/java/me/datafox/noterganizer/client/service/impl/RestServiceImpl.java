@@ -1,5 +1,6 @@
 package me.datafox.noterganizer.client.service.impl;
 
+import javafx.application.Platform;
 import me.datafox.noterganizer.api.dto.*;
 import me.datafox.noterganizer.client.injection.Component;
 import me.datafox.noterganizer.client.injection.Inject;
@@ -9,6 +10,8 @@ import me.datafox.noterganizer.client.service.PopupService;
 import me.datafox.noterganizer.client.service.RestService;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * REST service implementation.
@@ -29,23 +32,33 @@ public class RestServiceImpl implements RestService {
     }
 
     @Override
-    public Optional<String> connect(String address) {
-        return handleResponse(connectionService.connect(address));
+    public CompletableFuture<Optional<String>> connectAsync(String address) {
+        return handleResponseAsync(connectionService.connectAsync(address));
     }
 
     @Override
-    public Optional<String> login(String username, String password, boolean remember) {
-        return handleResponse(connectionService.login(username, password, remember));
+    public CompletableFuture<Optional<String>> reconnectAsync(String address) {
+        return optionalAsync(connectionService.connectAsync(address));
     }
 
     @Override
-    public Optional<UserDto> getUser() {
-        return handleResponse(connectionService.get("user", UserDto.class));
+    public CompletableFuture<Optional<String>> loginAsync(String username, String password, boolean remember) {
+        return handleResponseAsync(connectionService.loginAsync(username, password, remember));
     }
 
     @Override
-    public Optional<String> register(UserRegisterDto dto) {
-        return handleResponse(connectionService.post(dto, "register", String.class));
+    public CompletableFuture<Optional<UserDto>> getUserAsync() {
+        return handleResponseAsync(connectionService.getAsync("user", UserDto.class));
+    }
+
+    @Override
+    public CompletableFuture<Optional<UserDto>> fetchUserAsync() {
+        return optionalAsync(connectionService.getAsync("user", UserDto.class));
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> registerAsync(UserRegisterDto dto) {
+        return handleResponseAsync(connectionService.postAsync(dto, "register", String.class));
     }
 
     @Override
@@ -54,8 +67,29 @@ public class RestServiceImpl implements RestService {
     }
 
     @Override
-    public Optional<SpaceDto> getSpace(String uuid) {
-        return handleResponse(connectionService.get("space/get?uuid=" + uuid, SpaceDto.class));
+    public CompletableFuture<Optional<SpaceTreeDto>> getSpaceTreeAsync(String uuid) {
+        return handleResponseAsync(connectionService.getAsync("space/tree?uuid=" + uuid, SpaceTreeDto.class));
+    }
+
+    @Override
+    public CompletableFuture<Optional<SpaceTreeDto>> fetchSpaceTreeAsync(String uuid) {
+        return optionalAsync(connectionService.getAsync("space/tree?uuid=" + uuid, SpaceTreeDto.class));
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> subscribeToSpaceAsync(String uuid, Consumer<SpaceEventDto> listener) {
+        CompletableFuture<Response<String>> future = connectionService.subscribeAsync(
+                "space/events?uuid=" + uuid,
+                SpaceEventDto.class,
+                event -> Platform.runLater(() -> listener.accept(event)));
+
+        CompletableFuture<Optional<String>> result = optionalAsync(future);
+
+        result.whenComplete((optional, throwable) -> {
+            if(result.isCancelled()) future.cancel(true);
+        });
+
+        return result;
     }
 
     @Override
@@ -68,6 +102,11 @@ public class RestServiceImpl implements RestService {
         return handleResponse(connectionService.delete("space/remove?uuid=" + uuid, String.class));
     }
 
+    @Override
+    public CompletableFuture<Optional<NoteContentDto>> getNoteAsync(String uuid) {
+        return handleResponseAsync(connectionService.getAsync("note/get?uuid=" + uuid, NoteContentDto.class));
+    }
+
     @Override
     public Optional<String> createNote(NoteCreateDto dto) {
         return handleResponse(connectionService.post(dto, "note/create", String.class));
@@ -75,7 +114,12 @@ public class RestServiceImpl implements RestService {
 
     @Override
     public Optional<String> changeNote(NoteChangeDto dto) {
-        return handleResponse(connectionService.post(dto, "note/change", String.class));
+        return connectionService.post(dto, "note/change", String.class).optional();
+    }
+
+    @Override
+    public Optional<String> patchNote(NotePatchDto dto) {
+        return connectionService.post(dto, "note/patch", String.class).optional();
     }
 
     @Override
@@ -89,6 +133,11 @@ public class RestServiceImpl implements RestService {
                 "note/remove?uuid=" + uuid + "&removeChildren=" + removeChildren, String.class));
     }
 
+    @Override
+    public Optional<NoteBatchResultDto> applyBatch(NoteBatchDto dto) {
+        return handleResponse(connectionService.post(dto, "note/batch", NoteBatchResultDto.class));
+    }
+
     private <T> Optional<T> handleResponse(Response<T> response) {
         if(response.isError()) {
             popupService.showInfoPopup("Application error",
@@ -97,4 +146,12 @@ public class RestServiceImpl implements RestService {
 
         return response.optional();
     }
+
+    private <T> CompletableFuture<Optional<T>> handleResponseAsync(CompletableFuture<Response<T>> future) {
+        return future.thenApplyAsync(this::handleResponse, Platform::runLater);
+    }
+
+    private <T> CompletableFuture<Optional<T>> optionalAsync(CompletableFuture<Response<T>> future) {
+        return future.thenApplyAsync(Response::optional, Platform::runLater);
+    }
 }
@@ -0,0 +1,284 @@
+package me.datafox.noterganizer.client.service.impl;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+import me.datafox.noterganizer.api.dto.NoteChangeDto;
+import me.datafox.noterganizer.api.dto.NotePatchDto;
+import me.datafox.noterganizer.client.injection.Component;
+import me.datafox.noterganizer.client.injection.Inject;
+import me.datafox.noterganizer.client.model.Note;
+import me.datafox.noterganizer.client.service.*;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static me.datafox.noterganizer.client.ClientConstants.*;
+
+/**
+ * Save service implementation. Saves are queued on the application thread and sent one
+ * at a time on a background thread. The content of a note is read when its save is sent
+ * rather than when it is queued, so every save that is queued while another one is
+ * waiting or being sent is coalesced into it. Only the edits made since the last
+ * successful save are sent if they are smaller than the full content.
+ *
+ * @author datafox
+ */
+@Component
+public class SaveServiceImpl implements SaveService {
+    private final Logger logger;
+
+    private final CacheService cacheService;
+
+    private final MappingService mappingService;
+
+    private final PopupService popupService;
+
+    private final RestService restService;
+
+    private final ExecutorService executor;
+
+    /**
+     * Notes to be saved as soon as possible, mapped to whether the save is forced.
+     */
+    private final Map<Note, Boolean> pending;
+
+    /**
+     * Notes to be saved after a delay, either because they are being edited or because
+     * their last save failed.
+     */
+    private final Map<Note, DelayedSave> delayed;
+
+    /**
+     * Number of failed saves in a row for every note whose last save failed.
+     */
+    private final Map<Note, Integer> failures;
+
+    private boolean sending;
+
+    @Inject
+    public SaveServiceImpl(Logger logger,
+                           CacheService cacheService,
+                           MappingService mappingService,
+                           PopupService popupService,
+                           RestService restService) {
+        this.logger = logger;
+        this.cacheService = cacheService;
+        this.mappingService = mappingService;
+        this.popupService = popupService;
+        this.restService = restService;
+
+        logger.info("Initializing save service");
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "save");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pending = new LinkedHashMap<>();
+        delayed = new HashMap<>();
+        failures = new HashMap<>();
+        sending = false;
+    }
+
+    @Override
+    public void save(Note note, boolean force) {
+        DelayedSave delayedSave = delayed.remove(note);
+
+        if(delayedSave != null) {
+            delayedSave.timer().stop();
+
+            force |= delayedSave.force();
+        }
+
+        pending.merge(note, force, Boolean::logicalOr);
+
+        sendNext();
+    }
+
+    @Override
+    public void schedule(Note note) {
+        //Failed saves are already waiting for a retry, which sends the latest content
+        if(failures.containsKey(note)) return;
+
+        DelayedSave delayedSave = delayed.get(note);
+
+        if(delayedSave != null) {
+            delayedSave.timer().playFromStart();
+            return;
+        }
+
+        delay(note, false, AUTOSAVE_DELAY);
+    }
+
+    @Override
+    public void flush() {
+        logger.info("Sending all pending saves");
+
+        delayed.forEach((note, delayedSave) -> {
+            delayedSave.timer().stop();
+
+            pending.merge(note, delayedSave.force(), Boolean::logicalOr);
+        });
+
+        delayed.clear();
+
+        try {
+            //Wait for the save that is being sent, its result is never handled
+            executor.submit(() -> {}).get();
+
+            for(Map.Entry<Note, Boolean> entry : pending.entrySet()) {
+                Save save = prepare(entry.getKey(), entry.getValue());
+
+                if(save != null && executor.submit(() -> send(save)).get()) {
+                    saved(save);
+                }
+            }
+        } catch(ExecutionException e) {
+            logger.error("Could not send pending saves", e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        pending.clear();
+    }
+
+    /**
+     * Sends the first pending save if no save is being sent.
+     */
+    private void sendNext() {
+        while(!sending && !pending.isEmpty()) {
+            Iterator<Map.Entry<Note, Boolean>> iterator = pending.entrySet().iterator();
+
+            Map.Entry<Note, Boolean> entry = iterator.next();
+
+            iterator.remove();
+
+            Save save = prepare(entry.getKey(), entry.getValue());
+
+            if(save == null) continue;
+
+            sending = true;
+
+            CompletableFuture
+                    .supplyAsync(() -> send(save), executor)
+                    .exceptionally(throwable -> {
+                        logger.error("Could not save note " + save.note().getLogName(), throwable);
+                        return false;
+                    })
+                    .thenAccept(success -> Platform.runLater(() -> sent(save, success)));
+        }
+    }
+
+    /**
+     * Reads everything that is sent from the note, since notes may only be accessed on the
+     * application thread.
+     *
+     * @return save to be sent, or null if the note does not need to be saved
+     */
+    private Save prepare(Note note, boolean force) {
+        if(note.isRemoved() || !note.isLoaded()) return null;
+
+        if(!force && note.getContent().equals(note.getLastContent())) return null;
+
+        NotePatchDto patch = mappingService.mapToNotePatchDto(note);
+
+        int editSize = patch.getEdits().stream().mapToInt(edit -> edit.getText().length()).sum();
+
+        //Edits that are not smaller than the full content are not worth sending
+        if(editSize >= note.getContent().length()) patch = null;
+
+        return new Save(note, force, note.getContent(), patch, mappingService.mapToNoteChangeDto(note));
+    }
+
+    /**
+     * Sends only the edits if possible, and the full content if there were no edits to
+     * send or if the server rejected them because the note was changed elsewhere. Called
+     * on the save thread.
+     *
+     * @return true if the save was successful
+     */
+    private boolean send(Save save) {
+        logger.info("Attempting to save note " + save.note().getLogName());
+
+        if(save.patch() != null) {
+            if(restService.patchNote(save.patch()).isPresent()) return true;
+
+            logger.info("Could not patch note " + save.note().getLogName() + ", sending full content");
+        }
+
+        return restService.changeNote(save.change()).isPresent();
+    }
+
+    /**
+     * Handles the result of a save and sends the next one.
+     */
+    private void sent(Save save, boolean success) {
+        sending = false;
+
+        Note note = save.note();
+
+        if(success) {
+            failures.remove(note);
+
+            saved(save);
+        } else if(!note.isRemoved()) {
+            //A save queued while this one was sent is replaced by the retry, which must keep its force
+            boolean force = save.force() | Boolean.TRUE.equals(pending.remove(note));
+
+            int failed = failures.merge(note, 1, Integer::sum);
+
+            if(failed < SAVE_ATTEMPTS) {
+                double retryDelay = Math.min(SAVE_RETRY_DELAY * Math.pow(2, failed - 1), SAVE_RETRY_MAX_DELAY);
+
+                logger.info("Could not save note " + note.getLogName() + ", retrying in " + retryDelay + " ms");
+
+                delay(note, force, retryDelay);
+            } else {
+                failures.remove(note);
+
+                popupService.showInfoPopup("Could not save note",
+                        "\"" + note.getTitle() + "\" could not be saved. It will be saved again when it is edited.");
+            }
+        }
+
+        sendNext();
+    }
+
+    private void saved(Save save) {
+        //The note may have been edited while it was being saved
+        save.note().setLastContent(save.content());
+
+        cacheService.putContent(save.note().getUuid(), save.content());
+    }
+
+    private void delay(Note note, boolean force, double millis) {
+        PauseTransition timer = new PauseTransition(Duration.millis(millis));
+
+        timer.setOnFinished(event -> {
+            DelayedSave delayedSave = delayed.get(note);
+
+            if(delayedSave == null || delayedSave.timer() != timer) return;
+
+            save(note, false);
+        });
+
+        DelayedSave previous = delayed.put(note, new DelayedSave(timer, force));
+
+        if(previous != null) {
+            previous.timer().stop();
+
+            delayed.put(note, new DelayedSave(timer, force || previous.force()));
+        }
+
+        timer.play();
+    }
+
+    private record Save(Note note, boolean force, String content, NotePatchDto patch, NoteChangeDto change) {}
+
+    private record DelayedSave(PauseTransition timer, boolean force) {}
+}
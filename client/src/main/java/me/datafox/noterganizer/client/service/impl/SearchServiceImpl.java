@@ -0,0 +1,244 @@
+package me.datafox.noterganizer.client.service.impl;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import me.datafox.noterganizer.api.NoteTokenizer;
+import me.datafox.noterganizer.client.injection.Component;
+import me.datafox.noterganizer.client.injection.Inject;
+import me.datafox.noterganizer.client.model.Note;
+import me.datafox.noterganizer.client.service.SearchService;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Search service implementation. Title and content changes only mark a note as changed,
+ * and changed notes are tokenized again when the next search is made, so typing in the
+ * editor never tokenizes anything. Terms are kept in a sorted map so that all terms with
+ * a prefix can be found without scanning the index.
+ *
+ * @author datafox
+ */
+@Component
+public class SearchServiceImpl implements SearchService {
+    private final Logger logger;
+
+    private final Executor executor;
+
+    private final Map<Note, InvalidationListener> listeners;
+
+    /**
+     * Notes whose terms may be outdated. Notes that are no longer listened to have been
+     * removed.
+     */
+    private final Set<Note> changed;
+
+    private Index index;
+
+    private int generation;
+
+    private boolean building;
+
+    @Inject
+    public SearchServiceImpl(Logger logger) {
+        this.logger = logger;
+
+        logger.info("Initializing search service");
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        listeners = new HashMap<>();
+        changed = new LinkedHashSet<>();
+        index = new Index();
+        generation = 0;
+        building = false;
+    }
+
+    @Override
+    public void indexNotes(Collection<Note> notes) {
+        listeners.forEach(this::removeListener);
+        listeners.clear();
+        changed.clear();
+        index = new Index();
+
+        int current = ++generation;
+
+        building = true;
+
+        //Titles and contents are read here, so that notes are never accessed off the application thread
+        notes.forEach(this::listen);
+
+        List<NoteText> texts = notes
+                .stream()
+                .map(note -> new NoteText(note, note.getTitle(), note.getContent()))
+                .toList();
+
+        executor.execute(() -> {
+            long start = System.nanoTime();
+
+            Index built = new Index();
+
+            texts.forEach(text -> built.put(text.note(), NoteTokenizer.terms(text.title(), text.content())));
+
+            logger.debug("Indexed " + texts.size() + " notes in " + (System.nanoTime() - start) / 1000000 + " ms");
+
+            Platform.runLater(() -> {
+                if(generation != current) return;
+
+                index = built;
+
+                building = false;
+            });
+        });
+    }
+
+    @Override
+    public void addNote(Note note) {
+        listen(note);
+
+        changed.add(note);
+    }
+
+    @Override
+    public void removeNote(Note note) {
+        InvalidationListener listener = listeners.remove(note);
+
+        if(listener != null) removeListener(note, listener);
+
+        changed.add(note);
+    }
+
+    @Override
+    public List<Note> search(String query, int limit) {
+        if(building) return List.of();
+
+        updateChanged();
+
+        List<String> tokens = NoteTokenizer.tokens(query);
+
+        if(tokens.isEmpty()) return List.of();
+
+        //The word being typed is the last one in the query, even if it was typed before
+        String prefix = tokens.get(tokens.size() - 1);
+
+        Set<String> terms = new LinkedHashSet<>(tokens.subList(0, tokens.size() - 1));
+
+        List<Set<Note>> matches = new ArrayList<>();
+
+        terms.forEach(term -> matches.add(index.get(term)));
+
+        matches.add(index.getByPrefix(prefix));
+
+        matches.sort(Comparator.comparingInt(Set::size));
+
+        Set<Note> result = new HashSet<>(matches.get(0));
+
+        matches.subList(1, matches.size()).forEach(result::retainAll);
+
+        //Titles are tokenized once per note instead of on every comparison
+        return result
+                .stream()
+                .map(note -> new ScoredNote(note, titleMatches(note, terms, prefix)))
+                .sorted(Comparator
+                        .comparingInt(ScoredNote::score)
+                        .reversed()
+                        .thenComparing(ScoredNote::note))
+                .limit(limit)
+                .map(ScoredNote::note)
+                .toList();
+    }
+
+    private void updateChanged() {
+        if(changed.isEmpty()) return;
+
+        for(Note note : changed) {
+            if(listeners.containsKey(note)) {
+                index.put(note, NoteTokenizer.terms(note.getTitle(), note.getContent()));
+            } else {
+                index.remove(note);
+            }
+        }
+
+        logger.debug("Updated terms of " + changed.size() + " notes");
+
+        changed.clear();
+    }
+
+    private int titleMatches(Note note, Set<String> terms, String prefix) {
+        Set<String> titleTerms = NoteTokenizer.terms(note.getTitle());
+
+        int matches = (int) terms.stream().filter(titleTerms::contains).count();
+
+        return titleTerms.stream().anyMatch(term -> term.startsWith(prefix)) ? matches + 1 : matches;
+    }
+
+    private void listen(Note note) {
+        InvalidationListener listener = observable -> changed.add(note);
+
+        note.titleProperty().addListener(listener);
+
+        note.contentProperty().addListener(listener);
+
+        listeners.put(note, listener);
+    }
+
+    private void removeListener(Note note, InvalidationListener listener) {
+        note.titleProperty().removeListener(listener);
+
+        note.contentProperty().removeListener(listener);
+    }
+
+    private record NoteText(Note note, String title, String content) {}
+
+    private record ScoredNote(Note note, int score) {}
+
+    /**
+     * Inverted index from terms to notes, and from notes to terms for removing notes.
+     */
+    private static class Index {
+        private final NavigableMap<String, Set<Note>> notes = new TreeMap<>();
+
+        private final Map<Note, Set<String>> terms = new HashMap<>();
+
+        private void put(Note note, Set<String> noteTerms) {
+            remove(note);
+
+            terms.put(note, noteTerms);
+
+            noteTerms.forEach(term -> notes.computeIfAbsent(term, key -> new HashSet<>()).add(note));
+        }
+
+        private void remove(Note note) {
+            Set<String> noteTerms = terms.remove(note);
+
+            if(noteTerms == null) return;
+
+            for(String term : noteTerms) {
+                Set<Note> termNotes = notes.get(term);
+
+                termNotes.remove(note);
+
+                if(termNotes.isEmpty()) notes.remove(term);
+            }
+        }
+
+        private Set<Note> get(String term) {
+            return notes.getOrDefault(term, Set.of());
+        }
+
+        private Set<Note> getByPrefix(String prefix) {
+            Set<Note> result = new HashSet<>();
+
+            notes.subMap(prefix, true, prefix + Character.MAX_VALUE, true)
+                    .values()
+                    .forEach(result::addAll);
+
+            return result;
+        }
+    }
+}
@@ -21,8 +21,10 @@ import java.util.prefs.Preferences;
 public class SettingsServiceImpl implements SettingsService {
     private static final String SERVER_ADDRESS = "address";
     private static final String AUTO_CONNECT = "autoConnect";
+    private static final String BINARY_FORMAT = "binaryFormat";
     private static final String REMEMBER_ME_COOKIE = "remember";
     private static final String WINDOW_SETTINGS = "window";
+    private static final String LAST_SPACE = "lastSpace";
 
     private final Logger logger;
 
@@ -69,6 +71,21 @@ public class SettingsServiceImpl implements SettingsService {
         flush();
     }
 
+    @Override
+    public boolean getBinaryFormat() {
+        logger.info("Fetching binary format from preferences");
+
+        return preferences.getBoolean(BINARY_FORMAT, false);
+    }
+
+    @Override
+    public void setBinaryFormat(boolean binaryFormat) {
+        logger.info("Saving binary format to preferences (" + binaryFormat + ")");
+
+        preferences.putBoolean(BINARY_FORMAT, binaryFormat);
+        flush();
+    }
+
     @Override
     public HttpCookie getCookie() {
         logger.info("Fetching remember me cookie from preferences");
@@ -100,6 +117,25 @@ public class SettingsServiceImpl implements SettingsService {
         flush();
     }
 
+    @Override
+    public String getLastSpace() {
+        logger.info("Fetching last opened space from preferences");
+
+        return preferences.get(LAST_SPACE, null);
+    }
+
+    @Override
+    public void setLastSpace(String uuid) {
+        logger.info("Saving last opened space to preferences (" + uuid + ")");
+
+        if(uuid == null) {
+            preferences.remove(LAST_SPACE);
+        } else {
+            preferences.put(LAST_SPACE, uuid);
+        }
+        flush();
+    }
+
     @Override
     public WindowSettings getWindowSettings() {
         logger.info("Fetching window position from preferences");
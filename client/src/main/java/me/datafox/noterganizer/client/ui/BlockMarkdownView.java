@@ -0,0 +1,338 @@
+package me.datafox.noterganizer.client.ui;
+
+import com.sandec.mdfx.MarkdownView;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static me.datafox.noterganizer.client.ClientConstants.RENDER_DELAY;
+
+/**
+ * Renders Markdown as a column of top-level blocks, each in a {@link MarkdownView} of its
+ * own, so that an edit only re-renders the blocks it changed instead of the whole
+ * document. Edits are debounced by {@link me.datafox.noterganizer.client.ClientConstants#RENDER_DELAY},
+ * and splitting the Markdown into blocks and comparing them to the rendered blocks is
+ * done on a background thread. Only one render is in progress at a time, and edits made
+ * during it are rendered once it is finished. {@link #renderNow()} skips the delay, for
+ * when the Markdown is replaced instead of edited.
+ *
+ * @author datafox
+ */
+public class BlockMarkdownView extends VBox {
+    private static final Pattern FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,})");
+
+    private static final Pattern LIST_ITEM = Pattern.compile("^ {0,3}([-+*]|\\d{1,9}[.)])(\\s|$)");
+
+    private static final Pattern LINK_DEFINITION = Pattern.compile("^ {0,3}\\[[^]]+]:");
+
+    private final StringProperty mdString;
+
+    private final Supplier<MarkdownView> blockFactory;
+
+    private final ExecutorService executor;
+
+    private final PauseTransition delay;
+
+    /**
+     * Markdown of the rendered blocks, in the same order as the children of this view.
+     */
+    private List<String> blocks;
+
+    private boolean rendering;
+
+    private boolean pending;
+
+    /**
+     * Time of the first edit that has not been rendered yet, or 0 if everything has been
+     * rendered.
+     */
+    private long changed;
+
+    private LongConsumer onRendered;
+
+    /**
+     * @param blockFactory supplier for the views blocks are rendered in
+     */
+    public BlockMarkdownView(Supplier<MarkdownView> blockFactory) {
+        super();
+        this.blockFactory = blockFactory;
+
+        mdString = new SimpleStringProperty("");
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "markdown");
+            thread.setDaemon(true);
+            return thread;
+        });
+        delay = new PauseTransition(Duration.millis(RENDER_DELAY));
+        blocks = List.of();
+        rendering = false;
+        pending = false;
+        changed = 0;
+
+        delay.setOnFinished(event -> requestRender());
+
+        mdString.addListener((observable, oldValue, newValue) -> {
+            if(changed == 0) {
+                changed = System.nanoTime();
+            }
+
+            delay.playFromStart();
+        });
+    }
+
+    public StringProperty mdStringProperty() {
+        return mdString;
+    }
+
+    public String getMdString() {
+        return mdString.get();
+    }
+
+    public void setMdString(String mdString) {
+        this.mdString.set(mdString);
+    }
+
+    /**
+     * Renders the current Markdown without waiting for further edits.
+     */
+    public void renderNow() {
+        delay.stop();
+
+        requestRender();
+    }
+
+    /**
+     * @param onRendered listener called on the application thread with the time in
+     *                   nanoseconds from the first unrendered edit to the layout pass
+     *                   that shows it, or {@code null}
+     */
+    public void setOnRendered(LongConsumer onRendered) {
+        this.onRendered = onRendered;
+    }
+
+    private void requestRender() {
+        if(rendering) {
+            pending = true;
+            return;
+        }
+
+        rendering = true;
+
+        String markdown = Objects.requireNonNullElse(mdString.get(), "");
+
+        List<String> rendered = blocks;
+
+        executor.execute(() -> {
+            List<String> split = split(markdown);
+
+            Change change = diff(rendered, split);
+
+            Platform.runLater(() -> apply(split, change));
+        });
+    }
+
+    private void apply(List<String> split, Change change) {
+        for(int i = 0; i < change.inserted().size(); i++) {
+            String block = change.inserted().get(i);
+
+            if(i < change.removed()) {
+                ((MarkdownView) getChildren().get(change.start() + i)).setMdString(block);
+            } else {
+                getChildren().add(change.start() + i, createBlock(block));
+            }
+        }
+
+        if(change.removed() > change.inserted().size()) {
+            getChildren().remove(change.start() + change.inserted().size(), change.start() + change.removed());
+        }
+
+        blocks = split;
+
+        rendering = false;
+
+        if(pending) {
+            pending = false;
+
+            requestRender();
+
+            return;
+        }
+
+        notifyRendered();
+    }
+
+    private Node createBlock(String block) {
+        MarkdownView view = blockFactory.get();
+
+        view.setMdString(block);
+
+        return view;
+    }
+
+    private void notifyRendered() {
+        long start = changed;
+
+        changed = 0;
+
+        if(onRendered == null || start == 0) {
+            return;
+        }
+
+        Scene scene = getScene();
+
+        if(scene == null) {
+            onRendered.accept(System.nanoTime() - start);
+            return;
+        }
+
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+
+                onRendered.accept(System.nanoTime() - start);
+            }
+        };
+
+        scene.addPostLayoutPulseListener(listener);
+
+        //Nothing may have changed, in which case a pulse would not be requested otherwise
+        Platform.requestNextPulse();
+    }
+
+    /**
+     * Compares blocks by their common beginning and end, so an edit within a single block
+     * results in a single replaced block.
+     */
+    private static Change diff(List<String> oldBlocks, List<String> newBlocks) {
+        int max = Math.min(oldBlocks.size(), newBlocks.size());
+
+        int start = 0;
+
+        while(start < max && oldBlocks.get(start).equals(newBlocks.get(start))) {
+            start++;
+        }
+
+        int end = 0;
+
+        while(end < max - start &&
+                oldBlocks.get(oldBlocks.size() - 1 - end).equals(newBlocks.get(newBlocks.size() - 1 - end))) {
+            end++;
+        }
+
+        return new Change(start,
+                oldBlocks.size() - start - end,
+                List.copyOf(newBlocks.subList(start, newBlocks.size() - end)));
+    }
+
+    /**
+     * Splits Markdown into top-level blocks at blank lines. Blank lines within fenced code
+     * blocks, before indented lines and between list items do not split, so code blocks,
+     * lists and list items with multiple paragraphs stay in one block. Link reference
+     * definitions are appended to every block, so that reference links work in all blocks.
+     */
+    private static List<String> split(String markdown) {
+        List<String> blocks = new ArrayList<>();
+
+        List<String> definitions = new ArrayList<>();
+
+        StringBuilder block = new StringBuilder();
+
+        String fence = null;
+
+        int blank = 0;
+
+        boolean list = false;
+
+        for(String line : markdown.split("\r?\n", -1)) {
+            if(fence == null && line.isBlank()) {
+                if(!block.isEmpty()) {
+                    blank++;
+                }
+                continue;
+            }
+
+            if(fence == null) {
+                boolean indented = line.startsWith(" ") || line.startsWith("\t");
+
+                boolean listItem = LIST_ITEM.matcher(line).find();
+
+                if(blank > 0 && !indented && !(list && listItem)) {
+                    blocks.add(block.toString());
+                    block.setLength(0);
+                }
+
+                if(!indented || block.isEmpty()) {
+                    list = listItem || (list && blank == 0);
+                }
+
+                if(LINK_DEFINITION.matcher(line).find()) {
+                    definitions.add(line);
+                }
+            }
+
+            if(!block.isEmpty()) {
+                block.append("\n".repeat(blank + 1));
+            }
+
+            block.append(line);
+
+            blank = 0;
+
+            fence = nextFence(line, fence);
+        }
+
+        if(!block.isEmpty()) {
+            blocks.add(block.toString());
+        }
+
+        if(definitions.isEmpty()) {
+            return blocks;
+        }
+
+        String suffix = "\n\n" + String.join("\n", definitions);
+
+        return blocks.stream().map(text -> text + suffix).toList();
+    }
+
+    /**
+     * @return fence of the code block that is open after the line, or {@code null} if none
+     */
+    private static String nextFence(String line, String fence) {
+        Matcher matcher = FENCE.matcher(line);
+
+        if(!matcher.find()) {
+            return fence;
+        }
+
+        String marker = matcher.group(1);
+
+        if(fence == null) {
+            return marker;
+        }
+
+        if(marker.charAt(0) == fence.charAt(0) && marker.length() >= fence.length() &&
+                line.substring(matcher.end()).isBlank()) {
+            return null;
+        }
+
+        return fence;
+    }
+
+    private record Change(int start, int removed, List<String> inserted) {}
+}
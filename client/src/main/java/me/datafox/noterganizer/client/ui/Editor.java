@@ -3,12 +3,14 @@ package me.datafox.noterganizer.client.ui;
 import com.sandec.mdfx.MarkdownView;
 import javafx.beans.binding.Bindings;
 import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableList;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import me.datafox.noterganizer.client.NoterganizerClient;
+import me.datafox.noterganizer.client.event.NoteTreeEvent;
 import me.datafox.noterganizer.client.injection.Component;
 import me.datafox.noterganizer.client.injection.Inject;
 import me.datafox.noterganizer.client.model.Context;
@@ -18,7 +20,9 @@ import me.datafox.noterganizer.client.service.PopupService;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import static me.datafox.noterganizer.client.ClientConstants.*;
@@ -42,7 +46,7 @@ public class Editor extends GridPane {
 
     private final TitledPane collapse;
 
-    private final MarkdownView render;
+    private final BlockMarkdownView render;
 
     @Inject
     public Editor(Context context,
@@ -61,7 +65,7 @@ public class Editor extends GridPane {
 
         source = createSource();
         collapse = createEditorCollapse();
-        render = new EditorMarkdownView();
+        render = createRender();
 
         ScrollPane scroll = createRenderScroll();
 
@@ -83,11 +87,18 @@ public class Editor extends GridPane {
         source.setWrapText(true);
 
         source.focusedProperty().addListener((observable, oldValue, newValue) -> {
-            if(!newValue) {
+            if(!newValue && context.getNote() != null) {
                 noteService.saveNote(context.getNote(), false);
             }
         });
 
+        //Only edits made by typing are saved, binding another note also changes the text
+        source.textProperty().addListener((observable, oldValue, newValue) -> {
+            if(source.isFocused() && context.getNote() != null) {
+                noteService.scheduleSave(context.getNote());
+            }
+        });
+
         return source;
     }
 
@@ -130,47 +141,13 @@ public class Editor extends GridPane {
     private Button createLinkButton() {
         Button button = new Button("Add Link");
 
-        ContextMenu menu = createLinkMenu();
+        ContextMenu menu = new LinkMenu();
 
         button.setOnMouseClicked(event -> menu.show(button, event.getScreenX(), event.getScreenY()));
 
         return button;
     }
 
-    private ContextMenu createLinkMenu() {
-        ContextMenu menu = new ContextMenu();
-
-        context.getNoteTreeChangeSubscription().addListener(() ->
-                menu.getItems().setAll(createExternalLinkMenuItem(), createLinkMenuItem(context.getSpace().getRoot())));
-
-        return menu;
-    }
-
-    private MenuItem createLinkMenuItem(Note note) {
-        MenuItem item = new MenuItem();
-
-        item.setOnAction(event -> addInternalLink(note));
-
-        if(!note.getChildren().isEmpty()) {
-            Menu menu = new Menu();
-
-            item.setText("[this]");
-
-            menu.getItems().setAll(note.getChildren().stream().map(this::createLinkMenuItem).toList());
-
-            menu.getItems().sort(Comparator.comparing(MenuItem::getText));
-
-            menu.getItems().add(0, item);
-
-            item = menu;
-        }
-
-        item.textProperty().bind(note.titleProperty());
-
-        return item;
-    }
-
-
     private MenuItem createExternalLinkMenuItem() {
         MenuItem item = new MenuItem("External");
 
@@ -209,6 +186,14 @@ public class Editor extends GridPane {
         }
     }
 
+    private BlockMarkdownView createRender() {
+        BlockMarkdownView render = new BlockMarkdownView(EditorMarkdownView::new);
+
+        render.setOnRendered(nanos -> logger.debug("Rendered note in " + nanos / 1000000 + " ms"));
+
+        return render;
+    }
+
     private ScrollPane createRenderScroll() {
         ScrollPane scroll = new ScrollPane(render);
 
@@ -222,16 +207,224 @@ public class Editor extends GridPane {
     private void noteChanged(ObservableValue<? extends Note> ignored, Note oldValue, Note newValue) {
         if(oldValue != null) {
             source.textProperty().unbindBidirectional(oldValue.contentProperty());
-            render.mdStringProperty().unbindBidirectional(oldValue.contentProperty());
+            render.mdStringProperty().unbind();
             collapse.textProperty().unbind();
         }
         if(newValue != null) {
             source.textProperty().bindBidirectional(newValue.contentProperty());
-            render.mdStringProperty().bindBidirectional(newValue.contentProperty());
+            render.mdStringProperty().bind(newValue.contentProperty());
+            render.renderNow();
             collapse.textProperty().bind(newValue.titleProperty());
         }
     }
 
+    /**
+     * Menu of links to the notes of the current space, nested like the note tree. A note
+     * with children is shown as a submenu of the note itself and its children, and a note
+     * without children as a single item. The menu is built when a space is opened, and
+     * after that only the items of changed notes are updated, so a change takes the same
+     * amount of work regardless of the size of the space. The titles of items are bound to
+     * the titles of their notes until the notes are removed.
+     */
+    private class LinkMenu extends ContextMenu {
+        private final MenuItem external;
+
+        /**
+         * Item or submenu of every note in the menu.
+         */
+        private final Map<Note, MenuItem> items;
+
+        public LinkMenu() {
+            external = createExternalLinkMenuItem();
+            items = new HashMap<>();
+
+            context.getNoteTreeChangeSubscription().addListener(this::treeChanged);
+
+            replace(context.getSpace() == null ? null : context.getSpace().getRoot());
+        }
+
+        private void treeChanged(NoteTreeEvent event) {
+            Note note = event.note();
+
+            switch(event.type()) {
+                case REPLACED -> replace(note);
+                case ADDED -> {
+                    if(items.containsKey(note.getParent())) attach(note.getParent(), build(note));
+                }
+                case REMOVED -> {
+                    MenuItem item = items.get(note);
+
+                    if(item == null) return;
+
+                    detach(item);
+
+                    release(item);
+                }
+                case MOVED -> {
+                    MenuItem item = items.get(note);
+
+                    if(item == null || !items.containsKey(note.getParent())) return;
+
+                    detach(item);
+
+                    attach(note.getParent(), item);
+                }
+                case RENAMED -> {
+                    MenuItem item = items.get(note);
+
+                    if(item == null) return;
+
+                    ObservableList<MenuItem> siblings = siblingsOf(item);
+
+                    siblings.remove(item);
+
+                    insertSorted(siblings, item);
+                }
+            }
+        }
+
+        private void replace(Note root) {
+            items.values().forEach(item -> item.textProperty().unbind());
+
+            items.clear();
+
+            if(root == null) {
+                getItems().clear();
+            } else {
+                getItems().setAll(external, build(root));
+            }
+        }
+
+        private MenuItem build(Note note) {
+            if(note.getChildren().isEmpty()) {
+                return bind(note, createLeaf(note));
+            }
+
+            Menu menu = new Menu();
+
+            menu.getItems().add(createThisItem(note));
+
+            menu.getItems().addAll(note
+                    .getChildren()
+                    .stream()
+                    .map(this::build)
+                    .sorted(Comparator.comparing(MenuItem::getText))
+                    .toList());
+
+            return bind(note, menu);
+        }
+
+        private MenuItem bind(Note note, MenuItem item) {
+            item.setUserData(note);
+
+            item.textProperty().bind(note.titleProperty());
+
+            items.put(note, item);
+
+            return item;
+        }
+
+        /**
+         * Adds an item to the submenu of a parent, turning the item of the parent into a
+         * submenu if it is not one already.
+         */
+        private void attach(Note parent, MenuItem item) {
+            MenuItem parentItem = items.get(parent);
+
+            Menu menu;
+
+            if(parentItem instanceof Menu) {
+                menu = (Menu) parentItem;
+            } else {
+                menu = new Menu();
+
+                menu.getItems().add(createThisItem(parent));
+
+                swap(parentItem, bind(parent, menu));
+            }
+
+            insertSorted(menu.getItems(), item);
+        }
+
+        /**
+         * Removes an item from the submenu it is in, turning the submenu back into a single
+         * item if the item was the last child of its note.
+         */
+        private void detach(MenuItem item) {
+            Menu parentMenu = item.getParentMenu();
+
+            siblingsOf(item).remove(item);
+
+            if(parentMenu != null && parentMenu.getItems().size() == 1) {
+                Note parent = (Note) parentMenu.getUserData();
+
+                parentMenu.textProperty().unbind();
+
+                swap(parentMenu, bind(parent, createLeaf(parent)));
+            }
+        }
+
+        /**
+         * Unbinds the titles of an item and the items within it.
+         */
+        private void release(MenuItem item) {
+            item.textProperty().unbind();
+
+            items.remove((Note) item.getUserData());
+
+            if(item instanceof Menu menu) {
+                menu.getItems().stream().skip(1).forEach(this::release);
+            }
+        }
+
+        private void swap(MenuItem oldItem, MenuItem newItem) {
+            ObservableList<MenuItem> siblings = siblingsOf(oldItem);
+
+            siblings.set(siblings.indexOf(oldItem), newItem);
+        }
+
+        private ObservableList<MenuItem> siblingsOf(MenuItem item) {
+            return item.getParentMenu() == null ? getItems() : item.getParentMenu().getItems();
+        }
+
+        /**
+         * Inserts an item among items sorted by their titles. The first item is never
+         * moved, since it is either the item of the note itself or the external link.
+         */
+        private void insertSorted(ObservableList<MenuItem> siblings, MenuItem item) {
+            int low = 1;
+            int high = siblings.size();
+
+            while(low < high) {
+                int middle = (low + high) >>> 1;
+
+                if(siblings.get(middle).getText().compareTo(item.getText()) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            siblings.add(low, item);
+        }
+
+        private MenuItem createLeaf(Note note) {
+            MenuItem item = new MenuItem();
+
+            item.setOnAction(event -> addInternalLink(note));
+
+            return item;
+        }
+
+        private MenuItem createThisItem(Note note) {
+            MenuItem item = new MenuItem("[this]");
+
+            item.setOnAction(event -> addInternalLink(note));
+
+            return item;
+        }
+    }
+
     private class EditorMarkdownView extends MarkdownView {
         @Override
         protected List<String> getDefaultStylesheets() {
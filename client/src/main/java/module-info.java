@@ -15,6 +15,8 @@ module noterganizer.client {
     requires org.apache.logging.log4j.core;
 
     requires com.google.gson;
+    requires com.fasterxml.jackson.databind;
+    requires com.fasterxml.jackson.dataformat.cbor;
 
     requires io.github.classgraph;
 
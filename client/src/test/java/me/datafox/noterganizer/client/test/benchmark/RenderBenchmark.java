@@ -0,0 +1,191 @@
+package me.datafox.noterganizer.client.test.benchmark;
+
+import com.sandec.mdfx.MarkdownView;
+import javafx.application.Platform;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.ScrollPane;
+import javafx.stage.Stage;
+import me.datafox.noterganizer.client.ui.BlockMarkdownView;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the keystroke-to-paint latency of typing into a 100 KB note when the whole
+ * note is rendered by a single {@link MarkdownView} on every keystroke (full) and when it
+ * is rendered by a {@link BlockMarkdownView} (blocks). The latency is measured from a
+ * keystroke to the end of the layout pass that shows it, and the blocking time is how long
+ * the keystroke itself keeps the application thread busy. Every keystroke inserts a
+ * character in the middle of the note and waits for it to be shown, so the latency of
+ * the blocks view includes the render delay. Needs a display to show the views on. Run
+ * with {@code gradle :client:benchmark}.
+ *
+ * @author datafox
+ */
+@Tag("benchmark")
+public class RenderBenchmark {
+    private static final int NOTE_SIZE = 100 * 1024;
+    private static final int WARMUP_KEYSTROKES = 10;
+    private static final int KEYSTROKES = 50;
+
+    @Test
+    public void compareRendering() throws Exception {
+        String note = buildNote();
+
+        CompletableFuture<Void> started = new CompletableFuture<>();
+
+        Platform.startup(() -> started.complete(null));
+
+        started.get(10, TimeUnit.SECONDS);
+
+        try {
+            System.out.printf("Note of %d bytes, %d keystrokes%n", note.length(), KEYSTROKES);
+            System.out.printf("%-7s %12s %12s %15s%n", "render", "p50 (ms)", "p99 (ms)", "blocking (ms)");
+
+            MarkdownView full = onFxThread(MarkdownView::new);
+
+            Keystroke fullKeystroke = (text, shown) -> {
+                full.setMdString(text);
+                showAfterLayout(full.getScene(), shown);
+            };
+
+            benchmark("full", full, note, fullKeystroke, fullKeystroke);
+
+            BlockMarkdownView blocks = onFxThread(() -> new BlockMarkdownView(MarkdownView::new));
+
+            benchmark("blocks", blocks, note, (text, shown) -> {
+                blocks.setOnRendered(nanos -> shown.complete(null));
+                blocks.setMdString(text);
+                blocks.renderNow();
+            }, (text, shown) -> {
+                blocks.setOnRendered(nanos -> shown.complete(null));
+                blocks.setMdString(text);
+            });
+        } finally {
+            Platform.exit();
+        }
+    }
+
+    private void benchmark(String name, Parent view, String note, Keystroke open, Keystroke keystroke) throws Exception {
+        Stage stage = onFxThread(() -> {
+            Stage created = new Stage();
+            created.setScene(new Scene(new ScrollPane(view), 800, 600));
+            created.show();
+            return created;
+        });
+
+        try {
+            CompletableFuture<Void> opened = new CompletableFuture<>();
+
+            Platform.runLater(() -> open.type(note, opened));
+
+            opened.get(1, TimeUnit.MINUTES);
+
+            double[] latencies = new double[KEYSTROKES];
+            double[] blocking = new double[KEYSTROKES];
+
+            StringBuilder text = new StringBuilder(note);
+
+            for(int i = -WARMUP_KEYSTROKES; i < KEYSTROKES; i++) {
+                text.insert(text.length() / 2, 'a');
+
+                String typed = text.toString();
+
+                CompletableFuture<Void> shown = new CompletableFuture<>();
+
+                CompletableFuture<Typed> typedFuture = new CompletableFuture<>();
+
+                Platform.runLater(() -> {
+                    long start = System.nanoTime();
+
+                    keystroke.type(typed, shown);
+
+                    typedFuture.complete(new Typed(start, System.nanoTime()));
+                });
+
+                Typed result = typedFuture.get(1, TimeUnit.MINUTES);
+
+                shown.get(1, TimeUnit.MINUTES);
+
+                long end = System.nanoTime();
+
+                if(i >= 0) {
+                    latencies[i] = (end - result.start()) / 1e6;
+                    blocking[i] = (result.end() - result.start()) / 1e6;
+                }
+            }
+
+            assertTrue(latencies[0] > 0);
+
+            System.out.printf("%-7s %12.2f %12.2f %15.2f%n",
+                    name,
+                    percentile(latencies, 0.5),
+                    percentile(latencies, 0.99),
+                    percentile(blocking, 0.5));
+        } finally {
+            Platform.runLater(stage::close);
+        }
+    }
+
+    private void showAfterLayout(Scene scene, CompletableFuture<Void> shown) {
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+
+                shown.complete(null);
+            }
+        };
+
+        scene.addPostLayoutPulseListener(listener);
+
+        Platform.requestNextPulse();
+    }
+
+    private <T> T onFxThread(Supplier<T> supplier) throws Exception {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        Platform.runLater(() -> future.complete(supplier.get()));
+
+        return future.get(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Builds a note of headings, paragraphs, lists and code blocks.
+     */
+    private String buildNote() {
+        StringBuilder builder = new StringBuilder();
+
+        for(int i = 0; builder.length() < NOTE_SIZE; i++) {
+            builder.append("## Section ").append(i).append("\n\n")
+                    .append("Lorem ipsum dolor sit amet, **consectetur** adipiscing elit, sed do eiusmod tempor ")
+                    .append("incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud ")
+                    .append("exercitation ullamco laboris nisi ut [aliquip](https://example.com) ex ea commodo.\n\n")
+                    .append("- first item\n- second item with `code`\n- third item\n\n")
+                    .append("```\nint value = ").append(i).append(";\n\nreturn value;\n```\n\n");
+        }
+
+        return builder.toString();
+    }
+
+    private double percentile(double[] values, double percentile) {
+        double[] sorted = values.clone();
+
+        Arrays.sort(sorted);
+
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * sorted.length))];
+    }
+
+    private interface Keystroke {
+        void type(String text, CompletableFuture<Void> shown);
+    }
+
+    private record Typed(long start, long end) {}
+}
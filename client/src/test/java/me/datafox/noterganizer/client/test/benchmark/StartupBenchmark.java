@@ -0,0 +1,224 @@
+package me.datafox.noterganizer.client.test.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import me.datafox.noterganizer.api.dto.NoteHeaderDto;
+import me.datafox.noterganizer.api.dto.NoteTreeDto;
+import me.datafox.noterganizer.api.dto.SpaceHeaderDto;
+import me.datafox.noterganizer.api.dto.SpaceTreeDto;
+import me.datafox.noterganizer.api.dto.UserDto;
+import me.datafox.noterganizer.client.factory.impl.JsonBodyHandlerFactoryImpl;
+import me.datafox.noterganizer.client.factory.impl.JsonBodyPublisherFactoryImpl;
+import me.datafox.noterganizer.client.model.Context;
+import me.datafox.noterganizer.client.model.Space;
+import me.datafox.noterganizer.client.service.CacheService;
+import me.datafox.noterganizer.client.service.ConnectionService;
+import me.datafox.noterganizer.client.service.MappingService;
+import me.datafox.noterganizer.client.service.SettingsService;
+import me.datafox.noterganizer.client.service.impl.CacheServiceImpl;
+import me.datafox.noterganizer.client.service.impl.ConnectionServiceImpl;
+import me.datafox.noterganizer.client.service.impl.MappingServiceImpl;
+import me.datafox.noterganizer.client.service.impl.SettingsServiceImpl;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Supplier;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the time it takes to open the user and the note tree of a large space when
+ * they are fetched from a server on the loopback interface (cold cache) and when they
+ * are read from the on-disk cache after a restart (warm cache). Run with
+ * {@code gradle :client:benchmark}.
+ *
+ * @author datafox
+ */
+@Tag("benchmark")
+public class StartupBenchmark {
+    private static final int WIDTH = 4;
+    private static final int DEPTH = 7;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 20;
+
+    private final Logger logger = LogManager.getLogger(StartupBenchmark.class);
+
+    static {
+        //Services log every request, which would be included in the measured times
+        Configurator.setRootLevel(Level.WARN);
+    }
+
+    private final Gson gson = new Gson();
+
+    private final CBORMapper cborMapper = CBORMapper
+            .builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final MappingService mappingService = new MappingServiceImpl();
+
+    @Test
+    public void compareStartup() throws IOException, BackingStoreException {
+        UserDto user = UserDto
+                .builder()
+                .username("user")
+                .space(SpaceHeaderDto.builder().uuid("space").root(NoteHeaderDto.builder().uuid("root").title("Note root").build()).build())
+                .build();
+
+        SpaceTreeDto space = SpaceTreeDto
+                .builder()
+                .uuid("space")
+                .root(buildNote("root", DEPTH))
+                .build();
+
+        byte[] userBody = gzip(new ObjectMapper().writeValueAsBytes(user));
+        byte[] spaceBody = gzip(new ObjectMapper().writeValueAsBytes(space));
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/user", exchange -> respond(exchange, userBody));
+        server.createContext("/space/tree", exchange -> respond(exchange, spaceBody));
+        server.start();
+
+        Preferences preferences = Preferences.userRoot().node("noterganizer-benchmark");
+        Path directory = Files.createTempDirectory("noterganizer-benchmark");
+
+        try {
+            SettingsService settingsService = new SettingsServiceImpl(logger, preferences, gson);
+            settingsService.setAddress("127.0.0.1:" + server.getAddress().getPort());
+
+            Context context = new Context();
+            context.setAddress("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+            context.setUser(mappingService.mapToUser(user));
+
+            CacheService cache = new CacheServiceImpl(context, logger, cborMapper, settingsService, directory);
+            cache.putUser(user);
+            cache.putSpace(space);
+            cache.flush();
+
+            ConnectionService connectionService = new ConnectionServiceImpl(HttpClient.newHttpClient(),
+                    context,
+                    logger,
+                    new JsonBodyHandlerFactoryImpl(gson, cborMapper, logger, settingsService),
+                    new JsonBodyPublisherFactoryImpl(gson));
+
+            System.out.printf("Space with %d notes, %d bytes gzipped JSON, %d bytes cached%n",
+                    countNotes(space.getRoot()), spaceBody.length, directorySize(directory));
+            System.out.printf("%-6s %12s%n", "open", "median (ms)");
+
+            Supplier<Space> cold = () -> {
+                mappingService.mapToUser(connectionService.get("user", UserDto.class).get());
+                return mappingService.mapToSpace(connectionService.get("space/tree?uuid=space", SpaceTreeDto.class).get());
+            };
+
+            //A new cache service is created every round, so that nothing is read from memory
+            Supplier<Space> warm = () -> {
+                CacheService restarted = new CacheServiceImpl(context, logger, cborMapper, settingsService, directory);
+                mappingService.mapToUser(restarted.getUser().orElseThrow());
+                return mappingService.mapToSpace(restarted.getSpace("space").orElseThrow());
+            };
+
+            benchmark("cold", cold, space);
+            benchmark("warm", warm, space);
+        } finally {
+            server.stop(0);
+            preferences.removeNode();
+            try(Stream<Path> paths = Files.walk(directory)) {
+                for(Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private void benchmark(String name, Supplier<Space> open, SpaceTreeDto expected) {
+        assertEquals(expected, mappingService.mapToSpaceTreeDto(open.get()));
+
+        double[] times = new double[ROUNDS];
+
+        for(int i = -WARMUP_ROUNDS; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            open.get();
+            long end = System.nanoTime();
+
+            if(i >= 0) {
+                times[i] = (end - start) / 1e6;
+            }
+        }
+
+        System.out.printf("%-6s %12.2f%n", name, median(times));
+    }
+
+    private void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(200, body.length);
+
+        try(OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private NoteTreeDto buildNote(String uuid, int depth) {
+        NoteTreeDto.NoteTreeDtoBuilder builder = NoteTreeDto
+                .builder()
+                .uuid(uuid)
+                .title("Note " + uuid);
+
+        if(depth > 0) {
+            for(int i = 0; i < WIDTH; i++) {
+                builder.child(buildNote(uuid + "-" + i, depth - 1));
+            }
+        }
+
+        return builder.build();
+    }
+
+    private int countNotes(NoteTreeDto note) {
+        return 1 + note.getChildren().stream().mapToInt(this::countNotes).sum();
+    }
+
+    private long directorySize(Path directory) throws IOException {
+        try(Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try(GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(bytes);
+        }
+
+        return output.toByteArray();
+    }
+
+    private double median(double[] values) {
+        double[] sorted = values.clone();
+
+        Arrays.sort(sorted);
+
+        return sorted[sorted.length / 2];
+    }
+}
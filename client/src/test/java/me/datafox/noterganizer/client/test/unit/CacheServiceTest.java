@@ -0,0 +1,246 @@
+package me.datafox.noterganizer.client.test.unit;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.google.gson.Gson;
+import me.datafox.noterganizer.api.NotePatcher;
+import me.datafox.noterganizer.api.dto.NoteEventDto;
+import me.datafox.noterganizer.api.dto.NoteTreeDto;
+import me.datafox.noterganizer.api.dto.SpaceTreeDto;
+import me.datafox.noterganizer.client.model.Context;
+import me.datafox.noterganizer.client.model.User;
+import me.datafox.noterganizer.client.service.CacheService;
+import me.datafox.noterganizer.client.service.SettingsService;
+import me.datafox.noterganizer.client.service.impl.CacheServiceImpl;
+import me.datafox.noterganizer.client.service.impl.SettingsServiceImpl;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author datafox
+ */
+public class CacheServiceTest {
+    private static final String ADDRESS = "127.0.0.1:8080";
+
+    private static final String USER_NAME = "user";
+
+    private final Logger logger = LogManager.getLogger(CacheServiceTest.class);
+
+    private final CBORMapper cborMapper = CBORMapper
+            .builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private Preferences preferences;
+
+    private Path directory;
+
+    private Context context;
+
+    private SettingsService settingsService;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        preferences = Preferences.userRoot().node("noterganizer-test");
+        directory = Files.createTempDirectory("noterganizer-test");
+
+        settingsService = new SettingsServiceImpl(logger, preferences, new Gson());
+        settingsService.setAddress(ADDRESS);
+
+        context = new Context();
+        context.setUser(User.builder().username(USER_NAME).build());
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException, BackingStoreException {
+        preferences.removeNode();
+
+        try(Stream<Path> paths = Files.walk(directory)) {
+            for(Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void getContent_valid() {
+        CacheService cache = createCache();
+        cache.putContent("note", "content");
+
+        assertEquals(Optional.of("content"), cache.getContent("note"));
+        assertEquals(Optional.empty(), cache.getContent("other"));
+    }
+
+    @Test
+    public void getContent_replayedAfterRestart() {
+        CacheService cache = createCache();
+        cache.putContent("note", "first");
+        cache.putContent("other", "other content");
+        cache.putContent("note", "second");
+        cache.flush();
+
+        CacheService restarted = createCache();
+
+        assertEquals(Optional.of("second"), restarted.getContent("note"));
+        assertEquals(Optional.of("other content"), restarted.getContent("other"));
+    }
+
+    @Test
+    public void getContent_replayedAfterCompaction() throws IOException {
+        CacheService cache = createCache();
+        cache.putContent("other", "other content");
+
+        for(int i = 0; i < 20; i++) {
+            cache.putContent("note", i + "x".repeat(10000));
+        }
+
+        cache.flush();
+
+        //Without compaction the log would hold every version of the note
+        assertTrue(Files.size(contentLog()) < 20 * 10000);
+        assertEquals(Optional.of(19 + "x".repeat(10000)), cache.getContent("note"));
+        assertEquals(Optional.of("other content"), cache.getContent("other"));
+
+        cache.putContent("note", "latest");
+        cache.flush();
+
+        CacheService restarted = createCache();
+
+        assertEquals(Optional.of("latest"), restarted.getContent("note"));
+        assertEquals(Optional.of("other content"), restarted.getContent("other"));
+    }
+
+    @Test
+    public void getContent_partialRecordTruncated() throws IOException {
+        CacheService cache = createCache();
+        cache.putContent("note", "content");
+        cache.flush();
+
+        long size = Files.size(contentLog());
+
+        //A record cut short by a crash while writing
+        Files.write(contentLog(), new byte[] { 0, 5, 'o', 't' }, StandardOpenOption.APPEND);
+
+        CacheService restarted = createCache();
+
+        assertEquals(Optional.of("content"), restarted.getContent("note"));
+        assertEquals(size, Files.size(contentLog()));
+
+        restarted.putContent("other", "other content");
+        restarted.flush();
+
+        assertEquals(Optional.of("other content"), createCache().getContent("other"));
+    }
+
+    @Test
+    public void getSpace_replayedAfterRestart() {
+        SpaceTreeDto space = SpaceTreeDto
+                .builder()
+                .uuid("space")
+                .root(NoteTreeDto.builder().uuid("root").title("root").build())
+                .build();
+
+        CacheService cache = createCache();
+        cache.putSpace(space);
+        cache.flush();
+
+        assertEquals(Optional.of(space), createCache().getSpace("space"));
+    }
+
+    @Test
+    public void getSpace_eventsReplayedAfterRestart() throws IOException {
+        CacheService cache = createCache();
+        cache.putSpace(SpaceTreeDto
+                .builder()
+                .uuid("space")
+                .root(NoteTreeDto
+                        .builder()
+                        .uuid("root")
+                        .title("root")
+                        .child(NoteTreeDto.builder().uuid("a").title("a").build())
+                        .build())
+                .build());
+        cache.putSpaceEvent("space", NoteEventDto.created("b", "root", "b"));
+        cache.putSpaceEvent("space", NoteEventDto.moved("a", "b"));
+        cache.putSpaceEvent("space", NoteEventDto.changed("b", "c", null));
+        cache.putSpaceEvent("space", NoteEventDto.created("d", "root", "d"));
+        cache.putSpaceEvent("space", NoteEventDto.removed("d", true));
+        cache.flush();
+
+        //a partially written event at the end of the log is ignored
+        Files.write(spaceLog("space"), new byte[] {(byte) 0xbf}, StandardOpenOption.APPEND);
+
+        SpaceTreeDto expected = SpaceTreeDto
+                .builder()
+                .uuid("space")
+                .root(NoteTreeDto
+                        .builder()
+                        .uuid("root")
+                        .title("root")
+                        .child(NoteTreeDto
+                                .builder()
+                                .uuid("b")
+                                .title("c")
+                                .child(NoteTreeDto.builder().uuid("a").title("a").build())
+                                .build())
+                        .build())
+                .build();
+
+        assertEquals(Optional.of(expected), createCache().getSpace("space"));
+        assertFalse(Files.exists(spaceLog("space")));
+        assertEquals(Optional.of(expected), createCache().getSpace("space"));
+    }
+
+    @Test
+    public void putSpaceEvent_uncachedSpaceIgnored() {
+        CacheService cache = createCache();
+        cache.putSpaceEvent("space", NoteEventDto.created("b", "root", "b"));
+        cache.flush();
+
+        assertFalse(Files.exists(spaceLog("space")));
+        assertEquals(Optional.empty(), cache.getSpace("space"));
+    }
+
+    @Test
+    public void removeUser_valid() {
+        CacheService cache = createCache();
+        cache.putContent("note", "content");
+        cache.removeUser();
+        cache.flush();
+
+        assertEquals(Optional.empty(), createCache().getContent("note"));
+    }
+
+    private CacheService createCache() {
+        return new CacheServiceImpl(context, logger, cborMapper, settingsService, directory);
+    }
+
+    private Path spaceLog(String uuid) {
+        return directory
+                .resolve(NotePatcher.hash(ADDRESS))
+                .resolve(NotePatcher.hash(USER_NAME))
+                .resolve(uuid + ".log");
+    }
+
+    private Path contentLog() {
+        return directory
+                .resolve(NotePatcher.hash(ADDRESS))
+                .resolve(NotePatcher.hash(USER_NAME))
+                .resolve("contents.log");
+    }
+}
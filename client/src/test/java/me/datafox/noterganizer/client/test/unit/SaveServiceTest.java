@@ -0,0 +1,286 @@
+package me.datafox.noterganizer.client.test.unit;
+
+import javafx.application.Platform;
+import me.datafox.noterganizer.api.dto.NoteChangeDto;
+import me.datafox.noterganizer.api.dto.NotePatchDto;
+import me.datafox.noterganizer.client.model.Note;
+import me.datafox.noterganizer.client.service.CacheService;
+import me.datafox.noterganizer.client.service.PopupService;
+import me.datafox.noterganizer.client.service.RestService;
+import me.datafox.noterganizer.client.service.SaveService;
+import me.datafox.noterganizer.client.service.impl.MappingServiceImpl;
+import me.datafox.noterganizer.client.service.impl.SaveServiceImpl;
+import org.apache.logging.log4j.LogManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static me.datafox.noterganizer.client.ClientConstants.SAVE_RETRY_DELAY;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Saves are queued and their results handled on the application thread, so these tests
+ * need a display to start the JavaFX toolkit on and are skipped without one.
+ *
+ * @author datafox
+ */
+public class SaveServiceTest {
+    private static final long TIMEOUT = 5000;
+
+    /**
+     * Every save sent, as the UUID of the note followed by its content or by "patch".
+     */
+    private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+
+    /**
+     * Every content cached after a successful save, as the UUID of the note followed by
+     * the content.
+     */
+    private final BlockingQueue<String> cached = new LinkedBlockingQueue<>();
+
+    /**
+     * Notes whose next save blocks until their latch is released.
+     */
+    private final Map<String, CountDownLatch> blocked = new ConcurrentHashMap<>();
+
+    /**
+     * Notes whose next save fails.
+     */
+    private final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+    private SaveService saveService;
+
+    @BeforeAll
+    public static void beforeAll() {
+        CompletableFuture<Void> started = new CompletableFuture<>();
+
+        try {
+            Platform.startup(() -> started.complete(null));
+        } catch(IllegalStateException e) {
+            //Already started by another test
+            started.complete(null);
+        } catch(RuntimeException e) {
+            assumeTrue(false, "The JavaFX toolkit could not be started: " + e.getMessage());
+        }
+
+        Platform.setImplicitExit(false);
+
+        started.join();
+    }
+
+    @BeforeEach
+    public void beforeEach() {
+        saveService = new SaveServiceImpl(LogManager.getLogger(SaveServiceTest.class),
+                stub(CacheService.class, this::cache),
+                new MappingServiceImpl(),
+                stub(PopupService.class, (name, args) -> null),
+                stub(RestService.class, this::send));
+    }
+
+    @Test
+    public void save_valid() throws Exception {
+        Note note = note("note");
+
+        onFxThread(() -> {
+            note.setContent("changed");
+            saveService.save(note, false);
+        });
+
+        assertEquals("note:changed", poll(sent));
+        assertEquals("note:changed", poll(cached));
+    }
+
+    @Test
+    public void save_unchangedNotSent() throws Exception {
+        Note note = note("note");
+
+        onFxThread(() -> saveService.save(note, false));
+
+        assertNull(sent.poll((long) SAVE_RETRY_DELAY, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void save_coalescedWhileSending() throws Exception {
+        Note first = note("first");
+        Note second = note("second");
+        CountDownLatch latch = block("first");
+
+        onFxThread(() -> {
+            first.setContent("changed");
+            saveService.save(first, false);
+
+            for(String content : new String[] { "x", "y", "z" }) {
+                second.setContent(content);
+                saveService.save(second, false);
+            }
+        });
+
+        latch.countDown();
+
+        assertEquals("first:changed", poll(sent));
+        assertEquals("second:z", poll(sent));
+        assertNull(sent.poll((long) SAVE_RETRY_DELAY, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void save_forceMergedIntoPendingSave() throws Exception {
+        Note first = note("first");
+        Note second = note("second");
+        CountDownLatch latch = block("first");
+
+        onFxThread(() -> {
+            first.setContent("changed");
+            saveService.save(first, false);
+
+            //The second note is unchanged, so only the forced save makes it be sent
+            saveService.save(second, false);
+            saveService.save(second, true);
+        });
+
+        latch.countDown();
+
+        assertEquals("first:changed", poll(sent));
+        assertEquals("second:patch", poll(sent));
+    }
+
+    @Test
+    public void save_retriedAfterFailure() throws Exception {
+        Note note = note("note");
+        failing.add("note");
+
+        long start = System.nanoTime();
+
+        onFxThread(() -> {
+            note.setContent("changed");
+            saveService.save(note, false);
+        });
+
+        assertEquals("note:changed", poll(sent));
+        assertEquals("note:changed", poll(sent));
+        assertEquals("note:changed", poll(cached));
+
+        assertTrue((System.nanoTime() - start) / 1e6 >= SAVE_RETRY_DELAY);
+    }
+
+    @Test
+    public void save_retryKeepsForceOfQueuedSave() throws Exception {
+        Note note = note("note");
+        CountDownLatch latch = block("note");
+        failing.add("note");
+
+        onFxThread(() -> {
+            note.setContent("changed");
+            saveService.save(note, false);
+        });
+
+        //Queued while the failing save is sent, with the content changed back
+        onFxThread(() -> {
+            note.setContent("note");
+            saveService.save(note, true);
+        });
+
+        latch.countDown();
+
+        assertEquals("note:changed", poll(sent));
+        assertEquals("note:patch", poll(sent));
+    }
+
+    private Note note(String uuid) {
+        return Note
+                .builder()
+                .uuid(uuid)
+                .title(uuid)
+                .content(uuid)
+                .build();
+    }
+
+    private CountDownLatch block(String uuid) {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        blocked.put(uuid, latch);
+
+        return latch;
+    }
+
+    private String poll(BlockingQueue<String> queue) throws InterruptedException {
+        String save = queue.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        assertNotNull(save, "No save was sent");
+
+        return save;
+    }
+
+    /**
+     * Called on the application thread for every method of the cache service.
+     */
+    private Object cache(String method, Object[] args) {
+        if(method.equals("putContent")) {
+            cached.add(args[0] + ":" + args[1]);
+        }
+
+        return null;
+    }
+
+    /**
+     * Called on the save thread for every method of the rest service.
+     */
+    private Object send(String method, Object[] args) throws InterruptedException {
+        String uuid;
+        String save;
+
+        if(method.equals("changeNote")) {
+            uuid = ((NoteChangeDto) args[0]).getUuid();
+            save = uuid + ":" + ((NoteChangeDto) args[0]).getContent();
+        } else if(method.equals("patchNote")) {
+            uuid = ((NotePatchDto) args[0]).getUuid();
+            save = uuid + ":patch";
+        } else {
+            return null;
+        }
+
+        CountDownLatch latch = blocked.remove(uuid);
+
+        if(latch != null) {
+            latch.await(TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+
+        sent.add(save);
+
+        return failing.remove(uuid) ? Optional.empty() : Optional.of("success");
+    }
+
+    private void onFxThread(Runnable runnable) throws Exception {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Platform.runLater(() -> {
+            try {
+                runnable.run();
+                future.complete(null);
+            } catch(RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T stub(Class<T> type, StubMethod method) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, invoked, args) -> invoked.getDeclaringClass() == Object.class ?
+                        invoked.invoke(method, args) :
+                        method.invoke(invoked.getName(), args));
+    }
+
+    @FunctionalInterface
+    private interface StubMethod {
+        Object invoke(String name, Object[] args) throws Exception;
+    }
+}
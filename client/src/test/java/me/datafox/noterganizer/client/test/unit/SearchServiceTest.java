@@ -0,0 +1,105 @@
+package me.datafox.noterganizer.client.test.unit;
+
+import me.datafox.noterganizer.client.model.Note;
+import me.datafox.noterganizer.client.service.SearchService;
+import me.datafox.noterganizer.client.service.impl.SearchServiceImpl;
+import org.apache.logging.log4j.LogManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author datafox
+ */
+public class SearchServiceTest {
+    private SearchService searchService;
+
+    private Note apple;
+
+    private Note banana;
+
+    @BeforeEach
+    public void beforeEach() {
+        searchService = new SearchServiceImpl(LogManager.getLogger(SearchServiceTest.class));
+
+        apple = Note.builder().uuid("apple").title("apple").content("banana split").build();
+        banana = Note.builder().uuid("banana").title("banana").content("apple pie").build();
+
+        searchService.addNote(apple);
+        searchService.addNote(banana);
+    }
+
+    @Test
+    public void search_valid() {
+        assertEquals(List.of(apple), searchService.search("split", 10));
+        assertEquals(List.of(banana), searchService.search("pie", 10));
+    }
+
+    @Test
+    public void search_allTermsRequired() {
+        assertEquals(List.of(apple), searchService.search("apple split", 10));
+        assertTrue(searchService.search("apple split pie", 10).isEmpty());
+    }
+
+    @Test
+    public void search_titleMatchesFirst() {
+        assertEquals(List.of(banana, apple), searchService.search("banana", 10));
+        assertEquals(List.of(apple, banana), searchService.search("apple", 10));
+    }
+
+    @Test
+    public void search_prefix() {
+        assertEquals(List.of(apple), searchService.search("spl", 10));
+        assertTrue(searchService.search("spl apple", 10).isEmpty());
+    }
+
+    @Test
+    public void search_repeatedWordPrefix() {
+        Note barn = Note.builder().uuid("barn").title("foo barn").content("").build();
+        Note bar = Note.builder().uuid("bar").title("foo bar").content("").build();
+        searchService.addNote(barn);
+        searchService.addNote(bar);
+
+        //The last word is matched by prefix and the earlier ones as whole words
+        assertEquals(List.of(bar), searchService.search("foo bar foo", 10));
+    }
+
+    @Test
+    public void search_limit() {
+        assertEquals(List.of(banana), searchService.search("banana", 1));
+    }
+
+    @Test
+    public void search_changedNote() {
+        apple.setContent("cherry tart");
+
+        assertTrue(searchService.search("split", 10).isEmpty());
+        assertEquals(List.of(apple), searchService.search("tart", 10));
+
+        banana.setTitle("melon");
+
+        assertTrue(searchService.search("banana", 10).isEmpty());
+        assertEquals(List.of(banana), searchService.search("melon", 10));
+    }
+
+    @Test
+    public void search_removedNote() {
+        searchService.removeNote(apple);
+
+        assertEquals(List.of(banana), searchService.search("apple", 10));
+
+        apple.setTitle("pie");
+
+        //Removed notes are no longer listened to
+        assertEquals(List.of(banana), searchService.search("pie", 10));
+    }
+
+    @Test
+    public void search_noTerms() {
+        assertTrue(searchService.search("a #", 10).isEmpty());
+    }
+}
@@ -2,13 +2,21 @@ package me.datafox.noterganizer.server;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
 
 /**
- * Noterganizer server application.
+ * Noterganizer server application. The reactive MongoDB infrastructure is only set up
+ * by {@link me.datafox.noterganizer.server.configuration.ReactiveConfiguration}.
  *
  * @author datafox
  */
-@SpringBootApplication
+@SpringBootApplication(exclude = {
+        MongoReactiveAutoConfiguration.class,
+        MongoReactiveDataAutoConfiguration.class,
+        MongoReactiveRepositoriesAutoConfiguration.class
+})
 public class NoterganizerServer {
     public static void main(String[] args) {
         SpringApplication.run(NoterganizerServer.class, args);
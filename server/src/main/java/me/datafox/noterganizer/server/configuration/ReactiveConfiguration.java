@@ -0,0 +1,51 @@
+package me.datafox.noterganizer.server.configuration;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+import me.datafox.noterganizer.server.repository.NoteRepository;
+import me.datafox.noterganizer.server.repository.reactive.ReactiveNoteRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.boot.autoconfigure.mongo.ReactiveMongoClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * Configuration for the reactive profile, in which the controllers return {@link
+ * reactor.core.publisher.Mono} and {@link reactor.core.publisher.Flux} and read from
+ * MongoDB with the reactive driver. The reactive client is configured with the same
+ * settings and customizers as the blocking one, and the reactive template shares the
+ * converter of the blocking template, since the converter Spring Boot would create for
+ * it cannot resolve references and would replace the blocking one. Enabling reactive
+ * repositories keeps Spring Boot from enabling the blocking ones, so they are enabled
+ * here as well. Changes are still made through the blocking services.
+ *
+ * @author datafox
+ */
+@Configuration
+@Profile("reactive")
+@EnableMongoRepositories(basePackageClasses = NoteRepository.class)
+@EnableReactiveMongoRepositories(basePackageClasses = ReactiveNoteRepository.class)
+public class ReactiveConfiguration {
+    @Bean
+    public MongoClient reactiveMongoClient(MongoClientSettings settings,
+                                           ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers) {
+        return new ReactiveMongoClientFactory(customizers.orderedStream().toList()).createMongoClient(settings);
+    }
+
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(MongoClient reactiveMongoClient,
+                                                       MongoProperties properties,
+                                                       MappingMongoConverter converter) {
+        return new ReactiveMongoTemplate(
+                new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, properties.getMongoClientDatabase()),
+                converter);
+    }
+}
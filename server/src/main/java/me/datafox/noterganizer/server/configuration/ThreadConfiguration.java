@@ -0,0 +1,65 @@
+package me.datafox.noterganizer.server.configuration;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration for the threads requests are handled on. If
+ * {@code noterganizer.threads.virtual} is set, Tomcat handles every request on a new
+ * virtual thread instead of a thread of its bounded pool, so that requests waiting for
+ * the database do not hold on to pool threads. The database is accessed on the thread
+ * of the request, so database calls run on the same virtual thread. Virtual threads
+ * require Java 21, and the pool of platform threads is used on older versions.
+ *
+ * @author datafox
+ */
+@Configuration
+public class ThreadConfiguration {
+    @Autowired
+    private Logger logger;
+
+    @Value("${noterganizer.threads.virtual:false}")
+    private boolean virtual;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> requestExecutorCustomizer() {
+        return protocolHandler -> {
+            if(!virtual) {
+                return;
+            }
+
+            Optional<ExecutorService> executor = newVirtualThreadExecutor();
+
+            if(executor.isEmpty()) {
+                logger.warn("Virtual threads are not available on Java " + Runtime.version().feature() +
+                        ", handling requests on platform threads");
+                return;
+            }
+
+            logger.info("Handling requests on virtual threads");
+
+            protocolHandler.setExecutor(executor.get());
+        };
+    }
+
+    /**
+     * Looks the executor up reflectively, since the application is compiled for Java 17.
+     */
+    private Optional<ExecutorService> newVirtualThreadExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null));
+        } catch(ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package me.datafox.noterganizer.server.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Configuration for MongoDB transactions. The transaction manager is only used by
+ * services that explicitly run in a transaction, so declaring it does not require the
+ * database to be a replica set unless such a service is configured to use it.
+ *
+ * @author datafox
+ */
+@Configuration
+public class TransactionConfiguration {
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory mongoDatabaseFactory) {
+        return new MongoTransactionManager(mongoDatabaseFactory);
+    }
+
+    @Bean
+    public TransactionTemplate transactionTemplate(MongoTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+}
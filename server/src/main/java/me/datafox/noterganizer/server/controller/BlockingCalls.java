@@ -0,0 +1,46 @@
+package me.datafox.noterganizer.server.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Runs calls to blocking services from the reactive controllers on a bounded elastic
+ * scheduler. The request is bound to the thread of the call like Spring binds it for
+ * asynchronous {@link Callable} results, so that request-scoped state such as the users
+ * memoized by {@link me.datafox.noterganizer.server.service.UserCacheService} is still
+ * shared within a request.
+ *
+ * @author datafox
+ */
+final class BlockingCalls {
+    private BlockingCalls() {}
+
+    /**
+     * Must be called on the thread of the request.
+     *
+     * @param callable blocking call
+     * @return mono of the result of the call
+     */
+    static <T> Mono<T> call(Callable<T> callable) {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+
+        return Mono.fromCallable(() -> {
+            ServletRequestAttributes attributes = new ServletRequestAttributes(request);
+
+            RequestContextHolder.setRequestAttributes(attributes);
+
+            try {
+                return callable.call();
+            } finally {
+                attributes.requestCompleted();
+
+                RequestContextHolder.resetRequestAttributes();
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+}
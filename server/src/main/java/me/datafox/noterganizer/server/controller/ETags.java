@@ -0,0 +1,49 @@
+package me.datafox.noterganizer.server.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.datafox.noterganizer.api.dto.UserDto;
+import org.springframework.web.context.request.WebRequest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Builds the ETags sent by the controllers of both profiles, so that they always send the
+ * same tags. All tags are weak, since JSON and CBOR represent the same value.
+ *
+ * @author datafox
+ */
+final class ETags {
+    private ETags() {}
+
+    /**
+     * @param tag version or hash of a value
+     * @return weak ETag of the tag
+     */
+    static String weak(String tag) {
+        return "W/\"" + tag + "\"";
+    }
+
+    /**
+     * Users have no version, so their ETag is the SHA-256 hash of the user as JSON.
+     *
+     * @param request request to be checked
+     * @param objectMapper mapper the user is sent with
+     * @param user user to be sent
+     * @return true if the client already has the user and nothing else should be sent
+     */
+    static boolean checkUserNotModified(WebRequest request, ObjectMapper objectMapper, UserDto user) throws JsonProcessingException {
+        return request.checkNotModified(weak(hash(objectMapper.writeValueAsBytes(user))));
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch(NoSuchAlgorithmException e) {
+            //Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,26 +1,51 @@
 package me.datafox.noterganizer.server.controller;
 
+import me.datafox.noterganizer.api.dto.NoteBatchDto;
+import me.datafox.noterganizer.api.dto.NoteBatchResultDto;
 import me.datafox.noterganizer.api.dto.NoteChangeDto;
+import me.datafox.noterganizer.api.dto.NoteContentDto;
 import me.datafox.noterganizer.api.dto.NoteCreateDto;
 import me.datafox.noterganizer.api.dto.NoteMoveDto;
+import me.datafox.noterganizer.api.dto.NotePatchDto;
 import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.service.MappingService;
+import me.datafox.noterganizer.server.service.NoteBatchService;
 import me.datafox.noterganizer.server.service.NoteService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
+import java.util.List;
 
 /**
- * Controller for all note-related API calls.
+ * Controller for all note-related API calls. Replaced by its reactive counterpart in the
+ * reactive profile.
  *
  * @author datafox
  */
 @RestController
+@Profile("!reactive")
 public class NoteController {
     @Autowired
     private NoteService noteService;
 
+    @Autowired
+    private NoteBatchService noteBatchService;
+
+    @Autowired
+    private MappingService mappingService;
+
+    @GetMapping("/note/get")
+    public ResponseEntity<NoteContentDto> getNote(@RequestParam String uuid,
+                                                  Principal principal) {
+
+        Note note = noteService.getNote(uuid, principal);
+
+        return ResponseEntity.ok(mappingService.mapToNoteContentDto(note));
+    }
+
     @PostMapping("/note/create")
     public ResponseEntity<String> createNote(@RequestBody NoteCreateDto dto,
                                               Principal principal) {
@@ -39,6 +64,15 @@ public class NoteController {
         return ResponseEntity.ok("success");
     }
 
+    @PostMapping("/note/patch")
+    public ResponseEntity<String> patchNote(@RequestBody NotePatchDto dto,
+                                            Principal principal) {
+
+        noteService.patchNote(dto, principal);
+
+        return ResponseEntity.ok("success");
+    }
+
     @PostMapping("/note/move")
     public ResponseEntity<String> moveNote(@RequestBody NoteMoveDto dto,
                                            Principal principal) {
@@ -53,8 +87,17 @@ public class NoteController {
                                               @RequestParam boolean removeChildren,
                                               Principal principal) {
 
-        noteService.removeNote(uuid, removeChildren, false, principal);
+        noteService.removeNote(uuid, removeChildren, principal);
 
         return ResponseEntity.ok("success");
     }
+
+    @PostMapping("/note/batch")
+    public ResponseEntity<NoteBatchResultDto> applyBatch(@RequestBody NoteBatchDto dto,
+                                                         Principal principal) {
+
+        List<String> uuids = noteBatchService.applyBatch(dto, principal);
+
+        return ResponseEntity.ok(NoteBatchResultDto.builder().uuids(uuids).build());
+    }
 }
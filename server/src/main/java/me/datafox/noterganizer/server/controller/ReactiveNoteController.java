@@ -0,0 +1,114 @@
+package me.datafox.noterganizer.server.controller;
+
+import me.datafox.noterganizer.api.dto.NoteBatchDto;
+import me.datafox.noterganizer.api.dto.NoteBatchResultDto;
+import me.datafox.noterganizer.api.dto.NoteChangeDto;
+import me.datafox.noterganizer.api.dto.NoteContentDto;
+import me.datafox.noterganizer.api.dto.NoteCreateDto;
+import me.datafox.noterganizer.api.dto.NoteMoveDto;
+import me.datafox.noterganizer.api.dto.NotePatchDto;
+import me.datafox.noterganizer.server.service.MappingService;
+import me.datafox.noterganizer.server.service.NoteBatchService;
+import me.datafox.noterganizer.server.service.NoteService;
+import me.datafox.noterganizer.server.service.ReactiveNoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+
+/**
+ * Controller for all note-related API calls in the reactive profile. Notes are fetched
+ * without blocking, while changes are made through the blocking services on a bounded
+ * elastic scheduler, so that no request thread waits for the database.
+ *
+ * @author datafox
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveNoteController {
+    @Autowired
+    private ReactiveNoteService reactiveNoteService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteBatchService noteBatchService;
+
+    @Autowired
+    private MappingService mappingService;
+
+    @GetMapping("/note/get")
+    public Mono<ResponseEntity<NoteContentDto>> getNote(@RequestParam String uuid,
+                                                        Principal principal) {
+
+        return reactiveNoteService
+                .getNote(uuid, principal)
+                .map(note -> ResponseEntity.ok(mappingService.mapToNoteContentDto(note)));
+    }
+
+    @PostMapping("/note/create")
+    public Mono<ResponseEntity<String>> createNote(@RequestBody NoteCreateDto dto,
+                                                   Principal principal) {
+
+        return BlockingCalls.call(() -> ResponseEntity.ok(noteService.createChildNote(dto, principal).getUuid()));
+    }
+
+    @PostMapping("/note/change")
+    public Mono<ResponseEntity<String>> changeNote(@RequestBody NoteChangeDto dto,
+                                                   Principal principal) {
+
+        return BlockingCalls.call(() -> {
+            noteService.changeNote(dto, principal);
+
+            return ResponseEntity.ok("success");
+        });
+    }
+
+    @PostMapping("/note/patch")
+    public Mono<ResponseEntity<String>> patchNote(@RequestBody NotePatchDto dto,
+                                                  Principal principal) {
+
+        return BlockingCalls.call(() -> {
+            noteService.patchNote(dto, principal);
+
+            return ResponseEntity.ok("success");
+        });
+    }
+
+    @PostMapping("/note/move")
+    public Mono<ResponseEntity<String>> moveNote(@RequestBody NoteMoveDto dto,
+                                                 Principal principal) {
+
+        return BlockingCalls.call(() -> {
+            noteService.moveNote(dto, principal);
+
+            return ResponseEntity.ok("success");
+        });
+    }
+
+    @DeleteMapping("/note/remove")
+    public Mono<ResponseEntity<String>> removeNote(@RequestParam String uuid,
+                                                   @RequestParam boolean removeChildren,
+                                                   Principal principal) {
+
+        return BlockingCalls.call(() -> {
+            noteService.removeNote(uuid, removeChildren, principal);
+
+            return ResponseEntity.ok("success");
+        });
+    }
+
+    @PostMapping("/note/batch")
+    public Mono<ResponseEntity<NoteBatchResultDto>> applyBatch(@RequestBody NoteBatchDto dto,
+                                                               Principal principal) {
+
+        return BlockingCalls.call(() -> ResponseEntity.ok(NoteBatchResultDto
+                .builder()
+                .uuids(noteBatchService.applyBatch(dto, principal))
+                .build()));
+    }
+}
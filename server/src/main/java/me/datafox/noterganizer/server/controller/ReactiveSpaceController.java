@@ -0,0 +1,97 @@
+package me.datafox.noterganizer.server.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import me.datafox.noterganizer.api.dto.NoteTreeDto;
+import me.datafox.noterganizer.api.dto.SpaceCreateDto;
+import me.datafox.noterganizer.api.dto.SpaceTreeDto;
+import me.datafox.noterganizer.server.service.ReactiveSpaceService;
+import me.datafox.noterganizer.server.service.SpaceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Controller for all space-related API calls in the reactive profile. Note trees are
+ * fetched without blocking and can also be streamed one note at a time, while changes
+ * are made through the blocking services on a bounded elastic scheduler.
+ *
+ * @author datafox
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveSpaceController {
+    @Autowired
+    private ReactiveSpaceService reactiveSpaceService;
+
+    @Autowired
+    private SpaceService spaceService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Writes the space directly to the response like {@link SpaceController} does, since
+     * the space is already written as it is read instead of being held in memory.
+     */
+    @GetMapping("/space/get")
+    public void getSpace(@RequestParam String uuid,
+                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                         Principal principal,
+                         WebRequest request,
+                         HttpServletResponse response) throws IOException {
+
+        SpaceResponses.writeSpace(spaceService, objectMapper, uuid, accept, principal, request, response);
+    }
+
+    @GetMapping("/space/tree")
+    public Mono<ResponseEntity<SpaceTreeDto>> getSpaceTree(@RequestParam String uuid,
+                                                           Principal principal,
+                                                           WebRequest request) {
+
+        return reactiveSpaceService
+                .getSpaceTreeDto(uuid, principal, tag -> request.checkNotModified(ETags.weak(tag)))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Sends the notes of a space as newline-delimited JSON as they are read from the
+     * database. Every note only contains the UUIDs of its children, and the notes are in
+     * no particular order.
+     */
+    @GetMapping(value = "/space/tree/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<NoteTreeDto>>> streamSpaceTree(@RequestParam String uuid,
+                                                                   Principal principal) {
+
+        return reactiveSpaceService
+                .streamSpaceTree(uuid, principal)
+                .map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/space/create")
+    public Mono<ResponseEntity<String>> createSpace(@RequestBody SpaceCreateDto dto,
+                                                    Principal principal) {
+
+        return BlockingCalls.call(() -> ResponseEntity.ok(spaceService.createSpace(dto, principal)));
+    }
+
+    @DeleteMapping("/space/remove")
+    public Mono<ResponseEntity<String>> removeSpace(@RequestParam String uuid,
+                                                    Principal principal) {
+
+        return BlockingCalls.call(() -> {
+            spaceService.removeSpace(uuid, principal);
+
+            return ResponseEntity.ok("success");
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package me.datafox.noterganizer.server.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.datafox.noterganizer.api.dto.UserChangeDto;
+import me.datafox.noterganizer.api.dto.UserDto;
+import me.datafox.noterganizer.api.dto.UserRegisterDto;
+import me.datafox.noterganizer.server.service.ReactiveUserService;
+import me.datafox.noterganizer.server.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+
+/**
+ * Controller for all user-related API calls in the reactive profile. Users are fetched
+ * without blocking, while changes are made through the blocking services on a bounded
+ * elastic scheduler.
+ *
+ * @author datafox
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveUserController {
+    @Autowired
+    private ReactiveUserService reactiveUserService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Sends the hash of the user as a weak ETag, and nothing else if the client already
+     * has the current version of the user.
+     */
+    @GetMapping("/user")
+    public Mono<ResponseEntity<UserDto>> getUser(Principal principal, WebRequest request) {
+        return reactiveUserService
+                .getUserDto(principal)
+                .handle((user, sink) -> {
+                    try {
+                        if(!ETags.checkUserNotModified(request, objectMapper, user)) {
+                            sink.next(ResponseEntity.ok(user));
+                        }
+                    } catch(JsonProcessingException e) {
+                        sink.error(e);
+                    }
+                });
+    }
+
+    @PostMapping("/login")
+    public ResponseEntity<String> login() {
+        return ResponseEntity.ok("login");
+    }
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<String>> register(@RequestBody UserRegisterDto dto) {
+        return BlockingCalls.call(() -> {
+            userService.createUser(dto);
+
+            return ResponseEntity.ok("success");
+        });
+    }
+
+    @PostMapping("/change")
+    public Mono<ResponseEntity<String>> changeUser(@RequestBody UserChangeDto dto, Principal principal) {
+        return BlockingCalls.call(() -> {
+            userService.changeUser(dto, principal);
+
+            return ResponseEntity.ok("success");
+        });
+    }
+}
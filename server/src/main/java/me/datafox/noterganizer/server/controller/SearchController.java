@@ -0,0 +1,31 @@
+package me.datafox.noterganizer.server.controller;
+
+import me.datafox.noterganizer.api.dto.SearchResultDto;
+import me.datafox.noterganizer.server.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+
+/**
+ * Controller for searching notes.
+ *
+ * @author datafox
+ */
+@RestController
+public class SearchController {
+    @Autowired
+    private SearchService searchService;
+
+    @GetMapping("/search")
+    public ResponseEntity<SearchResultDto> search(@RequestParam String q,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(defaultValue = "20") int size,
+                                                  Principal principal) {
+
+        return ResponseEntity.ok(searchService.search(q, page, size, principal));
+    }
+}
@@ -1,21 +1,29 @@
 package me.datafox.noterganizer.server.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import me.datafox.noterganizer.api.dto.SpaceCreateDto;
-import me.datafox.noterganizer.api.dto.SpaceDto;
+import me.datafox.noterganizer.api.dto.SpaceTreeDto;
 import me.datafox.noterganizer.server.service.MappingService;
 import me.datafox.noterganizer.server.service.SpaceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.security.Principal;
 
 /**
- * Controller for all space-related API calls.
+ * Controller for all space-related API calls. Replaced by its reactive counterpart in the
+ * reactive profile.
  *
  * @author datafox
  */
 @RestController
+@Profile("!reactive")
 public class SpaceController {
     @Autowired
     private SpaceService spaceService;
@@ -23,11 +31,32 @@ public class SpaceController {
     @Autowired
     private MappingService mappingService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Writes the space directly to the response with {@link SpaceResponses#writeSpace}.
+     */
     @GetMapping("/space/get")
-    public ResponseEntity<SpaceDto> getSpace(@RequestParam String uuid,
-                                             Principal principal) {
+    public void getSpace(@RequestParam String uuid,
+                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                         Principal principal,
+                         WebRequest request,
+                         HttpServletResponse response) throws IOException {
+
+        SpaceResponses.writeSpace(spaceService, objectMapper, uuid, accept, principal, request, response);
+    }
+
+    @GetMapping("/space/tree")
+    public ResponseEntity<SpaceTreeDto> getSpaceTree(@RequestParam String uuid,
+                                                     Principal principal,
+                                                     WebRequest request) {
+
+        SpaceTreeDto space = spaceService.getSpaceTreeDto(uuid, principal, tag -> request.checkNotModified(ETags.weak(tag)));
 
-        SpaceDto space = spaceService.getSpaceDto(uuid, principal);
+        if(space == null) {
+            return null;
+        }
 
         return ResponseEntity.ok(space);
     }
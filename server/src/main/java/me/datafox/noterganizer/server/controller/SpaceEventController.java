@@ -0,0 +1,70 @@
+package me.datafox.noterganizer.server.controller;
+
+import me.datafox.noterganizer.server.service.SpaceEventService;
+import me.datafox.noterganizer.server.service.SpaceService;
+import org.apache.catalina.connector.ClientAbortException;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Controller for subscribing to the changes made in a space as Server-Sent Events. Used
+ * in both the default and the reactive profile.
+ *
+ * @author datafox
+ */
+@RestController
+public class SpaceEventController {
+    @Autowired
+    private Logger logger;
+
+    @Autowired
+    private SpaceEventService spaceEventService;
+
+    @Autowired
+    private SpaceService spaceService;
+
+    @GetMapping(value = "/space/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam String uuid,
+                                Principal principal) {
+
+        return spaceEventService.subscribe(uuid, () -> spaceService.getVersion(uuid, principal));
+    }
+
+    /**
+     * Sending an event fails when the client has disconnected, which only ends the
+     * subscription. Other errors are rethrown to be handled like any other error.
+     */
+    @ExceptionHandler(IOException.class)
+    public void handleDisconnect(IOException exception) throws IOException {
+        if(!isDisconnect(exception)) {
+            throw exception;
+        }
+
+        logger.debug("Client disconnected from space events: " + exception.getMessage());
+    }
+
+    private boolean isDisconnect(Throwable exception) {
+        for(Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if(cause instanceof ClientAbortException) {
+                return true;
+            }
+
+            String message = cause.getMessage();
+
+            if(message != null && (message.contains("Broken pipe") || message.contains("Connection reset"))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,89 @@
+package me.datafox.noterganizer.server.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.servlet.http.HttpServletResponse;
+import me.datafox.noterganizer.server.service.SpaceService;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.Principal;
+
+/**
+ * Writes spaces to responses for {@link SpaceController} and {@link
+ * ReactiveSpaceController}.
+ *
+ * @author datafox
+ */
+final class SpaceResponses {
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+    private SpaceResponses() {}
+
+    /**
+     * Writes the space directly to the response instead of returning a DTO object, so that
+     * the note tree of a large space is never held in memory as a whole. CBOR is written
+     * if the client prefers it over JSON. The version of the space is sent as a weak ETag,
+     * since JSON and CBOR represent the same space, and nothing is written if the client
+     * already has the current version.
+     */
+    static void writeSpace(SpaceService spaceService,
+                           ObjectMapper objectMapper,
+                           String uuid,
+                           String accept,
+                           Principal principal,
+                           WebRequest request,
+                           HttpServletResponse response) throws IOException {
+
+        boolean cbor = prefersCbor(accept);
+
+        spaceService.writeSpaceDto(uuid, principal, tag -> {
+            if(request.checkNotModified(ETags.weak(tag))) {
+                return null;
+            }
+
+            try {
+                response.setContentType(cbor ? MediaType.APPLICATION_CBOR_VALUE : MediaType.APPLICATION_JSON_VALUE);
+
+                JsonFactory factory = cbor ? CBOR_FACTORY : objectMapper.getFactory();
+
+                return factory
+                        .createGenerator(response.getOutputStream())
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    static boolean prefersCbor(String accept) {
+        if(accept == null) {
+            return false;
+        }
+
+        //of media types with equal quality, the one listed first is preferred
+        boolean cbor = false;
+        double quality = 0;
+
+        for(MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+            if(mediaType.getQualityValue() <= quality) {
+                continue;
+            }
+
+            if(!mediaType.isWildcardType() && !mediaType.isWildcardSubtype() &&
+                    mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                cbor = true;
+                quality = mediaType.getQualityValue();
+            } else if(mediaType.includes(MediaType.APPLICATION_JSON)) {
+                cbor = false;
+                quality = mediaType.getQualityValue();
+            }
+        }
+
+        return cbor;
+    }
+}
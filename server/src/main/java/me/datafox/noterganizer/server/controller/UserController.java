@@ -1,28 +1,47 @@
 package me.datafox.noterganizer.server.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import me.datafox.noterganizer.api.dto.UserChangeDto;
 import me.datafox.noterganizer.api.dto.UserDto;
 import me.datafox.noterganizer.api.dto.UserRegisterDto;
 import me.datafox.noterganizer.server.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.security.Principal;
 
 /**
- * Controller for all user-related API calls.
+ * Controller for all user-related API calls. Replaced by its reactive counterpart in the
+ * reactive profile.
  *
  * @author datafox
  */
 @RestController
+@Profile("!reactive")
 public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Sends the hash of the user as a weak ETag, and nothing else if the client already
+     * has the current version of the user.
+     */
     @GetMapping("/user")
-    public ResponseEntity<UserDto> getUser(Principal principal) {
-        return ResponseEntity.ok(userService.getUserDto(principal));
+    public ResponseEntity<UserDto> getUser(Principal principal, WebRequest request) throws JsonProcessingException {
+        UserDto user = userService.getUserDto(principal);
+
+        if(ETags.checkUserNotModified(request, objectMapper, user)) {
+            return null;
+        }
+
+        return ResponseEntity.ok(user);
     }
 
     @PostMapping("/login")
@@ -30,12 +30,30 @@ public class AppControllerAdvice {
         return "You do not have permissions to perform this action";
     }
 
+    @ExceptionHandler(value = InvalidNoteOperationException.class)
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST)
+    public String handleInvalidNoteOperationException(InvalidNoteOperationException exception) {
+        return "The batch contains an operation with missing fields";
+    }
+
+    @ExceptionHandler(value = InvalidNotePatchException.class)
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST)
+    public String handleInvalidNotePatchException(InvalidNotePatchException exception) {
+        return "The edits cannot be applied to the note";
+    }
+
     @ExceptionHandler(value = MoveRootNoteException.class)
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
     public String handleMoveRootNoteException(MoveRootNoteException exception) {
         return "Cannot move root note";
     }
 
+    @ExceptionHandler(value = NoteConflictException.class)
+    @ResponseStatus(value = HttpStatus.CONFLICT)
+    public String handleNoteConflictException(NoteConflictException exception) {
+        return "The note has been changed since the edits were made";
+    }
+
     @ExceptionHandler(value = NoteNotFoundException.class)
     @ResponseStatus(value = HttpStatus.NOT_FOUND)
     public String handleNoteNotFoundException(NoteNotFoundException exception) {
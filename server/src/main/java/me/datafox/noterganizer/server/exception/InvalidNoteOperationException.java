@@ -0,0 +1,9 @@
+package me.datafox.noterganizer.server.exception;
+
+/**
+ * Thrown when an operation of a note batch has no type or is missing a required field.
+ *
+ * @author datafox
+ */
+public class InvalidNoteOperationException extends RuntimeException {
+}
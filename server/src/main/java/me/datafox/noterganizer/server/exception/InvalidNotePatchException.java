@@ -0,0 +1,9 @@
+package me.datafox.noterganizer.server.exception;
+
+/**
+ * Thrown when the edits of a note patch cannot be applied to the content of the note.
+ *
+ * @author datafox
+ */
+public class InvalidNotePatchException extends RuntimeException {
+}
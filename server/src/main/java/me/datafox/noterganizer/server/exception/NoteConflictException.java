@@ -0,0 +1,10 @@
+package me.datafox.noterganizer.server.exception;
+
+/**
+ * Thrown when a note patch is based on content that differs from the current
+ * content of the note.
+ *
+ * @author datafox
+ */
+public class NoteConflictException extends RuntimeException {
+}
@@ -0,0 +1,271 @@
+package me.datafox.noterganizer.server.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response wrapper for {@link ResponseCompressionFilter}. Buffers the response body until it
+ * grows past a set size, after which it is streamed to the wrapped response instead, gzipped
+ * if the response is compressible. This way small responses can still be cached and left
+ * uncompressed, while large responses never need to be held in memory as a whole.
+ * <p>
+ * Flushing the response with {@link #flushBuffer()} also switches to streaming, so that
+ * responses written a part at a time, like streamed note trees, reach the client when they
+ * are flushed. Flushing only the output stream does not, since message converters flush it
+ * after writing every body. Non-blocking output is delegated to the wrapped response and
+ * streamed uncompressed, since a gzip stream may write more than the wrapped response is
+ * ready to accept.
+ *
+ * @author datafox
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+    private final int bufferSize;
+
+    private final Predicate<HttpServletResponse> compressible;
+
+    private final ServletOutputStream outputStream;
+
+    private ByteArrayOutputStream buffer;
+
+    private OutputStream target;
+
+    private PrintWriter writer;
+
+    private long contentLength = -1;
+
+    CompressingResponseWrapper(HttpServletResponse response, int bufferSize, Predicate<HttpServletResponse> compressible) {
+        super(response);
+        this.bufferSize = bufferSize;
+        this.compressible = compressible;
+
+        buffer = new ByteArrayOutputStream();
+        outputStream = new WrapperOutputStream();
+    }
+
+    /**
+     * @return {@code true} if the response body has been streamed to the wrapped response
+     */
+    boolean isStreaming() {
+        return target != null;
+    }
+
+    /**
+     * @return buffered response body, or an empty array if the body has been streamed
+     */
+    byte[] getContent() {
+        return buffer == null ? new byte[0] : buffer.toByteArray();
+    }
+
+    /**
+     * Flushes any pending output and finishes the gzip stream if the response has been
+     * streamed compressed.
+     *
+     * @throws IOException if writing fails
+     */
+    void finish() throws IOException {
+        if(writer != null) {
+            writer.flush();
+        }
+
+        if(target instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if(writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        }
+
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if(isStreaming()) {
+            super.setContentLengthLong(len);
+        } else {
+            contentLength = len;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if(HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if(HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if(HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if(HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if(writer != null) {
+            writer.flush();
+        }
+
+        if(!isStreaming()) {
+            startStreaming(compressible.test(this));
+        }
+
+        target.flush();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if(isStreaming()) {
+            super.resetBuffer();
+        } else {
+            buffer.reset();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+
+        if(!isStreaming()) {
+            buffer.reset();
+            contentLength = -1;
+        }
+    }
+
+    /**
+     * Switches from buffering to streaming and writes everything buffered so far.
+     *
+     * @param compress {@code true} if the streamed response should be gzipped
+     */
+    private void startStreaming(boolean compress) throws IOException {
+        if(compress) {
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, ResponseCompressionFilter.GZIP);
+            super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            //Flushing must also flush the compressor, or flushed parts would be held back
+            target = new GZIPOutputStream(super.getOutputStream(), 8192, true);
+        } else {
+            if(contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+
+            target = super.getOutputStream();
+        }
+
+        buffer.writeTo(target);
+        buffer = null;
+    }
+
+    private class WrapperOutputStream extends ServletOutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            if(!isStreaming() && buffer.size() + 1 > bufferSize) {
+                startStreaming(compressible.test(CompressingResponseWrapper.this));
+            }
+
+            (isStreaming() ? target : buffer).write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if(!isStreaming() && buffer.size() + len > bufferSize) {
+                startStreaming(compressible.test(CompressingResponseWrapper.this));
+            }
+
+            (isStreaming() ? target : buffer).write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if(isStreaming()) {
+                target.flush();
+            }
+        }
+
+        /**
+         * @return {@code true} while the body is buffered, otherwise the readiness of the
+         *         wrapped response
+         */
+        @Override
+        public boolean isReady() {
+            if(!isStreaming()) {
+                return true;
+            }
+
+            try {
+                return getResponse().getOutputStream().isReady();
+            } catch(IOException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Switches to streaming uncompressed and sets the listener for the wrapped response.
+         *
+         * @throws IllegalStateException if the response is already being streamed compressed
+         */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                if(!isStreaming()) {
+                    startStreaming(false);
+                } else if(target instanceof GZIPOutputStream) {
+                    throw new IllegalStateException("Non-blocking output is not supported for a response that is " +
+                            "already being compressed");
+                }
+
+                getResponse().getOutputStream().setWriteListener(writeListener);
+            } catch(IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package me.datafox.noterganizer.server.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses JSON and CBOR responses with gzip if the client accepts it and the response is at
+ * least {@code noterganizer.compression.min-size} bytes long. Compressed responses are
+ * cached by the hash of their uncompressed content, so that unchanged spaces are only
+ * compressed once. The cache holds at most {@code noterganizer.compression.cache-size}
+ * responses and evicts the least recently used one when it is full. Responses larger than
+ * {@code noterganizer.compression.buffer-size} bytes are compressed while they are written
+ * instead of being buffered and cached. Asynchronously handled requests are filtered again
+ * on their async dispatch, where the response is written through the same wrapper. Requests
+ * for event streams are not filtered.
+ *
+ * @author datafox
+ */
+@Component
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+    static final String GZIP = "gzip";
+
+    private static final String WRAPPER_ATTRIBUTE = ResponseCompressionFilter.class.getName() + ".WRAPPER";
+
+    @Autowired
+    private Logger logger;
+
+    private final int minSize;
+
+    private final int bufferSize;
+
+    private final Map<ByteBuffer, byte[]> cache;
+
+    public ResponseCompressionFilter(@Value("${noterganizer.compression.min-size:2048}") int minSize,
+                                     @Value("${noterganizer.compression.cache-size:100}") int cacheSize,
+                                     @Value("${noterganizer.compression.buffer-size:1048576}") int bufferSize) {
+        this.minSize = minSize;
+        this.bufferSize = bufferSize;
+
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, byte[]> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        CompressingResponseWrapper wrapper = (CompressingResponseWrapper) request.getAttribute(WRAPPER_ATTRIBUTE);
+
+        if(wrapper == null) {
+            if(!acceptsGzip(request)) {
+                filterChain.doFilter(request, response);
+
+                return;
+            }
+
+            wrapper = new CompressingResponseWrapper(response, bufferSize, this::isCompressible);
+        }
+
+        filterChain.doFilter(request, wrapper);
+
+        if(isAsyncStarted(request)) {
+            request.setAttribute(WRAPPER_ATTRIBUTE, wrapper);
+
+            return;
+        }
+
+        response = (HttpServletResponse) wrapper.getResponse();
+
+        wrapper.finish();
+
+        if(wrapper.isStreaming()) {
+            logger.debug("Streamed response larger than " + bufferSize + " bytes");
+
+            return;
+        }
+
+        byte[] content = wrapper.getContent();
+
+        if(content.length < minSize || !isCompressible(wrapper)) {
+            if(!response.isCommitted()) {
+                response.setContentLength(content.length);
+            }
+
+            response.getOutputStream().write(content);
+
+            return;
+        }
+
+        byte[] compressed = cache.computeIfAbsent(ByteBuffer.wrap(hash(content)), key -> compress(content));
+
+        logger.debug("Compressed response of " + content.length + " bytes to " + compressed.length + " bytes");
+
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentLength(compressed.length);
+        response.getOutputStream().write(compressed);
+    }
+
+    /**
+     * Event streams are written as the events happen, so they must not be buffered.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+
+        return accept != null && MediaType
+                .parseMediaTypes(accept)
+                .stream()
+                .anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+
+        if(header == null) {
+            return false;
+        }
+
+        for(String encoding : header.split(",")) {
+            String[] parts = encoding.trim().split(";");
+
+            if(parts[0].trim().equalsIgnoreCase(GZIP)) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isCompressible(HttpServletResponse response) {
+        String contentType = response.getContentType();
+
+        if(contentType == null || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            return false;
+        }
+
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+
+        return MediaType.APPLICATION_JSON.isCompatibleWith(mediaType) || MediaType.APPLICATION_CBOR.isCompatibleWith(mediaType);
+    }
+
+    private byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] compress(byte[] content) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 4);
+
+        try(GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(content);
+        } catch(IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return output.toByteArray();
+    }
+}
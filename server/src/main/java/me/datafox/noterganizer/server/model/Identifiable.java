@@ -0,0 +1,26 @@
+package me.datafox.noterganizer.server.model;
+
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+
+/**
+ * Interface for models that are identified by a UUID.
+ *
+ * @author datafox
+ */
+public interface Identifiable {
+    String getUuid();
+
+    void setUuid(String uuid);
+
+    /**
+     * @param entity entity or a lazily resolved reference to one
+     * @return UUID of the entity, read from the reference without resolving it
+     */
+    static String uuidOf(Identifiable entity) {
+        if(entity instanceof LazyLoadingProxy proxy) {
+            return proxy.toDBRef().getId().toString();
+        }
+
+        return entity.getUuid();
+    }
+}
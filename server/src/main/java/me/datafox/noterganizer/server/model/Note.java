@@ -1,15 +1,30 @@
 package me.datafox.noterganizer.server.model;
 
 import lombok.*;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
- * Model for notes. Contains a UUID, reference to the owning user, a title,
- * textual content and a list of references to child notes.
+ * Model for notes. Contains a UUID, reference to the owning user, username of the
+ * owning user, UUID of the containing space, UUID of the parent note, UUIDs of all
+ * ancestor notes starting from the root note, a title, textual content and a list of
+ * references to child notes. Child notes are resolved lazily, so notes are only equal
+ * if their UUIDs are equal. Root notes have no parent and an empty list of ancestors.
+ * Notes stored before parents and ancestors were introduced have no list of ancestors
+ * until they are migrated by {@link
+ * me.datafox.noterganizer.server.service.NoteMigrationService}. The username of the
+ * owner is stored alongside the user reference so that ownership can be checked
+ * without resolving the reference. The search terms of the title and content are
+ * stored as an inverted index along with the terms of the title alone, so that the
+ * database can match and rank notes without scanning their contents. The hash of the
+ * content is stored so that patches can be checked against the stored content without
+ * comparing the content itself.
  *
  * @author datafox
  */
@@ -17,19 +32,66 @@ import java.util.List;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-public class Note {
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@CompoundIndex(name = "owner_uuid", def = "{'owner': 1, '_id': 1}")
+@CompoundIndex(name = "owner_terms", def = "{'owner': 1, 'terms': 1}")
+public class Note implements Identifiable {
     @MongoId
+    @EqualsAndHashCode.Include
     private String uuid;
 
-    @DBRef
+    @DBRef(lazy = true)
+    @ToString.Exclude
     private AppUser user;
 
+    private String owner;
+
+    @Indexed
+    private String space;
+
+    @Indexed
+    private String parent;
+
+    @Indexed
+    private List<String> ancestors;
+
     private String title;
 
     @Builder.Default
+    @ToString.Exclude
     private String content = "";
 
-    @DBRef
+    /**
+     * Distinct search terms of the title and content, kept up to date by
+     * {@link me.datafox.noterganizer.server.repository.NoteTermsCallback} and
+     * {@link me.datafox.noterganizer.server.repository.NoteUpdateRepository}.
+     */
+    @ToString.Exclude
+    private Set<String> terms;
+
+    /**
+     * Distinct search terms of the title alone, used for ranking search results and kept
+     * up to date the same way as {@link #terms}.
+     */
+    @ToString.Exclude
+    private Set<String> titleTerms;
+
+    /**
+     * Hash of the content computed with {@link
+     * me.datafox.noterganizer.api.NotePatcher#hash(String)}, kept up to date the same way
+     * as the search terms.
+     */
+    private String contentHash;
+
+    @DBRef(lazy = true)
     @Builder.Default
+    @ToString.Exclude
     private List<Note> children = new ArrayList<>();
+
+    /**
+     * @return UUIDs of the child notes, read from the references without resolving them
+     */
+    public List<String> getChildUuids() {
+        return children.stream().map(Identifiable::uuidOf).toList();
+    }
 }
@@ -0,0 +1,31 @@
+package me.datafox.noterganizer.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of a {@link Note} used for loading whole note trees at once.
+ * Contains a UUID, a title, textual content and a list of child note UUIDs
+ * instead of references, so reading it never resolves other documents.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteNode {
+    private String uuid;
+
+    private String title;
+
+    private String content;
+
+    @Builder.Default
+    private List<String> children = new ArrayList<>();
+}
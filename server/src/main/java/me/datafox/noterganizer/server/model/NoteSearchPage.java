@@ -0,0 +1,30 @@
+package me.datafox.noterganizer.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Singular;
+
+import java.util.List;
+
+/**
+ * Read-only view of a single page of notes matching a search. Contains the number of
+ * matching notes on all pages and the notes on the page in order of relevance, with only
+ * their UUIDs, spaces and titles, along with the scores of the notes in the same order.
+ *
+ * @author datafox
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteSearchPage {
+    private int total;
+
+    @Singular
+    private List<Note> notes;
+
+    @Singular
+    private List<Integer> scores;
+}
@@ -4,12 +4,16 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 
 /**
- * Model for spaces. Contains a UUID, a reference to the owning user and
- * a reference to the root note.
+ * Model for spaces. Contains a UUID, a reference to the owning user, username of the
+ * owning user, a reference to the root note and a version. References are resolved lazily,
+ * and the username of the owner is stored so that ownership can be checked without
+ * resolving the user. The version is incremented every time a note within the space
+ * is changed, so that clients can tell whether their copy of the space is up to date.
  *
  * @author datafox
  */
@@ -17,13 +21,25 @@ import org.springframework.data.mongodb.core.mapping.MongoId;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-public class Space {
+@CompoundIndex(name = "owner_uuid", def = "{'owner': 1, '_id': 1}")
+public class Space implements Identifiable {
     @MongoId
     private String uuid;
 
-    @DBRef
+    @DBRef(lazy = true)
     private AppUser user;
 
-    @DBRef
+    private String owner;
+
+    @DBRef(lazy = true)
     private Note root;
+
+    private long version;
+
+    /**
+     * @return UUID of the root note, read from the reference without resolving it
+     */
+    public String getRootUuid() {
+        return Identifiable.uuidOf(root);
+    }
 }
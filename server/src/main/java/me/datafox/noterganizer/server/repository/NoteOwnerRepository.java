@@ -0,0 +1,24 @@
+package me.datafox.noterganizer.server.repository;
+
+import me.datafox.noterganizer.server.model.Note;
+
+import java.util.Optional;
+
+/**
+ * Custom repository fragment for checking the ownership of notes without resolving
+ * the referenced user.
+ *
+ * @author datafox
+ */
+public interface NoteOwnerRepository {
+    /**
+     * Fetches a note if it belongs to the given user. If fields are given, only those
+     * fields and the UUID are fetched, so the returned note must not be saved as is.
+     *
+     * @param uuid UUID of the note
+     * @param owner username of the owner of the note
+     * @param fields fields to be fetched, or none to fetch all fields
+     * @return the note, or an empty optional if no note with the UUID belongs to the user
+     */
+    Optional<Note> findByUuidAndOwner(String uuid, String owner, String... fields);
+}
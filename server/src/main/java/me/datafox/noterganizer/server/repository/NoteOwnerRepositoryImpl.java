@@ -0,0 +1,32 @@
+package me.datafox.noterganizer.server.repository;
+
+import me.datafox.noterganizer.server.model.Note;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Optional;
+
+/**
+ * Implementation of {@link NoteOwnerRepository}.
+ *
+ * @author datafox
+ */
+public class NoteOwnerRepositoryImpl implements NoteOwnerRepository {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Note> findByUuidAndOwner(String uuid, String owner, String... fields) {
+        Query query = Query.query(Criteria
+                .where("uuid").is(uuid)
+                .and("owner").is(owner));
+
+        if(fields.length > 0) {
+            query.fields().include(fields);
+        }
+
+        return Optional.ofNullable(mongoTemplate.findOne(query, Note.class));
+    }
+}
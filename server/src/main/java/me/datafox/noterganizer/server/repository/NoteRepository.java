@@ -12,6 +12,9 @@ import java.util.Optional;
  * @author datafox
  */
 @Repository
-public interface NoteRepository extends MongoRepository<Note, String> {
+public interface NoteRepository extends MongoRepository<Note, String>, NoteTreeRepository, NoteOwnerRepository,
+        NoteUpdateRepository, NoteSearchRepository {
     Optional<Note> findByChildren(Note child);
+
+    long deleteBySpace(String space);
 }
@@ -0,0 +1,28 @@
+package me.datafox.noterganizer.server.repository;
+
+import me.datafox.noterganizer.server.model.NoteSearchPage;
+
+import java.util.Collection;
+
+/**
+ * Custom repository fragment for searching notes by their stored search terms.
+ *
+ * @author datafox
+ */
+public interface NoteSearchRepository {
+    /**
+     * Finds a page of notes of a user that contain all given search terms, ranked and
+     * counted by the database with a single query. A note ranks higher the more search
+     * terms its title contains, and higher still if its title contains the whole phrase.
+     * Contents are not read. Ties are broken by shorter titles first and then by UUID, so
+     * that results stay in the same order between pages.
+     *
+     * @param owner username of the owner of the notes
+     * @param terms search terms that must all be present
+     * @param phrase whole query to be searched for in titles, ignoring case
+     * @param skip number of matching notes to skip
+     * @param limit maximum number of notes on the page
+     * @return requested page of matching notes with the number of all matching notes
+     */
+    NoteSearchPage searchByOwnerAndTerms(String owner, Collection<String> terms, String phrase, long skip, int limit);
+}
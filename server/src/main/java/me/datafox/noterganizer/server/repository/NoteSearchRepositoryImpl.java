@@ -0,0 +1,92 @@
+package me.datafox.noterganizer.server.repository;
+
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.NoteSearchPage;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Implementation of {@link NoteSearchRepository}. Matching notes are counted and ranked in
+ * a single aggregation, so that only the requested page is ever sent from the database.
+ * Notes are ranked only by their stored title terms and titles, so the database never
+ * scans their contents.
+ *
+ * @author datafox
+ */
+public class NoteSearchRepositoryImpl implements NoteSearchRepository {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public NoteSearchPage searchByOwnerAndTerms(String owner, Collection<String> terms, String phrase, long skip, int limit) {
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("owner", owner)
+                        .append("terms", new Document("$all", List.copyOf(terms)))),
+                new Document("$facet", new Document("total", List.of(
+                        new Document("$count", "count")))
+                        .append("notes", List.of(
+                                new Document("$project", new Document("space", 1)
+                                        .append("title", 1)
+                                        .append("score", score(terms, phrase))
+                                        .append("titleLength", new Document("$strLenCP",
+                                                new Document("$ifNull", List.of("$title", ""))))),
+                                new Document("$sort", new Document("score", -1)
+                                        .append("titleLength", 1)
+                                        .append("_id", 1)),
+                                new Document("$skip", skip),
+                                new Document("$limit", limit)))));
+
+        Document result = mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(Note.class))
+                .aggregate(pipeline)
+                .first();
+
+        NoteSearchPage.NoteSearchPageBuilder builder = NoteSearchPage.builder();
+
+        if(result == null) {
+            return builder.build();
+        }
+
+        List<Document> total = result.getList("total", Document.class, List.of());
+
+        if(!total.isEmpty()) {
+            builder.total(total.get(0).getInteger("count"));
+        }
+
+        result.getList("notes", Document.class, List.of()).forEach(document -> builder
+                .note(Note
+                        .builder()
+                        .uuid(document.getString("_id"))
+                        .space(document.getString("space"))
+                        .title(document.getString("title"))
+                        .build())
+                .score(document.get("score", Number.class).intValue()));
+
+        return builder.build();
+    }
+
+    /**
+     * Two points for every search term in the title and two points per search term if the
+     * title contains the phrase.
+     */
+    private Document score(Collection<String> terms, String phrase) {
+        Document titleMatches = new Document("$size", new Document("$setIntersection", List.of(
+                new Document("$ifNull", List.of("$titleTerms", List.of())),
+                new Document("$literal", List.copyOf(terms)))));
+
+        return new Document("$add", List.of(
+                new Document("$multiply", List.of(titleMatches, 2)),
+                new Document("$cond", List.of(titleContains(phrase), terms.size() * 2, 0))));
+    }
+
+    private Document titleContains(String phrase) {
+        return new Document("$regexMatch", new Document("input", new Document("$ifNull", List.of("$title", "")))
+                .append("regex", Pattern.quote(phrase))
+                .append("options", "i"));
+    }
+}
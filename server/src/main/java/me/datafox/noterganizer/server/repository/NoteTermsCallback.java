@@ -0,0 +1,29 @@
+package me.datafox.noterganizer.server.repository;
+
+import me.datafox.noterganizer.api.NotePatcher;
+import me.datafox.noterganizer.api.NoteTokenizer;
+import me.datafox.noterganizer.server.model.Note;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Sets the search terms and content hash of every note that is saved as a whole, so that
+ * they always match the title and content.
+ *
+ * @author datafox
+ */
+@Component
+public class NoteTermsCallback implements BeforeConvertCallback<Note> {
+    @Override
+    public Note onBeforeConvert(Note note, String collection) {
+        note.setTerms(NoteTokenizer.terms(note.getTitle(), note.getContent()));
+
+        note.setTitleTerms(NoteTokenizer.terms(note.getTitle()));
+
+        note.setContentHash(NotePatcher.hash(Objects.requireNonNullElse(note.getContent(), "")));
+
+        return note;
+    }
+}
@@ -0,0 +1,66 @@
+package me.datafox.noterganizer.server.repository;
+
+import me.datafox.noterganizer.server.model.NoteNode;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Custom repository fragment for operations on whole note trees that would
+ * otherwise take one query per note.
+ *
+ * @author datafox
+ */
+public interface NoteTreeRepository {
+    /**
+     * @param space UUID of the space
+     * @return all notes within the space with only their children, fetched with a single query
+     */
+    List<NoteNode> findNodeStructureBySpace(String space);
+
+    /**
+     * @param space UUID of the space
+     * @return all notes within the space without their contents, fetched with a single query
+     */
+    List<NoteNode> findNodeHeadersBySpace(String space);
+
+    /**
+     * @param uuids UUIDs of the notes
+     * @return the notes with their titles and contents but without their children, in
+     *         no particular order, fetched with a single query
+     */
+    List<NoteNode> findNodesByUuids(Collection<String> uuids);
+
+    /**
+     * @param uuids UUIDs of the notes to be updated
+     * @param space UUID of the space to be set for the notes
+     */
+    void updateSpace(Collection<String> uuids, String space);
+
+    /**
+     * Updates the ancestors and space of all descendants of a moved note. Ancestors
+     * that preceded the moved note are replaced with its new ancestors.
+     *
+     * @param uuid UUID of the moved note
+     * @param oldAncestors ancestors of the moved note before it was moved
+     * @param newAncestors ancestors of the moved note after it was moved
+     * @param space UUID of the space the note was moved to
+     */
+    void updateDescendants(String uuid, List<String> oldAncestors, List<String> newAncestors, String space);
+
+    /**
+     * Removes a note and all of its descendants with a single query.
+     *
+     * @param uuid UUID of the note to be removed
+     */
+    void deleteSubtree(String uuid);
+
+    /**
+     * Moves the children of a note to a new parent and removes the note from the
+     * ancestors of all of its descendants.
+     *
+     * @param uuid UUID of the removed note
+     * @param parent UUID of the new parent for the children of the removed note
+     */
+    void removeAncestor(String uuid, String parent);
+}
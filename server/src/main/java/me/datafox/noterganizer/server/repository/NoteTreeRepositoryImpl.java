@@ -0,0 +1,119 @@
+package me.datafox.noterganizer.server.repository;
+
+import com.mongodb.DBRef;
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.NoteNode;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation of {@link NoteTreeRepository}. Reads raw documents so that
+ * references to child notes and users are never resolved.
+ *
+ * @author datafox
+ */
+public class NoteTreeRepositoryImpl implements NoteTreeRepository {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<NoteNode> findNodeStructureBySpace(String space) {
+        return findNodes(Criteria.where("space").is(space), "children");
+    }
+
+    @Override
+    public List<NoteNode> findNodeHeadersBySpace(String space) {
+        return findNodes(Criteria.where("space").is(space), "title", "children");
+    }
+
+    @Override
+    public List<NoteNode> findNodesByUuids(Collection<String> uuids) {
+        return findNodes(Criteria.where("_id").in(uuids), "title", "content");
+    }
+
+    @Override
+    public void updateSpace(Collection<String> uuids, String space) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("uuid").in(uuids)),
+                Update.update("space", space),
+                Note.class);
+    }
+
+    @Override
+    public void updateDescendants(String uuid, List<String> oldAncestors, List<String> newAncestors, String space) {
+        Query query = Query.query(Criteria.where("ancestors").is(uuid));
+
+        Update update = Update.update("space", space);
+
+        if(!oldAncestors.isEmpty()) {
+            update.pullAll("ancestors", oldAncestors.toArray());
+        }
+
+        mongoTemplate.updateMulti(query, update, Note.class);
+
+        if(!newAncestors.isEmpty()) {
+            mongoTemplate.updateMulti(
+                    query,
+                    new Update()
+                            .push("ancestors")
+                            .atPosition(Update.Position.FIRST)
+                            .each(newAncestors.toArray()),
+                    Note.class);
+        }
+    }
+
+    @Override
+    public void deleteSubtree(String uuid) {
+        mongoTemplate.remove(
+                Query.query(new Criteria().orOperator(
+                        Criteria.where("uuid").is(uuid),
+                        Criteria.where("ancestors").is(uuid))),
+                Note.class);
+    }
+
+    @Override
+    public void removeAncestor(String uuid, String parent) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("parent").is(uuid)),
+                Update.update("parent", parent),
+                Note.class);
+
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("ancestors").is(uuid)),
+                new Update().pull("ancestors", uuid),
+                Note.class);
+    }
+
+    private List<NoteNode> findNodes(Criteria criteria, String... fields) {
+        Query query = Query.query(criteria);
+
+        query.fields().include(fields);
+
+        return mongoTemplate
+                .find(query, Document.class, mongoTemplate.getCollectionName(Note.class))
+                .stream()
+                .map(this::mapToNoteNode)
+                .toList();
+    }
+
+    private NoteNode mapToNoteNode(Document document) {
+        return NoteNode
+                .builder()
+                .uuid(document.getString("_id"))
+                .title(document.getString("title"))
+                .content(document.getString("content"))
+                .children(document
+                        .getList("children", DBRef.class, List.of())
+                        .stream()
+                        .map(ref -> ref.getId().toString())
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package me.datafox.noterganizer.server.repository;
+
+import me.datafox.noterganizer.server.model.Note;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Custom repository fragment for updating single fields of a note without
+ * rewriting the whole document.
+ *
+ * @author datafox
+ */
+public interface NoteUpdateRepository {
+    /**
+     * Sets the title, content, search terms and content hash of a note if it belongs to the
+     * given user.
+     *
+     * @param uuid UUID of the note
+     * @param owner username of the owner of the note
+     * @param title new title of the note
+     * @param content new content of the note
+     * @return the note with only its space, or an empty optional if no note with the UUID
+     *         belongs to the user
+     */
+    Optional<Note> updateContent(String uuid, String owner, String title, String content);
+
+    /**
+     * Sets the title, content, search terms and content hash of a note if it belongs to the
+     * given user and its content has not changed since it was read, so that a concurrent
+     * change is never overwritten. The content is compared through its stored hash, so notes
+     * stored before content hashes never match until they are migrated or changed.
+     *
+     * @param uuid UUID of the note
+     * @param owner username of the owner of the note
+     * @param title new title of the note
+     * @param expectedHash hash of the content of the note the new content is based on
+     * @param content new content of the note
+     * @return the note with only its space, or an empty optional if no note with the UUID
+     *         and the expected content hash belongs to the user
+     */
+    Optional<Note> updateContent(String uuid, String owner, String title, String expectedHash, String content);
+
+    /**
+     * @param uuid UUID of the note
+     * @param owner username of the owner to be set for the note
+     */
+    void updateOwner(String uuid, String owner);
+
+    /**
+     * Sets the parent, ancestors and space of a moved note.
+     *
+     * @param uuid UUID of the note
+     * @param parent UUID of the new parent of the note
+     * @param ancestors new ancestors of the note
+     * @param space UUID of the new space of the note
+     */
+    void updatePosition(String uuid, String parent, List<String> ancestors, String space);
+
+    /**
+     * Appends references to child notes to the end of the children of a note.
+     *
+     * @param uuid UUID of the note
+     * @param children UUIDs of the child notes
+     */
+    void addChildren(String uuid, Collection<String> children);
+
+    /**
+     * @param uuid UUID of the note
+     * @param child UUID of the child note to be removed from the children of the note
+     */
+    void removeChild(String uuid, String child);
+}
@@ -0,0 +1,97 @@
+package me.datafox.noterganizer.server.repository;
+
+import com.mongodb.DBRef;
+import me.datafox.noterganizer.api.NotePatcher;
+import me.datafox.noterganizer.api.NoteTokenizer;
+import me.datafox.noterganizer.server.model.Note;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Implementation of {@link NoteUpdateRepository}. Every operation is a single
+ * update that only touches the changed fields.
+ *
+ * @author datafox
+ */
+public class NoteUpdateRepositoryImpl implements NoteUpdateRepository {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Note> updateContent(String uuid, String owner, String title, String content) {
+        return updateContent(Query.query(Criteria
+                .where("uuid").is(uuid)
+                .and("owner").is(owner)), title, content);
+    }
+
+    @Override
+    public Optional<Note> updateContent(String uuid, String owner, String title, String expectedHash, String content) {
+        return updateContent(Query.query(Criteria
+                .where("uuid").is(uuid)
+                .and("owner").is(owner)
+                .and("contentHash").is(expectedHash)), title, content);
+    }
+
+    private Optional<Note> updateContent(Query query, String title, String content) {
+        query.fields().include("space");
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                query,
+                Update.update("title", title)
+                        .set("content", content)
+                        .set("terms", NoteTokenizer.terms(title, content))
+                        .set("titleTerms", NoteTokenizer.terms(title))
+                        .set("contentHash", NotePatcher.hash(Objects.requireNonNullElse(content, ""))),
+                Note.class));
+    }
+
+    @Override
+    public void updateOwner(String uuid, String owner) {
+        mongoTemplate.updateFirst(byUuid(uuid), Update.update("owner", owner), Note.class);
+    }
+
+    @Override
+    public void updatePosition(String uuid, String parent, List<String> ancestors, String space) {
+        mongoTemplate.updateFirst(
+                byUuid(uuid),
+                Update.update("parent", parent)
+                        .set("ancestors", ancestors)
+                        .set("space", space),
+                Note.class);
+    }
+
+    @Override
+    public void addChildren(String uuid, Collection<String> children) {
+        if(children.isEmpty()) {
+            return;
+        }
+
+        mongoTemplate.updateFirst(
+                byUuid(uuid),
+                new Update()
+                        .push("children")
+                        .each(children.stream().map(this::toReference).toArray()),
+                Note.class);
+    }
+
+    @Override
+    public void removeChild(String uuid, String child) {
+        mongoTemplate.updateFirst(byUuid(uuid), new Update().pull("children", toReference(child)), Note.class);
+    }
+
+    private Query byUuid(String uuid) {
+        return Query.query(Criteria.where("uuid").is(uuid));
+    }
+
+    private DBRef toReference(String uuid) {
+        return new DBRef(mongoTemplate.getCollectionName(Note.class), uuid);
+    }
+}
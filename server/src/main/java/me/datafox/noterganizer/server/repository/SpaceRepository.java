@@ -1,15 +1,39 @@
 package me.datafox.noterganizer.server.repository;
 
-import me.datafox.noterganizer.server.model.AppUser;
 import me.datafox.noterganizer.server.model.Space;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.data.util.Streamable;
 
+import java.util.Collection;
+import java.util.Optional;
+
 /**
  * Repository for spaces.
  *
  * @author datafox
  */
 public interface SpaceRepository extends MongoRepository<Space, String> {
-    Streamable<Space> findByUser(AppUser user);
+    Streamable<Space> findByOwner(String owner);
+
+    /**
+     * Fetches a space if it belongs to the given user. Only the reference to the root
+     * note and the version are fetched, so the returned space must not be saved as is.
+     *
+     * @param uuid UUID of the space
+     * @param owner username of the owner of the space
+     * @return the space, or an empty optional if no space with the UUID belongs to the user
+     */
+    @Query(fields = "{ 'root': 1, 'version': 1 }")
+    Optional<Space> findByUuidAndOwner(String uuid, String owner);
+
+    /**
+     * Increments the versions of spaces with a single update.
+     *
+     * @param uuids UUIDs of the spaces
+     */
+    @Query("{ '_id': { '$in': ?0 } }")
+    @Update("{ '$inc': { 'version': 1 } }")
+    void findAndIncrementVersionByUuidIn(Collection<String> uuids);
 }
@@ -0,0 +1,37 @@
+package me.datafox.noterganizer.server.repository.reactive;
+
+import me.datafox.noterganizer.server.model.Note;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive repository for notes. References cannot be resolved reactively, so notes
+ * are only read without their user and children.
+ *
+ * @author datafox
+ */
+public interface ReactiveNoteRepository extends ReactiveMongoRepository<Note, String>, ReactiveNoteTreeRepository {
+    /**
+     * Fetches a note if it belongs to the given user. Only the owner, title and content
+     * are fetched, so the returned note must not be saved.
+     *
+     * @param uuid UUID of the note
+     * @param owner username of the owner of the note
+     * @return the note, or an empty mono if no note with the UUID belongs to the user
+     */
+    @Query(fields = "{ 'owner': 1, 'title': 1, 'content': 1 }")
+    Mono<Note> findByUuidAndOwner(String uuid, String owner);
+
+    /**
+     * Fetches a note regardless of its owner. Only the owner is fetched, so the returned
+     * note must not be saved.
+     *
+     * @param uuid UUID of the note
+     * @return the note, or an empty mono if no note exists with the UUID
+     */
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'owner': 1 }")
+    Mono<Note> findOwnerByUuid(String uuid);
+
+    Mono<Boolean> existsByUuidAndSpace(String uuid, String space);
+}
@@ -0,0 +1,26 @@
+package me.datafox.noterganizer.server.repository.reactive;
+
+import me.datafox.noterganizer.server.model.NoteNode;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+/**
+ * Custom reactive repository fragment for reading whole note trees. Notes are emitted
+ * as they are read from the cursor, in no particular order.
+ *
+ * @author datafox
+ */
+public interface ReactiveNoteTreeRepository {
+    /**
+     * @param space UUID of the space
+     * @return all notes within the space without their contents
+     */
+    Flux<NoteNode> findNodeHeadersBySpace(String space);
+
+    /**
+     * @param uuids UUIDs of the notes
+     * @return the notes with only their titles
+     */
+    Flux<NoteNode> findNodeTitlesByUuids(Collection<String> uuids);
+}
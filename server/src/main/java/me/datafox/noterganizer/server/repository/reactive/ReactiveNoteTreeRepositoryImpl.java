@@ -0,0 +1,58 @@
+package me.datafox.noterganizer.server.repository.reactive;
+
+import com.mongodb.DBRef;
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.NoteNode;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation of {@link ReactiveNoteTreeRepository}. Reads raw documents so that
+ * references to child notes and users are never resolved.
+ *
+ * @author datafox
+ */
+public class ReactiveNoteTreeRepositoryImpl implements ReactiveNoteTreeRepository {
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<NoteNode> findNodeHeadersBySpace(String space) {
+        return findNodes(Criteria.where("space").is(space), "title", "children");
+    }
+
+    @Override
+    public Flux<NoteNode> findNodeTitlesByUuids(Collection<String> uuids) {
+        return findNodes(Criteria.where("_id").in(uuids), "title");
+    }
+
+    private Flux<NoteNode> findNodes(Criteria criteria, String... fields) {
+        Query query = Query.query(criteria);
+
+        query.fields().include(fields);
+
+        return mongoTemplate
+                .find(query, Document.class, mongoTemplate.getCollectionName(Note.class))
+                .map(this::mapToNoteNode);
+    }
+
+    private NoteNode mapToNoteNode(Document document) {
+        return NoteNode
+                .builder()
+                .uuid(document.getString("_id"))
+                .title(document.getString("title"))
+                .children(document
+                        .getList("children", DBRef.class, List.of())
+                        .stream()
+                        .map(ref -> ref.getId().toString())
+                        .toList())
+                .build();
+    }
+}
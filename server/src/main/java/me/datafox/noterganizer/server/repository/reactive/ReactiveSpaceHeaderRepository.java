@@ -0,0 +1,26 @@
+package me.datafox.noterganizer.server.repository.reactive;
+
+import me.datafox.noterganizer.server.model.Space;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Custom reactive repository fragment for reading spaces without their references.
+ * The returned spaces only contain their owner, version and a root note with nothing
+ * but its UUID, so they must not be saved.
+ *
+ * @author datafox
+ */
+public interface ReactiveSpaceHeaderRepository {
+    /**
+     * @param uuid UUID of the space
+     * @return the space, or an empty mono if no space exists with the UUID
+     */
+    Mono<Space> findHeaderByUuid(String uuid);
+
+    /**
+     * @param owner username of the owner of the spaces
+     * @return all spaces of the user
+     */
+    Flux<Space> findHeadersByOwner(String owner);
+}
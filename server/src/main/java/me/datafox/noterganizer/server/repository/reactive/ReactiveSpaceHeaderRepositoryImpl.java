@@ -0,0 +1,55 @@
+package me.datafox.noterganizer.server.repository.reactive;
+
+import com.mongodb.DBRef;
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.Space;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementation of {@link ReactiveSpaceHeaderRepository}. Reads raw documents so that
+ * the references to the root note and the user are never resolved.
+ *
+ * @author datafox
+ */
+public class ReactiveSpaceHeaderRepositoryImpl implements ReactiveSpaceHeaderRepository {
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Space> findHeaderByUuid(String uuid) {
+        return findHeaders(Criteria.where("_id").is(uuid)).next();
+    }
+
+    @Override
+    public Flux<Space> findHeadersByOwner(String owner) {
+        return findHeaders(Criteria.where("owner").is(owner));
+    }
+
+    private Flux<Space> findHeaders(Criteria criteria) {
+        Query query = Query.query(criteria);
+
+        query.fields().include("owner", "root", "version");
+
+        return mongoTemplate
+                .find(query, Document.class, mongoTemplate.getCollectionName(Space.class))
+                .map(this::mapToSpace);
+    }
+
+    private Space mapToSpace(Document document) {
+        DBRef root = document.get("root", DBRef.class);
+
+        return Space
+                .builder()
+                .uuid(document.getString("_id"))
+                .owner(document.getString("owner"))
+                .root(root == null ? null : Note.builder().uuid(root.getId().toString()).build())
+                .version(((Number) document.getOrDefault("version", 0L)).longValue())
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package me.datafox.noterganizer.server.repository.reactive;
+
+import me.datafox.noterganizer.server.model.Space;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Reactive repository for spaces. References cannot be resolved reactively, so spaces
+ * must only be read through {@link ReactiveSpaceHeaderRepository}.
+ *
+ * @author datafox
+ */
+public interface ReactiveSpaceRepository extends ReactiveMongoRepository<Space, String>, ReactiveSpaceHeaderRepository {
+}
@@ -0,0 +1,14 @@
+package me.datafox.noterganizer.server.repository.reactive;
+
+import me.datafox.noterganizer.server.model.AppUser;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive repository for users.
+ *
+ * @author datafox
+ */
+public interface ReactiveUserRepository extends ReactiveMongoRepository<AppUser, String> {
+    Mono<AppUser> findByUsername(String username);
+}
@@ -1,12 +1,16 @@
 package me.datafox.noterganizer.server.service;
 
-import me.datafox.noterganizer.api.dto.NoteHeaderDto;
-import me.datafox.noterganizer.api.dto.SpaceDto;
-import me.datafox.noterganizer.api.dto.UserDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import me.datafox.noterganizer.api.dto.*;
 import me.datafox.noterganizer.server.model.AppUser;
 import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.NoteNode;
 import me.datafox.noterganizer.server.model.Space;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+
 /**
  * The mapping service contains helper methods for mapping internal objects
  * into DTO objects.
@@ -21,14 +25,52 @@ public interface MappingService {
     UserDto mapToUserDto(AppUser user);
 
     /**
+     * @param user user
+     * @param spaces spaces of the user with the titles of their root notes
+     * @return DTO object for given user
+     */
+    UserDto mapToUserDto(AppUser user, Collection<Space> spaces);
+
+    /**
+     * Writes a space as a DTO object for the space to a generator without building the
+     * note tree in memory. The notes must be in depth-first pre-order, starting from
+     * the root note, and the children of every note must be present.
+     *
+     * @param space space
+     * @param notes all notes within the space in depth-first pre-order
+     * @param generator generator to write to
+     * @throws IOException if writing fails
+     */
+    void writeSpaceDto(Space space, Iterator<NoteNode> notes, JsonGenerator generator) throws IOException;
+
+    /**
+     * Builds the note tree of a space in memory from a flat collection of notes,
+     * omitting the contents of the notes.
+     *
      * @param space space
-     * @return DTO object for given space
+     * @param notes all notes within the space
+     * @return tree DTO object for given space
+     */
+    SpaceTreeDto mapToSpaceTreeDto(Space space, Collection<NoteNode> notes);
+
+    /**
+     * Maps a single note of a tree without nesting its children, so that trees can be
+     * sent one note at a time. The children only contain their UUIDs.
+     *
+     * @param note note
+     * @return tree DTO object for given note with only the UUIDs of its children
      */
-    SpaceDto mapToSpaceDto(Space space);
+    NoteTreeDto mapToShallowNoteTreeDto(NoteNode note);
 
     /**
      * @param note note
      * @return header DTO object for given note
      */
     NoteHeaderDto mapToNoteHeaderDto(Note note);
+
+    /**
+     * @param note note
+     * @return content DTO object for given note
+     */
+    NoteContentDto mapToNoteContentDto(Note note);
 }
@@ -0,0 +1,26 @@
+package me.datafox.noterganizer.server.service;
+
+import me.datafox.noterganizer.api.dto.NoteBatchDto;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * The note batch service applies multiple note operations with as few database round
+ * trips as possible.
+ *
+ * @author datafox
+ */
+public interface NoteBatchService {
+    /**
+     * Validates all operations before applying any of them, so if an operation is invalid,
+     * the exception thrown for it by {@link NoteService} is thrown and no operations are
+     * applied. Until {@link NoteMigrationService} is complete, the operations are applied
+     * one at a time instead, and the operations before an invalid one remain applied.
+     *
+     * @param dto DTO with the operations to be applied in order
+     * @param principal principal for the modifying user
+     * @return UUIDs of the notes of the operations in order
+     */
+    List<String> applyBatch(NoteBatchDto dto, Principal principal);
+}
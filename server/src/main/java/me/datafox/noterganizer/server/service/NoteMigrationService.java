@@ -0,0 +1,25 @@
+package me.datafox.noterganizer.server.service;
+
+/**
+ * The note migration service migrates notes stored before parent and ancestor
+ * references were introduced, and notes and spaces stored before their owners
+ * were stored alongside the user reference. The migration is started in the background when the
+ * application is ready and processes notes in batches, so the application remains
+ * usable while it is running.
+ *
+ * @author datafox
+ */
+public interface NoteMigrationService {
+    /**
+     * Sets the owner for all notes and spaces and the parent and ancestors for all
+     * notes that do not have them yet. Does nothing if all notes and spaces have
+     * already been migrated.
+     */
+    void migrateNotes();
+
+    /**
+     * @return true if a migration has finished since the application was started, meaning
+     *         that the descendants of every note can be found by their ancestors
+     */
+    boolean isComplete();
+}
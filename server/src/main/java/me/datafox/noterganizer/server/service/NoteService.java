@@ -3,22 +3,31 @@ package me.datafox.noterganizer.server.service;
 import me.datafox.noterganizer.api.dto.NoteChangeDto;
 import me.datafox.noterganizer.api.dto.NoteCreateDto;
 import me.datafox.noterganizer.api.dto.NoteMoveDto;
+import me.datafox.noterganizer.api.dto.NotePatchDto;
 import me.datafox.noterganizer.server.model.Note;
 
 import java.security.Principal;
 
 /**
- * The note service contains methods for creating, modifying and removing notes.
+ * The note service contains methods for fetching, creating, modifying and removing notes.
  *
  * @author datafox
  */
 public interface NoteService {
+    /**
+     * @param uuid UUID of the note to be fetched
+     * @param principal principal for the fetching user
+     * @return the fetched note
+     */
+    Note getNote(String uuid, Principal principal);
+
     /**
      * @param title title for the note
+     * @param space UUID of the space the note is the root of
      * @param principal principal for the creating user
      * @return the newly created note
      */
-    Note createRootNote(String title, Principal principal);
+    Note createRootNote(String title, String space, Principal principal);
 
     /**
      * @param dto DTO for note creation
@@ -33,6 +42,12 @@ public interface NoteService {
      */
     void changeNote(NoteChangeDto dto, Principal principal);
 
+    /**
+     * @param dto DTO for note modification with edits to the current content
+     * @param principal principal for the modifying user
+     */
+    void patchNote(NotePatchDto dto, Principal principal);
+
     /**
      * @param dto DTO for note moving
      * @param principal principal for the moving user
@@ -43,9 +58,7 @@ public interface NoteService {
      * @param uuid UUID of the note to be removed
      * @param removeChildren if set to true, removes all child notes recursively, otherwise
      *                       moves orphaned child notes onto the removed note's parent
-     * @param calledFromSpace should only be true if the note is a root note and its containing
-     *                        space is removed at this time
      * @param principal principal for the removing user
      */
-    void removeNote(String uuid, boolean removeChildren, boolean calledFromSpace, Principal principal);
+    void removeNote(String uuid, boolean removeChildren, Principal principal);
 }
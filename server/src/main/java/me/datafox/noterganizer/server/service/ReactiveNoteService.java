@@ -0,0 +1,21 @@
+package me.datafox.noterganizer.server.service;
+
+import me.datafox.noterganizer.server.model.Note;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+
+/**
+ * The reactive note service fetches notes without blocking in the reactive profile.
+ * Notes stored before their owner was stored are fetched through {@link NoteService}.
+ *
+ * @author datafox
+ */
+public interface ReactiveNoteService {
+    /**
+     * @param uuid UUID of the note to be fetched
+     * @param principal principal for the fetching user
+     * @return mono of the fetched note with only its title and content
+     */
+    Mono<Note> getNote(String uuid, Principal principal);
+}
@@ -0,0 +1,40 @@
+package me.datafox.noterganizer.server.service;
+
+import me.datafox.noterganizer.api.dto.NoteTreeDto;
+import me.datafox.noterganizer.api.dto.SpaceTreeDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.function.Predicate;
+
+/**
+ * The reactive space service fetches note trees without blocking in the reactive profile.
+ * Spaces that have not been associated with their notes yet are loaded once through
+ * {@link SpaceService}, which associates them.
+ *
+ * @author datafox
+ */
+public interface ReactiveSpaceService {
+    /**
+     * @param uuid UUID of the space to be fetched
+     * @param principal principal for the fetching user
+     * @param notModified predicate that tests if the client already has the version of
+     *                    the space with the given version tag
+     * @return mono of the DTO object for the note tree of the fetched space without note
+     *         contents, or an empty mono if the client already has the current version
+     */
+    Mono<SpaceTreeDto> getSpaceTreeDto(String uuid, Principal principal, Predicate<String> notModified);
+
+    /**
+     * Streams the notes of a space as they are read from the database instead of building
+     * the tree first. The notes are in no particular order, and their children only
+     * contain their UUIDs. The space is checked before the flux is emitted, so that errors
+     * can be sent before any notes are.
+     *
+     * @param uuid UUID of the space to be fetched
+     * @param principal principal for the fetching user
+     * @return mono of the flux of all notes within the space without their contents
+     */
+    Mono<Flux<NoteTreeDto>> streamSpaceTree(String uuid, Principal principal);
+}
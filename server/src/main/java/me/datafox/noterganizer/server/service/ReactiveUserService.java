@@ -0,0 +1,19 @@
+package me.datafox.noterganizer.server.service;
+
+import me.datafox.noterganizer.api.dto.UserDto;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+
+/**
+ * The reactive user service fetches users without blocking in the reactive profile.
+ *
+ * @author datafox
+ */
+public interface ReactiveUserService {
+    /**
+     * @param principal principal for the user to be fetched
+     * @return mono of the DTO object for fetched user
+     */
+    Mono<UserDto> getUserDto(Principal principal);
+}
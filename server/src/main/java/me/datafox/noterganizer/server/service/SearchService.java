@@ -0,0 +1,27 @@
+package me.datafox.noterganizer.server.service;
+
+import me.datafox.noterganizer.api.dto.SearchResultDto;
+
+import java.security.Principal;
+
+/**
+ * The search service finds notes of a user by the terms in their titles and contents.
+ *
+ * @author datafox
+ */
+public interface SearchService {
+    /**
+     * Finds notes of the principal that contain all terms of the query, ranked by how
+     * well their titles match the query. Notes on the requested page whose content
+     * contains the whole query are moved ahead of notes ranked the same. The total is the
+     * number of all matching notes. Contents are only read for the notes on the requested
+     * page.
+     *
+     * @param query search query
+     * @param page zero-based index of the page
+     * @param size maximum number of notes per page
+     * @param principal principal for the searching user
+     * @return DTO object for the requested page of matching notes
+     */
+    SearchResultDto search(String query, int page, int size, Principal principal);
+}
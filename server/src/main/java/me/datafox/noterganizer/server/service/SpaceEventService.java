@@ -0,0 +1,38 @@
+package me.datafox.noterganizer.server.service;
+
+import me.datafox.noterganizer.api.dto.NoteEventDto;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * The space event service increments the versions of spaces when notes within them are
+ * changed and sends the changes to the clients that have subscribed to the spaces.
+ *
+ * @author datafox
+ */
+public interface SpaceEventService {
+    /**
+     * The first event sent contains the version of the space and no changes. The version is
+     * read only after the subscriber has been registered, so that no change is published
+     * between the two. The supplier is expected to check that the principal owns the space,
+     * and the subscription is cancelled if it throws.
+     *
+     * @param uuid UUID of the space to be subscribed to
+     * @param version supplier of the current version of the space
+     * @return emitter the changes of the space are sent to
+     */
+    SseEmitter subscribe(String uuid, LongSupplier version);
+
+    /**
+     * Increments the version of every space once and sends the changes to the subscribers
+     * of each space along with its new version. Null spaces belong to notes that have not
+     * been associated with their space yet and are ignored.
+     *
+     * @param spaces UUIDs of the spaces the changes were made in
+     * @param events changes in the order they were made
+     */
+    void publish(Collection<String> spaces, List<NoteEventDto> events);
+}
@@ -1,9 +1,13 @@
 package me.datafox.noterganizer.server.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import me.datafox.noterganizer.api.dto.SpaceCreateDto;
-import me.datafox.noterganizer.api.dto.SpaceDto;
+import me.datafox.noterganizer.api.dto.SpaceTreeDto;
 
+import java.io.IOException;
 import java.security.Principal;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * The space service contains methods for fetching, creating and removing spaces.
@@ -12,11 +16,36 @@ import java.security.Principal;
  */
 public interface SpaceService {
     /**
+     * Writes the DTO object for a space without building it in memory. The generator is
+     * only requested after the principal has been checked, so that nothing is written
+     * if the space cannot be fetched. The generator function receives the version tag of
+     * the space and may return null if the client already has that version, in which case
+     * nothing is written either.
+     *
      * @param uuid UUID of the space to be fetched
      * @param principal principal for the fetching user
-     * @return DTO object for fetched space
+     * @param generator function from the version tag of the space to the generator the
+     *                  DTO object is written to
+     * @throws IOException if writing fails
      */
-    SpaceDto getSpaceDto(String uuid, Principal principal);
+    void writeSpaceDto(String uuid, Principal principal, Function<String, JsonGenerator> generator) throws IOException;
+
+    /**
+     * @param uuid UUID of the space to be fetched
+     * @param principal principal for the fetching user
+     * @param notModified predicate that tests if the client already has the version of
+     *                    the space with the given version tag
+     * @return DTO object for the note tree of the fetched space without note contents, or
+     *         null if the client already has the current version of the space
+     */
+    SpaceTreeDto getSpaceTreeDto(String uuid, Principal principal, Predicate<String> notModified);
+
+    /**
+     * @param uuid UUID of the space
+     * @param principal principal for the fetching user
+     * @return current version of the space
+     */
+    long getVersion(String uuid, Principal principal);
 
     /**
      * @param dto DTO for space creation
@@ -0,0 +1,32 @@
+package me.datafox.noterganizer.server.service;
+
+import me.datafox.noterganizer.server.model.AppUser;
+
+import java.util.Optional;
+
+/**
+ * The user cache service fetches users by their username through a bounded cache
+ * whose entries expire after a configured time. Within a single HTTP request the same
+ * user is never fetched more than once, even if the cache entry expires in between.
+ *
+ * @author datafox
+ */
+public interface UserCacheService {
+    /**
+     * @param username username of the user to be fetched
+     * @return fetched user, or empty if no user exists with the username
+     */
+    Optional<AppUser> getUser(String username);
+
+    /**
+     * Removes a user from the cache. Should be called every time a user is changed.
+     *
+     * @param username username of the changed user
+     */
+    void invalidate(String username);
+
+    /**
+     * Removes all users from the cache.
+     */
+    void clear();
+}
@@ -1,17 +1,29 @@
 package me.datafox.noterganizer.server.service;
 
+import me.datafox.noterganizer.server.model.Identifiable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 /**
- * The UUID service contains a helper function for creating unique UUIDs
- * for a given repository.
+ * The UUID service contains helper functions for creating time-ordered UUIDs and
+ * inserting entities with unique UUIDs without checking for existing ones first.
  *
  * @author datafox
  */
 public interface UuidService {
     /**
-     * @param repository repository to be checked
-     * @return a unique UUID not associated with any entry in the repository.
+     * @return a new version 7 UUID, which starts with the current time so that UUIDs
+     *         created later are greater than UUIDs created earlier
      */
-    String createUniqueUuid(MongoRepository<?,String> repository);
+    String createUuid();
+
+    /**
+     * Inserts an entity to a repository. If an entity with the same UUID already exists,
+     * a new UUID is assigned to the entity and the insert is retried.
+     *
+     * @param repository repository for the entity
+     * @param entity entity to be inserted, with a UUID from {@link #createUuid()}
+     * @return the inserted entity
+     * @param <T> type of the entity
+     */
+    <T extends Identifiable> T insertWithUniqueUuid(MongoRepository<T,String> repository, T entity);
 }
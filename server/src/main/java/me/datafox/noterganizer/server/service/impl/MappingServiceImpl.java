@@ -1,14 +1,20 @@
 package me.datafox.noterganizer.server.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import me.datafox.noterganizer.api.dto.*;
 import me.datafox.noterganizer.server.model.AppUser;
 import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.NoteNode;
 import me.datafox.noterganizer.server.model.Space;
 import me.datafox.noterganizer.server.repository.SpaceRepository;
 import me.datafox.noterganizer.server.service.MappingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
 /**
  * Mapping service implementation.
  *
@@ -21,27 +27,93 @@ public class MappingServiceImpl implements MappingService {
 
     @Override
     public UserDto mapToUserDto(AppUser user) {
+        return mapToUserDto(user, spaceRepository.findByOwner(user.getUsername()).toList());
+    }
+
+    @Override
+    public UserDto mapToUserDto(AppUser user, Collection<Space> spaces) {
         UserDto.UserDtoBuilder builder = UserDto
                 .builder()
                 .username(user.getUsername());
 
-        spaceRepository
-                .findByUser(user)
+        spaces.stream()
                 .map(this::mapToSpaceHeaderDto)
                 .forEach(builder::space);
 
         return builder.build();
     }
 
+    /**
+     * Writes the fields of {@link SpaceDto} and {@link NoteDto}. The number of children
+     * still to be written is kept for every open note, and a note is closed once all
+     * of its children have been written.
+     */
+    @Override
+    public void writeSpaceDto(Space space, Iterator<NoteNode> notes, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("uuid", space.getUuid());
+        generator.writeFieldName("root");
+
+        if(!notes.hasNext()) {
+            generator.writeNull();
+        }
+
+        Deque<Integer> remaining = new ArrayDeque<>();
+
+        while(notes.hasNext()) {
+            NoteNode note = notes.next();
+
+            if(!remaining.isEmpty()) {
+                remaining.push(remaining.pop() - 1);
+            }
+
+            generator.writeStartObject();
+            generator.writeStringField("uuid", note.getUuid());
+            generator.writeStringField("title", note.getTitle());
+            generator.writeStringField("content", note.getContent());
+            generator.writeArrayFieldStart("children");
+
+            remaining.push(note.getChildren().size());
+
+            while(!remaining.isEmpty() && remaining.peek() == 0) {
+                remaining.pop();
+
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        }
+
+        generator.writeEndObject();
+    }
+
     @Override
-    public SpaceDto mapToSpaceDto(Space space) {
-        return SpaceDto
+    public SpaceTreeDto mapToSpaceTreeDto(Space space, Collection<NoteNode> notes) {
+        Map<String, NoteNode> noteMap = notes
+                .stream()
+                .collect(Collectors.toMap(NoteNode::getUuid, note -> note));
+
+        return SpaceTreeDto
                 .builder()
                 .uuid(space.getUuid())
-                .root(mapToNoteDto(space.getRoot()))
+                .root(mapToNoteTreeDto(noteMap.get(space.getRootUuid()), noteMap))
                 .build();
     }
 
+    @Override
+    public NoteTreeDto mapToShallowNoteTreeDto(NoteNode note) {
+        NoteTreeDto.NoteTreeDtoBuilder builder = NoteTreeDto
+                .builder()
+                .uuid(note.getUuid())
+                .title(note.getTitle());
+
+        note.getChildren()
+                .stream()
+                .map(child -> NoteTreeDto.builder().uuid(child).build())
+                .forEach(builder::child);
+
+        return builder.build();
+    }
+
     @Override
     public NoteHeaderDto mapToNoteHeaderDto(Note note) {
         return NoteHeaderDto.builder()
@@ -50,6 +122,15 @@ public class MappingServiceImpl implements MappingService {
                 .build();
     }
 
+    @Override
+    public NoteContentDto mapToNoteContentDto(Note note) {
+        return NoteContentDto.builder()
+                .uuid(note.getUuid())
+                .title(note.getTitle())
+                .content(note.getContent())
+                .build();
+    }
+
     private SpaceHeaderDto mapToSpaceHeaderDto(Space space) {
         return SpaceHeaderDto
                 .builder()
@@ -58,16 +139,17 @@ public class MappingServiceImpl implements MappingService {
                 .build();
     }
 
-    private NoteDto mapToNoteDto(Note note) {
-        NoteDto.NoteDtoBuilder builder = NoteDto
+    private NoteTreeDto mapToNoteTreeDto(NoteNode note, Map<String, NoteNode> noteMap) {
+        NoteTreeDto.NoteTreeDtoBuilder builder = NoteTreeDto
                 .builder()
                 .uuid(note.getUuid())
-                .title(note.getTitle())
-                .content(note.getContent());
+                .title(note.getTitle());
 
         note.getChildren()
                 .stream()
-                .map(this::mapToNoteDto)
+                .map(noteMap::get)
+                .filter(Objects::nonNull)
+                .map(child -> mapToNoteTreeDto(child, noteMap))
                 .forEach(builder::child);
 
         return builder.build();
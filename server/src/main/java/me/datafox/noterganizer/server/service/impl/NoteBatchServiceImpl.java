@@ -0,0 +1,620 @@
+package me.datafox.noterganizer.server.service.impl;
+
+import com.mongodb.DBRef;
+import me.datafox.noterganizer.api.NotePatcher;
+import me.datafox.noterganizer.api.NoteTokenizer;
+import me.datafox.noterganizer.api.dto.*;
+import me.datafox.noterganizer.server.exception.*;
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.service.NoteBatchService;
+import me.datafox.noterganizer.server.service.NoteMigrationService;
+import me.datafox.noterganizer.server.service.NoteService;
+import me.datafox.noterganizer.server.service.SpaceEventService;
+import me.datafox.noterganizer.server.service.UuidService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.Principal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Note batch service implementation. All notes referenced by the operations are fetched
+ * with a single query, and the operations are validated and applied to those notes in
+ * memory. Every operation is turned into the same updates {@link NoteService} would
+ * make, and the changes of all operations are sent as a single ordered bulk write
+ * followed by a single update of the versions of the changed spaces, so that
+ * subscribers of a space receive the changes of the whole batch as one version. The
+ * driver sends a command for every run of writes of the same type in an ordered bulk
+ * write, so the updates are written in the order of the operations, followed by all
+ * removals and then by the created notes in their final state. This keeps the batch at
+ * one command per type of write regardless of how the operations are interleaved. If
+ * {@code noterganizer.batch.transactional} is set, both are done in a transaction, which
+ * requires the database to be a replica set.
+ *
+ * @author datafox
+ */
+@Service
+public class NoteBatchServiceImpl implements NoteBatchService {
+    @Autowired
+    private Logger logger;
+
+    @Autowired
+    private UuidService uuidService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteMigrationService noteMigrationService;
+
+    @Autowired
+    private SpaceEventService spaceEventService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${noterganizer.batch.transactional:false}")
+    private boolean transactional;
+
+    @Override
+    public List<String> applyBatch(NoteBatchDto dto, Principal principal) {
+        List<NoteOperationDto> operations = dto.getOperations();
+
+        logger.info("Applying batch of " + operations.size() + " note operations");
+
+        operations.forEach(this::validate);
+
+        if(!noteMigrationService.isComplete()) {
+            logger.debug("Notes have not been migrated yet, applying operations one at a time");
+
+            return applySequentially(operations, principal);
+        }
+
+        Batch batch = new Batch(principal.getName(), operations);
+
+        List<String> uuids = operations
+                .stream()
+                .map(batch::apply)
+                .toList();
+
+        if(transactional) {
+            transactionTemplate.executeWithoutResult(status -> batch.execute());
+        } else {
+            batch.execute();
+        }
+
+        return uuids;
+    }
+
+    private void validate(NoteOperationDto operation) {
+        if(operation.getType() == null) {
+            logger.warn("Note operation has no type, operation unsuccessful");
+            throw new InvalidNoteOperationException();
+        }
+
+        boolean needsUuid = operation.getType() != NoteOperationDto.Type.CREATE;
+
+        boolean needsParent = operation.getType() == NoteOperationDto.Type.CREATE ||
+                operation.getType() == NoteOperationDto.Type.MOVE;
+
+        if((needsUuid && operation.getUuid() == null) || (needsParent && operation.getParent() == null)) {
+            logger.warn("Note operation of type " + operation.getType() + " is missing fields, operation unsuccessful");
+            throw new InvalidNoteOperationException();
+        }
+    }
+
+    private List<String> applySequentially(List<NoteOperationDto> operations, Principal principal) {
+        Map<String, String> references = new HashMap<>();
+
+        List<String> uuids = new ArrayList<>();
+
+        for(NoteOperationDto operation : operations) {
+            String uuid = references.getOrDefault(operation.getUuid(), operation.getUuid());
+
+            String parent = references.getOrDefault(operation.getParent(), operation.getParent());
+
+            switch(operation.getType()) {
+                case CREATE -> {
+                    Note note = noteService.createChildNote(NoteCreateDto
+                            .builder()
+                            .title(operation.getTitle())
+                            .parent(NoteHeaderDto.builder().uuid(parent).build())
+                            .build(), principal);
+
+                    if(operation.getUuid() != null) {
+                        references.put(operation.getUuid(), note.getUuid());
+                    }
+
+                    uuid = note.getUuid();
+                }
+                case CHANGE -> noteService.changeNote(NoteChangeDto
+                        .builder()
+                        .uuid(uuid)
+                        .title(operation.getTitle())
+                        .content(operation.getContent())
+                        .build(), principal);
+                case MOVE -> noteService.moveNote(NoteMoveDto
+                        .builder()
+                        .uuid(uuid)
+                        .parent(NoteHeaderDto.builder().uuid(parent).build())
+                        .build(), principal);
+                case REMOVE -> noteService.removeNote(uuid, operation.isRemoveChildren(), principal);
+            }
+
+            uuids.add(uuid);
+        }
+
+        return uuids;
+    }
+
+    private Query byUuid(String uuid) {
+        return Query.query(Criteria.where("uuid").is(uuid));
+    }
+
+    private DBRef toReference(String uuid) {
+        return new DBRef(mongoTemplate.getCollectionName(Note.class), uuid);
+    }
+
+    /**
+     * State of a single batch. The fetched notes are kept up to date as operations are
+     * applied, so that every operation is validated against the notes as they will be
+     * after the operations before it.
+     */
+    private class Batch {
+        private final String owner;
+
+        /**
+         * Fetched and created notes by UUID, with only their user reference, owner, space,
+         * parent and ancestors.
+         */
+        private final Map<String, Note> notes;
+
+        /**
+         * UUIDs of the children of every fetched and created note.
+         */
+        private final Map<String, List<String>> children;
+
+        /**
+         * UUIDs of created notes by their temporary identifiers.
+         */
+        private final Map<String, String> references;
+
+        /**
+         * Generated UUIDs for the created notes, in the order of the operations.
+         */
+        private final List<String> createdUuids;
+
+        private int created;
+
+        /**
+         * UUIDs of removed notes. Descendants of notes removed with their children are
+         * not included.
+         */
+        private final Set<String> removed;
+
+        /**
+         * Created notes by UUID, in the order of the operations. Created notes are
+         * inserted after all other writes, so changes to them are made in memory instead.
+         */
+        private final Map<String, Note> inserted;
+
+        /**
+         * Queries of removed notes, written after all updates.
+         */
+        private final List<Query> removals;
+
+        private final Set<String> spaces;
+
+        private final List<NoteEventDto> events;
+
+        private final BulkOperations bulk;
+
+        private boolean changed;
+
+        private Batch(String owner, List<NoteOperationDto> operations) {
+            this.owner = owner;
+            notes = new HashMap<>();
+            children = new HashMap<>();
+            references = new HashMap<>();
+            createdUuids = new ArrayList<>();
+            created = 0;
+            removed = new HashSet<>();
+            inserted = new LinkedHashMap<>();
+            removals = new ArrayList<>();
+            spaces = new HashSet<>();
+            events = new ArrayList<>();
+            bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Note.class);
+            changed = false;
+
+            Set<String> temporary = operations
+                    .stream()
+                    .filter(operation -> operation.getType() == NoteOperationDto.Type.CREATE)
+                    .map(NoteOperationDto::getUuid)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+
+            Set<String> uuids = new HashSet<>();
+
+            for(NoteOperationDto operation : operations) {
+                if(operation.getType() == NoteOperationDto.Type.CREATE) {
+                    createdUuids.add(uuidService.createUuid());
+                } else if(!temporary.contains(operation.getUuid())) {
+                    uuids.add(operation.getUuid());
+                }
+
+                if(operation.getParent() != null && !temporary.contains(operation.getParent())) {
+                    uuids.add(operation.getParent());
+                }
+            }
+
+            //Generated UUIDs are fetched along with the referenced notes to check for collisions
+            fetch(uuids, createdUuids);
+        }
+
+        private void fetch(Collection<String> uuids, Collection<String> generated) {
+            Set<String> all = new HashSet<>(uuids);
+
+            all.addAll(generated);
+
+            Query query = Query.query(Criteria.where("_id").in(all));
+
+            query.fields().include("user", "owner", "space", "parent", "ancestors", "children");
+
+            Set<String> collisions = new HashSet<>();
+
+            //Documents are read as is, since resolving the child references would fetch the children
+            for(Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Note.class))) {
+                List<String> childUuids = document
+                        .getList("children", DBRef.class, List.of())
+                        .stream()
+                        .map(ref -> ref.getId().toString())
+                        .collect(Collectors.toCollection(ArrayList::new));
+
+                document.remove("children");
+
+                Note note = mongoTemplate.getConverter().read(Note.class, document);
+
+                if(generated.contains(note.getUuid())) {
+                    collisions.add(note.getUuid());
+                }
+
+                notes.put(note.getUuid(), note);
+
+                children.put(note.getUuid(), childUuids);
+            }
+
+            if(collisions.isEmpty()) {
+                return;
+            }
+
+            logger.warn(collisions.size() + " UUID collisions in batch, retrying with new UUIDs");
+
+            List<String> replacements = new ArrayList<>();
+
+            createdUuids.replaceAll(uuid -> {
+                if(!collisions.contains(uuid)) {
+                    return uuid;
+                }
+
+                String replacement = uuidService.createUuid();
+
+                replacements.add(replacement);
+
+                return replacement;
+            });
+
+            fetch(List.of(), replacements);
+        }
+
+        private String apply(NoteOperationDto operation) {
+            return switch(operation.getType()) {
+                case CREATE -> create(operation);
+                case CHANGE -> change(operation);
+                case MOVE -> move(operation);
+                case REMOVE -> remove(operation);
+            };
+        }
+
+        private String create(NoteOperationDto operation) {
+            Note parent = resolve(operation.getParent());
+
+            logger.debug("Creating child note with title " + operation.getTitle() + " to parent with UUID " + parent.getUuid());
+
+            Note note = Note
+                    .builder()
+                    .uuid(createdUuids.get(created++))
+                    .user(parent.getUser())
+                    .owner(owner)
+                    .space(parent.getSpace())
+                    .parent(parent.getUuid())
+                    .ancestors(getChildAncestors(parent))
+                    .title(operation.getTitle())
+                    .build();
+
+            if(operation.getUuid() != null) {
+                references.put(operation.getUuid(), note.getUuid());
+            }
+
+            notes.put(note.getUuid(), note);
+
+            children.put(note.getUuid(), new ArrayList<>());
+
+            inserted.put(note.getUuid(), note);
+
+            addChildren(parent.getUuid(), List.of(note.getUuid()));
+
+            changed(NoteEventDto.created(note.getUuid(), parent.getUuid(), note.getTitle()), parent.getSpace());
+
+            return note.getUuid();
+        }
+
+        private String change(NoteOperationDto operation) {
+            Note note = resolve(operation.getUuid());
+
+            logger.debug("Changing content of note with UUID " + note.getUuid());
+
+            String hash = NotePatcher.hash(Objects.requireNonNullElse(operation.getContent(), ""));
+
+            if(inserted.containsKey(note.getUuid())) {
+                //Terms and hash are set when the note is converted for the insert
+                note.setTitle(operation.getTitle());
+
+                note.setContent(operation.getContent());
+            } else {
+                bulk.updateOne(
+                        byUuid(note.getUuid()),
+                        Update.update("title", operation.getTitle())
+                                .set("content", operation.getContent())
+                                .set("terms", NoteTokenizer.terms(operation.getTitle(), operation.getContent()))
+                                .set("titleTerms", NoteTokenizer.terms(operation.getTitle()))
+                                .set("contentHash", hash));
+            }
+
+            changed(NoteEventDto.changed(note.getUuid(), operation.getTitle(), hash), note.getSpace());
+
+            return note.getUuid();
+        }
+
+        private String move(NoteOperationDto operation) {
+            Note note = resolve(operation.getUuid());
+
+            if(note.getParent() == null) {
+                logger.warn("The moved note is a root note, operation unsuccessful");
+                throw new MoveRootNoteException();
+            }
+
+            Note newParent = resolve(operation.getParent());
+
+            if(newParent.equals(note) || newParent.getAncestors().contains(note.getUuid())) {
+                logger.warn("Moving the note would cause a cyclic dependency, operation unsuccessful");
+                throw new CyclicNoteException();
+            }
+
+            if(note.getParent().equals(newParent.getUuid())) {
+                return note.getUuid();
+            }
+
+            logger.debug("Moving note with UUID " + note.getUuid() + " to new parent with UUID " + newParent.getUuid());
+
+            List<String> oldAncestors = note.getAncestors();
+
+            List<String> newAncestors = getChildAncestors(newParent);
+
+            removeChild(note.getParent(), note.getUuid());
+
+            addChildren(newParent.getUuid(), List.of(note.getUuid()));
+
+            if(!inserted.containsKey(note.getUuid())) {
+                bulk.updateOne(
+                        byUuid(note.getUuid()),
+                        Update.update("parent", newParent.getUuid())
+                                .set("ancestors", newAncestors)
+                                .set("space", newParent.getSpace()));
+            }
+
+            Query descendants = Query.query(Criteria.where("ancestors").is(note.getUuid()));
+
+            Update update = Update.update("space", newParent.getSpace());
+
+            if(!oldAncestors.isEmpty()) {
+                update.pullAll("ancestors", oldAncestors.toArray());
+            }
+
+            bulk.updateMulti(descendants, update);
+
+            bulk.updateMulti(descendants, new Update()
+                    .push("ancestors")
+                    .atPosition(Update.Position.FIRST)
+                    .each(newAncestors.toArray()));
+
+            changed(NoteEventDto.moved(note.getUuid(), newParent.getUuid()), note.getSpace(), newParent.getSpace());
+
+            for(Note descendant : notes.values()) {
+                if(descendant.getAncestors().contains(note.getUuid())) {
+                    List<String> ancestors = new ArrayList<>(newAncestors);
+
+                    ancestors.addAll(descendant.getAncestors().subList(oldAncestors.size(), descendant.getAncestors().size()));
+
+                    descendant.setAncestors(ancestors);
+
+                    descendant.setSpace(newParent.getSpace());
+                }
+            }
+
+            note.setParent(newParent.getUuid());
+
+            note.setAncestors(newAncestors);
+
+            note.setSpace(newParent.getSpace());
+
+            return note.getUuid();
+        }
+
+        private String remove(NoteOperationDto operation) {
+            Note note = resolve(operation.getUuid());
+
+            String parent = note.getParent();
+
+            if(parent == null) {
+                logger.warn("The note is a root note, operation unsuccessful");
+                throw new RemoveRootNoteException();
+            }
+
+            logger.debug("Removing note with UUID " + note.getUuid() +
+                    (operation.isRemoveChildren() ? " and all its children" : " and moving its children to its parent"));
+
+            removeChild(parent, note.getUuid());
+
+            if(operation.isRemoveChildren()) {
+                removals.add(Query.query(new Criteria().orOperator(
+                        Criteria.where("uuid").is(note.getUuid()),
+                        Criteria.where("ancestors").is(note.getUuid()))));
+            } else {
+                addChildren(parent, children.get(note.getUuid()));
+
+                removals.add(byUuid(note.getUuid()));
+
+                bulk.updateMulti(
+                        Query.query(Criteria.where("parent").is(note.getUuid())),
+                        Update.update("parent", parent));
+
+                bulk.updateMulti(
+                        Query.query(Criteria.where("ancestors").is(note.getUuid())),
+                        new Update().pull("ancestors", note.getUuid()));
+
+                for(Note descendant : notes.values()) {
+                    if(note.getUuid().equals(descendant.getParent())) {
+                        descendant.setParent(parent);
+                    }
+
+                    if(descendant.getAncestors().contains(note.getUuid())) {
+                        List<String> ancestors = new ArrayList<>(descendant.getAncestors());
+
+                        ancestors.remove(note.getUuid());
+
+                        descendant.setAncestors(ancestors);
+                    }
+                }
+            }
+
+            removed.add(note.getUuid());
+
+            changed(NoteEventDto.removed(note.getUuid(), operation.isRemoveChildren()), note.getSpace());
+
+            return note.getUuid();
+        }
+
+        private void execute() {
+            if(!changed) {
+                return;
+            }
+
+            //Removals are written after the updates, since later operations cannot refer to removed notes
+            removals.forEach(bulk::remove);
+
+            //Created notes are written last, so that the updates of earlier operations do not match them
+            for(Note note : inserted.values()) {
+                if(isRemoved(note)) {
+                    continue;
+                }
+
+                note.setChildren(children
+                        .get(note.getUuid())
+                        .stream()
+                        .map(uuid -> Note.builder().uuid(uuid).build())
+                        .collect(Collectors.toCollection(ArrayList::new)));
+
+                bulk.insert(note);
+            }
+
+            bulk.execute();
+
+            spaceEventService.publish(spaces, events);
+        }
+
+        /**
+         * Finds a fetched or created note by its UUID or temporary identifier, and checks
+         * that it belongs to the user and has not been removed by an earlier operation.
+         */
+        private Note resolve(String uuid) {
+            Note note = notes.get(references.getOrDefault(uuid, uuid));
+
+            if(note == null || isRemoved(note)) {
+                logger.warn("No note exists with UUID " + uuid + ", operation unsuccessful");
+                throw new NoteNotFoundException();
+            }
+
+            if(!owner.equals(note.getOwner())) {
+                logger.warn("User " + owner + " attempted to access a note belonging to user " +
+                        note.getOwner() + ", operation unsuccessful");
+
+                throw new ForbiddenActionException();
+            }
+
+            return note;
+        }
+
+        private boolean isRemoved(Note note) {
+            return removed.contains(note.getUuid()) || note.getAncestors().stream().anyMatch(removed::contains);
+        }
+
+        private List<String> getChildAncestors(Note parent) {
+            List<String> ancestors = new ArrayList<>(parent.getAncestors());
+
+            ancestors.add(parent.getUuid());
+
+            return ancestors;
+        }
+
+        private void addChildren(String uuid, List<String> added) {
+            if(added.isEmpty()) {
+                return;
+            }
+
+            if(!inserted.containsKey(uuid)) {
+                bulk.updateOne(byUuid(uuid), new Update()
+                        .push("children")
+                        .each(added.stream().map(NoteBatchServiceImpl.this::toReference).toArray()));
+            }
+
+            children.computeIfPresent(uuid, (key, list) -> {
+                list.addAll(added);
+
+                return list;
+            });
+        }
+
+        private void removeChild(String uuid, String child) {
+            if(!inserted.containsKey(uuid)) {
+                bulk.updateOne(byUuid(uuid), new Update().pull("children", toReference(child)));
+            }
+
+            children.computeIfPresent(uuid, (key, list) -> {
+                list.remove(child);
+
+                return list;
+            });
+        }
+
+        private void changed(NoteEventDto event, String... changedSpaces) {
+            changed = true;
+
+            events.add(event);
+
+            spaces.addAll(Arrays.asList(changedSpaces));
+        }
+    }
+}
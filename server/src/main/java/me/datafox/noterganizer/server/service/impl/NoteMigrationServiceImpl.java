@@ -0,0 +1,361 @@
+package me.datafox.noterganizer.server.service.impl;
+
+import com.mongodb.DBRef;
+import me.datafox.noterganizer.api.NotePatcher;
+import me.datafox.noterganizer.api.NoteTokenizer;
+import me.datafox.noterganizer.server.model.AppUser;
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.Space;
+import me.datafox.noterganizer.server.service.NoteMigrationService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Note migration service implementation. First the username of the owner is set for
+ * all notes and spaces of each user. The rest of the migration has two phases. First the
+ * parent of every note is set from the child references of all notes. Then the
+ * ancestors are set for every note whose parent already has them, repeating until
+ * no more notes can be migrated. Finally the search terms are set for every note
+ * stored before notes could be searched, and the content hash for every note stored
+ * before content hashes were stored. All phases only read and write one batch of notes
+ * at a time, and never overwrite values set by the application in the meantime.
+ *
+ * @author datafox
+ */
+@Service
+public class NoteMigrationServiceImpl implements NoteMigrationService {
+    @Autowired
+    private Logger logger;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TaskExecutor taskExecutor;
+
+    @Value("${noterganizer.migration.batch-size:1000}")
+    private int batchSize;
+
+    private volatile boolean complete;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        taskExecutor.execute(this::migrateNotes);
+    }
+
+    @Override
+    public void migrateNotes() {
+        Query notesNotMigrated = Query.query(new Criteria().orOperator(
+                Criteria.where("ancestors").exists(false),
+                Criteria.where("owner").exists(false),
+                Criteria.where("terms").exists(false),
+                Criteria.where("titleTerms").exists(false),
+                Criteria.where("contentHash").exists(false)));
+
+        if(!mongoTemplate.exists(notesNotMigrated, Note.class) && !mongoTemplate.exists(ownerMissing(), Space.class)) {
+            complete = true;
+
+            return;
+        }
+
+        migrateOwners();
+
+        if(mongoTemplate.exists(notMigrated(), Note.class)) {
+            migrateTree();
+        }
+
+        if(mongoTemplate.exists(termsMissing(), Note.class)) {
+            migrateTerms();
+        }
+
+        if(mongoTemplate.exists(contentHashMissing(), Note.class)) {
+            migrateContentHashes();
+        }
+
+        complete = true;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return complete;
+    }
+
+    private void migrateOwners() {
+        logger.info("Migrating notes and spaces to stored owners");
+
+        Query users = new Query().with(Sort.by("_id"));
+
+        users.fields().include("username");
+
+        List<Document> batch = new ArrayList<>();
+
+        mongoTemplate
+                .stream(users, Document.class, mongoTemplate.getCollectionName(AppUser.class))
+                .forEach(user -> {
+                    batch.add(user);
+
+                    if(batch.size() >= batchSize) {
+                        migrateOwners(batch);
+
+                        batch.clear();
+                    }
+                });
+
+        if(!batch.isEmpty()) {
+            migrateOwners(batch);
+        }
+    }
+
+    private void migrateOwners(List<Document> users) {
+        BulkOperations notes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+
+        BulkOperations spaces = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Space.class);
+
+        for(Document user : users) {
+            Query query = Query.query(Criteria
+                    .where("user.$id").is(user.getString("_id"))
+                    .and("owner").exists(false));
+
+            Update update = Update.update("owner", user.getString("username"));
+
+            notes.updateMulti(query, update);
+
+            spaces.updateMulti(query, update);
+        }
+
+        notes.execute();
+
+        spaces.execute();
+    }
+
+    private void migrateTree() {
+        logger.info("Migrating notes to parent and ancestor references");
+
+        migrateParents();
+
+        int migrated;
+
+        do {
+            migrated = migrateAncestors();
+
+            logger.debug("Migrated ancestors of " + migrated + " notes");
+        } while(migrated > 0);
+
+        long remaining = mongoTemplate.count(notMigrated(), Note.class);
+
+        if(remaining == 0) {
+            logger.info("All notes migrated");
+        } else {
+            logger.warn(remaining + " notes could not be migrated");
+        }
+    }
+
+    private void migrateTerms() {
+        logger.info("Migrating notes to stored search terms");
+
+        int migrated = forEachBatch(termsMissing(), batch -> {
+            BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+
+            for(Document document : batch) {
+                operations.updateOne(
+                        Query.query(Criteria
+                                .where("uuid").is(document.getString("_id"))
+                                .orOperator(
+                                        Criteria.where("terms").exists(false),
+                                        Criteria.where("titleTerms").exists(false))),
+                        Update.update("terms", NoteTokenizer.terms(
+                                        document.getString("title"),
+                                        document.getString("content")))
+                                .set("titleTerms", NoteTokenizer.terms(document.getString("title"))));
+            }
+
+            operations.execute();
+
+            return batch.size();
+        }, "title", "content");
+
+        logger.info("Migrated search terms of " + migrated + " notes");
+    }
+
+    private void migrateContentHashes() {
+        logger.info("Migrating notes to stored content hashes");
+
+        int migrated = forEachBatch(contentHashMissing(), batch -> {
+            BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+
+            for(Document document : batch) {
+                operations.updateOne(
+                        Query.query(Criteria
+                                .where("uuid").is(document.getString("_id"))
+                                .and("contentHash").exists(false)),
+                        Update.update("contentHash", NotePatcher.hash(
+                                Objects.requireNonNullElse(document.getString("content"), ""))));
+            }
+
+            operations.execute();
+
+            return batch.size();
+        }, "content");
+
+        logger.info("Migrated content hashes of " + migrated + " notes");
+    }
+
+    private void migrateParents() {
+        forEachBatch(new Query(), batch -> {
+            BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+
+            int count = 0;
+
+            for(Document document : batch) {
+                for(DBRef child : document.getList("children", DBRef.class, List.of())) {
+                    operations.updateOne(
+                            Query.query(Criteria
+                                    .where("uuid").is(child.getId())
+                                    .and("parent").exists(false)),
+                            Update.update("parent", document.getString("_id")));
+
+                    count++;
+                }
+            }
+
+            if(count > 0) {
+                operations.execute();
+            }
+
+            return count;
+        }, "children");
+    }
+
+    private int migrateAncestors() {
+        return forEachBatch(notMigrated(), batch -> {
+            Set<String> parentUuids = new HashSet<>();
+
+            batch.forEach(document -> {
+                String parent = document.getString("parent");
+
+                if(parent != null) {
+                    parentUuids.add(parent);
+                }
+            });
+
+            Query parentQuery = Query.query(Criteria
+                    .where("_id").in(parentUuids)
+                    .and("ancestors").exists(true));
+
+            parentQuery.fields().include("ancestors");
+
+            Map<String, List<String>> parentAncestors = new HashMap<>();
+
+            mongoTemplate
+                    .find(parentQuery, Document.class, mongoTemplate.getCollectionName(Note.class))
+                    .forEach(document -> {
+                        List<String> ancestors = new ArrayList<>(document.getList("ancestors", String.class));
+
+                        ancestors.add(document.getString("_id"));
+
+                        parentAncestors.put(document.getString("_id"), ancestors);
+                    });
+
+            BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+
+            int count = 0;
+
+            for(Document document : batch) {
+                String parent = document.getString("parent");
+
+                List<String> ancestors = parent == null ? List.of() : parentAncestors.get(parent);
+
+                if(ancestors == null) {
+                    continue;
+                }
+
+                Criteria criteria = Criteria
+                        .where("uuid").is(document.getString("_id"))
+                        .and("ancestors").exists(false);
+
+                criteria = parent == null ? criteria.and("parent").exists(false) : criteria.and("parent").is(parent);
+
+                operations.updateOne(Query.query(criteria), Update.update("ancestors", ancestors));
+
+                count++;
+            }
+
+            if(count > 0) {
+                operations.execute();
+            }
+
+            return count;
+        }, "parent");
+    }
+
+    /**
+     * Reads notes matching a query in batches ordered by UUID, including only the given
+     * fields, and returns the sum of values returned by the consumer.
+     */
+    private int forEachBatch(Query query, BatchConsumer consumer, String... fields) {
+        String collection = mongoTemplate.getCollectionName(Note.class);
+
+        String last = null;
+
+        int total = 0;
+
+        while(true) {
+            Query batchQuery = Query.of(query)
+                    .with(Sort.by("_id"))
+                    .limit(batchSize);
+
+            if(last != null) {
+                batchQuery.addCriteria(Criteria.where("_id").gt(last));
+            }
+
+            batchQuery.fields().include(fields);
+
+            List<Document> batch = mongoTemplate.find(batchQuery, Document.class, collection);
+
+            if(batch.isEmpty()) {
+                return total;
+            }
+
+            total += consumer.accept(batch);
+
+            last = batch.get(batch.size() - 1).getString("_id");
+        }
+    }
+
+    private Query notMigrated() {
+        return Query.query(Criteria.where("ancestors").exists(false));
+    }
+
+    private Query termsMissing() {
+        return Query.query(new Criteria().orOperator(
+                Criteria.where("terms").exists(false),
+                Criteria.where("titleTerms").exists(false)));
+    }
+
+    private Query contentHashMissing() {
+        return Query.query(Criteria.where("contentHash").exists(false));
+    }
+
+    private Query ownerMissing() {
+        return Query.query(Criteria.where("owner").exists(false));
+    }
+
+    @FunctionalInterface
+    private interface BatchConsumer {
+        int accept(List<Document> batch);
+    }
+}
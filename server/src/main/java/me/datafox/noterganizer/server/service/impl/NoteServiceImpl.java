@@ -1,12 +1,17 @@
 package me.datafox.noterganizer.server.service.impl;
 
+import me.datafox.noterganizer.api.NotePatcher;
 import me.datafox.noterganizer.api.dto.NoteChangeDto;
 import me.datafox.noterganizer.api.dto.NoteCreateDto;
+import me.datafox.noterganizer.api.dto.NoteEventDto;
 import me.datafox.noterganizer.api.dto.NoteMoveDto;
+import me.datafox.noterganizer.api.dto.NotePatchDto;
 import me.datafox.noterganizer.server.exception.*;
 import me.datafox.noterganizer.server.model.Note;
 import me.datafox.noterganizer.server.repository.NoteRepository;
+import me.datafox.noterganizer.server.service.NoteMigrationService;
 import me.datafox.noterganizer.server.service.NoteService;
+import me.datafox.noterganizer.server.service.SpaceEventService;
 import me.datafox.noterganizer.server.service.UserService;
 import me.datafox.noterganizer.server.service.UuidService;
 import org.slf4j.Logger;
@@ -14,8 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.security.Principal;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * Note service implementation.
@@ -33,41 +37,62 @@ public class NoteServiceImpl implements NoteService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private NoteMigrationService noteMigrationService;
+
+    @Autowired
+    private SpaceEventService spaceEventService;
+
     @Autowired
     private NoteRepository noteRepository;
 
     @Override
-    public Note createRootNote(String title, Principal principal) {
+    public Note getNote(String uuid, Principal principal) {
+        logger.info("Fetching note with UUID " + uuid);
+
+        return getNoteAndCheckPrincipal(uuid, principal, "title", "content");
+    }
+
+    @Override
+    public Note createRootNote(String title, String space, Principal principal) {
         logger.info("Creating root note with title " + title);
 
         Note note = Note
                 .builder()
-                .uuid(uuidService.createUniqueUuid(noteRepository))
+                .uuid(uuidService.createUuid())
                 .user(userService.getUserByPrincipal(principal))
+                .owner(principal.getName())
+                .space(space)
+                .ancestors(new ArrayList<>())
                 .title(title)
                 .build();
 
-        noteRepository.save(note);
-
-        return note;
+        return uuidService.insertWithUniqueUuid(noteRepository, note);
     }
 
     @Override
     public Note createChildNote(NoteCreateDto dto, Principal principal) {
         logger.info("Creating child note with title " + dto.getTitle() + " to parent with UUID " + dto.getParent().getUuid());
 
-        Note parent = getNoteAndCheckPrincipal(dto.getParent().getUuid(), principal);
+        Note parent = getNoteAndCheckPrincipal(dto.getParent().getUuid(), principal,
+                "user", "space", "parent", "ancestors");
 
         Note note = Note
                 .builder()
-                .uuid(uuidService.createUniqueUuid(noteRepository))
-                .user(userService.getUserByPrincipal(principal))
+                .uuid(uuidService.createUuid())
+                .user(parent.getUser())
+                .owner(principal.getName())
+                .space(parent.getSpace())
+                .parent(parent.getUuid())
+                .ancestors(getChildAncestors(parent))
                 .title(dto.getTitle())
                 .build();
 
-        parent.getChildren().add(note);
+        uuidService.insertWithUniqueUuid(noteRepository, note);
+
+        noteRepository.addChildren(parent.getUuid(), List.of(note.getUuid()));
 
-        noteRepository.saveAll(List.of(note, parent));
+        publish(NoteEventDto.created(note.getUuid(), parent.getUuid(), note.getTitle()), parent.getSpace());
 
         return note;
     }
@@ -79,109 +104,257 @@ public class NoteServiceImpl implements NoteService {
         logger.debug("New title:   " + dto.getTitle());
         logger.debug("New content: " + dto.getContent());
 
-        Note note = getNoteAndCheckPrincipal(dto.getUuid(), principal);
+        Optional<Note> optional = noteRepository.updateContent(dto.getUuid(), principal.getName(), dto.getTitle(), dto.getContent());
+
+        if(optional.isEmpty()) {
+            getNoteAndCheckPrincipal(dto.getUuid(), principal, "owner");
+
+            optional = noteRepository.updateContent(dto.getUuid(), principal.getName(), dto.getTitle(), dto.getContent());
+        }
+
+        optional.ifPresent(note -> publish(NoteEventDto.changed(dto.getUuid(), dto.getTitle(), hash(dto.getContent())),
+                note.getSpace()));
+    }
+
+    @Override
+    public void patchNote(NotePatchDto dto, Principal principal) {
+        logger.info("Patching content of note with UUID " + dto.getUuid());
+
+        logger.debug("New title: " + dto.getTitle());
+        logger.debug("Edits:     " + dto.getEdits());
+
+        Note note = getNoteAndCheckPrincipal(dto.getUuid(), principal, "content", "contentHash");
+
+        //Notes stored before content hashes have none until they are migrated, so patching
+        //them conflicts and the client sends the full content instead
+        if(!Objects.equals(note.getContentHash(), dto.getBaseHash())) {
+            logger.warn("The patch is based on outdated content, operation unsuccessful");
+            throw new NoteConflictException();
+        }
+
+        String content;
 
-        note.setTitle(dto.getTitle());
+        try {
+            content = NotePatcher.apply(note.getContent(), dto.getEdits());
+        } catch(IllegalArgumentException e) {
+            logger.warn("The edits cannot be applied to the content, operation unsuccessful");
+            throw new InvalidNotePatchException();
+        }
 
-        note.setContent(dto.getContent());
+        //The content is only written if it is still the content the patch was applied to
+        Note updated = noteRepository
+                .updateContent(dto.getUuid(), principal.getName(), dto.getTitle(), note.getContentHash(), content)
+                .orElseThrow(() -> {
+                    logger.warn("The content was changed while the patch was applied, operation unsuccessful");
+                    return new NoteConflictException();
+                });
 
-        noteRepository.save(note);
+        publish(NoteEventDto.changed(dto.getUuid(), dto.getTitle(), hash(content)), updated.getSpace());
     }
 
     @Override
     public void moveNote(NoteMoveDto dto, Principal principal) {
         logger.info("Moving note with UUID " + dto.getUuid() + " to new parent with UUID " + dto.getParent().getUuid());
 
-        Note note = getNoteAndCheckPrincipal(dto.getUuid(), principal);
+        Note note = getNoteAndCheckPrincipal(dto.getUuid(), principal, "space", "parent", "ancestors", "children");
 
-        Optional<Note> optional = noteRepository.findByChildren(note);
+        Optional<String> optional = findParentUuid(note);
 
         if(optional.isEmpty()) {
             logger.warn("The moved note is a root note, operation unsuccessful");
             throw new MoveRootNoteException();
         }
 
-        Note oldParent = optional.get();
+        String oldParent = optional.get();
 
-        Note newParent = getNoteAndCheckPrincipal(dto.getParent().getUuid(), principal);
+        Note newParent = getNoteAndCheckPrincipal(dto.getParent().getUuid(), principal, "space", "parent", "ancestors");
 
-        logger.debug("Recursively checking cyclic notes for note with UUID " + newParent);
+        logger.debug("Checking ancestors of note with UUID " + newParent.getUuid() + " for cyclic notes");
         if(checkCyclicNotes(newParent, note)) {
             logger.warn("Moving the note would cause a cyclic dependency, operation unsuccessful");
             throw new CyclicNoteException();
         }
 
-        if(!oldParent.equals(newParent)) {
-            oldParent.getChildren().remove(note);
+        if(oldParent.equals(newParent.getUuid())) {
+            return;
+        }
+
+        boolean migrated = note.getAncestors() != null;
+
+        boolean spaceChanged = !Objects.equals(note.getSpace(), newParent.getSpace());
+
+        List<String> oldAncestors = getAncestors(note);
 
-            newParent.getChildren().add(note);
+        List<String> newAncestors = getChildAncestors(newParent);
 
-            noteRepository.saveAll(List.of(oldParent, newParent));
+        noteRepository.removeChild(oldParent, note.getUuid());
+
+        noteRepository.addChildren(newParent.getUuid(), List.of(note.getUuid()));
+
+        noteRepository.updatePosition(note.getUuid(), newParent.getUuid(), newAncestors, newParent.getSpace());
+
+        noteRepository.updateDescendants(note.getUuid(), oldAncestors, newAncestors, newParent.getSpace());
+
+        if(spaceChanged && !migrated) {
+            logger.debug("Moving children of note with UUID " + note.getUuid() + " to space with UUID " + newParent.getSpace());
+
+            List<String> uuids = new ArrayList<>();
+
+            collectUuids(note, uuids);
+
+            noteRepository.updateSpace(uuids, newParent.getSpace());
         }
+
+        publish(NoteEventDto.moved(note.getUuid(), newParent.getUuid()), note.getSpace(), newParent.getSpace());
     }
 
     @Override
-    public void removeNote(String uuid, boolean removeChildren, boolean calledFromSpace, Principal principal) {
+    public void removeNote(String uuid, boolean removeChildren, Principal principal) {
         logger.info("Removing note with UUID " + uuid +
                 (removeChildren ? " and all its children" : " and moving its children to its parent"));
 
-        Note note = getNoteAndCheckPrincipal(uuid, principal);
+        Note note = getNoteAndCheckPrincipal(uuid, principal, "space", "parent", "ancestors", "children");
 
-        Optional<Note> parent = noteRepository.findByChildren(note);
+        Optional<String> optional = findParentUuid(note);
 
-        if(!calledFromSpace && parent.isEmpty()) {
-            logger.warn("The note is a root note and the request was not made by removing a space, operation unsuccessful");
+        if(optional.isEmpty()) {
+            logger.warn("The note is a root note, operation unsuccessful");
             throw new RemoveRootNoteException();
         }
 
-        parent.ifPresent(value -> value.getChildren().remove(note));
+        String parent = optional.get();
+
+        noteRepository.removeChild(parent, note.getUuid());
 
-        if(removeChildren || parent.isEmpty()) {
-            recursiveRemoveNote(note);
+        if(removeChildren) {
+            removeSubtree(note);
         } else {
-            removeNoteAndMoveChildren(note, parent.get());
+            removeNoteAndMoveChildren(note, parent);
         }
+
+        publish(NoteEventDto.removed(note.getUuid(), removeChildren), note.getSpace());
+    }
+
+    /**
+     * Increments the versions of the spaces a change was made in and sends the change to
+     * their subscribers. Notes stored before they were associated with their space have no
+     * space, and neither do clients have a version of the space, so no version needs to be
+     * incremented for them.
+     */
+    private void publish(NoteEventDto event, String... spaces) {
+        spaceEventService.publish(Arrays.asList(spaces), List.of(event));
+    }
+
+    private String hash(String content) {
+        return NotePatcher.hash(Objects.requireNonNullElse(content, ""));
     }
 
-    private void recursiveRemoveNote(Note note) {
-        logger.debug("Recursively removing note with UUID " + note.getUuid());
+    private void removeSubtree(Note note) {
+        if(note.getAncestors() == null || !noteMigrationService.isComplete()) {
+            logger.debug("Notes have not been migrated yet, collecting the children of note with UUID " + note.getUuid());
+
+            List<String> uuids = new ArrayList<>();
+
+            collectUuids(note, uuids);
+
+            noteRepository.deleteAllById(uuids);
+
+            return;
+        }
+
+        logger.debug("Removing note with UUID " + note.getUuid() + " and all its descendants");
+
+        noteRepository.deleteSubtree(note.getUuid());
+    }
 
-        note.getChildren().forEach(this::recursiveRemoveNote);
+    private void removeNoteAndMoveChildren(Note note, String parent) {
+        noteRepository.addChildren(parent, note.getChildUuids());
 
         noteRepository.delete(note);
+
+        noteRepository.removeAncestor(note.getUuid(), parent);
     }
 
-    private void removeNoteAndMoveChildren(Note note, Note parent) {
-        parent.getChildren().addAll(note.getChildren());
+    private Optional<Note> findParent(Note note) {
+        if(note.getParent() != null) {
+            return noteRepository.findById(note.getParent());
+        }
+
+        if(note.getAncestors() != null) {
+            return Optional.empty();
+        }
 
-        noteRepository.save(parent);
+        logger.debug("Note with UUID " + note.getUuid() + " has not been migrated yet, searching for its parent");
 
-        noteRepository.delete(note);
+        return noteRepository.findByChildren(note);
     }
 
-    private Note getNoteAndCheckPrincipal(String uuid, Principal principal) {
+    private Optional<String> findParentUuid(Note note) {
+        if(note.getParent() != null) {
+            return Optional.of(note.getParent());
+        }
+
+        return findParent(note).map(Note::getUuid);
+    }
+
+    private List<String> getAncestors(Note note) {
+        if(note.getAncestors() != null) {
+            return note.getAncestors();
+        }
+
+        return findParent(note)
+                .map(this::getChildAncestors)
+                .orElseGet(ArrayList::new);
+    }
+
+    private List<String> getChildAncestors(Note parent) {
+        List<String> ancestors = new ArrayList<>(getAncestors(parent));
+
+        ancestors.add(parent.getUuid());
+
+        return ancestors;
+    }
+
+    private void collectUuids(Note note, List<String> uuids) {
+        uuids.add(note.getUuid());
+
+        note.getChildren().forEach(child -> collectUuids(child, uuids));
+    }
+
+    /**
+     * Fetches a note with a single query that only matches notes owned by the principal.
+     * Only if that fails, the note is fetched again to tell apart nonexistent notes,
+     * notes of other users and notes stored before their owner was stored. The owner
+     * is stored for the latter.
+     */
+    private Note getNoteAndCheckPrincipal(String uuid, Principal principal, String... fields) {
+        Optional<Note> optional = noteRepository.findByUuidAndOwner(uuid, principal.getName(), fields);
+
+        if(optional.isPresent()) {
+            return optional.get();
+        }
+
         Note note = noteRepository
                 .findById(uuid)
                 .orElseThrow(NoteNotFoundException::new);
 
-        if(!note.getUser()
-                .getUsername()
-                .equals(principal.getName())) {
+        String owner = note.getOwner() != null ? note.getOwner() : note.getUser().getUsername();
 
+        if(!owner.equals(principal.getName())) {
             logger.warn("User " + principal.getName() + " attempted to access a note belonging to user " +
-                    note.getUser().getUsername() + ", operation unsuccessful");
+                    owner + ", operation unsuccessful");
 
             throw new ForbiddenActionException();
         }
 
+        if(note.getOwner() == null) {
+            noteRepository.updateOwner(uuid, owner);
+        }
+
         return note;
     }
 
-    private boolean checkCyclicNotes(Note checked, Note current) {
-        logger.debug("Currently at note with UUID " + current.getUuid());
-
-        if(current.getChildren().contains(checked)) return true;
-
-        return current.getChildren().stream().anyMatch(note -> checkCyclicNotes(checked, note));
+    private boolean checkCyclicNotes(Note newParent, Note note) {
+        return newParent.equals(note) || getAncestors(newParent).contains(note.getUuid());
     }
 }
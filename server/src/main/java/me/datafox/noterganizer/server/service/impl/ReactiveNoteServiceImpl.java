@@ -0,0 +1,57 @@
+package me.datafox.noterganizer.server.service.impl;
+
+import me.datafox.noterganizer.server.exception.ForbiddenActionException;
+import me.datafox.noterganizer.server.exception.NoteNotFoundException;
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.repository.reactive.ReactiveNoteRepository;
+import me.datafox.noterganizer.server.service.NoteService;
+import me.datafox.noterganizer.server.service.ReactiveNoteService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.security.Principal;
+
+/**
+ * Reactive note service implementation.
+ *
+ * @author datafox
+ */
+@Service
+@Profile("reactive")
+public class ReactiveNoteServiceImpl implements ReactiveNoteService {
+    @Autowired
+    private Logger logger;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private ReactiveNoteRepository noteRepository;
+
+    @Override
+    public Mono<Note> getNote(String uuid, Principal principal) {
+        logger.info("Fetching note with UUID " + uuid);
+
+        return noteRepository
+                .findByUuidAndOwner(uuid, principal.getName())
+                .switchIfEmpty(Mono.defer(() -> noteRepository
+                        .findOwnerByUuid(uuid)
+                        .switchIfEmpty(Mono.error(NoteNotFoundException::new))
+                        .flatMap(note -> {
+                            if(note.getOwner() != null && !note.getOwner().equals(principal.getName())) {
+                                logger.warn("User " + principal.getName() + " attempted to access a note belonging to user " +
+                                        note.getOwner() + ", operation unsuccessful");
+
+                                return Mono.error(new ForbiddenActionException());
+                            }
+
+                            return Mono
+                                    .fromCallable(() -> noteService.getNote(uuid, principal))
+                                    .subscribeOn(Schedulers.boundedElastic());
+                        })));
+    }
+}
@@ -0,0 +1,121 @@
+package me.datafox.noterganizer.server.service.impl;
+
+import me.datafox.noterganizer.api.dto.NoteTreeDto;
+import me.datafox.noterganizer.api.dto.SpaceTreeDto;
+import me.datafox.noterganizer.server.exception.ForbiddenActionException;
+import me.datafox.noterganizer.server.exception.SpaceNotFoundException;
+import me.datafox.noterganizer.server.model.Space;
+import me.datafox.noterganizer.server.repository.reactive.ReactiveNoteRepository;
+import me.datafox.noterganizer.server.repository.reactive.ReactiveSpaceRepository;
+import me.datafox.noterganizer.server.service.MappingService;
+import me.datafox.noterganizer.server.service.ReactiveSpaceService;
+import me.datafox.noterganizer.server.service.SpaceService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.security.Principal;
+import java.util.function.Predicate;
+
+/**
+ * Reactive space service implementation.
+ *
+ * @author datafox
+ */
+@Service
+@Profile("reactive")
+public class ReactiveSpaceServiceImpl implements ReactiveSpaceService {
+    @Autowired
+    private Logger logger;
+
+    @Autowired
+    private SpaceService spaceService;
+
+    @Autowired
+    private MappingService mappingService;
+
+    @Autowired
+    private ReactiveSpaceRepository spaceRepository;
+
+    @Autowired
+    private ReactiveNoteRepository noteRepository;
+
+    @Override
+    public Mono<SpaceTreeDto> getSpaceTreeDto(String uuid, Principal principal, Predicate<String> notModified) {
+        logger.info("Fetching note tree of space with UUID " + uuid);
+
+        return getSpaceAndCheckPrincipal(uuid, principal).flatMap(space -> {
+            if(space.getOwner() == null) {
+                return getSpaceTreeDtoBlocking(uuid, principal, notModified);
+            }
+
+            if(notModified.test(space.getUuid() + "-" + space.getVersion())) {
+                logger.debug("Space with UUID " + uuid + " has not been modified");
+
+                return Mono.empty();
+            }
+
+            return noteRepository
+                    .findNodeHeadersBySpace(uuid)
+                    .collectList()
+                    .flatMap(notes -> {
+                        if(notes.stream().noneMatch(note -> note.getUuid().equals(space.getRootUuid()))) {
+                            return getSpaceTreeDtoBlocking(uuid, principal, tag -> false);
+                        }
+
+                        return Mono.just(mappingService.mapToSpaceTreeDto(space, notes));
+                    });
+        });
+    }
+
+    @Override
+    public Mono<Flux<NoteTreeDto>> streamSpaceTree(String uuid, Principal principal) {
+        logger.info("Streaming note tree of space with UUID " + uuid);
+
+        return getSpaceAndCheckPrincipal(uuid, principal)
+                .flatMap(space -> space.getOwner() == null ?
+                        Mono.just(false) :
+                        noteRepository.existsByUuidAndSpace(space.getRootUuid(), uuid))
+                .flatMap(associated -> associated ?
+                        Mono.<SpaceTreeDto>empty() :
+                        getSpaceTreeDtoBlocking(uuid, principal, tag -> false))
+                .thenReturn(noteRepository
+                        .findNodeHeadersBySpace(uuid)
+                        .map(mappingService::mapToShallowNoteTreeDto));
+    }
+
+    /**
+     * Fetches the note tree through {@link SpaceService}, which checks the owner of spaces
+     * stored before their owner was stored and associates the notes of spaces created
+     * before notes were associated with their space.
+     */
+    private Mono<SpaceTreeDto> getSpaceTreeDtoBlocking(String uuid, Principal principal, Predicate<String> notModified) {
+        return Mono
+                .fromCallable(() -> spaceService.getSpaceTreeDto(uuid, principal, notModified))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Fetches a space with a single query. The owner of spaces stored before their owner
+     * was stored is left for {@link SpaceService} to check.
+     */
+    private Mono<Space> getSpaceAndCheckPrincipal(String uuid, Principal principal) {
+        return spaceRepository
+                .findHeaderByUuid(uuid)
+                .switchIfEmpty(Mono.error(SpaceNotFoundException::new))
+                .flatMap(space -> {
+                    if(space.getOwner() != null && !space.getOwner().equals(principal.getName())) {
+                        logger.warn("User " + principal.getName() + " attempted to access a space belonging to user " +
+                                space.getOwner() + ", operation unsuccessful");
+
+                        return Mono.error(new ForbiddenActionException());
+                    }
+
+                    return Mono.just(space);
+                });
+    }
+}
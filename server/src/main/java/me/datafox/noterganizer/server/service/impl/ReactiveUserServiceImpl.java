@@ -0,0 +1,67 @@
+package me.datafox.noterganizer.server.service.impl;
+
+import me.datafox.noterganizer.api.dto.UserDto;
+import me.datafox.noterganizer.server.exception.ForbiddenActionException;
+import me.datafox.noterganizer.server.model.NoteNode;
+import me.datafox.noterganizer.server.model.Space;
+import me.datafox.noterganizer.server.repository.reactive.ReactiveNoteRepository;
+import me.datafox.noterganizer.server.repository.reactive.ReactiveSpaceRepository;
+import me.datafox.noterganizer.server.repository.reactive.ReactiveUserRepository;
+import me.datafox.noterganizer.server.service.MappingService;
+import me.datafox.noterganizer.server.service.ReactiveUserService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.NoSuchElementException;
+
+/**
+ * Reactive user service implementation. The titles of the root notes of all spaces are
+ * fetched with a single query.
+ *
+ * @author datafox
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+    @Autowired
+    private Logger logger;
+
+    @Autowired
+    private MappingService mappingService;
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private ReactiveSpaceRepository spaceRepository;
+
+    @Autowired
+    private ReactiveNoteRepository noteRepository;
+
+    @Override
+    public Mono<UserDto> getUserDto(Principal principal) {
+        if(principal == null) {
+            return Mono.error(new ForbiddenActionException());
+        }
+
+        logger.info("Fetching user " + principal.getName());
+
+        //Should never be empty
+        return userRepository
+                .findByUsername(principal.getName())
+                .switchIfEmpty(Mono.error(NoSuchElementException::new))
+                .zipWith(spaceRepository.findHeadersByOwner(principal.getName()).collectList())
+                .flatMap(tuple -> noteRepository
+                        .findNodeTitlesByUuids(tuple.getT2().stream().map(Space::getRootUuid).toList())
+                        .collectMap(NoteNode::getUuid, NoteNode::getTitle)
+                        .map(titles -> {
+                            tuple.getT2().forEach(space -> space.getRoot().setTitle(titles.get(space.getRootUuid())));
+
+                            return mappingService.mapToUserDto(tuple.getT1(), tuple.getT2());
+                        }));
+    }
+}
@@ -0,0 +1,153 @@
+package me.datafox.noterganizer.server.service.impl;
+
+import me.datafox.noterganizer.api.NoteTokenizer;
+import me.datafox.noterganizer.api.dto.SearchHitDto;
+import me.datafox.noterganizer.api.dto.SearchResultDto;
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.NoteNode;
+import me.datafox.noterganizer.server.model.NoteSearchPage;
+import me.datafox.noterganizer.server.repository.NoteRepository;
+import me.datafox.noterganizer.server.service.SearchService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.Principal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Search service implementation. Matching notes are found through the stored search terms
+ * of notes, and counted and ranked by the database without reading their contents, so
+ * only the requested page of notes is ever read. See {@link
+ * NoteRepository#searchByOwnerAndTerms} for how notes are ranked. The contents of the
+ * notes on the page are read to build their snippets, and notes on the page whose
+ * content contains the whole query are moved ahead of notes with the same score.
+ *
+ * @author datafox
+ */
+@Service
+public class SearchServiceImpl implements SearchService {
+    private static final String ELLIPSIS = "…";
+
+    @Autowired
+    private Logger logger;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Value("${noterganizer.search.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${noterganizer.search.snippet-length:160}")
+    private int snippetLength;
+
+    @Override
+    public SearchResultDto search(String query, int page, int size, Principal principal) {
+        logger.info("Searching notes of user " + principal.getName() + " with query " + query);
+
+        page = Math.max(page, 0);
+        size = Math.max(Math.min(size, maxPageSize), 1);
+
+        SearchResultDto.SearchResultDtoBuilder builder = SearchResultDto
+                .builder()
+                .query(query)
+                .page(page)
+                .size(size);
+
+        Set<String> terms = NoteTokenizer.terms(query);
+
+        if(terms.isEmpty()) {
+            return builder.build();
+        }
+
+        NoteSearchPage result = noteRepository.searchByOwnerAndTerms(principal.getName(), terms,
+                query.trim(), (long) page * size, size);
+
+        if(result.getNotes().isEmpty()) {
+            return builder
+                    .total(result.getTotal())
+                    .build();
+        }
+
+        Map<String, NoteNode> contents = noteRepository
+                .findNodesByUuids(result.getNotes().stream().map(Note::getUuid).toList())
+                .stream()
+                .collect(Collectors.toMap(NoteNode::getUuid, Function.identity()));
+
+        String phrase = query.trim().toLowerCase(Locale.ROOT);
+
+        List<Integer> ranks = new ArrayList<>();
+
+        List<Integer> order = new ArrayList<>();
+
+        for(int i = 0; i < result.getNotes().size(); i++) {
+            NoteNode node = contents.get(result.getNotes().get(i).getUuid());
+
+            boolean phraseInContent = node != null && node.getContent() != null &&
+                    node.getContent().toLowerCase(Locale.ROOT).contains(phrase);
+
+            //one point for the phrase in the content only breaks ties, since scores are even
+            ranks.add(result.getScores().get(i) + (phraseInContent ? 1 : 0));
+
+            order.add(i);
+        }
+
+        order.sort(Comparator.comparing(ranks::get, Comparator.reverseOrder()));
+
+        for(int i : order) {
+            Note note = result.getNotes().get(i);
+
+            NoteNode node = contents.get(note.getUuid());
+
+            builder.hit(SearchHitDto
+                    .builder()
+                    .uuid(note.getUuid())
+                    .space(note.getSpace())
+                    .title(note.getTitle())
+                    .snippet(node == null ? "" : snippet(node.getContent(), terms))
+                    .build());
+        }
+
+        return builder
+                .total(result.getTotal())
+                .build();
+    }
+
+    /**
+     * Cuts an excerpt of the content starting a little before the first matching term, or
+     * from the beginning if only the title matches. Whitespace is collapsed and surrogate
+     * pairs are never split.
+     */
+    private String snippet(String content, Set<String> terms) {
+        if(content == null || content.isEmpty()) {
+            return "";
+        }
+
+        int index = Math.max(NoteTokenizer.indexOf(content, terms), 0);
+
+        int start = Math.max(index - snippetLength / 4, 0);
+
+        if(start > 0) {
+            int space = content.lastIndexOf(' ', index);
+
+            start = space >= start ? space + 1 : start;
+        }
+
+        int end = Math.min(start + snippetLength, content.length());
+
+        if(start > 0 && Character.isLowSurrogate(content.charAt(start))) {
+            start++;
+        }
+
+        if(end < content.length() && Character.isLowSurrogate(content.charAt(end))) {
+            end--;
+        }
+
+        String snippet = content.substring(start, end).replaceAll("\\s+", " ").trim();
+
+        return (start > 0 ? ELLIPSIS : "") + snippet + (end < content.length() ? ELLIPSIS : "");
+    }
+}
@@ -0,0 +1,165 @@
+package me.datafox.noterganizer.server.service.impl;
+
+import me.datafox.noterganizer.api.dto.NoteEventDto;
+import me.datafox.noterganizer.api.dto.SpaceEventDto;
+import me.datafox.noterganizer.server.model.Space;
+import me.datafox.noterganizer.server.repository.SpaceRepository;
+import me.datafox.noterganizer.server.service.SpaceEventService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Space event service implementation. Subscribers are held in memory, so only the
+ * subscribers connected to the same server instance receive the changes. The versions of
+ * spaces without subscribers are incremented with a single update like before, and only
+ * the versions of subscribed spaces are incremented one at a time so that their new
+ * versions can be sent. Subscriptions end after {@code noterganizer.events.timeout}
+ * milliseconds, after which clients are expected to subscribe again.
+ *
+ * @author datafox
+ */
+@Service
+public class SpaceEventServiceImpl implements SpaceEventService {
+    @Autowired
+    private Logger logger;
+
+    @Autowired
+    private SpaceRepository spaceRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${noterganizer.events.timeout:1800000}")
+    private long timeout;
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @Override
+    public SseEmitter subscribe(String uuid, LongSupplier version) {
+        logger.info("Subscribing to changes of space with UUID " + uuid);
+
+        SseEmitter emitter = new SseEmitter(timeout);
+
+        //Events published before the first one is sent wait for it, and the version is read
+        //only after registering so that no change falls between the two
+        synchronized(emitter) {
+            subscribers.compute(uuid, (key, emitters) -> {
+                if(emitters == null) {
+                    emitters = ConcurrentHashMap.newKeySet();
+                }
+
+                emitters.add(emitter);
+
+                return emitters;
+            });
+
+            emitter.onCompletion(() -> unsubscribe(uuid, emitter));
+            emitter.onTimeout(() -> unsubscribe(uuid, emitter));
+            emitter.onError(throwable -> unsubscribe(uuid, emitter));
+
+            long current;
+
+            try {
+                current = version.getAsLong();
+            } catch(RuntimeException e) {
+                unsubscribe(uuid, emitter);
+
+                throw e;
+            }
+
+            send(uuid, emitter, SpaceEventDto
+                    .builder()
+                    .space(uuid)
+                    .version(current)
+                    .build());
+        }
+
+        return emitter;
+    }
+
+    @Override
+    public void publish(Collection<String> spaces, List<NoteEventDto> events) {
+        Set<String> uuids = spaces
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Set<String> subscribed = uuids
+                .stream()
+                .filter(subscribers::containsKey)
+                .collect(Collectors.toSet());
+
+        uuids.removeAll(subscribed);
+
+        if(!uuids.isEmpty()) {
+            spaceRepository.findAndIncrementVersionByUuidIn(uuids);
+        }
+
+        for(String uuid : subscribed) {
+            Space space = mongoTemplate.findAndModify(
+                    versionOf(uuid),
+                    new Update().inc("version", 1),
+                    FindAndModifyOptions.options().returnNew(true),
+                    Space.class);
+
+            if(space == null) {
+                continue;
+            }
+
+            SpaceEventDto event = SpaceEventDto
+                    .builder()
+                    .space(uuid)
+                    .version(space.getVersion())
+                    .events(events)
+                    .build();
+
+            subscribers
+                    .getOrDefault(uuid, Set.of())
+                    .forEach(emitter -> send(uuid, emitter, event));
+        }
+    }
+
+    private Query versionOf(String uuid) {
+        Query query = Query.query(Criteria.where("uuid").is(uuid));
+
+        query.fields().include("version");
+
+        return query;
+    }
+
+    private void send(String uuid, SseEmitter emitter, SpaceEventDto event) {
+        synchronized(emitter) {
+            try {
+                emitter.send(SseEmitter.event().data(event, MediaType.APPLICATION_JSON));
+            } catch(IOException | IllegalStateException e) {
+                logger.debug("Could not send version " + event.getVersion() + " of space with UUID " + uuid +
+                        " to a subscriber, ending subscription");
+
+                unsubscribe(uuid, emitter);
+            }
+        }
+    }
+
+    private void unsubscribe(String uuid, SseEmitter emitter) {
+        subscribers.computeIfPresent(uuid, (key, emitters) -> {
+            emitters.remove(emitter);
+
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -1,16 +1,26 @@
 package me.datafox.noterganizer.server.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import me.datafox.noterganizer.api.dto.*;
 import me.datafox.noterganizer.server.exception.ForbiddenActionException;
 import me.datafox.noterganizer.server.exception.SpaceNotFoundException;
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.NoteNode;
 import me.datafox.noterganizer.server.model.Space;
+import me.datafox.noterganizer.server.repository.NoteRepository;
 import me.datafox.noterganizer.server.repository.SpaceRepository;
 import me.datafox.noterganizer.server.service.*;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.security.Principal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Space service implementation.
@@ -37,27 +47,83 @@ public class SpaceServiceImpl implements SpaceService {
     @Autowired
     private SpaceRepository spaceRepository;
 
+    @Autowired
+    private NoteRepository noteRepository;
+
+    /**
+     * Maximum number of note contents held in memory at once while writing a space.
+     */
+    @Value("${noterganizer.space.batch-size:500}")
+    private int batchSize;
+
     @Override
-    public SpaceDto getSpaceDto(String uuid, Principal principal) {
+    public void writeSpaceDto(String uuid, Principal principal, Function<String, JsonGenerator> generator) throws IOException {
         logger.info("Fetching space with UUID " + uuid);
 
         Space space = getSpaceAndCheckPrincipal(uuid, principal);
 
-        return mappingService.mapToSpaceDto(space);
+        JsonGenerator json = generator.apply(getVersionTag(space));
+
+        if(json == null) {
+            logger.debug("Space with UUID " + uuid + " has not been modified");
+
+            return;
+        }
+
+        Map<String, List<String>> structure = loadNodes(space, noteRepository::findNodeStructureBySpace)
+                .stream()
+                .collect(Collectors.toMap(NoteNode::getUuid, NoteNode::getChildren));
+
+        List<NoteNode> order = orderNodes(space.getRootUuid(), structure);
+
+        try(json) {
+            mappingService.writeSpaceDto(space, loadContents(order), json);
+        }
+    }
+
+    @Override
+    public SpaceTreeDto getSpaceTreeDto(String uuid, Principal principal, Predicate<String> notModified) {
+        logger.info("Fetching note tree of space with UUID " + uuid);
+
+        Space space = getSpaceAndCheckPrincipal(uuid, principal);
+
+        if(notModified.test(getVersionTag(space))) {
+            logger.debug("Space with UUID " + uuid + " has not been modified");
+
+            return null;
+        }
+
+        List<NoteNode> notes = loadNodes(space, noteRepository::findNodeHeadersBySpace);
+
+        return mappingService.mapToSpaceTreeDto(space, notes);
+    }
+
+    @Override
+    public long getVersion(String uuid, Principal principal) {
+        logger.info("Fetching version of space with UUID " + uuid);
+
+        return getSpaceAndCheckPrincipal(uuid, principal).getVersion();
     }
 
     @Override
     public String createSpace(SpaceCreateDto dto, Principal principal) {
         logger.info("Creating space with name " + dto.getName());
 
+        String uuid = uuidService.createUuid();
+
         Space space = Space
                 .builder()
-                .uuid(uuidService.createUniqueUuid(spaceRepository))
+                .uuid(uuid)
                 .user(userService.getUserByPrincipal(principal))
-                .root(noteService.createRootNote(dto.getName(), principal))
+                .owner(principal.getName())
+                .root(noteService.createRootNote(dto.getName(), uuid, principal))
                 .build();
 
-        spaceRepository.save(space);
+        uuidService.insertWithUniqueUuid(spaceRepository, space);
+
+        if(!space.getUuid().equals(uuid)) {
+            noteRepository.updateSpace(List.of(space.getRootUuid()), space.getUuid());
+        }
 
         return space.getUuid();
     }
@@ -68,22 +134,152 @@ public class SpaceServiceImpl implements SpaceService {
 
         Space space = getSpaceAndCheckPrincipal(uuid, principal);
 
-        noteService.removeNote(space.getRoot().getUuid(), true, true, principal);
+        if(noteRepository.deleteBySpace(space.getUuid()) == 0) {
+            migrateSpace(space);
+
+            noteRepository.deleteBySpace(space.getUuid());
+        }
+
+        spaceRepository.deleteById(space.getUuid());
+    }
+
+    private String getVersionTag(Space space) {
+        return space.getUuid() + "-" + space.getVersion();
+    }
+
+    /**
+     * Orders the notes of a space in depth-first pre-order without recursion. Children
+     * that do not exist in the space are left out.
+     */
+    private List<NoteNode> orderNodes(String root, Map<String, List<String>> structure) {
+        List<NoteNode> order = new ArrayList<>(structure.size());
+
+        if(!structure.containsKey(root)) {
+            return order;
+        }
+
+        Deque<String> stack = new ArrayDeque<>();
+
+        stack.push(root);
+
+        while(!stack.isEmpty()) {
+            String uuid = stack.pop();
+
+            List<String> children = structure
+                    .get(uuid)
+                    .stream()
+                    .filter(structure::containsKey)
+                    .toList();
+
+            order.add(NoteNode.builder().uuid(uuid).children(children).build());
+
+            for(int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Iterates over ordered notes and fetches their titles and contents in batches, so that
+     * only one batch of contents is held in memory at a time.
+     */
+    private Iterator<NoteNode> loadContents(List<NoteNode> order) {
+        return new Iterator<>() {
+            private int index = 0;
+
+            private Map<String, NoteNode> batch = Map.of();
+
+            @Override
+            public boolean hasNext() {
+                return index < order.size();
+            }
+
+            @Override
+            public NoteNode next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                if(index % batchSize == 0) {
+                    batch = noteRepository
+                            .findNodesByUuids(order
+                                    .subList(index, Math.min(index + batchSize, order.size()))
+                                    .stream()
+                                    .map(NoteNode::getUuid)
+                                    .toList())
+                            .stream()
+                            .collect(Collectors.toMap(NoteNode::getUuid, note -> note));
+                }
+
+                NoteNode note = order.set(index++, null);
+
+                NoteNode contents = batch.get(note.getUuid());
+
+                if(contents != null) {
+                    note.setTitle(contents.getTitle());
+                    note.setContent(contents.getContent());
+                }
 
-        spaceRepository.delete(space);
+                return note;
+            }
+        };
     }
 
+    private List<NoteNode> loadNodes(Space space, Function<String, List<NoteNode>> query) {
+        List<NoteNode> notes = query.apply(space.getUuid());
+
+        if(notes.stream().noneMatch(note -> note.getUuid().equals(space.getRootUuid()))) {
+            migrateSpace(space);
+
+            notes = query.apply(space.getUuid());
+        }
+
+        return notes;
+    }
+
+    /**
+     * Sets the space UUID for all notes of a space that was created before notes were
+     * associated with their space, so that the space can be loaded with a single query.
+     */
+    private void migrateSpace(Space space) {
+        logger.info("Associating notes with space with UUID " + space.getUuid());
+
+        List<String> uuids = new ArrayList<>();
+
+        collectUuids(space.getRoot(), uuids);
+
+        noteRepository.updateSpace(uuids, space.getUuid());
+    }
+
+    private void collectUuids(Note note, List<String> uuids) {
+        uuids.add(note.getUuid());
+
+        note.getChildren().forEach(child -> collectUuids(child, uuids));
+    }
+
+    /**
+     * Fetches a space with a single query that only matches spaces owned by the principal.
+     * Only if that fails, the space is fetched again to tell apart nonexistent spaces,
+     * spaces of other users and spaces stored before their owner was stored.
+     */
     private Space getSpaceAndCheckPrincipal(String uuid, Principal principal) {
+        Optional<Space> optional = spaceRepository.findByUuidAndOwner(uuid, principal.getName());
+
+        if(optional.isPresent()) {
+            return optional.get();
+        }
+
         Space space = spaceRepository
                 .findById(uuid)
                 .orElseThrow(SpaceNotFoundException::new);
 
-        if(!space.getUser()
-                .getUsername()
-                .equals(principal.getName())) {
+        String owner = space.getOwner() != null ? space.getOwner() : space.getUser().getUsername();
 
+        if(!owner.equals(principal.getName())) {
             logger.warn("User " + principal.getName() + " attempted to access a space belonging to user " +
-                    space.getUser().getUsername() + ", operation unsuccessful");
+                    owner + ", operation unsuccessful");
 
             throw new ForbiddenActionException();
         }
@@ -0,0 +1,181 @@
+package me.datafox.noterganizer.server.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.datafox.noterganizer.server.model.AppUser;
+import me.datafox.noterganizer.server.repository.UserRepository;
+import me.datafox.noterganizer.server.service.UserCacheService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * User cache service implementation. The cache evicts the least recently used user
+ * when it is full. The request-scoped memo is stored as an attribute of the current
+ * request. The number of lookups is published as the metric
+ * {@value #REQUESTS_METRIC} with the tag {@code result} set to {@code memo},
+ * {@code hit} or {@code miss}, and the ratio of lookups that did not reach the
+ * database as {@value #HIT_RATIO_METRIC}.
+ *
+ * @author datafox
+ */
+@Service
+public class UserCacheServiceImpl implements UserCacheService {
+    private static final String REQUESTS_METRIC = "noterganizer.user.cache.requests";
+
+    private static final String HIT_RATIO_METRIC = "noterganizer.user.cache.hit.ratio";
+
+    private static final String MEMO_ATTRIBUTE = UserCacheServiceImpl.class.getName() + ".memo";
+
+    @Autowired
+    private Logger logger;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<String, CacheEntry> cache;
+
+    private final Duration timeToLive;
+
+    private final Counter memoCounter;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    public UserCacheServiceImpl(@Value("${noterganizer.user-cache.size:1000}") int size,
+                                @Value("${noterganizer.user-cache.ttl:10m}") Duration timeToLive,
+                                MeterRegistry meterRegistry) {
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > size;
+            }
+        };
+        this.timeToLive = timeToLive;
+
+        memoCounter = meterRegistry.counter(REQUESTS_METRIC, "result", "memo");
+        hitCounter = meterRegistry.counter(REQUESTS_METRIC, "result", "hit");
+        missCounter = meterRegistry.counter(REQUESTS_METRIC, "result", "miss");
+
+        Gauge.builder(HIT_RATIO_METRIC, this, UserCacheServiceImpl::getHitRatio)
+                .description("Ratio of user lookups that did not reach the database")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<AppUser> getUser(String username) {
+        Map<String, AppUser> memo = getMemo();
+
+        if(memo != null && memo.containsKey(username)) {
+            memoCounter.increment();
+
+            return Optional.of(memo.get(username));
+        }
+
+        AppUser user = getCachedUser(username);
+
+        if(user != null) {
+            hitCounter.increment();
+        } else {
+            missCounter.increment();
+
+            logger.debug("User " + username + " not cached, fetching from the database");
+
+            Optional<AppUser> optional = userRepository.findByUsername(username);
+
+            if(optional.isEmpty()) {
+                return Optional.empty();
+            }
+
+            user = optional.get();
+
+            synchronized(cache) {
+                cache.put(username, new CacheEntry(user, System.nanoTime() + timeToLive.toNanos()));
+            }
+        }
+
+        if(memo != null) {
+            memo.put(username, user);
+        }
+
+        return Optional.of(user);
+    }
+
+    @Override
+    public void invalidate(String username) {
+        synchronized(cache) {
+            cache.remove(username);
+        }
+
+        Map<String, AppUser> memo = getMemo();
+
+        if(memo != null) {
+            memo.remove(username);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized(cache) {
+            cache.clear();
+        }
+    }
+
+    private AppUser getCachedUser(String username) {
+        synchronized(cache) {
+            CacheEntry entry = cache.get(username);
+
+            if(entry == null) {
+                return null;
+            }
+
+            if(entry.expires() - System.nanoTime() < 0) {
+                cache.remove(username);
+
+                return null;
+            }
+
+            return entry.user();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, AppUser> getMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if(attributes == null) {
+            return null;
+        }
+
+        Map<String, AppUser> memo = (Map<String, AppUser>) attributes.getAttribute(MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        if(memo == null) {
+            memo = new HashMap<>();
+
+            attributes.setAttribute(MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return memo;
+    }
+
+    private double getHitRatio() {
+        double hits = memoCounter.count() + hitCounter.count();
+
+        double total = hits + missCounter.count();
+
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private record CacheEntry(AppUser user, long expires) {}
+}
@@ -10,10 +10,12 @@ import me.datafox.noterganizer.server.exception.UsernameTakenException;
 import me.datafox.noterganizer.server.model.AppUser;
 import me.datafox.noterganizer.server.repository.UserRepository;
 import me.datafox.noterganizer.server.service.MappingService;
+import me.datafox.noterganizer.server.service.UserCacheService;
 import me.datafox.noterganizer.server.service.UserService;
 import me.datafox.noterganizer.server.service.UuidService;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -35,6 +37,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private MappingService mappingService;
 
+    @Autowired
+    private UserCacheService userCacheService;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -50,8 +55,8 @@ public class UserServiceImpl implements UserService {
         logger.info("Fetching user " + principal.getName());
 
         //Should never be empty
-        return userRepository
-                .findByUsername(principal.getName())
+        return userCacheService
+                .getUser(principal.getName())
                 .orElseThrow();
     }
 
@@ -81,19 +86,33 @@ public class UserServiceImpl implements UserService {
 
         AppUser user = AppUser
                 .builder()
-                .uuid(uuidService.createUniqueUuid(userRepository))
+                .uuid(uuidService.createUuid())
                 .username(dto.getUsername())
                 .password(passwordEncoder.encode(dto.getPassword()))
                 .build();
 
-        userRepository.save(user);
+        try {
+            uuidService.insertWithUniqueUuid(userRepository, user);
+        } catch(DuplicateKeyException e) {
+            logger.warn("User with username " + dto.getUsername() +
+                    " was registered at the same time, operation unsuccessful");
+
+            throw new UsernameTakenException();
+        }
     }
 
     @Override
     public void changeUser(UserChangeDto dto, Principal principal) {
+        if(principal == null) {
+            throw new ForbiddenActionException();
+        }
+
         logger.info("Changing password for user " + principal.getName());
 
-        AppUser user = getUserByPrincipal(principal);
+        //The cached user is shared between requests, so the user is changed through its own copy
+        AppUser user = userRepository
+                .findByUsername(principal.getName())
+                .orElseThrow();
 
         if(!passwordEncoder.matches(dto.getOldPassword(), user.getPassword())) {
             logger.warn("User provided wrong old password, operation unsuccessful");
@@ -107,6 +126,10 @@ public class UserServiceImpl implements UserService {
 
         user.setPassword(passwordEncoder.encode(dto.getNewPassword()));
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } finally {
+            userCacheService.invalidate(user.getUsername());
+        }
     }
 }
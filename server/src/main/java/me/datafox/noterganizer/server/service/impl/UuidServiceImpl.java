@@ -1,9 +1,14 @@
 package me.datafox.noterganizer.server.service.impl;
 
+import me.datafox.noterganizer.server.model.Identifiable;
 import me.datafox.noterganizer.server.service.UuidService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Service;
 
+import java.security.SecureRandom;
 import java.util.UUID;
 
 /**
@@ -13,12 +18,39 @@ import java.util.UUID;
  */
 @Service
 public class UuidServiceImpl implements UuidService {
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private Logger logger;
+
+    @Override
+    public String createUuid() {
+        //48 bits of Unix time in milliseconds, 4 bits of version and 12 random bits
+        long mostSignificant = System.currentTimeMillis() << 16 | 0x7000L | random.nextInt(0x1000);
+
+        //2 bits of variant and 62 random bits
+        long leastSignificant = random.nextLong() & 0x3fffffffffffffffL | 0x8000000000000000L;
+
+        return new UUID(mostSignificant, leastSignificant).toString();
+    }
+
     @Override
-    public String createUniqueUuid(MongoRepository<?,String> repository) {
-        String uuid;
-        do {
-            uuid = UUID.randomUUID().toString();
-        } while(repository.existsById(uuid));
-        return uuid;
+    public <T extends Identifiable> T insertWithUniqueUuid(MongoRepository<T,String> repository, T entity) {
+        for(int attempt = 1; ; attempt++) {
+            try {
+                return repository.insert(entity);
+            } catch(DuplicateKeyException e) {
+                //The exception may also be caused by another unique index
+                if(attempt == MAX_ATTEMPTS || !repository.existsById(entity.getUuid())) {
+                    throw e;
+                }
+
+                logger.warn("UUID collision on attempt " + attempt + ", retrying with a new UUID");
+
+                entity.setUuid(createUuid());
+            }
+        }
     }
 }
@@ -14,6 +14,10 @@ module noterganizer.server {
     requires spring.context;
 
     requires spring.data.mongodb;
+    requires org.mongodb.driver.reactivestreams;
+    requires reactor.core;
+    requires org.reactivestreams;
+    requires spring.tx;
 
     requires spring.security.config;
     requires spring.security.core;
@@ -21,7 +25,12 @@ module noterganizer.server {
     requires spring.security.web;
 
     requires spring.web;
+    requires org.apache.tomcat.embed.core;
     requires spring.boot.autoconfigure;
     requires spring.boot;
     requires spring.data.commons;
+
+    requires com.fasterxml.jackson.core;
+    requires com.fasterxml.jackson.databind;
+    requires com.fasterxml.jackson.dataformat.cbor;
 }
\ No newline at end of file
@@ -0,0 +1,210 @@
+package me.datafox.noterganizer.server.test.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.datafox.noterganizer.api.dto.SpaceCreateDto;
+import me.datafox.noterganizer.api.dto.UserRegisterDto;
+import me.datafox.noterganizer.server.NoterganizerServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the throughput and latency of fetching a note tree when requests are handled
+ * on Tomcat's pool of platform threads, on virtual threads and by the reactive controllers
+ * of the reactive profile. The server is started
+ * once for every mode, and a fixed number of clients each send their next request as
+ * soon as the previous one has been answered, so the throughput is the maximum the server
+ * sustains at that concurrency. Needs a MongoDB server on localhost, and virtual threads
+ * are only measured on Java 21 or later. Run with {@code gradle :server:benchmark}.
+ *
+ * @author datafox
+ */
+@Tag("benchmark")
+public class ThreadModeBenchmark {
+    private static final int CLIENTS = 1000;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration DURATION = Duration.ofSeconds(15);
+
+    private static final String DATABASE = "noterganizer-benchmark";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void compareThreadModes() throws Exception {
+        System.out.printf("%d concurrent clients, %d s per mode%n", CLIENTS, DURATION.toSeconds());
+        System.out.printf("%-9s %10s %10s %10s %8s%n", "mode", "req/s", "p50 (ms)", "p99 (ms)", "errors");
+
+        benchmark("platform", "noterganizer.threads.virtual=false");
+
+        if(Runtime.version().feature() >= 21) {
+            benchmark("virtual", "noterganizer.threads.virtual=true");
+        } else {
+            System.out.printf("%-9s not available on Java %d%n", "virtual", Runtime.version().feature());
+        }
+
+        benchmark("reactive", "spring.profiles.active=reactive");
+    }
+
+    private void benchmark(String name, String mode) throws Exception {
+        ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(NoterganizerServer.class)
+                .properties(
+                        "server.port=0",
+                        "server.ssl.enabled=false",
+                        "spring.data.mongodb.database=" + DATABASE,
+                        "spring.data.mongodb.auto-index-creation=true",
+                        "noterganizer.remember.token=ArbitraryToken",
+                        mode,
+                        "logging.level.root=WARN")
+                .run();
+
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+
+        try {
+            String address = "http://localhost:" + context.getWebServer().getPort() + "/";
+
+            HttpClient client = HttpClient
+                    .newBuilder()
+                    .cookieHandler(new CookieManager())
+                    .build();
+
+            URI tree = URI.create(address + "space/tree?uuid=" + setUp(client, address));
+
+            run(client, tree, WARMUP);
+
+            Result result = run(client, tree, DURATION);
+
+            assertTrue(result.latencies().length > 0);
+
+            System.out.printf("%-9s %10.0f %10.2f %10.2f %8d%n",
+                    name,
+                    result.latencies().length / (DURATION.toNanos() / 1e9),
+                    percentile(result.latencies(), 0.5),
+                    percentile(result.latencies(), 0.99),
+                    result.errors());
+        } finally {
+            mongoTemplate.getDb().drop();
+
+            context.close();
+        }
+    }
+
+    /**
+     * Registers and logs in a user, and creates a space with a few notes.
+     *
+     * @return UUID of the space
+     */
+    private String setUp(HttpClient client, String address) throws IOException, InterruptedException {
+        post(client, address + "register", "application/json", objectMapper.writeValueAsString(UserRegisterDto
+                .builder()
+                .username("user")
+                .password("password")
+                .build()));
+
+        post(client, address + "login", "application/x-www-form-urlencoded", "username=user&password=password");
+
+        String space = post(client, address + "space/create", "application/json",
+                objectMapper.writeValueAsString(SpaceCreateDto.of("space")));
+
+        HttpResponse<String> response = client.send(HttpRequest
+                .newBuilder(URI.create(address + "space/tree?uuid=" + space))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+
+        //Give the root note a few children so that the fetched tree is not trivial
+        String root = objectMapper.readTree(response.body()).get("root").get("uuid").asText();
+
+        for(int i = 0; i < 10; i++) {
+            post(client, address + "note/create", "application/json",
+                    "{\"title\":\"note " + i + "\",\"parent\":{\"uuid\":\"" + root + "\"}}");
+        }
+
+        return space;
+    }
+
+    private String post(HttpClient client, String url, String contentType, String body) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest
+                .newBuilder(URI.create(url))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        //Logging in redirects to the front page
+        assertTrue(response.statusCode() == 200 || response.statusCode() == 302);
+
+        return response.body();
+    }
+
+    /**
+     * Keeps {@link #CLIENTS} requests in flight until the duration has passed.
+     */
+    private Result run(HttpClient client, URI uri, Duration duration) {
+        long end = System.nanoTime() + duration.toNanos();
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        AtomicInteger errors = new AtomicInteger();
+
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        List<CompletableFuture<Void>> clients = IntStream
+                .range(0, CLIENTS)
+                .mapToObj(i -> loop(client, request, end, latencies, errors))
+                .toList();
+
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+
+        return new Result(latencies.stream().mapToLong(Long::longValue).toArray(), errors.get());
+    }
+
+    private CompletableFuture<Void> loop(HttpClient client, HttpRequest request, long end,
+                                         ConcurrentLinkedQueue<Long> latencies, AtomicInteger errors) {
+        long start = System.nanoTime();
+
+        if(start >= end) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return client
+                .sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, throwable) -> {
+                    if(throwable != null || response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    } else if(System.nanoTime() < end) {
+                        latencies.add(System.nanoTime() - start);
+                    }
+
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, request, end, latencies, errors));
+    }
+
+    private double percentile(long[] values, double percentile) {
+        long[] sorted = values.clone();
+
+        Arrays.sort(sorted);
+
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * sorted.length))] / 1e6;
+    }
+
+    private record Result(long[] latencies, int errors) {}
+}
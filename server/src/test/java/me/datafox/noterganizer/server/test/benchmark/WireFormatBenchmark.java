@@ -0,0 +1,118 @@
+package me.datafox.noterganizer.server.test.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import me.datafox.noterganizer.api.dto.NoteDto;
+import me.datafox.noterganizer.api.dto.SpaceDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the size and the encoding and decoding times of a deep space tree in the
+ * JSON and CBOR wire formats. Run with {@code gradle :server:benchmark}.
+ *
+ * @author datafox
+ */
+@Tag("benchmark")
+public class WireFormatBenchmark {
+    private static final int WIDTH = 4;
+    private static final int DEPTH = 7;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 20;
+
+    private static final String CONTENT = """
+            # Heading
+
+            Some *markdown* content with a [link](noterganizer://note/uuid) and a list:
+
+            - first item
+            - second item with `code`
+
+            > A quote spanning a line that is long enough to resemble an actual note.
+            """;
+
+    @Test
+    public void compareFormats() throws IOException {
+        SpaceDto space = SpaceDto
+                .builder()
+                .uuid("space")
+                .root(buildNote("root", DEPTH))
+                .build();
+
+        System.out.printf("Space with %d notes%n", countNotes(space.getRoot()));
+        System.out.printf("%-6s %10s %10s %12s %12s%n", "format", "bytes", "gzipped", "encode (ms)", "decode (ms)");
+
+        benchmark("JSON", new ObjectMapper(), space);
+        benchmark("CBOR", new CBORMapper(), space);
+    }
+
+    private void benchmark(String name, ObjectMapper mapper, SpaceDto space) throws IOException {
+        byte[] encoded = mapper.writeValueAsBytes(space);
+
+        assertEquals(space, mapper.readValue(encoded, SpaceDto.class));
+
+        double[] encodeTimes = new double[ROUNDS];
+        double[] decodeTimes = new double[ROUNDS];
+
+        for(int i = -WARMUP_ROUNDS; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            mapper.writeValueAsBytes(space);
+            long middle = System.nanoTime();
+            mapper.readValue(encoded, SpaceDto.class);
+            long decoded = System.nanoTime();
+
+            if(i >= 0) {
+                encodeTimes[i] = (middle - start) / 1e6;
+                decodeTimes[i] = (decoded - middle) / 1e6;
+            }
+        }
+
+        System.out.printf("%-6s %10d %10d %12.2f %12.2f%n",
+                name, encoded.length, gzip(encoded).length, median(encodeTimes), median(decodeTimes));
+    }
+
+    private NoteDto buildNote(String uuid, int depth) {
+        NoteDto.NoteDtoBuilder builder = NoteDto
+                .builder()
+                .uuid(uuid)
+                .title("Note " + uuid)
+                .content(CONTENT);
+
+        if(depth > 0) {
+            for(int i = 0; i < WIDTH; i++) {
+                builder.child(buildNote(uuid + "-" + i, depth - 1));
+            }
+        }
+
+        return builder.build();
+    }
+
+    private int countNotes(NoteDto note) {
+        return 1 + note.getChildren().stream().mapToInt(this::countNotes).sum();
+    }
+
+    private byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try(GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(bytes);
+        }
+
+        return output.toByteArray();
+    }
+
+    private double median(double[] values) {
+        double[] sorted = values.clone();
+
+        Arrays.sort(sorted);
+
+        return sorted[sorted.length / 2];
+    }
+}
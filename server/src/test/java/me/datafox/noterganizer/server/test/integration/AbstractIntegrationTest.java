@@ -7,23 +7,32 @@ import me.datafox.noterganizer.server.model.Space;
 import me.datafox.noterganizer.server.repository.NoteRepository;
 import me.datafox.noterganizer.server.repository.SpaceRepository;
 import me.datafox.noterganizer.server.repository.UserRepository;
+import me.datafox.noterganizer.server.service.UserCacheService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
 /**
  * @author datafox
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, classes = NoterganizerServer.class)
 @AutoConfigureMockMvc
 @TestPropertySource(locations = "classpath:application-integrationtest.properties")
+@Import(MongoCommandCounter.class)
 public abstract class AbstractIntegrationTest {
     protected static final String USER_UUID = "fake-user-uuid";
     protected static final String USER_NAME = "user";
@@ -56,6 +65,9 @@ public abstract class AbstractIntegrationTest {
 
     protected static final String SPACE_UUID = "fake-space-uuid";
 
+    @Autowired
+    private MockMvc mvc;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -68,6 +80,9 @@ public abstract class AbstractIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCacheService userCacheService;
+
     @BeforeEach
     public void beforeEach() {
         AppUser user = AppUser
@@ -86,6 +101,10 @@ public abstract class AbstractIntegrationTest {
                 .builder()
                 .uuid(SUB_CHILD_UUID)
                 .user(user)
+                .owner(USER_NAME)
+                .space(SPACE_UUID)
+                .parent(CHILD_UUID)
+                .ancestors(new ArrayList<>(List.of(ROOT_UUID, PARENT_1_UUID, CHILD_UUID)))
                 .title(SUB_CHILD_TITLE)
                 .content(SUB_CHILD_CONTENT)
                 .build();
@@ -93,6 +112,10 @@ public abstract class AbstractIntegrationTest {
                 .builder()
                 .uuid(CHILD_UUID)
                 .user(user)
+                .owner(USER_NAME)
+                .space(SPACE_UUID)
+                .parent(PARENT_1_UUID)
+                .ancestors(new ArrayList<>(List.of(ROOT_UUID, PARENT_1_UUID)))
                 .title(CHILD_TITLE)
                 .content(CHILD_CONTENT)
                 .children(new ArrayList<>(List.of(subChild)))
@@ -101,6 +124,10 @@ public abstract class AbstractIntegrationTest {
                 .builder()
                 .uuid(PARENT_1_UUID)
                 .user(user)
+                .owner(USER_NAME)
+                .space(SPACE_UUID)
+                .parent(ROOT_UUID)
+                .ancestors(new ArrayList<>(List.of(ROOT_UUID)))
                 .title(PARENT_1_TITLE)
                 .content(PARENT_1_CONTENT)
                 .children(new ArrayList<>(List.of(child)))
@@ -109,6 +136,10 @@ public abstract class AbstractIntegrationTest {
                 .builder()
                 .uuid(PARENT_2_UUID)
                 .user(user)
+                .owner(USER_NAME)
+                .space(SPACE_UUID)
+                .parent(ROOT_UUID)
+                .ancestors(new ArrayList<>(List.of(ROOT_UUID)))
                 .title(PARENT_2_TITLE)
                 .content(PARENT_2_CONTENT)
                 .build();
@@ -116,6 +147,9 @@ public abstract class AbstractIntegrationTest {
                 .builder()
                 .uuid(ROOT_UUID)
                 .user(user)
+                .owner(USER_NAME)
+                .space(SPACE_UUID)
+                .ancestors(new ArrayList<>(List.of()))
                 .title(ROOT_TITLE)
                 .content(ROOT_CONTENT)
                 .children(new ArrayList<>(List.of(parent1, parent2)))
@@ -124,6 +158,7 @@ public abstract class AbstractIntegrationTest {
                 .builder()
                 .uuid(SPACE_UUID)
                 .user(user)
+                .owner(USER_NAME)
                 .root(root)
                 .build();
         userRepository.save(user);
@@ -141,5 +176,32 @@ public abstract class AbstractIntegrationTest {
         userRepository.deleteAll();
         noteRepository.deleteAll();
         spaceRepository.deleteAll();
+        userCacheService.clear();
+    }
+
+    /**
+     * Performs a request and, as long as it is handled asynchronously like in the reactive
+     * profile, its async dispatches, so that tests see the same response in both profiles.
+     */
+    protected ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions actions = mvc.perform(request);
+
+        MvcResult result = actions.andReturn();
+
+        while(result.getRequest().isAsyncStarted()) {
+            actions = mvc.perform(asyncDispatch(result));
+
+            result = actions.andReturn();
+        }
+
+        return actions;
+    }
+
+    /**
+     * Performs a request without its async dispatches, for requests whose response is
+     * streamed for as long as the client stays connected.
+     */
+    protected ResultActions performStreaming(RequestBuilder request) throws Exception {
+        return mvc.perform(request);
     }
 }
@@ -0,0 +1,69 @@
+package me.datafox.noterganizer.server.test.integration;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonValue;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Counts commands sent to MongoDB so that tests can assert the number of round trips
+ * an operation takes.
+ *
+ * @author datafox
+ */
+@TestConfiguration
+public class MongoCommandCounter implements CommandListener {
+    private final List<String> commands = new CopyOnWriteArrayList<>();
+
+    private final List<String> collections = new CopyOnWriteArrayList<>();
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer commandCounterCustomizer() {
+        return builder -> builder.addCommandListener(this);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        commands.add(event.getCommandName());
+        BsonValue collection = event.getCommand().get(event.getCommandName());
+        collections.add(collection != null && collection.isString() ? collection.asString().getValue() : "");
+    }
+
+    public void reset() {
+        commands.clear();
+        collections.clear();
+    }
+
+    /**
+     * @return number of commands sent since the last reset
+     */
+    public int count() {
+        return commands.size();
+    }
+
+    /**
+     * @param commandName name of the command, e.g. "find" or "delete"
+     * @return number of commands with the given name sent since the last reset
+     */
+    public int count(String commandName) {
+        return (int) commands.stream().filter(commandName::equals).count();
+    }
+
+    /**
+     * @param commandName name of the command, e.g. "find" or "delete"
+     * @param collection name of the collection the command targets
+     * @return number of commands with the given name targeting the collection sent since the last reset
+     */
+    public int count(String commandName, String collection) {
+        int count = 0;
+        for(int i = 0; i < commands.size(); i++) {
+            if(commands.get(i).equals(commandName) && collections.get(i).equals(collection)) count++;
+        }
+        return count;
+    }
+}
@@ -1,39 +1,119 @@
 package me.datafox.noterganizer.server.test.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import me.datafox.noterganizer.api.NotePatcher;
+import me.datafox.noterganizer.api.dto.NoteBatchDto;
+import me.datafox.noterganizer.api.dto.NoteBatchResultDto;
 import me.datafox.noterganizer.api.dto.NoteChangeDto;
+import me.datafox.noterganizer.api.dto.NoteContentDto;
 import me.datafox.noterganizer.api.dto.NoteCreateDto;
+import me.datafox.noterganizer.api.dto.NoteEditDto;
 import me.datafox.noterganizer.api.dto.NoteHeaderDto;
 import me.datafox.noterganizer.api.dto.NoteMoveDto;
+import me.datafox.noterganizer.api.dto.NoteOperationDto;
+import me.datafox.noterganizer.api.dto.NotePatchDto;
 import me.datafox.noterganizer.server.model.Note;
 import me.datafox.noterganizer.server.repository.NoteRepository;
+import me.datafox.noterganizer.server.service.NoteMigrationService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
-import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
  * @author datafox
  */
 public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
-    @Autowired
-    private MockMvc mvc;
-
     @Autowired
     private ObjectMapper objectMapper;
 
     @Autowired
     private NoteRepository noteRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoCommandCounter commandCounter;
+
+    @Autowired
+    private NoteMigrationService noteMigrationService;
+
+    @Test
+    @WithMockUser
+    public void getNote_valid() throws Exception {
+        String result = performGetNote(CHILD_UUID)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        NoteContentDto note = objectMapper.readValue(result, NoteContentDto.class);
+
+        assertEquals(CHILD_UUID, note.getUuid());
+        assertEquals(CHILD_TITLE, note.getTitle());
+        assertEquals(CHILD_CONTENT, note.getContent());
+    }
+
+    @Test
+    @WithMockUser
+    public void getNote_singleQuery() throws Exception {
+        commandCounter.reset();
+
+        performGetNote(CHILD_UUID)
+                .andExpect(status().isOk());
+
+        assertEquals(1, commandCounter.count());
+    }
+
+    @Test
+    @WithMockUser
+    public void getNote_ownerNotMigrated() throws Exception {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("owner"), Note.class);
+
+        String result = performGetNote(CHILD_UUID)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        NoteContentDto note = objectMapper.readValue(result, NoteContentDto.class);
+
+        assertEquals(CHILD_CONTENT, note.getContent());
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void getNote_ownerNotMigratedUserFail() throws Exception {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("owner"), Note.class);
+
+        performGetNote(CHILD_UUID)
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser
+    public void getNote_unknownFail() throws Exception {
+        performGetNote("unknown-uuid")
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void getNote_userFail() throws Exception {
+        performGetNote(CHILD_UUID)
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser
     public void createNote_valid() throws Exception {
@@ -48,6 +128,14 @@ public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
         assertEquals(1, parent.getChildren().size());
 
         assertTrue(parent.getChildren().contains(note));
+
+        assertEquals(PARENT_2_UUID, note.getParent());
+
+        assertEquals(List.of(ROOT_UUID, PARENT_2_UUID), note.getAncestors());
+
+        assertEquals(USER_NAME, note.getOwner());
+
+        assertEquals(USER_NAME, note.getUser().getUsername());
     }
 
     @Test
@@ -81,6 +169,39 @@ public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
         assertEquals("new content", note.getContent());
     }
 
+    @Test
+    @WithMockUser
+    public void changeNote_singleUpdate() throws Exception {
+        commandCounter.reset();
+
+        performChangeNote(CHILD_UUID, "new content")
+                .andExpect(status().isOk());
+
+        //one update for the note and one for the version of its space
+        assertEquals(2, commandCounter.count());
+        assertEquals(1, commandCounter.count("findAndModify", "note"));
+        assertEquals(1, commandCounter.count("update", "space"));
+
+        Note note = assertNoteExistsAndGet(CHILD_UUID);
+
+        assertEquals(1, note.getChildren().size());
+        assertEquals(PARENT_1_UUID, note.getParent());
+    }
+
+    @Test
+    @WithMockUser
+    public void changeNote_ownerNotMigrated() throws Exception {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("owner"), Note.class);
+
+        performChangeNote(CHILD_UUID, "new content")
+                .andExpect(status().isOk());
+
+        Note note = assertNoteExistsAndGet(CHILD_UUID);
+
+        assertEquals("new content", note.getContent());
+        assertEquals(USER_NAME, note.getOwner());
+    }
+
     @Test
     @WithMockUser(DIFFERENT_USER_NAME)
     public void changeNote_userFail() throws Exception {
@@ -92,6 +213,101 @@ public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
         assertNotEquals("new content", note.getContent());
     }
 
+    @Test
+    @WithMockUser
+    public void patchNote_valid() throws Exception {
+        String newContent = "changed child content";
+
+        performPatchNote(CHILD_UUID, NotePatcher.hash(CHILD_CONTENT), NotePatcher.diff(CHILD_CONTENT, newContent))
+                .andExpect(status().isOk());
+
+        Note note = assertNoteExistsAndGet(CHILD_UUID);
+
+        assertEquals(newContent, note.getContent());
+        assertEquals(CHILD_TITLE, note.getTitle());
+        assertEquals(1, note.getChildren().size());
+    }
+
+    @Test
+    @WithMockUser
+    public void patchNote_conflictFail() throws Exception {
+        performPatchNote(CHILD_UUID, NotePatcher.hash("outdated content"), NotePatcher.diff(CHILD_CONTENT, "new content"))
+                .andExpect(status().isConflict());
+
+        Note note = assertNoteExistsAndGet(CHILD_UUID);
+
+        assertEquals(CHILD_CONTENT, note.getContent());
+    }
+
+    @Test
+    public void patchNote_concurrentChangeNotOverwritten() {
+        //A change committed after a patch read the content must make the write of the patch miss
+        noteRepository.updateContent(CHILD_UUID, USER_NAME, CHILD_TITLE, "concurrent content");
+
+        assertTrue(noteRepository
+                .updateContent(CHILD_UUID, USER_NAME, CHILD_TITLE, NotePatcher.hash(CHILD_CONTENT), "patched content")
+                .isEmpty());
+
+        Note note = assertNoteExistsAndGet(CHILD_UUID);
+
+        assertEquals("concurrent content", note.getContent());
+    }
+
+    @Test
+    @WithMockUser
+    public void patchNote_notMigratedConflictFail() throws Exception {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("uuid").is(CHILD_UUID)),
+                new Update().unset("contentHash"), Note.class);
+
+        performPatchNote(CHILD_UUID, NotePatcher.hash(CHILD_CONTENT), NotePatcher.diff(CHILD_CONTENT, "new content"))
+                .andExpect(status().isConflict());
+
+        Note note = assertNoteExistsAndGet(CHILD_UUID);
+
+        assertEquals(CHILD_CONTENT, note.getContent());
+    }
+
+    @Test
+    @WithMockUser
+    public void patchNote_invalidEditFail() throws Exception {
+        performPatchNote(CHILD_UUID, NotePatcher.hash(CHILD_CONTENT), List.of(NoteEditDto
+                .builder()
+                .offset(CHILD_CONTENT.length())
+                .length(1)
+                .text("x")
+                .build()))
+                .andExpect(status().isBadRequest());
+
+        Note note = assertNoteExistsAndGet(CHILD_UUID);
+
+        assertEquals(CHILD_CONTENT, note.getContent());
+    }
+
+    @Test
+    @WithMockUser
+    public void patchNote_nullEditsFail() throws Exception {
+        for(String edits : List.of("null", "[null]")) {
+            perform(post("/note/patch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"uuid\":\"" + CHILD_UUID + "\",\"title\":\"" + CHILD_TITLE +
+                            "\",\"baseHash\":\"" + NotePatcher.hash(CHILD_CONTENT) + "\",\"edits\":" + edits + "}"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        assertEquals(CHILD_CONTENT, assertNoteExistsAndGet(CHILD_UUID).getContent());
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void patchNote_userFail() throws Exception {
+        performPatchNote(CHILD_UUID, NotePatcher.hash(CHILD_CONTENT), NotePatcher.diff(CHILD_CONTENT, "new content"))
+                .andExpect(status().isForbidden());
+
+        Note note = assertNoteExistsAndGet(CHILD_UUID);
+
+        assertEquals(CHILD_CONTENT, note.getContent());
+    }
+
     @Test
     @WithMockUser
     public void moveNote_valid() throws Exception {
@@ -105,6 +321,30 @@ public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
 
         assertEquals(1, parent2.getChildren().size());
         assertEquals(CHILD_UUID, parent2.getChildren().get(0).getUuid());
+
+        Note child = assertNoteExistsAndGet(CHILD_UUID);
+        Note subChild = assertNoteExistsAndGet(SUB_CHILD_UUID);
+
+        assertEquals(PARENT_2_UUID, child.getParent());
+        assertEquals(List.of(ROOT_UUID, PARENT_2_UUID), child.getAncestors());
+        assertEquals(List.of(ROOT_UUID, PARENT_2_UUID, CHILD_UUID), subChild.getAncestors());
+    }
+
+    @Test
+    @WithMockUser
+    public void moveNote_notMigrated() throws Exception {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("parent").unset("ancestors"), Note.class);
+
+        performMoveNote(CHILD_UUID, PARENT_2_UUID)
+                .andExpect(status().isOk());
+
+        Note parent1 = assertNoteExistsAndGet(PARENT_1_UUID);
+        Note child = assertNoteExistsAndGet(CHILD_UUID);
+
+        assertTrue(parent1.getChildren().isEmpty());
+
+        assertEquals(PARENT_2_UUID, child.getParent());
+        assertEquals(List.of(ROOT_UUID, PARENT_2_UUID), child.getAncestors());
     }
 
     @Test
@@ -129,6 +369,44 @@ public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
         assertTrue(parent.getChildren().isEmpty());
     }
 
+    @Test
+    @WithMockUser
+    public void moveNote_selfFail() throws Exception {
+        performMoveNote(CHILD_UUID, CHILD_UUID)
+                .andExpect(status().isBadRequest());
+
+        Note child = assertNoteExistsAndGet(CHILD_UUID);
+
+        assertEquals(1, child.getChildren().size());
+        assertEquals(PARENT_1_UUID, child.getParent());
+    }
+
+    @Test
+    @WithMockUser
+    public void moveNote_constantQueries() throws Exception {
+        commandCounter.reset();
+        performMoveNote(CHILD_UUID, PARENT_2_UUID)
+                .andExpect(status().isOk());
+        int smallSubtreeQueries = commandCounter.count();
+
+        performMoveNote(CHILD_UUID, PARENT_1_UUID)
+                .andExpect(status().isOk());
+
+        List<Note> notes = new ArrayList<>();
+        addChildren(assertNoteExistsAndGet(SUB_CHILD_UUID), 10, 3, notes);
+        noteRepository.insert(notes.subList(0, notes.size() - 1));
+        noteRepository.save(notes.get(notes.size() - 1));
+
+        commandCounter.reset();
+        performMoveNote(CHILD_UUID, PARENT_2_UUID)
+                .andExpect(status().isOk());
+        int largeSubtreeQueries = commandCounter.count();
+
+        assertEquals(smallSubtreeQueries, largeSubtreeQueries);
+        assertEquals(List.of(ROOT_UUID, PARENT_2_UUID, CHILD_UUID, SUB_CHILD_UUID),
+                assertNoteExistsAndGet(SUB_CHILD_UUID + "-0").getAncestors());
+    }
+
     @Test
     @WithMockUser(DIFFERENT_USER_NAME)
     public void moveNote_userFail() throws Exception {
@@ -164,6 +442,39 @@ public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
         assertEquals(2, root.getChildren().size());
 
         assertEquals(CHILD_UUID, root.getChildren().get(1).getUuid());
+
+        Note child = assertNoteExistsAndGet(CHILD_UUID);
+        Note subChild = assertNoteExistsAndGet(SUB_CHILD_UUID);
+
+        assertEquals(ROOT_UUID, child.getParent());
+        assertEquals(List.of(ROOT_UUID), child.getAncestors());
+        assertEquals(List.of(ROOT_UUID, CHILD_UUID), subChild.getAncestors());
+    }
+
+    @Test
+    @WithMockUser
+    public void removeNote_constantQueries() throws Exception {
+        noteMigrationService.migrateNotes();
+
+        commandCounter.reset();
+        performRemoveNote(PARENT_1_UUID, true)
+                .andExpect(status().isOk());
+        int smallSubtreeQueries = commandCounter.count();
+
+        List<Note> notes = new ArrayList<>();
+        addChildren(assertNoteExistsAndGet(PARENT_2_UUID), 10, 4, notes);
+        noteRepository.insert(notes.subList(0, notes.size() - 1));
+        noteRepository.save(notes.get(notes.size() - 1));
+        assertEquals(11112, noteRepository.count());
+
+        commandCounter.reset();
+        performRemoveNote(PARENT_2_UUID, true)
+                .andExpect(status().isOk());
+        int largeSubtreeQueries = commandCounter.count();
+
+        assertTrue(largeSubtreeQueries <= smallSubtreeQueries);
+        assertEquals(1, commandCounter.count("delete"));
+        assertEquals(1, noteRepository.count());
     }
 
     @Test
@@ -186,8 +497,213 @@ public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
         assertEquals(1, note.getChildren().size());
     }
 
+    @Test
+    @WithMockUser
+    public void applyBatch_valid() throws Exception {
+        noteMigrationService.migrateNotes();
+
+        String result = performApplyBatch(
+                NoteOperationDto.create("new", PARENT_2_UUID, "created child"),
+                NoteOperationDto.change("new", "created child", "new content"),
+                NoteOperationDto.move(CHILD_UUID, "new"),
+                NoteOperationDto.remove(PARENT_1_UUID, false))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> uuids = objectMapper.readValue(result, NoteBatchResultDto.class).getUuids();
+
+        assertEquals(4, uuids.size());
+        assertEquals(uuids.get(0), uuids.get(1));
+        assertEquals(List.of(CHILD_UUID, PARENT_1_UUID), uuids.subList(2, 4));
+
+        Note created = assertNoteExistsAndGet(uuids.get(0));
+
+        assertEquals("new content", created.getContent());
+        assertEquals(List.of(ROOT_UUID, PARENT_2_UUID), created.getAncestors());
+        assertEquals(List.of(CHILD_UUID), created.getChildUuids());
+        assertEquals(USER_NAME, created.getUser().getUsername());
+
+        assertEquals(List.of(uuids.get(0)), assertNoteExistsAndGet(PARENT_2_UUID).getChildUuids());
+        assertEquals(List.of(PARENT_2_UUID), assertNoteExistsAndGet(ROOT_UUID).getChildUuids());
+
+        assertNoteDoesNotExist(PARENT_1_UUID);
+
+        Note child = assertNoteExistsAndGet(CHILD_UUID);
+        Note subChild = assertNoteExistsAndGet(SUB_CHILD_UUID);
+
+        assertEquals(created.getUuid(), child.getParent());
+        assertEquals(List.of(ROOT_UUID, PARENT_2_UUID, created.getUuid()), child.getAncestors());
+        assertEquals(List.of(ROOT_UUID, PARENT_2_UUID, created.getUuid(), CHILD_UUID), subChild.getAncestors());
+    }
+
+    @Test
+    @WithMockUser
+    public void applyBatch_constantQueries() throws Exception {
+        noteMigrationService.migrateNotes();
+
+        commandCounter.reset();
+        performApplyBatch(NoteOperationDto.change(CHILD_UUID, CHILD_TITLE, "new content"))
+                .andExpect(status().isOk());
+        int singleOperationQueries = commandCounter.count();
+
+        List<NoteOperationDto> operations = new ArrayList<>();
+        for(String uuid : List.of(ROOT_UUID, PARENT_1_UUID, PARENT_2_UUID, CHILD_UUID, SUB_CHILD_UUID)) {
+            for(int i = 0; i < 4; i++) {
+                operations.add(NoteOperationDto.change(uuid, "title " + i, "content " + i));
+            }
+        }
+
+        commandCounter.reset();
+        performApplyBatch(operations.toArray(NoteOperationDto[]::new))
+                .andExpect(status().isOk());
+        int multipleOperationQueries = commandCounter.count();
+
+        //one query for the notes, one bulk write and one update for the version of the space
+        assertEquals(3, singleOperationQueries);
+        assertEquals(singleOperationQueries, multipleOperationQueries);
+        assertEquals("content 3", assertNoteExistsAndGet(SUB_CHILD_UUID).getContent());
+    }
+
+    @Test
+    @WithMockUser
+    public void applyBatch_mixedConstantQueries() throws Exception {
+        noteMigrationService.migrateNotes();
+
+        commandCounter.reset();
+        performApplyBatch(
+                NoteOperationDto.create("new", PARENT_2_UUID, "created child"),
+                NoteOperationDto.move(SUB_CHILD_UUID, "new"),
+                NoteOperationDto.change(CHILD_UUID, CHILD_TITLE, "new content"),
+                NoteOperationDto.remove(CHILD_UUID, false))
+                .andExpect(status().isOk());
+        int singleOperationQueries = commandCounter.count();
+
+        List<NoteOperationDto> operations = new ArrayList<>();
+        for(int i = 0; i < 4; i++) {
+            operations.add(NoteOperationDto.create("new " + i, PARENT_2_UUID, "created child " + i));
+            operations.add(NoteOperationDto.change("new " + i, "created child " + i, "content " + i));
+            operations.add(NoteOperationDto.move(SUB_CHILD_UUID, "new " + i));
+            operations.add(NoteOperationDto.change(SUB_CHILD_UUID, SUB_CHILD_TITLE, "content " + i));
+            operations.add(NoteOperationDto.create("removed " + i, ROOT_UUID, "removed child " + i));
+            operations.add(NoteOperationDto.remove("removed " + i, false));
+        }
+        operations.add(NoteOperationDto.remove(PARENT_1_UUID, false));
+
+        commandCounter.reset();
+        String result = performApplyBatch(operations.toArray(NoteOperationDto[]::new))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int multipleOperationQueries = commandCounter.count();
+
+        //one update, one delete and one insert for the notes regardless of how the operations are interleaved
+        assertEquals(1, commandCounter.count("update", "note"));
+        assertEquals(1, commandCounter.count("delete", "note"));
+        assertEquals(1, commandCounter.count("insert", "note"));
+        assertEquals(singleOperationQueries, multipleOperationQueries);
+
+        List<String> uuids = objectMapper.readValue(result, NoteBatchResultDto.class).getUuids();
+
+        Note subChild = assertNoteExistsAndGet(SUB_CHILD_UUID);
+
+        assertEquals("content 3", subChild.getContent());
+        assertEquals(uuids.get(18), subChild.getParent());
+        assertEquals(List.of(ROOT_UUID, PARENT_2_UUID, uuids.get(18)), subChild.getAncestors());
+        assertEquals(List.of(SUB_CHILD_UUID), assertNoteExistsAndGet(uuids.get(18)).getChildUuids());
+        assertEquals("content 3", assertNoteExistsAndGet(uuids.get(18)).getContent());
+        assertTrue(assertNoteExistsAndGet(uuids.get(0)).getChildUuids().isEmpty());
+        assertNoteDoesNotExist(uuids.get(4));
+        assertNoteDoesNotExist(PARENT_1_UUID);
+    }
+
+    @Test
+    @WithMockUser
+    public void applyBatch_invalidOperationFail() throws Exception {
+        noteMigrationService.migrateNotes();
+
+        performApplyBatch(
+                NoteOperationDto.change(CHILD_UUID, CHILD_TITLE, "new content"),
+                NoteOperationDto.move(ROOT_UUID, PARENT_2_UUID))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(CHILD_CONTENT, assertNoteExistsAndGet(CHILD_UUID).getContent());
+    }
+
+    @Test
+    @WithMockUser
+    public void applyBatch_cyclicFail() throws Exception {
+        noteMigrationService.migrateNotes();
+
+        performApplyBatch(
+                NoteOperationDto.move(PARENT_2_UUID, SUB_CHILD_UUID),
+                NoteOperationDto.move(PARENT_1_UUID, PARENT_2_UUID))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(ROOT_UUID, assertNoteExistsAndGet(PARENT_2_UUID).getParent());
+    }
+
+    @Test
+    @WithMockUser
+    public void applyBatch_removedNoteFail() throws Exception {
+        noteMigrationService.migrateNotes();
+
+        performApplyBatch(
+                NoteOperationDto.remove(PARENT_1_UUID, true),
+                NoteOperationDto.change(SUB_CHILD_UUID, SUB_CHILD_TITLE, "new content"))
+                .andExpect(status().isNotFound());
+
+        assertNoteExistsAndGet(PARENT_1_UUID);
+    }
+
+    @Test
+    @WithMockUser
+    public void applyBatch_missingFieldsFail() throws Exception {
+        performApplyBatch(NoteOperationDto.builder().type(NoteOperationDto.Type.MOVE).uuid(CHILD_UUID).build())
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void applyBatch_userFail() throws Exception {
+        noteMigrationService.migrateNotes();
+
+        performApplyBatch(NoteOperationDto.create("new", PARENT_2_UUID, "created child"))
+                .andExpect(status().isForbidden());
+
+        assertTrue(assertNoteExistsAndGet(PARENT_2_UUID).getChildren().isEmpty());
+    }
+
+    /**
+     * Adds a full tree of notes below a note to the given list, with the given amount of
+     * children per note and depth. The parent is added to the list after its children.
+     */
+    private void addChildren(Note parent, int width, int depth, List<Note> notes) {
+        if(depth > 0) {
+            List<String> ancestors = new ArrayList<>(parent.getAncestors());
+            ancestors.add(parent.getUuid());
+            for(int i = 0; i < width; i++) {
+                Note note = Note
+                        .builder()
+                        .uuid(parent.getUuid() + "-" + i)
+                        .user(parent.getUser())
+                        .owner(parent.getOwner())
+                        .space(parent.getSpace())
+                        .parent(parent.getUuid())
+                        .ancestors(ancestors)
+                        .title(parent.getTitle() + " " + i)
+                        .build();
+                addChildren(note, width, depth - 1, notes);
+                parent.getChildren().add(note);
+            }
+        }
+        notes.add(parent);
+    }
+
+    private ResultActions performGetNote(String noteUuid) throws Exception {
+        return perform(get("/note/get?uuid=" + noteUuid));
+    }
+
     private ResultActions performCreateNote(String noteTitle, String parentUuid) throws Exception {
-        return mvc.perform(
+        return perform(
                 post("/note/create")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(NoteCreateDto
@@ -201,7 +717,7 @@ public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
     }
 
     private ResultActions performChangeNote(String noteUuid, String newContent) throws Exception {
-        return mvc.perform(
+        return perform(
                 post("/note/change")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(NoteChangeDto
@@ -211,8 +727,21 @@ public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
                                 .build())));
     }
 
+    private ResultActions performPatchNote(String noteUuid, String baseHash, List<NoteEditDto> edits) throws Exception {
+        return perform(
+                post("/note/patch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NotePatchDto
+                                .builder()
+                                .uuid(noteUuid)
+                                .title(CHILD_TITLE)
+                                .baseHash(baseHash)
+                                .edits(edits)
+                                .build())));
+    }
+
     private ResultActions performMoveNote(String noteUuid, String parentUuid) throws Exception {
-        return mvc.perform(
+        return perform(
                 post("/note/move")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(NoteMoveDto
@@ -226,12 +755,22 @@ public class NoteControllerIntegrationTest extends AbstractIntegrationTest {
     }
 
     private ResultActions performRemoveNote(String noteUuid, boolean removeChildren) throws Exception {
-        return mvc.perform(
+        return perform(
                 delete("/note/remove" +
                         "?uuid=" + noteUuid +
                         "&removeChildren=" + removeChildren));
     }
 
+    private ResultActions performApplyBatch(NoteOperationDto... operations) throws Exception {
+        return perform(
+                post("/note/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteBatchDto
+                                .builder()
+                                .operations(List.of(operations))
+                                .build())));
+    }
+
     private Note assertNoteExistsAndGet(String noteUuid) {
         Optional<Note> note = noteRepository.findById(noteUuid);
         assertTrue(note.isPresent());
@@ -0,0 +1,111 @@
+package me.datafox.noterganizer.server.test.integration;
+
+import me.datafox.noterganizer.api.NotePatcher;
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.Space;
+import me.datafox.noterganizer.server.repository.NoteRepository;
+import me.datafox.noterganizer.server.repository.SpaceRepository;
+import me.datafox.noterganizer.server.service.NoteMigrationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author datafox
+ */
+public class NoteMigrationIntegrationTest extends AbstractIntegrationTest {
+    @Autowired
+    private NoteMigrationService noteMigrationService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private SpaceRepository spaceRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoCommandCounter commandCounter;
+
+    @Test
+    public void migrateNotes_valid() {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("parent").unset("ancestors"), Note.class);
+
+        noteMigrationService.migrateNotes();
+
+        assertNote(ROOT_UUID, null, List.of());
+        assertNote(PARENT_1_UUID, ROOT_UUID, List.of(ROOT_UUID));
+        assertNote(PARENT_2_UUID, ROOT_UUID, List.of(ROOT_UUID));
+        assertNote(CHILD_UUID, PARENT_1_UUID, List.of(ROOT_UUID, PARENT_1_UUID));
+        assertNote(SUB_CHILD_UUID, CHILD_UUID, List.of(ROOT_UUID, PARENT_1_UUID, CHILD_UUID));
+    }
+
+    @Test
+    public void migrateNotes_partiallyMigrated() {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("ancestors"), Note.class);
+
+        Note child = noteRepository.findById(CHILD_UUID).orElseThrow();
+        child.setParent(PARENT_2_UUID);
+        noteRepository.save(child);
+
+        noteMigrationService.migrateNotes();
+
+        assertNote(CHILD_UUID, PARENT_2_UUID, List.of(ROOT_UUID, PARENT_2_UUID));
+        assertNote(SUB_CHILD_UUID, CHILD_UUID, List.of(ROOT_UUID, PARENT_2_UUID, CHILD_UUID));
+    }
+
+    @Test
+    public void migrateNotes_owners() {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("owner"), Note.class);
+        mongoTemplate.updateMulti(new Query(), new Update().unset("owner"), Space.class);
+
+        noteMigrationService.migrateNotes();
+
+        noteRepository.findAll().forEach(note -> assertEquals(USER_NAME, note.getOwner()));
+        assertEquals(USER_NAME, spaceRepository.findById(SPACE_UUID).orElseThrow().getOwner());
+    }
+
+    @Test
+    public void migrateNotes_terms() {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("terms"), Note.class);
+
+        noteMigrationService.migrateNotes();
+
+        assertEquals(Set.of("sub", "child", "content"), noteRepository.findById(SUB_CHILD_UUID).orElseThrow().getTerms());
+        assertEquals(Set.of("root", "content"), noteRepository.findById(ROOT_UUID).orElseThrow().getTerms());
+    }
+
+    @Test
+    public void migrateNotes_contentHashes() {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("contentHash"), Note.class);
+
+        noteMigrationService.migrateNotes();
+
+        assertEquals(NotePatcher.hash(SUB_CHILD_CONTENT), noteRepository.findById(SUB_CHILD_UUID).orElseThrow().getContentHash());
+        assertEquals(NotePatcher.hash(ROOT_CONTENT), noteRepository.findById(ROOT_UUID).orElseThrow().getContentHash());
+    }
+
+    @Test
+    public void migrateNotes_alreadyMigrated() {
+        commandCounter.reset();
+
+        noteMigrationService.migrateNotes();
+
+        assertEquals(2, commandCounter.count());
+    }
+
+    private void assertNote(String uuid, String parent, List<String> ancestors) {
+        Note note = noteRepository.findById(uuid).orElseThrow();
+        assertEquals(parent, note.getParent());
+        assertEquals(ancestors, note.getAncestors());
+    }
+}
@@ -0,0 +1,148 @@
+package me.datafox.noterganizer.server.test.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.datafox.noterganizer.api.dto.NoteTreeDto;
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.model.Space;
+import me.datafox.noterganizer.server.repository.NoteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for the API calls that only exist in the reactive profile. All other API calls
+ * are tested in both profiles by the other integration tests.
+ *
+ * @author datafox
+ */
+@ActiveProfiles("reactive")
+public class ReactiveSpaceControllerIntegrationTest extends AbstractIntegrationTest {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoCommandCounter commandCounter;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    @WithMockUser
+    public void streamSpaceTree_valid() throws Exception {
+        Map<String, NoteTreeDto> notes = readNotes(performStreamSpaceTree(SPACE_UUID)
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)));
+
+        assertEquals(5, notes.size());
+        assertEquals(ROOT_TITLE, notes.get(ROOT_UUID).getTitle());
+        assertEquals(List.of(PARENT_1_UUID, PARENT_2_UUID), childUuids(notes.get(ROOT_UUID)));
+        assertEquals(List.of(CHILD_UUID), childUuids(notes.get(PARENT_1_UUID)));
+        assertEquals(List.of(SUB_CHILD_UUID), childUuids(notes.get(CHILD_UUID)));
+        assertEquals(List.of(), childUuids(notes.get(SUB_CHILD_UUID)));
+    }
+
+    @Test
+    @WithMockUser
+    public void streamSpaceTree_gzipAccepted() throws Exception {
+        //Flushed parts of the stream must not be held back by the compression filter
+        Map<String, NoteTreeDto> notes = readNotes(perform(get("/space/tree/stream?uuid=" + SPACE_UUID)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING)));
+
+        assertEquals(5, notes.size());
+    }
+
+    @Test
+    @WithMockUser
+    public void streamSpaceTree_constantQueries() throws Exception {
+        commandCounter.reset();
+
+        performStreamSpaceTree(SPACE_UUID)
+                .andExpect(status().isOk());
+
+        assertEquals(3, commandCounter.count());
+    }
+
+    @Test
+    @WithMockUser
+    public void streamSpaceTree_migrateNotes() throws Exception {
+        noteRepository.updateSpace(noteRepository.findAll().stream().map(Note::getUuid).toList(), null);
+
+        Map<String, NoteTreeDto> notes = readNotes(performStreamSpaceTree(SPACE_UUID)
+                .andExpect(status().isOk()));
+
+        assertEquals(5, notes.size());
+        assertEquals(5, noteRepository.findNodeHeadersBySpace(SPACE_UUID).size());
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void streamSpaceTree_ownerNotMigratedUserFail() throws Exception {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("owner"), Space.class);
+
+        performStreamSpaceTree(SPACE_UUID)
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void streamSpaceTree_userFail() throws Exception {
+        performStreamSpaceTree(SPACE_UUID)
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser
+    public void streamSpaceTree_nonExistentFail() throws Exception {
+        performStreamSpaceTree("non-existent-space-uuid")
+                .andExpect(status().isNotFound());
+    }
+
+    private ResultActions performStreamSpaceTree(String spaceUuid) throws Exception {
+        return perform(get("/space/tree/stream?uuid=" + spaceUuid)
+                .accept(MediaType.APPLICATION_NDJSON));
+    }
+
+    private Map<String, NoteTreeDto> readNotes(ResultActions actions) throws Exception {
+        return actions
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, NoteTreeDto.class);
+                    } catch(Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .collect(Collectors.toMap(NoteTreeDto::getUuid, Function.identity()));
+    }
+
+    private List<String> childUuids(NoteTreeDto note) {
+        return note.getChildren().stream().map(NoteTreeDto::getUuid).toList();
+    }
+}
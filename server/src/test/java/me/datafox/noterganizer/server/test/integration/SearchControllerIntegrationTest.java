@@ -0,0 +1,185 @@
+package me.datafox.noterganizer.server.test.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.datafox.noterganizer.api.dto.NoteChangeDto;
+import me.datafox.noterganizer.api.dto.SearchHitDto;
+import me.datafox.noterganizer.api.dto.SearchResultDto;
+import me.datafox.noterganizer.server.repository.NoteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @author datafox
+ */
+public class SearchControllerIntegrationTest extends AbstractIntegrationTest {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoCommandCounter commandCounter;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Test
+    @WithMockUser
+    public void search_valid() throws Exception {
+        SearchResultDto result = search("Child", 0, 20);
+
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of(CHILD_UUID, SUB_CHILD_UUID), uuids(result));
+        assertEquals(SPACE_UUID, result.getHits().get(0).getSpace());
+        assertEquals(CHILD_TITLE, result.getHits().get(0).getTitle());
+        assertEquals(CHILD_CONTENT, result.getHits().get(0).getSnippet());
+    }
+
+    @Test
+    @WithMockUser
+    public void search_allTermsRequired() throws Exception {
+        SearchResultDto result = search("sub content", 0, 20);
+
+        assertEquals(List.of(SUB_CHILD_UUID), uuids(result));
+    }
+
+    @Test
+    @WithMockUser
+    public void search_titleRankedFirst() throws Exception {
+        SearchResultDto result = search("root content", 0, 20);
+
+        assertEquals(List.of(ROOT_UUID), uuids(result));
+
+        result = search("parent", 0, 20);
+
+        assertEquals(List.of(PARENT_1_UUID, PARENT_2_UUID), uuids(result));
+    }
+
+    @Test
+    @WithMockUser
+    public void search_contentPhraseRanked() throws Exception {
+        performChangeNote(PARENT_2_UUID, PARENT_2_TITLE, "parent content")
+                .andExpect(status().isOk());
+
+        SearchResultDto result = search("parent content", 0, 20);
+
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of(PARENT_2_UUID, PARENT_1_UUID), uuids(result));
+    }
+
+    @Test
+    @WithMockUser
+    public void search_paginated() throws Exception {
+        SearchResultDto result = search("content", 1, 2);
+
+        assertEquals(5, result.getTotal());
+        assertEquals(1, result.getPage());
+        assertEquals(2, result.getSize());
+        assertEquals(List.of(PARENT_1_UUID, PARENT_2_UUID), uuids(result));
+
+        result = search("content", 2, 2);
+
+        assertEquals(List.of(SUB_CHILD_UUID), uuids(result));
+    }
+
+    @Test
+    @WithMockUser
+    public void search_snippet() throws Exception {
+        String content = "lorem ipsum ".repeat(50) + "needle " + "dolor sit amet ".repeat(50);
+        performChangeNote(PARENT_2_UUID, PARENT_2_TITLE, content)
+                .andExpect(status().isOk());
+
+        SearchResultDto result = search("needle", 0, 20);
+
+        assertEquals(List.of(PARENT_2_UUID), uuids(result));
+        String snippet = result.getHits().get(0).getSnippet();
+        assertTrue(snippet.startsWith("…"));
+        assertTrue(snippet.endsWith("…"));
+        assertTrue(snippet.contains("needle"));
+        assertTrue(snippet.length() < content.length() / 4);
+    }
+
+    @Test
+    @WithMockUser
+    public void search_changedNote() throws Exception {
+        performChangeNote(CHILD_UUID, "renamed", "new text")
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(CHILD_UUID), uuids(search("renamed text", 0, 20)));
+        assertEquals(List.of(SUB_CHILD_UUID), uuids(search("child", 0, 20)));
+    }
+
+    @Test
+    @WithMockUser
+    public void search_twoQueries() throws Exception {
+        commandCounter.reset();
+        search("content", 0, 20);
+
+        assertEquals(1, commandCounter.count("aggregate"));
+        assertEquals(1, commandCounter.count("find"));
+        assertEquals(2, commandCounter.count());
+    }
+
+    @Test
+    @WithMockUser
+    public void search_totalBeyondPage() throws Exception {
+        SearchResultDto result = search("content", 5, 2);
+
+        assertEquals(5, result.getTotal());
+        assertTrue(result.getHits().isEmpty());
+    }
+
+    @Test
+    @WithMockUser
+    public void search_noTerms() throws Exception {
+        SearchResultDto result = search("a #", 0, 20);
+
+        assertEquals(0, result.getTotal());
+        assertTrue(result.getHits().isEmpty());
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void search_otherUserNotFound() throws Exception {
+        SearchResultDto result = search("content", 0, 20);
+
+        assertEquals(0, result.getTotal());
+        assertTrue(result.getHits().isEmpty());
+    }
+
+    private SearchResultDto search(String query, int page, int size) throws Exception {
+        String result = perform(get("/search")
+                        .param("q", query)
+                        .param("page", String.valueOf(page))
+                        .param("size", String.valueOf(size)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        return objectMapper.readValue(result, SearchResultDto.class);
+    }
+
+    private List<String> uuids(SearchResultDto result) {
+        return result.getHits().stream().map(SearchHitDto::getUuid).toList();
+    }
+
+    private ResultActions performChangeNote(String noteUuid, String newTitle, String newContent) throws Exception {
+        return perform(
+                post("/note/change")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteChangeDto
+                                .builder()
+                                .uuid(noteUuid)
+                                .title(newTitle)
+                                .content(newContent)
+                                .build())));
+    }
+}
@@ -1,23 +1,40 @@
 package me.datafox.noterganizer.server.test.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import me.datafox.noterganizer.api.dto.NoteChangeDto;
+import me.datafox.noterganizer.api.dto.NoteCreateDto;
+import me.datafox.noterganizer.api.dto.NoteHeaderDto;
 import me.datafox.noterganizer.api.dto.SpaceCreateDto;
 import me.datafox.noterganizer.api.dto.SpaceDto;
+import me.datafox.noterganizer.api.dto.SpaceTreeDto;
+import me.datafox.noterganizer.server.model.Note;
 import me.datafox.noterganizer.server.model.Space;
 import me.datafox.noterganizer.server.repository.NoteRepository;
 import me.datafox.noterganizer.server.repository.SpaceRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
-import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -25,10 +42,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 public class SpaceControllerIntegrationTest extends AbstractIntegrationTest {
     @Autowired
-    private MockMvc mvc;
+    private ObjectMapper objectMapper;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private MongoCommandCounter commandCounter;
 
     @Autowired
     private NoteRepository noteRepository;
@@ -36,6 +53,9 @@ public class SpaceControllerIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private SpaceRepository spaceRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Test
     @WithMockUser
     public void getSpace_valid() throws Exception {
@@ -49,6 +69,124 @@ public class SpaceControllerIntegrationTest extends AbstractIntegrationTest {
         assertEquals(ROOT_UUID, space.getRoot().getUuid());
     }
 
+    @Test
+    @WithMockUser
+    public void getSpace_batchedQueries() throws Exception {
+        commandCounter.reset();
+        performGetSpace(SPACE_UUID)
+                .andExpect(status().isOk());
+        int smallSpaceQueries = commandCounter.count();
+
+        addChildren(PARENT_2_UUID, 10, 3);
+
+        commandCounter.reset();
+        String result = performGetSpace(SPACE_UUID)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int largeSpaceQueries = commandCounter.count();
+
+        SpaceDto space = objectMapper.readValue(result, SpaceDto.class);
+
+        assertEquals(10, space.getRoot().getChildren().get(1).getChildren().size());
+        //1115 notes are fetched in three batches of at most 500 note contents
+        assertEquals(smallSpaceQueries + 2, largeSpaceQueries);
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpace_cbor() throws Exception {
+        byte[] result = perform(get("/space/get?uuid=" + SPACE_UUID)
+                        .accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        SpaceDto space = new CBORMapper().readValue(result, SpaceDto.class);
+
+        assertEquals(SPACE_UUID, space.getUuid());
+        assertEquals(ROOT_CONTENT, space.getRoot().getContent());
+        assertEquals(SUB_CHILD_CONTENT, space.getRoot().getChildren().get(0).getChildren().get(0).getChildren().get(0).getContent());
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpace_compressed() throws Exception {
+        addChildren(PARENT_2_UUID, 10, 2);
+
+        MockHttpServletResponse response = perform(get("/space/get?uuid=" + SPACE_UUID)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+
+        String result;
+        try(GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            result = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        SpaceDto space = objectMapper.readValue(result, SpaceDto.class);
+
+        assertEquals(10, space.getRoot().getChildren().get(1).getChildren().size());
+        assertTrue(response.getContentAsByteArray().length < result.length());
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpace_streamedCompressed() throws Exception {
+        addChildren(PARENT_2_UUID, 10, 3);
+
+        MockHttpServletResponse response = perform(get("/space/get?uuid=" + SPACE_UUID)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+
+        String result;
+        try(GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            result = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        SpaceDto space = objectMapper.readValue(result, SpaceDto.class);
+
+        assertTrue(result.length() > 32768);
+        assertEquals(SUB_CHILD_CONTENT, space.getRoot().getChildren().get(0).getChildren().get(0).getChildren().get(0).getContent());
+        assertEquals("content", space.getRoot().getChildren().get(1).getChildren().get(9).getChildren().get(9).getChildren().get(9).getContent());
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpace_notAcceptedNotCompressed() throws Exception {
+        addChildren(PARENT_2_UUID, 10, 2);
+
+        performGetSpace(SPACE_UUID)
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpace_smallNotCompressed() throws Exception {
+        perform(get("/space/tree?uuid=" + SPACE_UUID)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpace_migrateNotes() throws Exception {
+        noteRepository.updateSpace(noteRepository.findAll().stream().map(Note::getUuid).toList(), null);
+
+        String result = performGetSpace(SPACE_UUID)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        SpaceDto space = objectMapper.readValue(result, SpaceDto.class);
+
+        assertEquals(2, space.getRoot().getChildren().size());
+        assertEquals(5, noteRepository.findNodeHeadersBySpace(SPACE_UUID).size());
+    }
+
     @Test
     @WithMockUser(DIFFERENT_USER_NAME)
     public void getSpace_userFail() throws Exception {
@@ -56,6 +194,133 @@ public class SpaceControllerIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithMockUser
+    public void getSpace_notModified() throws Exception {
+        String eTag = performGetSpace(SPACE_UUID)
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        commandCounter.reset();
+
+        MockHttpServletResponse response = perform(get("/space/get?uuid=" + SPACE_UUID)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andReturn().getResponse();
+
+        assertEquals(0, response.getContentLength());
+        assertEquals(1, commandCounter.count());
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpace_modified() throws Exception {
+        String eTag = performGetSpace(SPACE_UUID)
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        performChangeNote(CHILD_UUID, "new content")
+                .andExpect(status().isOk());
+
+        String result = perform(get("/space/get?uuid=" + SPACE_UUID)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        SpaceDto space = objectMapper.readValue(result, SpaceDto.class);
+
+        assertEquals("new content", space.getRoot().getChildren().get(0).getChildren().get(0).getContent());
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void getSpace_notModifiedUserFail() throws Exception {
+        perform(get("/space/get?uuid=" + SPACE_UUID)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"" + SPACE_UUID + "-0\""))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpaceTree_valid() throws Exception {
+        String result = performGetSpaceTree(SPACE_UUID)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        SpaceTreeDto space = objectMapper.readValue(result, SpaceTreeDto.class);
+
+        assertEquals(SPACE_UUID, space.getUuid());
+        assertEquals(ROOT_UUID, space.getRoot().getUuid());
+        assertEquals(ROOT_TITLE, space.getRoot().getTitle());
+        assertEquals(2, space.getRoot().getChildren().size());
+        assertEquals(SUB_CHILD_UUID, space.getRoot().getChildren().get(0).getChildren().get(0).getChildren().get(0).getUuid());
+        assertFalse(result.contains(ROOT_CONTENT));
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpaceTree_notModified() throws Exception {
+        String eTag = performGetSpaceTree(SPACE_UUID)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        perform(get("/space/tree?uuid=" + SPACE_UUID)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        performCreateNote(PARENT_2_UUID, "new note")
+                .andExpect(status().isOk());
+
+        perform(get("/space/tree?uuid=" + SPACE_UUID)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpaceTree_twoQueries() throws Exception {
+        commandCounter.reset();
+
+        performGetSpaceTree(SPACE_UUID)
+                .andExpect(status().isOk());
+
+        assertEquals(2, commandCounter.count());
+        assertEquals(0, commandCounter.count("find", "appUser"));
+    }
+
+    @Test
+    @WithMockUser
+    public void getSpaceTree_ownerNotMigrated() throws Exception {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("owner"), Space.class);
+
+        String result = performGetSpaceTree(SPACE_UUID)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        SpaceTreeDto space = objectMapper.readValue(result, SpaceTreeDto.class);
+
+        assertEquals(ROOT_UUID, space.getRoot().getUuid());
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void getSpaceTree_ownerNotMigratedUserFail() throws Exception {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("owner"), Space.class);
+
+        performGetSpaceTree(SPACE_UUID)
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void getSpaceTree_userFail() throws Exception {
+        performGetSpaceTree(SPACE_UUID)
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser
     public void createSpace_valid() throws Exception {
@@ -66,6 +331,8 @@ public class SpaceControllerIntegrationTest extends AbstractIntegrationTest {
         Space space = assertSpaceExistsAndGet(result);
 
         assertEquals("new space", space.getRoot().getTitle());
+        assertEquals(USER_NAME, space.getOwner());
+        assertEquals(USER_NAME, space.getRoot().getOwner());
     }
 
     @Test
@@ -77,6 +344,19 @@ public class SpaceControllerIntegrationTest extends AbstractIntegrationTest {
         assertSpaceDoesNotExist(SPACE_UUID);
         assertNoteDoesNotExist(ROOT_UUID);
         assertNoteDoesNotExist(SUB_CHILD_UUID);
+        assertEquals(0, noteRepository.count());
+    }
+
+    @Test
+    @WithMockUser
+    public void removeSpace_notMigrated() throws Exception {
+        noteRepository.updateSpace(noteRepository.findAll().stream().map(Note::getUuid).toList(), null);
+
+        performRemoveSpace(SPACE_UUID)
+                .andExpect(status().isOk());
+
+        assertSpaceDoesNotExist(SPACE_UUID);
+        assertEquals(0, noteRepository.count());
     }
 
     @Test
@@ -88,12 +368,70 @@ public class SpaceControllerIntegrationTest extends AbstractIntegrationTest {
         assertSpaceExistsAndGet(SPACE_UUID);
     }
 
+    /**
+     * Adds a full tree of notes below a note, with the given amount of children per note
+     * and depth.
+     */
+    private void addChildren(String parentUuid, int width, int depth) {
+        Note parent = noteRepository.findById(parentUuid).orElseThrow();
+        addChildren(parent, width, depth);
+    }
+
+    private void addChildren(Note parent, int width, int depth) {
+        if(depth == 0) return;
+        List<String> ancestors = new ArrayList<>(parent.getAncestors());
+        ancestors.add(parent.getUuid());
+        for(int i = 0; i < width; i++) {
+            Note note = Note
+                    .builder()
+                    .uuid(parent.getUuid() + "-" + i)
+                    .user(parent.getUser())
+                    .owner(parent.getOwner())
+                    .space(parent.getSpace())
+                    .parent(parent.getUuid())
+                    .ancestors(ancestors)
+                    .title(parent.getTitle() + " " + i)
+                    .content("content")
+                    .build();
+            noteRepository.save(note);
+            addChildren(note, width, depth - 1);
+            parent.getChildren().add(note);
+        }
+        noteRepository.save(parent);
+    }
+
     private ResultActions performGetSpace(String spaceUuid) throws Exception {
-        return mvc.perform(get("/space/get?uuid=" + spaceUuid));
+        return perform(get("/space/get?uuid=" + spaceUuid));
+    }
+
+    private ResultActions performGetSpaceTree(String spaceUuid) throws Exception {
+        return perform(get("/space/tree?uuid=" + spaceUuid));
+    }
+
+    private ResultActions performChangeNote(String noteUuid, String newContent) throws Exception {
+        return perform(
+                post("/note/change")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteChangeDto
+                                .builder()
+                                .uuid(noteUuid)
+                                .content(newContent)
+                                .build())));
+    }
+
+    private ResultActions performCreateNote(String parentUuid, String title) throws Exception {
+        return perform(
+                post("/note/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteCreateDto
+                                .builder()
+                                .parent(NoteHeaderDto.builder().uuid(parentUuid).build())
+                                .title(title)
+                                .build())));
     }
 
     private ResultActions performCreateSpace(String spaceName) throws Exception {
-        return mvc.perform(
+        return perform(
                 post("/space/create")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(SpaceCreateDto
@@ -103,7 +441,7 @@ public class SpaceControllerIntegrationTest extends AbstractIntegrationTest {
     }
 
     private ResultActions performRemoveSpace(String spaceUuid) throws Exception {
-        return mvc.perform(delete("/space/remove?uuid=" + spaceUuid));
+        return perform(delete("/space/remove?uuid=" + spaceUuid));
     }
 
     private Space assertSpaceExistsAndGet(String spaceUuid) {
@@ -0,0 +1,268 @@
+package me.datafox.noterganizer.server.test.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.datafox.noterganizer.api.NotePatcher;
+import me.datafox.noterganizer.api.dto.*;
+import me.datafox.noterganizer.server.service.SpaceEventService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * @author datafox
+ */
+public class SpaceEventControllerIntegrationTest extends AbstractIntegrationTest {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoCommandCounter commandCounter;
+
+    @Autowired
+    private SpaceEventService spaceEventService;
+
+    private final List<MvcResult> subscriptions = new ArrayList<>();
+
+    @AfterEach
+    public void unsubscribe() {
+        subscriptions.forEach(result -> result.getRequest().getAsyncContext().complete());
+
+        subscriptions.clear();
+    }
+
+    @Test
+    @WithMockUser
+    public void subscribe_valid() throws Exception {
+        MvcResult subscription = subscribe(SPACE_UUID);
+
+        List<SpaceEventDto> events = readEvents(subscription);
+
+        assertEquals(1, events.size());
+        assertEquals(SPACE_UUID, events.get(0).getSpace());
+        assertEquals(0, events.get(0).getVersion());
+        assertEquals(List.of(), events.get(0).getEvents());
+    }
+
+    @Test
+    @WithMockUser
+    public void subscribe_changeNote() throws Exception {
+        MvcResult subscription = subscribe(SPACE_UUID);
+
+        performChangeNote(CHILD_UUID, "new title", "new content")
+                .andExpect(status().isOk());
+
+        List<SpaceEventDto> events = readEvents(subscription);
+
+        assertEquals(2, events.size());
+        assertEquals(1, events.get(1).getVersion());
+        assertEquals(List.of(NoteEventDto.changed(CHILD_UUID, "new title", NotePatcher.hash("new content"))),
+                events.get(1).getEvents());
+    }
+
+    @Test
+    @WithMockUser
+    public void subscribe_changeNoteSingleUpdate() throws Exception {
+        subscribe(SPACE_UUID);
+
+        commandCounter.reset();
+
+        performChangeNote(CHILD_UUID, CHILD_TITLE, "new content")
+                .andExpect(status().isOk());
+
+        //the version of a subscribed space is fetched while it is incremented
+        assertEquals(2, commandCounter.count());
+        assertEquals(1, commandCounter.count("findAndModify", "note"));
+        assertEquals(1, commandCounter.count("findAndModify", "space"));
+    }
+
+    @Test
+    @WithMockUser
+    public void subscribe_treeChanges() throws Exception {
+        MvcResult subscription = subscribe(SPACE_UUID);
+
+        String created = performCreateNote("created child", PARENT_2_UUID)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        performMoveNote(CHILD_UUID, PARENT_2_UUID)
+                .andExpect(status().isOk());
+
+        performRemoveNote(PARENT_1_UUID, true)
+                .andExpect(status().isOk());
+
+        List<SpaceEventDto> events = readEvents(subscription);
+
+        assertEquals(4, events.size());
+        assertEquals(List.of(0L, 1L, 2L, 3L), events.stream().map(SpaceEventDto::getVersion).toList());
+        assertEquals(List.of(NoteEventDto.created(created, PARENT_2_UUID, "created child")), events.get(1).getEvents());
+        assertEquals(List.of(NoteEventDto.moved(CHILD_UUID, PARENT_2_UUID)), events.get(2).getEvents());
+        assertEquals(List.of(NoteEventDto.removed(PARENT_1_UUID, true)), events.get(3).getEvents());
+    }
+
+    @Test
+    @WithMockUser
+    public void subscribe_batch() throws Exception {
+        MvcResult subscription = subscribe(SPACE_UUID);
+
+        performApplyBatch(
+                NoteOperationDto.change(CHILD_UUID, CHILD_TITLE, "new content"),
+                NoteOperationDto.move(CHILD_UUID, PARENT_2_UUID))
+                .andExpect(status().isOk());
+
+        List<SpaceEventDto> events = readEvents(subscription);
+
+        assertEquals(2, events.size());
+        assertEquals(1, events.get(1).getVersion());
+        assertEquals(List.of(
+                NoteEventDto.changed(CHILD_UUID, CHILD_TITLE, NotePatcher.hash("new content")),
+                NoteEventDto.moved(CHILD_UUID, PARENT_2_UUID)), events.get(1).getEvents());
+    }
+
+    @Test
+    @WithMockUser
+    public void subscribe_unsubscribed() throws Exception {
+        MvcResult subscription = subscribe(SPACE_UUID);
+
+        unsubscribe();
+
+        commandCounter.reset();
+
+        performChangeNote(CHILD_UUID, CHILD_TITLE, "new content")
+                .andExpect(status().isOk());
+
+        assertEquals(1, readEvents(subscription).size());
+        assertEquals(1, commandCounter.count("update", "space"));
+    }
+
+    @Test
+    @WithMockUser
+    public void subscribe_versionFailUnsubscribed() throws Exception {
+        assertThrows(IllegalStateException.class, () -> spaceEventService.subscribe(SPACE_UUID, () -> {
+            throw new IllegalStateException();
+        }));
+
+        commandCounter.reset();
+
+        performChangeNote(CHILD_UUID, CHILD_TITLE, "new content")
+                .andExpect(status().isOk());
+
+        assertEquals(1, commandCounter.count("update", "space"));
+    }
+
+    @Test
+    @WithMockUser(DIFFERENT_USER_NAME)
+    public void subscribe_userFail() throws Exception {
+        performSubscribe(SPACE_UUID)
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser
+    public void subscribe_nonExistentFail() throws Exception {
+        performSubscribe("non-existent-space-uuid")
+                .andExpect(status().isNotFound());
+    }
+
+    private MvcResult subscribe(String spaceUuid) throws Exception {
+        MvcResult result = performSubscribe(spaceUuid)
+                .andExpect(request().asyncStarted())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andReturn();
+
+        subscriptions.add(result);
+
+        return result;
+    }
+
+    private ResultActions performSubscribe(String spaceUuid) throws Exception {
+        return performStreaming(get("/space/events?uuid=" + spaceUuid)
+                .accept(MediaType.TEXT_EVENT_STREAM));
+    }
+
+    private List<SpaceEventDto> readEvents(MvcResult result) throws Exception {
+        return result
+                .getResponse()
+                .getContentAsString()
+                .lines()
+                .filter(line -> line.startsWith("data:"))
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line.substring(5), SpaceEventDto.class);
+                    } catch(Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+
+    private ResultActions performChangeNote(String noteUuid, String newTitle, String newContent) throws Exception {
+        return perform(
+                post("/note/change")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteChangeDto
+                                .builder()
+                                .uuid(noteUuid)
+                                .title(newTitle)
+                                .content(newContent)
+                                .build())));
+    }
+
+    private ResultActions performCreateNote(String noteTitle, String parentUuid) throws Exception {
+        return perform(
+                post("/note/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteCreateDto
+                                .builder()
+                                .title(noteTitle)
+                                .parent(NoteHeaderDto
+                                        .builder()
+                                        .uuid(parentUuid)
+                                        .build())
+                                .build())));
+    }
+
+    private ResultActions performMoveNote(String noteUuid, String parentUuid) throws Exception {
+        return perform(
+                post("/note/move")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteMoveDto
+                                .builder()
+                                .uuid(noteUuid)
+                                .parent(NoteHeaderDto
+                                        .builder()
+                                        .uuid(parentUuid)
+                                        .build())
+                                .build())));
+    }
+
+    private ResultActions performRemoveNote(String noteUuid, boolean removeChildren) throws Exception {
+        return perform(
+                delete("/note/remove" +
+                        "?uuid=" + noteUuid +
+                        "&removeChildren=" + removeChildren));
+    }
+
+    private ResultActions performApplyBatch(NoteOperationDto... operations) throws Exception {
+        return perform(
+                post("/note/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteBatchDto
+                                .builder()
+                                .operations(List.of(operations))
+                                .build())));
+    }
+}
@@ -1,17 +1,20 @@
 package me.datafox.noterganizer.server.test.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.datafox.noterganizer.api.dto.SpaceCreateDto;
 import me.datafox.noterganizer.api.dto.UserChangeDto;
 import me.datafox.noterganizer.api.dto.UserDto;
 import me.datafox.noterganizer.api.dto.UserRegisterDto;
 import me.datafox.noterganizer.server.model.AppUser;
 import me.datafox.noterganizer.server.repository.UserRepository;
+import me.datafox.noterganizer.server.service.UserCacheService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
-import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.util.Optional;
@@ -20,15 +23,13 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
  * @author datafox
  */
 public class UserControllerIntegrationTest extends AbstractIntegrationTest {
-    @Autowired
-    private MockMvc mvc;
-
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -38,10 +39,19 @@ public class UserControllerIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MongoCommandCounter commandCounter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserCacheService userCacheService;
+
     @Test
     @WithMockUser
     public void getUser_valid() throws Exception {
-        String result = mvc.perform(
+        String result = perform(
                 get("/user"))
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
@@ -53,6 +63,75 @@ public class UserControllerIntegrationTest extends AbstractIntegrationTest {
         assertEquals(SPACE_UUID, user.getSpaces().get(0).getUuid());
     }
 
+    @Test
+    @WithMockUser
+    public void getUser_notModified() throws Exception {
+        String eTag = perform(get("/user"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        perform(get("/user")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        performCreateSpace("new space")
+                .andExpect(status().isOk());
+
+        String result = perform(get("/user")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(2, objectMapper.readValue(result, UserDto.class).getSpaces().size());
+    }
+
+    @Test
+    @WithMockUser
+    public void getUser_cached() throws Exception {
+        double memo = getCacheRequests("memo");
+        double hit = getCacheRequests("hit");
+        double miss = getCacheRequests("miss");
+
+        commandCounter.reset();
+        performCreateSpace("space 1")
+                .andExpect(status().isOk());
+        performCreateSpace("space 2")
+                .andExpect(status().isOk());
+
+        assertEquals(1, commandCounter.count("find", "appUser"));
+        assertEquals(2, getCacheRequests("memo") - memo);
+        assertEquals(1, getCacheRequests("hit") - hit);
+        assertEquals(1, getCacheRequests("miss") - miss);
+        assertTrue(meterRegistry.get("noterganizer.user.cache.hit.ratio").gauge().value() > 0);
+    }
+
+    @Test
+    @WithMockUser
+    public void changeUser_invalidatesCache() throws Exception {
+        performChangeUser(PASSWORD_RAW, "newPassword")
+                .andExpect(status().isOk());
+
+        performChangeUser("newPassword", "otherPassword")
+                .andExpect(status().isOk());
+
+        AppUser user = assertUserExistsAndGet(USER_NAME);
+
+        assertTrue(passwordEncoder.matches("otherPassword", user.getPassword()));
+    }
+
+    @Test
+    @WithMockUser
+    public void changeUser_cachedUserUnchanged() throws Exception {
+        AppUser cached = userCacheService.getUser(USER_NAME).orElseThrow();
+
+        performChangeUser(PASSWORD_RAW, "newPassword")
+                .andExpect(status().isOk());
+
+        assertTrue(passwordEncoder.matches(PASSWORD_RAW, cached.getPassword()));
+        assertTrue(passwordEncoder.matches("newPassword", userCacheService.getUser(USER_NAME).orElseThrow().getPassword()));
+    }
+
     @Test
     public void registerUser_valid() throws Exception {
         performRegisterUser(NON_EXISTENT_USER_NAME, PASSWORD_RAW)
@@ -103,7 +182,7 @@ public class UserControllerIntegrationTest extends AbstractIntegrationTest {
     }
 
     private ResultActions performRegisterUser(String username, String password) throws Exception {
-        return mvc.perform(
+        return perform(
                 post("/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(UserRegisterDto
@@ -114,7 +193,7 @@ public class UserControllerIntegrationTest extends AbstractIntegrationTest {
     }
 
     private ResultActions performChangeUser(String oldPassword, String newPassword) throws Exception {
-        return mvc.perform(
+        return perform(
                 post("/change")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(UserChangeDto
@@ -124,6 +203,17 @@ public class UserControllerIntegrationTest extends AbstractIntegrationTest {
                                 .build())));
     }
 
+    private ResultActions performCreateSpace(String spaceName) throws Exception {
+        return perform(
+                post("/space/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(SpaceCreateDto.of(spaceName))));
+    }
+
+    private double getCacheRequests(String result) {
+        return meterRegistry.get("noterganizer.user.cache.requests").tag("result", result).counter().count();
+    }
+
     private AppUser assertUserExistsAndGet(String username) {
         Optional<AppUser> user = userRepository.findByUsername(username);
         assertTrue(user.isPresent());
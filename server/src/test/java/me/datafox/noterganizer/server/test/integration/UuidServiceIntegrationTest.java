@@ -0,0 +1,65 @@
+package me.datafox.noterganizer.server.test.integration;
+
+import me.datafox.noterganizer.server.model.Note;
+import me.datafox.noterganizer.server.repository.NoteRepository;
+import me.datafox.noterganizer.server.service.UuidService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author datafox
+ */
+public class UuidServiceIntegrationTest extends AbstractIntegrationTest {
+    @Autowired
+    private UuidService uuidService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private MongoCommandCounter commandCounter;
+
+    @Test
+    public void createUuid_timeOrdered() throws Exception {
+        String first = uuidService.createUuid();
+
+        Thread.sleep(2);
+
+        String second = uuidService.createUuid();
+
+        assertEquals(7, UUID.fromString(first).version());
+        assertEquals(2, UUID.fromString(first).variant());
+        assertTrue(first.compareTo(second) < 0);
+    }
+
+    @Test
+    public void insertWithUniqueUuid_valid() {
+        commandCounter.reset();
+
+        Note note = uuidService.insertWithUniqueUuid(noteRepository, Note
+                .builder()
+                .uuid(uuidService.createUuid())
+                .title("note")
+                .build());
+
+        assertEquals(1, commandCounter.count());
+        assertTrue(noteRepository.existsById(note.getUuid()));
+    }
+
+    @Test
+    public void insertWithUniqueUuid_collision() {
+        Note note = uuidService.insertWithUniqueUuid(noteRepository, Note
+                .builder()
+                .uuid(ROOT_UUID)
+                .title("note")
+                .build());
+
+        assertNotEquals(ROOT_UUID, note.getUuid());
+        assertEquals("note", noteRepository.findById(note.getUuid()).orElseThrow().getTitle());
+        assertEquals(ROOT_TITLE, noteRepository.findById(ROOT_UUID).orElseThrow().getTitle());
+    }
+}